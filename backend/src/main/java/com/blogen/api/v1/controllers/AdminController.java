@@ -0,0 +1,102 @@
+package com.blogen.api.v1.controllers;
+
+import com.blogen.api.v1.model.DuplicateClusterListDTO;
+import com.blogen.api.v1.model.PostActivityListDTO;
+import com.blogen.api.v1.services.AnalyticsService;
+import com.blogen.api.v1.services.DuplicatePostService;
+import com.blogen.api.v1.services.PostExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Controller for administrative operations on Blogen data. The services behind these endpoints
+ * can only be called by Blogen admins.
+ */
+@Tag(name = "Admin", description = "Administrative operations")
+@Slf4j
+@RestController
+@RequestMapping(AdminController.BASE_URL)
+public class AdminController {
+
+    public static final String BASE_URL = "/api/v1/admin";
+
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+
+    private final PostExportService postExportService;
+    private final DuplicatePostService duplicatePostService;
+    private final AnalyticsService analyticsService;
+
+    @Autowired
+    public AdminController(PostExportService postExportService, DuplicatePostService duplicatePostService,
+                           AnalyticsService analyticsService) {
+        this.postExportService = postExportService;
+        this.duplicatePostService = duplicatePostService;
+        this.analyticsService = analyticsService;
+    }
+
+    /**
+     * Streams every thread as newline delimited JSON. The response is written while posts are being read from the
+     * database, so it is never buffered in full.
+     *
+     * @param gzip     - if true, the response body is gzip compressed
+     * @param response - HttpServletResponse the threads are written to
+     * @throws IOException if an error occurs writing the response
+     */
+    @Operation(summary = "Export all posts, one thread per line, as newline delimited JSON")
+    @GetMapping(value = "/posts/export", produces = NDJSON_VALUE)
+    public void exportPosts(@RequestParam(value = "gzip", defaultValue = "false") boolean gzip,
+                            HttpServletResponse response) throws IOException {
+        log.debug("Exporting posts - gzip: {}", gzip);
+        response.setContentType(NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"posts.ndjson" + (gzip ? ".gz\"" : "\""));
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            GZIPOutputStream gzipOut = new GZIPOutputStream(response.getOutputStream());
+            postExportService.exportThreads(gzipOut);
+            gzipOut.finish();
+        } else {
+            OutputStream out = response.getOutputStream();
+            postExportService.exportThreads(out);
+        }
+    }
+
+    @Operation(summary = "List the clusters of parent posts whose titles and texts are near-duplicates of each other, "
+            + "found by scanning every post")
+    @GetMapping(value = "/posts/duplicates", produces = {ApiMediaTypes.JSON})
+    @ResponseStatus(HttpStatus.OK)
+    public DuplicateClusterListDTO getDuplicateClusters() {
+        log.debug("Finding duplicate post clusters");
+        return duplicatePostService.getDuplicateClusters();
+    }
+
+    @Operation(summary = "Get the number of threads started, replies posted and users active in each category, per "
+            + "day or per hour, for a range of days")
+    @GetMapping(value = "/analytics/posts", produces = {ApiMediaTypes.JSON})
+    @ResponseStatus(HttpStatus.OK)
+    public PostActivityListDTO getPostActivity(
+            @RequestParam(value = "from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "granularity", defaultValue = AnalyticsService.GRANULARITY_DAY) String granularity,
+            @RequestParam(value = "category", defaultValue = "-1") Long category) {
+        log.debug("Fetching post activity - from: {}, to: {}, granularity: {}, category: {}", from, to, granularity,
+                category);
+        return analyticsService.getPostActivity(from, to, granularity, category);
+    }
+}
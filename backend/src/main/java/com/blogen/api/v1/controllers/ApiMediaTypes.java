@@ -0,0 +1,21 @@
+package com.blogen.api.v1.controllers;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Media types that the REST API can produce. JSON is the default, clients that ask for CBOR or Smile in their
+ * Accept header get the same DTOs in that binary Jackson format, which is smaller and faster to parse.
+ *
+ * @author Cliff
+ */
+public final class ApiMediaTypes {
+
+    public static final String JSON = MediaType.APPLICATION_JSON_VALUE;
+
+    public static final String CBOR = MediaType.APPLICATION_CBOR_VALUE;
+
+    public static final String SMILE = "application/x-jackson-smile";
+
+    private ApiMediaTypes() {
+    }
+}
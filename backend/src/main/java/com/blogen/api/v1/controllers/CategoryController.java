@@ -11,6 +11,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import javax.validation.Valid;
 
@@ -40,19 +41,24 @@ public class CategoryController {
     }
 
     @Operation(summary = "Get a page of categories")
-    @GetMapping(produces = "application/json")
-    @ResponseStatus(HttpStatus.OK)
+    @GetMapping(produces = {ApiMediaTypes.JSON, ApiMediaTypes.CBOR, ApiMediaTypes.SMILE})
     public CategoryListDTO getCategories(@RequestParam(value = "page", defaultValue = "0") int pageNum,
-                                         @RequestParam(value = "limit", defaultValue = "3") int pageLimit) {
+                                         @RequestParam(value = "limit", defaultValue = "3") int pageLimit,
+                                         ServletWebRequest request) {
         log.debug("Fetching categories - page: {}, limit: {}", pageNum, pageLimit);
+        if (ConditionalRequests.isNotModified(request, categoryService.getCategoriesVersion(pageNum, pageLimit))) {
+            return null;
+        }
         return categoryService.getCategories(pageNum, pageLimit);
     }
 
     @Operation(summary = "Get a specific category by ID")
-    @GetMapping(value = "/{id}", produces = "application/json")
-    @ResponseStatus(HttpStatus.OK)
-    public CategoryDTO getCategory(@PathVariable("id") Long id) {
+    @GetMapping(value = "/{id}", produces = {ApiMediaTypes.JSON, ApiMediaTypes.CBOR, ApiMediaTypes.SMILE})
+    public CategoryDTO getCategory(@PathVariable("id") Long id, ServletWebRequest request) {
         log.debug("Fetching category by ID: {}", id);
+        if (ConditionalRequests.isNotModified(request, categoryService.getCategoryVersion(id))) {
+            return null;
+        }
         return categoryService.getCategory(id);
     }
 
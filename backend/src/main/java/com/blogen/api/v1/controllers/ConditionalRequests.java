@@ -0,0 +1,67 @@
+package com.blogen.api.v1.controllers;
+
+import com.blogen.services.utils.ResourceVersion;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Conditional GET support for controller methods. A method looks up the {@link ResourceVersion} of what it is
+ * about to send, which is cheap, and returns null without building a response body when
+ * {@link #isNotModified(ServletWebRequest, ResourceVersion)} is true.
+ * <p>
+ * The ETag is the tag of the resource plus the format it is sent in, since JSON, CBOR and Smile are different
+ * representations of the same resource. It is strong unless the {@link ResourceVersion} is weak. Methods that use
+ * this must not be annotated with {@code @ResponseStatus}, because that status would replace the 304.
+ *
+ * @author Cliff
+ */
+public final class ConditionalRequests {
+
+    // in the order that content negotiation prefers them when the Accept header allows several
+    private static final List<MediaType> FORMATS = List.of(MediaType.parseMediaType(ApiMediaTypes.JSON),
+            MediaType.parseMediaType(ApiMediaTypes.CBOR), MediaType.parseMediaType(ApiMediaTypes.SMILE));
+
+    private ConditionalRequests() {
+    }
+
+    /**
+     * Sets the ETag, Last-Modified and Vary headers of the response, and checks them against the If-None-Match and
+     * If-Modified-Since headers of the request. If-Modified-Since is only used when there is no If-None-Match.
+     *
+     * @param request the current request
+     * @param version the version of the resource that would be sent
+     * @return true if the response status was set to 304 and nothing else should be written
+     */
+    public static boolean isNotModified(ServletWebRequest request, ResourceVersion version) {
+        if (request.getResponse() != null) {
+            request.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        String etag = (version.isWeak() ? "W/" : "") + "\"" + version.getTag() + "-" + formatOf(request) + "\"";
+        if (version.getLastModified() == null) {
+            return request.checkNotModified(etag);
+        }
+        long lastModified = version.getLastModified().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return request.checkNotModified(etag, lastModified);
+    }
+
+    /**
+     * @return the subtype of the format the response will be written in, picked from the Accept header the same way
+     * content negotiation does
+     */
+    private static String formatOf(ServletWebRequest request) {
+        List<MediaType> accepted = MediaType.parseMediaTypes(request.getHeader(HttpHeaders.ACCEPT));
+        MediaType.sortBySpecificityAndQuality(accepted);
+        for (MediaType type : accepted) {
+            for (MediaType format : FORMATS) {
+                if (type.isCompatibleWith(format)) {
+                    return format.getSubtype();
+                }
+            }
+        }
+        return FORMATS.get(0).getSubtype();
+    }
+}
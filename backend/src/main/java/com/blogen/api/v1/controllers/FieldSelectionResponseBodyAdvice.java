@@ -0,0 +1,46 @@
+package com.blogen.api.v1.controllers;
+
+import com.blogen.services.utils.FieldSelection;
+import com.blogen.services.utils.FieldSelectionFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+/**
+ * Applies the sparse fieldset of a request to the response of a {@link SelectableFields} controller method, so
+ * that Jackson only writes the selected properties.
+ *
+ * @author Cliff
+ */
+@ControllerAdvice("com.blogen.api.v1.controllers")
+public class FieldSelectionResponseBodyAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return super.supports(returnType, converterType) && returnType.hasMethodAnnotation(SelectableFields.class);
+    }
+
+    @Override
+    protected void beforeBodyWriteInternal(MappingJacksonValue bodyContainer, MediaType contentType,
+                                           MethodParameter returnType, ServerHttpRequest request,
+                                           ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest)) {
+            return;
+        }
+        String fields = ((ServletServerHttpRequest) request).getServletRequest()
+                .getParameter(SelectableFields.FIELDS_PARAM);
+        Class<?> dtoType = returnType.getMethodAnnotation(SelectableFields.class).value();
+        FieldSelection selection = FieldSelection.parse(fields, dtoType);
+        if (!selection.isAll()) {
+            bodyContainer.setFilters(new SimpleFilterProvider()
+                    .addFilter(FieldSelectionFilter.FILTER_ID, new FieldSelectionFilter(selection, dtoType)));
+        }
+    }
+}
@@ -1,19 +1,37 @@
 package com.blogen.api.v1.controllers;
 
+import com.blogen.api.v1.model.NormalizedPostListDTO;
+import com.blogen.api.v1.model.PostChangesDTO;
 import com.blogen.api.v1.model.PostDTO;
+import com.blogen.api.v1.model.PostEventDTO;
+import com.blogen.api.v1.model.PostLikesDTO;
 import com.blogen.api.v1.model.PostListDTO;
 import com.blogen.api.v1.model.PostRequestDTO;
+import com.blogen.api.v1.model.PostSliceDTO;
+import com.blogen.api.v1.services.LikeService;
 import com.blogen.api.v1.services.PostService;
 import com.blogen.api.v1.validators.PostRequestDtoValidator;
+import com.blogen.exceptions.BadRequestException;
+import com.blogen.services.utils.FieldSelection;
+import com.blogen.services.utils.PostEventDispatcher;
+import com.blogen.services.utils.ResourceVersion;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
 
 /**
  * REST Controller for working with {@link com.blogen.domain.Post}
@@ -26,13 +44,29 @@ public class PostController {
 
     public static final String BASE_URL = "/api/v1/posts";
 
+    // values of the sort request parameter of getPosts
+    public static final String SORT_BY_CREATED = "created";
+    public static final String SORT_BY_ACTIVITY = "activity";
+    public static final String SORT_BY_TRENDING = "trending";
+
+    // request parameter that selects the normalized form of a post list
+    public static final String NORMALIZED_PARAM = "normalized=true";
+
+    // header that an EventSource sends, when it reconnects, with the id of the last event it received
+    public static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
     private final PostService postService;
     private final PostRequestDtoValidator postRequestDtoValidator;
+    private final PostEventDispatcher postEventDispatcher;
+    private final LikeService likeService;
 
     @Autowired
-    public PostController(PostRequestDtoValidator postRequestDtoValidator, PostService postService) {
+    public PostController(PostRequestDtoValidator postRequestDtoValidator, PostService postService,
+                          PostEventDispatcher postEventDispatcher, LikeService likeService) {
         this.postService = postService;
         this.postRequestDtoValidator = postRequestDtoValidator;
+        this.postEventDispatcher = postEventDispatcher;
+        this.likeService = likeService;
     }
 
     @InitBinder("postRequestDTO")
@@ -40,31 +74,208 @@ public class PostController {
         binder.addValidators(postRequestDtoValidator);
     }
 
-    @Operation(summary = "Get a list of parent posts and any child posts belonging to a parent")
-    @GetMapping(produces = "application/json")
+    @Operation(summary = "Get a list of parent posts and any child posts belonging to a parent. Posts are sorted by "
+            + "creation time, by their latest reply when sort=" + SORT_BY_ACTIVITY + ", or by their recent replies, "
+            + "views and likes when sort=" + SORT_BY_TRENDING + ". Pass a comma separated "
+            + "list of post properties as 'fields', e.g. id,title,user.userName, to get only those properties")
+    @GetMapping(produces = {ApiMediaTypes.JSON, ApiMediaTypes.CBOR, ApiMediaTypes.SMILE})
     @ResponseStatus(HttpStatus.OK)
+    @SelectableFields(PostDTO.class)
     public PostListDTO getPosts(@RequestParam(value = "limit", defaultValue = "5") int limit,
                                 @RequestParam(value = "page", defaultValue = "0") int page,
-                                @RequestParam(value = "category", defaultValue = "-1") Long category) {
-        log.debug("Fetching posts - page: {}, limit: {}, category: {}", page, limit, category);
-        return postService.getPosts(category, page, limit);
+                                @RequestParam(value = "category", defaultValue = "-1") Long category,
+                                @RequestParam(value = "sort", defaultValue = SORT_BY_CREATED) String sort,
+                                @RequestParam(value = SelectableFields.FIELDS_PARAM, required = false) String fields) {
+        log.debug("Fetching posts - page: {}, limit: {}, category: {}, sort: {}, fields: {}", page, limit, category,
+                sort, fields);
+        FieldSelection selection = FieldSelection.parse(fields, PostDTO.class);
+        // trending posts are read by id from their ranking, the selected fields are only applied to the response
+        if (selection.isAll() || SORT_BY_TRENDING.equals(sort)) {
+            return findPosts(limit, page, category, sort);
+        }
+        validateSort(sort);
+        String sortProperty = SORT_BY_ACTIVITY.equals(sort) ? "lastActivity" : "created";
+        return postService.getPostsWithFields(null, category, sortProperty, page, limit, selection);
+    }
+
+    @Operation(summary = "Get a list of parent posts, as getPosts does, but with the users and categories of the "
+            + "posts sent once, in dictionaries keyed by id, instead of being repeated in every post")
+    @GetMapping(params = NORMALIZED_PARAM, produces = {ApiMediaTypes.JSON, ApiMediaTypes.CBOR, ApiMediaTypes.SMILE})
+    @ResponseStatus(HttpStatus.OK)
+    public NormalizedPostListDTO getNormalizedPosts(@RequestParam(value = "limit", defaultValue = "5") int limit,
+                                                    @RequestParam(value = "page", defaultValue = "0") int page,
+                                                    @RequestParam(value = "category", defaultValue = "-1") Long category,
+                                                    @RequestParam(value = "sort", defaultValue = SORT_BY_CREATED) String sort) {
+        log.debug("Fetching normalized posts - page: {}, limit: {}, category: {}, sort: {}", page, limit, category, sort);
+        return postService.normalizePostList(findPosts(limit, page, category, sort));
+    }
+
+    private PostListDTO findPosts(int limit, int page, Long category, String sort) {
+        validateSort(sort);
+        if (SORT_BY_TRENDING.equals(sort)) {
+            return postService.getTrendingPosts(category, page, limit);
+        }
+        return SORT_BY_ACTIVITY.equals(sort) ? postService.getPostsByActivity(category, page, limit)
+                : postService.getPosts(category, page, limit);
+    }
+
+    private static void validateSort(String sort) {
+        if (!SORT_BY_CREATED.equals(sort) && !SORT_BY_ACTIVITY.equals(sort) && !SORT_BY_TRENDING.equals(sort)) {
+            throw new BadRequestException("Invalid sort: " + sort + ", must be one of: "
+                    + SORT_BY_CREATED + ", " + SORT_BY_ACTIVITY + ", " + SORT_BY_TRENDING);
+        }
     }
 
     @Operation(summary = "Search posts for the passed in text")
-    @GetMapping(value = "/search/{text}", produces = "application/json")
+    @GetMapping(value = "/search/{text}", produces = {ApiMediaTypes.JSON, ApiMediaTypes.CBOR, ApiMediaTypes.SMILE})
     @ResponseStatus(HttpStatus.OK)
+    @SelectableFields(PostDTO.class)
     public PostListDTO searchPosts(@PathVariable("text") String text,
-                                   @RequestParam(value = "limit", defaultValue = "5") int limit) {
-        log.debug("Searching posts - limit: {}, text: {}", limit, text);
+                                   @RequestParam(value = "limit", defaultValue = "5") int limit,
+                                   @RequestParam(value = SelectableFields.FIELDS_PARAM, required = false) String fields) {
+        log.debug("Searching posts - limit: {}, text: {}, fields: {}", limit, text, fields);
         return postService.searchPosts(text, limit);
     }
 
-    @Operation(summary = "Get a post by ID")
-    @GetMapping(value = "/{id}", produces = "application/json")
+    @Operation(summary = "Search posts for the passed in text, with the users and categories of the posts in "
+            + "dictionaries keyed by id")
+    @GetMapping(value = "/search/{text}", params = NORMALIZED_PARAM,
+            produces = {ApiMediaTypes.JSON, ApiMediaTypes.CBOR, ApiMediaTypes.SMILE})
+    @ResponseStatus(HttpStatus.OK)
+    public NormalizedPostListDTO searchNormalizedPosts(@PathVariable("text") String text,
+                                                       @RequestParam(value = "limit", defaultValue = "5") int limit) {
+        log.debug("Searching normalized posts - limit: {}, text: {}", limit, text);
+        return postService.normalizePostList(postService.searchPosts(text, limit));
+    }
+
+    @Operation(summary = "Stream post-created, reply-created and post-deleted events as server-sent events, instead "
+            + "of polling for new posts. Pass one or more 'category' ids to only get events of posts in those "
+            + "categories. A client that reconnects with a " + LAST_EVENT_ID_HEADER + " header first gets the recent "
+            + "events it missed, or a " + PostEventDTO.STREAM_RESET + " event if they are no longer kept, after which "
+            + "it resyncs from /changes")
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPostEvents(@RequestParam(value = "category", required = false) List<Long> categories,
+                                       @RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) Long lastEventId) {
+        log.debug("Streaming post events - categories: {}, last event id: {}", categories, lastEventId);
+        return postEventDispatcher.subscribe(categories == null ? null : new HashSet<>(categories), lastEventId);
+    }
+
+    @Operation(summary = "Get the posts created, updated or deleted since 'since', the token returned by the previous "
+            + "call, along with the token to pass next time. Without 'since' only the token of the latest change is "
+            + "returned, to sync from after the posts themselves have been fetched")
+    @GetMapping(value = "/changes", produces = {ApiMediaTypes.JSON, ApiMediaTypes.CBOR, ApiMediaTypes.SMILE})
+    @ResponseStatus(HttpStatus.OK)
+    public PostChangesDTO getPostChanges(@RequestParam(value = "since", required = false) String since,
+                                         @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        log.debug("Fetching post changes - since: {}, limit: {}", since, limit);
+        return postService.getPostChanges(since, limit);
+    }
+
+    @Operation(summary = "Get a post by ID as JSON. A parent post includes all of its child posts. The JSON of a post "
+            + "is cached, so reading a popular thread is cheap")
+    @GetMapping(value = "/{id}", params = {"!replies", "!" + SelectableFields.FIELDS_PARAM}, produces = ApiMediaTypes.JSON)
+    public void getPostJson(@PathVariable("id") Long id, ServletWebRequest request, HttpServletResponse response)
+            throws IOException {
+        log.debug("Fetching post JSON by ID: {}", id);
+        ResourceVersion version = postService.readPostVersion(id);
+        // a client that revalidates its copy of the post has still read it again
+        postService.recordView(id);
+        if (ConditionalRequests.isNotModified(request, version)) {
+            return;
+        }
+        byte[] json = postService.getPostJson(id, version);
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(ApiMediaTypes.JSON);
+        response.setContentLength(json.length);
+        response.getOutputStream().write(json);
+    }
+
+    @Operation(summary = "Get a post by ID. A parent post includes all of its child posts, or only the first "
+            + "'replies' of them when that parameter is given. Pass a comma separated list of post properties as "
+            + "'fields' to get only those properties")
+    @GetMapping(value = "/{id}", produces = {ApiMediaTypes.JSON, ApiMediaTypes.CBOR, ApiMediaTypes.SMILE})
+    @SelectableFields(PostDTO.class)
+    public PostDTO getPost(@PathVariable("id") Long id,
+                           @RequestParam(value = "replies", required = false) Integer replies,
+                           @RequestParam(value = SelectableFields.FIELDS_PARAM, required = false) String fields,
+                           ServletWebRequest request) {
+        log.debug("Fetching post by ID: {}, replies: {}, fields: {}", id, replies, fields);
+        ResourceVersion version = postService.readPostVersion(id);
+        postService.recordView(id);
+        if (ConditionalRequests.isNotModified(request, version)) {
+            return null;
+        }
+        if (!FieldSelection.parse(fields, PostDTO.class).includes("children")) {
+            // don't read child posts that will not be sent
+            return postService.getPost(id, 0);
+        }
+        return (replies == null) ? postService.getPost(id) : postService.getPost(id, replies);
+    }
+
+    @Operation(summary = "Get a slice of the child posts of a parent post, oldest first. Pass the nextCursor of a "
+            + "slice as 'after' to get the slice that follows it")
+    @GetMapping(value = "/{id}/children", produces = {ApiMediaTypes.JSON, ApiMediaTypes.CBOR, ApiMediaTypes.SMILE})
+    @SelectableFields(PostDTO.class)
+    public PostSliceDTO getChildPosts(@PathVariable("id") Long id,
+                                      @RequestParam(value = "after", required = false) String after,
+                                      @RequestParam(value = "limit", defaultValue = "20") int limit,
+                                      @RequestParam(value = SelectableFields.FIELDS_PARAM, required = false) String fields,
+                                      ServletWebRequest request) {
+        log.debug("Fetching child posts - parent ID: {}, after: {}, limit: {}, fields: {}", id, after, limit, fields);
+        // the version of a parent post changes whenever one of its child posts does
+        if (ConditionalRequests.isNotModified(request, postService.readPostVersion(id))) {
+            return null;
+        }
+        return postService.getChildPosts(id, after, limit);
+    }
+
+    @Operation(summary = "Get the parent posts most related to a parent post, the ones whose titles and texts share the "
+            + "most words with it, most related first")
+    @GetMapping(value = "/{id}/related", produces = {ApiMediaTypes.JSON, ApiMediaTypes.CBOR, ApiMediaTypes.SMILE})
+    @ResponseStatus(HttpStatus.OK)
+    @SelectableFields(PostDTO.class)
+    public PostListDTO getRelatedPosts(@PathVariable("id") Long id,
+                                       @RequestParam(value = "limit", defaultValue = "5") int limit,
+                                       @RequestParam(value = SelectableFields.FIELDS_PARAM, required = false) String fields) {
+        log.debug("Fetching related posts - ID: {}, limit: {}, fields: {}", id, limit, fields);
+        return postService.getRelatedPosts(id, limit);
+    }
+
+    @Operation(summary = "Get a post by UUID")
+    @GetMapping(value = "/uuid/{uuid}", produces = {ApiMediaTypes.JSON, ApiMediaTypes.CBOR, ApiMediaTypes.SMILE})
+    @SelectableFields(PostDTO.class)
+    public PostDTO getPostByUuid(@PathVariable("uuid") UUID uuid,
+                                 @RequestParam(value = SelectableFields.FIELDS_PARAM, required = false) String fields,
+                                 ServletWebRequest request) {
+        log.debug("Fetching post by UUID: {}, fields: {}", uuid, fields);
+        if (ConditionalRequests.isNotModified(request, postService.readPostVersion(uuid))) {
+            return null;
+        }
+        return postService.getPostByUuid(uuid);
+    }
+
+    @Operation(summary = "Get the like count of a post and whether the current user likes it")
+    @GetMapping(value = "/{id}/likes", produces = {ApiMediaTypes.JSON, ApiMediaTypes.CBOR, ApiMediaTypes.SMILE})
+    @ResponseStatus(HttpStatus.OK)
+    public PostLikesDTO getLikes(@PathVariable("id") Long id) {
+        log.debug("Fetching post likes - ID: {}", id);
+        return likeService.getLikes(id);
+    }
+
+    @Operation(summary = "Like a post as the current user. Liking a post twice counts it once")
+    @PutMapping(value = "/{id}/likes", produces = "application/json")
+    @ResponseStatus(HttpStatus.OK)
+    public PostLikesDTO likePost(@PathVariable("id") Long id) {
+        log.debug("Liking post - ID: {}", id);
+        return likeService.likePost(id);
+    }
+
+    @Operation(summary = "Stop liking a post as the current user")
+    @DeleteMapping(value = "/{id}/likes", produces = "application/json")
     @ResponseStatus(HttpStatus.OK)
-    public PostDTO getPost(@PathVariable("id") Long id) {
-        log.debug("Fetching post by ID: {}", id);
-        return postService.getPost(id);
+    public PostLikesDTO unlikePost(@PathVariable("id") Long id) {
+        log.debug("Unliking post - ID: {}", id);
+        return likeService.unlikePost(id);
     }
 
     @Operation(summary = "Create a new parent post")
@@ -8,6 +8,7 @@ import com.blogen.exceptions.NotFoundException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.TypeMismatchException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -63,6 +64,13 @@ public class RestControllerExceptionHandler extends ResponseEntityExceptionHandl
         return buildResponseEntity(HttpStatus.UNPROCESSABLE_ENTITY, exception.getMessage());
     }
 
+    @ExceptionHandler({ OptimisticLockingFailureException.class })
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ResponseEntity<Object> handleOptimisticLockingFailureException(Exception exception, WebRequest request) {
+        log.error("OptimisticLockingFailureException: {}", exception.getMessage());
+        return buildResponseEntity(HttpStatus.CONFLICT, "The resource was changed by another request, please retry");
+    }
+
     @Override
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     protected ResponseEntity<Object> handleTypeMismatch(TypeMismatchException ex, HttpHeaders headers, HttpStatus status, WebRequest request) {
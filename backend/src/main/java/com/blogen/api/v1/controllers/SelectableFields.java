@@ -0,0 +1,30 @@
+package com.blogen.api.v1.controllers;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a controller method whose response supports sparse fieldsets. When the request has a
+ * {@value #FIELDS_PARAM} parameter, only the selected properties of each DTO of the given type are written to the
+ * response, see {@link FieldSelectionResponseBodyAdvice}.
+ *
+ * @author Cliff
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SelectableFields {
+
+    /**
+     * name of the request parameter holding the comma separated list of selected properties
+     */
+    String FIELDS_PARAM = "fields";
+
+    /**
+     * @return the DTO type that the selected property paths are relative to
+     */
+    Class<?> value();
+}
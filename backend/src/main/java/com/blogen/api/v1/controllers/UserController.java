@@ -1,15 +1,20 @@
 package com.blogen.api.v1.controllers;
 
+import com.blogen.api.v1.model.NormalizedPostListDTO;
 import com.blogen.api.v1.model.PasswordRequestDTO;
+import com.blogen.api.v1.model.PostDTO;
 import com.blogen.api.v1.model.PostListDTO;
+import com.blogen.api.v1.model.PostSliceDTO;
 import com.blogen.api.v1.model.UserDTO;
 import com.blogen.api.v1.model.UserListDTO;
+import com.blogen.api.v1.services.FeedService;
 import com.blogen.api.v1.services.PostService;
 import com.blogen.api.v1.services.UserService;
 import com.blogen.api.v1.validators.PasswordValidator;
 import com.blogen.api.v1.validators.UpdateUserValidator;
 import com.blogen.domain.User;
 import com.blogen.exceptions.BadRequestException;
+import com.blogen.services.utils.FieldSelection;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
@@ -36,16 +41,19 @@ public class UserController {
     private final PostService postService;
     private final UpdateUserValidator updateUserValidator;
     private final PasswordValidator passwordValidator;
+    private final FeedService feedService;
 
     @Autowired
     public UserController(UserService userService,
                           PostService postService,
                           UpdateUserValidator updateUserValidator,
-                          PasswordValidator passwordValidator) {
+                          PasswordValidator passwordValidator,
+                          FeedService feedService) {
         this.userService = userService;
         this.postService = postService;
         this.updateUserValidator = updateUserValidator;
         this.passwordValidator = passwordValidator;
+        this.feedService = feedService;
     }
 
     @InitBinder("userDTO")
@@ -65,31 +73,85 @@ public class UserController {
         return userService.getUser(Long.parseLong(authentication.getName()));
     }
 
-    @Operation(summary = "Get a list of all users")
-    @GetMapping(produces = "application/json")
+    @Operation(summary = "Get a list of all users. Pass a comma separated list of user properties as 'fields' to get "
+            + "only those properties")
+    @GetMapping(produces = {ApiMediaTypes.JSON, ApiMediaTypes.CBOR, ApiMediaTypes.SMILE})
     @ResponseStatus(HttpStatus.OK)
-    public UserListDTO getAllUsers() {
-        log.debug("Getting all users");
+    @SelectableFields(UserDTO.class)
+    public UserListDTO getAllUsers(@RequestParam(value = SelectableFields.FIELDS_PARAM, required = false) String fields) {
+        log.debug("Getting all users - fields: {}", fields);
         return userService.getAllUsers();
     }
 
     @Operation(summary = "Get a specific user by ID")
-    @GetMapping(value = "/{id}", produces = "application/json")
+    @GetMapping(value = "/{id}", produces = {ApiMediaTypes.JSON, ApiMediaTypes.CBOR, ApiMediaTypes.SMILE})
     @ResponseStatus(HttpStatus.OK)
-    public UserDTO getUser(@PathVariable("id") Long id) {
-        log.debug("Get user by ID: {}", id);
+    @SelectableFields(UserDTO.class)
+    public UserDTO getUser(@PathVariable("id") Long id,
+                           @RequestParam(value = SelectableFields.FIELDS_PARAM, required = false) String fields) {
+        log.debug("Get user by ID: {}, fields: {}", id, fields);
         return userService.getUser(id);
     }
 
-    @Operation(summary = "Get posts made by a user")
-    @GetMapping(value = "/{id}/posts", produces = "application/json")
+    @Operation(summary = "Get posts made by a user. Pass a comma separated list of post properties as 'fields' to get "
+            + "only those properties")
+    @GetMapping(value = "/{id}/posts", produces = {ApiMediaTypes.JSON, ApiMediaTypes.CBOR, ApiMediaTypes.SMILE})
     @ResponseStatus(HttpStatus.OK)
+    @SelectableFields(PostDTO.class)
     public PostListDTO getUserPosts(@PathVariable("id") Long id,
                                     @RequestParam(value = "page", defaultValue = "0") Integer page,
                                     @RequestParam(value = "limit", defaultValue = "5") Integer limit,
-                                    @RequestParam(value = "category", defaultValue = "-1") Long category) {
-        log.debug("Get user posts - ID: {}, page: {}, limit: {}, category: {}", id, page, limit, category);
-        return postService.getPostsForUser(id, category, page, limit);
+                                    @RequestParam(value = "category", defaultValue = "-1") Long category,
+                                    @RequestParam(value = SelectableFields.FIELDS_PARAM, required = false) String fields) {
+        log.debug("Get user posts - ID: {}, page: {}, limit: {}, category: {}, fields: {}", id, page, limit, category,
+                fields);
+        FieldSelection selection = FieldSelection.parse(fields, PostDTO.class);
+        if (selection.isAll()) {
+            return postService.getPostsForUser(id, category, page, limit);
+        }
+        return postService.getPostsWithFields(id, category, "created", page, limit, selection);
+    }
+
+    @Operation(summary = "Get posts made by a user, with the users and categories of the posts in dictionaries "
+            + "keyed by id")
+    @GetMapping(value = "/{id}/posts", params = PostController.NORMALIZED_PARAM,
+            produces = {ApiMediaTypes.JSON, ApiMediaTypes.CBOR, ApiMediaTypes.SMILE})
+    @ResponseStatus(HttpStatus.OK)
+    public NormalizedPostListDTO getNormalizedUserPosts(@PathVariable("id") Long id,
+                                                        @RequestParam(value = "page", defaultValue = "0") Integer page,
+                                                        @RequestParam(value = "limit", defaultValue = "5") Integer limit,
+                                                        @RequestParam(value = "category", defaultValue = "-1") Long category) {
+        log.debug("Get normalized user posts - ID: {}, page: {}, limit: {}, category: {}", id, page, limit, category);
+        return postService.normalizePostList(postService.getPostsForUser(id, category, page, limit));
+    }
+
+    @Operation(summary = "Get the home feed of a user: the parent posts of the users they follow, newest first. Pass "
+            + "the nextCursor of a slice as 'after' to get the slice that follows it")
+    @GetMapping(value = "/{id}/feed", produces = {ApiMediaTypes.JSON, ApiMediaTypes.CBOR, ApiMediaTypes.SMILE})
+    @ResponseStatus(HttpStatus.OK)
+    @SelectableFields(PostDTO.class)
+    public PostSliceDTO getFeed(@PathVariable("id") Long id,
+                                @RequestParam(value = "after", required = false) String after,
+                                @RequestParam(value = "limit", defaultValue = "20") int limit,
+                                @RequestParam(value = SelectableFields.FIELDS_PARAM, required = false) String fields) {
+        log.debug("Get user feed - ID: {}, after: {}, limit: {}, fields: {}", id, after, limit, fields);
+        return feedService.getFeed(id, after, limit);
+    }
+
+    @Operation(summary = "Follow a user, so that their posts appear in the feed of the following user")
+    @PutMapping(value = "/{id}/following/{followedId}")
+    @ResponseStatus(HttpStatus.OK)
+    public void follow(@PathVariable("id") Long id, @PathVariable("followedId") Long followedId) {
+        log.debug("Follow user - ID: {}, followed ID: {}", id, followedId);
+        feedService.follow(id, followedId);
+    }
+
+    @Operation(summary = "Stop following a user")
+    @DeleteMapping(value = "/{id}/following/{followedId}")
+    @ResponseStatus(HttpStatus.OK)
+    public void unfollow(@PathVariable("id") Long id, @PathVariable("followedId") Long followedId) {
+        log.debug("Unfollow user - ID: {}, followed ID: {}", id, followedId);
+        feedService.unfollow(id, followedId);
     }
 
     @Operation(summary = "Update field(s) of an existing user")
@@ -2,6 +2,7 @@ package com.blogen.api.v1.controllers;
 
 import com.blogen.api.v1.model.AvatarResponse;
 import com.blogen.services.AvatarService;
+import com.blogen.services.utils.ResourceVersion;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
@@ -9,6 +10,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.List;
 
 /**
  * Controller for retrieving user preferences
@@ -31,14 +35,19 @@ public class UserPrefsController {
     /**
      * Returns a list of all Avatar file names.
      *
-     * @return an AvatarResponse containing a list of avatar image names.
+     * @param request the current request, answered with a 304 if the client already has the current list
+     * @return an AvatarResponse containing a list of avatar image names, or null if the list was not modified
      */
     @Operation(summary = "Returns a list of all Avatar file names")
     @GetMapping(value = "/avatars", produces = "application/json")
-    public AvatarResponse avatarImageFileNames() {
+    public AvatarResponse avatarImageFileNames(ServletWebRequest request) {
         log.debug("Fetching all avatar image file names");
+        List<String> avatars = avatarService.getAllAvatarImageNames();
+        if (ConditionalRequests.isNotModified(request, ResourceVersion.ofContent(avatars))) {
+            return null;
+        }
         return AvatarResponse.builder()
-                .avatars(avatarService.getAllAvatarImageNames())
+                .avatars(avatars)
                 .build();
     }
 }
@@ -41,6 +41,9 @@ public interface CategoryMapper {
     CategoryMapper INSTANCE = Mappers.getMapper(CategoryMapper.class);
 
     @Mapping(target = "categoryUrl", expression = "java(com.blogen.api.v1.services.CategoryService.buildCategoryUrl(category))")
+    @Mapping(target = "postCount", ignore = true)
+    @Mapping(target = "weeklyAuthorCount", ignore = true)
+    @Mapping(target = "latestThread", ignore = true)
     CategoryDTO categoryToCategoryDto(Category category);
 
     Category categoryDtoToCategory(CategoryDTO categoryDTO);
@@ -1,6 +1,9 @@
 package com.blogen.api.v1.mappers;
 import com.blogen.api.v1.model.CategoryDTO;
+import com.blogen.api.v1.model.NormalizedPostDTO;
+import com.blogen.api.v1.model.NormalizedPostListDTO;
 import com.blogen.api.v1.model.PostDTO;
+import com.blogen.api.v1.model.PostListDTO;
 import com.blogen.api.v1.model.PostUserDTO;
 import com.blogen.api.v1.services.UserService;
 import com.blogen.domain.Category;
@@ -8,8 +11,14 @@ import com.blogen.domain.Post;
 import com.blogen.domain.User;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import org.mapstruct.Named;
 import org.mapstruct.factory.Mappers;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * MapStruct mappers for mapping data between {@link com.blogen.domain.Post} and {@link com.blogen.api.v1.model.PostDTO}
  * as well as related entities such as {@link com.blogen.domain.Category} and {@link com.blogen.domain.User}.
@@ -35,14 +44,94 @@ public interface PostMapper {
 
     PostMapper INSTANCE = Mappers.getMapper(PostMapper.class);
 
-    // Map Post to PostDTO
+    // Map Post to PostDTO, the viewer count of a post is only read, and set, when a single post is read
+    @Mapping(target = "viewerCount", ignore = true)
     PostDTO postToPostDto(Post post);
 
-    // Map PostDTO to Post
+    /**
+     * Map a Post to a PostDTO that contains the post excerpt but not the full text, nor the children. Use this for
+     * list views so that neither the (lazily loaded) text of each post nor the children of a thread are ever fetched,
+     * the reply summary of a thread stands in for its children.
+     *
+     * @param post the post to map
+     * @return a PostDTO with null text and children fields
+     */
+    @Named("summary")
+    @Mapping(target = "text", ignore = true)
+    @Mapping(target = "children", ignore = true)
+    @Mapping(target = "viewerCount", ignore = true)
+    PostDTO postToPostSummaryDto(Post post);
+
+    /**
+     * Map a Post, including its text, to a PostDTO without mapping its children. Use this when the children of a
+     * parent post are read separately, a page at a time, so that mapping the post never loads all of them.
+     *
+     * @param post the post to map
+     * @return a PostDTO with a null children field
+     */
+    @Named("withoutChildren")
+    @Mapping(target = "children", ignore = true)
+    @Mapping(target = "viewerCount", ignore = true)
+    PostDTO postToPostDtoWithoutChildren(Post post);
+
+    // Map PostDTO to Post, a post keeps the uuid it was generated with, its thread summary is maintained by Post and
+    // its view and like counts by PostViewCounter and PostLikeCounter, and its version by JPA
+    @Mapping(target = "uuid", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "replyCount", ignore = true)
+    @Mapping(target = "lastReplyAt", ignore = true)
+    @Mapping(target = "lastReplier", ignore = true)
+    @Mapping(target = "lastReply", ignore = true)
+    @Mapping(target = "lastActivity", ignore = true)
+    @Mapping(target = "viewCount", ignore = true)
+    @Mapping(target = "likeCount", ignore = true)
     Post postDtoToPost(PostDTO postDTO);
 
+    // Map PostDTO, and its children, to NormalizedPostDTOs that refer to their user and category by id
+    @Mapping(target = "userId", source = "user.id")
+    @Mapping(target = "categoryId", source = "category.id")
+    @Mapping(target = "lastReplierId", source = "lastReplier.id")
+    NormalizedPostDTO postDtoToNormalizedPostDto(PostDTO postDTO);
+
+    /**
+     * Normalize a list of posts. Each post, and each of its children, refers to its user, category and last replier
+     * by id, and every referenced user and category is put, once, in the dictionaries of the returned list.
+     *
+     * @param postListDTO the posts to normalize
+     * @return the normalized posts, with the same page info
+     */
+    default NormalizedPostListDTO postListDtoToNormalizedPostListDto(PostListDTO postListDTO) {
+        Map<Long, PostUserDTO> users = new LinkedHashMap<>();
+        Map<Long, CategoryDTO> categories = new LinkedHashMap<>();
+        List<NormalizedPostDTO> posts = new ArrayList<>();
+        for (PostDTO postDTO : postListDTO.getPosts()) {
+            collectReferences(postDTO, users, categories);
+            posts.add(postDtoToNormalizedPostDto(postDTO));
+        }
+        return new NormalizedPostListDTO(posts, users, categories, postListDTO.getPageInfo());
+    }
+
+    private static void collectReferences(PostDTO postDTO, Map<Long, PostUserDTO> users,
+                                          Map<Long, CategoryDTO> categories) {
+        if (postDTO.getUser() != null) {
+            users.putIfAbsent(postDTO.getUser().getId(), postDTO.getUser());
+        }
+        if (postDTO.getLastReplier() != null) {
+            users.putIfAbsent(postDTO.getLastReplier().getId(), postDTO.getLastReplier());
+        }
+        if (postDTO.getCategory() != null) {
+            categories.putIfAbsent(postDTO.getCategory().getId(), postDTO.getCategory());
+        }
+        if (postDTO.getChildren() != null) {
+            postDTO.getChildren().forEach(child -> collectReferences(child, users, categories));
+        }
+    }
+
     // Map Category to CategoryDTO with custom URL mapping
     @Mapping(target = "categoryUrl", expression = "java(com.blogen.api.v1.services.CategoryService.buildCategoryUrl(category))")
+    @Mapping(target = "postCount", ignore = true)
+    @Mapping(target = "weeklyAuthorCount", ignore = true)
+    @Mapping(target = "latestThread", ignore = true)
     CategoryDTO categoryToCategoryDto(Category category);
 
     // Map CategoryDTO to Category
@@ -50,6 +139,9 @@ public interface PostMapper {
 
     // Custom mapping from User to PostUserDTO
     default PostUserDTO userToPostUserDto(User user) {
+        if (user == null) {
+            return null;
+        }
         PostUserDTO postUserDTO = new PostUserDTO();
         postUserDTO.setId(user.getId());
         postUserDTO.setUserName(user.getUserName());
@@ -38,15 +38,36 @@ public interface PostRequestMapper {
     @Mapping(target = "categoryId", source = "category.id")
     PostRequestDTO postToPostRequestDto(Post post);
 
-    // Map PostRequestDTO to Post
+    // Map PostRequestDTO to Post, the excerpt of a post is set along with its text and its thread summary is
+    // maintained by Post. Its version is maintained by JPA, and its view and like counts by PostViewCounter and
+    // PostLikeCounter
     @Mapping(target = "category.id", source = "categoryId")
+    @Mapping(target = "excerpt", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "replyCount", ignore = true)
+    @Mapping(target = "lastReplyAt", ignore = true)
+    @Mapping(target = "lastReplier", ignore = true)
+    @Mapping(target = "lastReply", ignore = true)
+    @Mapping(target = "lastActivity", ignore = true)
+    @Mapping(target = "viewCount", ignore = true)
+    @Mapping(target = "likeCount", ignore = true)
     Post postRequestDtoToPost(PostRequestDTO postDTO);
 
     /**
-     * Updates the given post object with data from the given PostRequestDTO.
+     * Updates the given post object with data from the given PostRequestDTO. Only the fields of the request are
+     * updated, see {@link #postRequestDtoToPost(PostRequestDTO)}.
      *
      * @param requestDTO the PostRequestDTO containing the updated data
      * @param post the Post entity to be updated
      */
+    @Mapping(target = "excerpt", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "replyCount", ignore = true)
+    @Mapping(target = "lastReplyAt", ignore = true)
+    @Mapping(target = "lastReplier", ignore = true)
+    @Mapping(target = "lastReply", ignore = true)
+    @Mapping(target = "lastActivity", ignore = true)
+    @Mapping(target = "viewCount", ignore = true)
+    @Mapping(target = "likeCount", ignore = true)
     void updatePostFromPostRequestDTO(PostRequestDTO requestDTO, @MappingTarget Post post);
 }
\ No newline at end of file
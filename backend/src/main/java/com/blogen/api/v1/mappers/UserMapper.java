@@ -43,6 +43,8 @@ public interface UserMapper {
     @Mapping(target = "avatarImage", source = "userPrefs.avatar.fileName")
     @Mapping(target = "userUrl", expression = "java(com.blogen.api.v1.services.UserService.buildUserUrl(user))")
     @Mapping(target = "password", constant = "")
+    @Mapping(target = "postCount", ignore = true)
+    @Mapping(target = "categoryPostCounts", ignore = true)
     UserDTO userToUserDto(User user);
 
     // Map UserDTO to User
@@ -25,4 +25,13 @@ public class CategoryDTO {
 
     @Schema(description = "URL of this Category", accessMode = Schema.AccessMode.READ_ONLY, example = "/api/v1/categories/4")
     private String categoryUrl;
+
+    @Schema(description = "number of posts started in this Category, not counting replies. Null when the Category is part of a post", accessMode = Schema.AccessMode.READ_ONLY, example = "42")
+    private Long postCount;
+
+    @Schema(description = "approximate number of distinct users that started a thread or replied in this Category this week, starting on Monday. Within 4.6% of the true count 95% of the time. Null when the Category is part of a post", accessMode = Schema.AccessMode.READ_ONLY, example = "17")
+    private Long weeklyAuthorCount;
+
+    @Schema(description = "the newest thread started or edited in this Category. Null if it has none, or when the Category is part of a post", accessMode = Schema.AccessMode.READ_ONLY)
+    private LatestThreadDTO latestThread;
 }
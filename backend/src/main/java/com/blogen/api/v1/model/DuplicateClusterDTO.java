@@ -0,0 +1,29 @@
+package com.blogen.api.v1.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object for a group of parent posts whose titles and texts are near-duplicates of each other
+ *
+ * @author Cliff
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DuplicateClusterDTO {
+
+    @Schema(description = "IDs of the posts, in ascending order", accessMode = Schema.AccessMode.READ_ONLY,
+            example = "[3, 17, 42]")
+    private List<Long> postIds;
+
+    @Schema(description = "urls that identify the posts, in the order of their IDs", accessMode = Schema.AccessMode.READ_ONLY,
+            example = "[\"/api/v1/posts/3\", \"/api/v1/posts/17\", \"/api/v1/posts/42\"]")
+    private List<String> postUrls;
+}
@@ -0,0 +1,24 @@
+package com.blogen.api.v1.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.List;
+
+/**
+ * Wrapper object used to hold a list of {@link DuplicateClusterDTO}
+ *
+ * @author Cliff
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@XmlRootElement
+public class DuplicateClusterListDTO {
+
+    @Schema(description = "clusters of near-duplicate posts, largest first", accessMode = Schema.AccessMode.READ_ONLY)
+    List<DuplicateClusterDTO> clusters;
+}
@@ -0,0 +1,24 @@
+package com.blogen.api.v1.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for a key, such as a user or a thread, that was counted often during a window of time
+ *
+ * @author Cliff
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HeavyHitterDTO {
+
+    @Schema(description = "ID of the user or post", accessMode = Schema.AccessMode.READ_ONLY, example = "42")
+    private Long id;
+
+    @Schema(description = "estimated count during the window, never less than the true count",
+            accessMode = Schema.AccessMode.READ_ONLY, example = "120")
+    private long count;
+}
@@ -0,0 +1,33 @@
+package com.blogen.api.v1.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Wrapper object used to hold the {@link HeavyHitterDTO}s of a window of time, most counted first
+ *
+ * @author Cliff
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HeavyHitterListDTO {
+
+    @Schema(description = "length of the window in seconds", accessMode = Schema.AccessMode.READ_ONLY, example = "3600")
+    private long windowSeconds;
+
+    @Schema(description = "number of times anything was counted during the window", accessMode = Schema.AccessMode.READ_ONLY,
+            example = "5200")
+    private long totalCount;
+
+    @Schema(description = "the amount by which a count may be too high, with a probability of at least 98%",
+            accessMode = Schema.AccessMode.READ_ONLY, example = "7")
+    private long maxOvercount;
+
+    @Schema(description = "the most counted users or posts, most counted first", accessMode = Schema.AccessMode.READ_ONLY)
+    private List<HeavyHitterDTO> hitters;
+}
@@ -0,0 +1,33 @@
+package com.blogen.api.v1.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object summarizing the newest thread of a {@link com.blogen.domain.Category}
+ *
+ * @author Cliff
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LatestThreadDTO {
+
+    @Schema(description = "ID of the parent post of the thread", accessMode = Schema.AccessMode.READ_ONLY, example = "43")
+    private Long id;
+
+    @Schema(description = "title of the parent post", accessMode = Schema.AccessMode.READ_ONLY, example = "Some Amazing Title")
+    private String title;
+
+    @Schema(description = "ISO8601 date of when the parent post was created or last edited", accessMode = Schema.AccessMode.READ_ONLY)
+    private LocalDateTime created;
+
+    @Schema(description = "URL that identifies the parent post", accessMode = Schema.AccessMode.READ_ONLY, example = "/api/v1/posts/43")
+    private String postUrl;
+}
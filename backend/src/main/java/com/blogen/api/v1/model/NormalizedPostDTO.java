@@ -0,0 +1,68 @@
+package com.blogen.api.v1.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Data Transfer Object for Blogen {@link com.blogen.domain.Post} data that refers to its user, category and last
+ * replier by id, instead of embedding them. The referenced users and categories are sent once per response, in the
+ * dictionaries of a {@link NormalizedPostListDTO}
+ *
+ * @author Cliff
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NormalizedPostDTO {
+
+    @Schema(description = "Post ID", accessMode = Schema.AccessMode.READ_ONLY, example = "42")
+    private Long id;
+
+    @Schema(description = "unique, time-ordered, identifier of the post", accessMode = Schema.AccessMode.READ_ONLY, example = "01595982-f600-7099-b81a-eb871da2e7a6")
+    private UUID uuid;
+
+    @Schema(description = "title of the post", accessMode = Schema.AccessMode.READ_ONLY, example = "Some Amazing Title")
+    private String title;
+
+    @Schema(description = "text of the post, only included when a single post is requested", accessMode = Schema.AccessMode.READ_ONLY, example = "text of the post")
+    private String text;
+
+    @Schema(description = "a short summary of the post text", accessMode = Schema.AccessMode.READ_ONLY, example = "text of the...")
+    private String excerpt;
+
+    @Schema(description = "url to an image on the web", accessMode = Schema.AccessMode.READ_ONLY, example = "http://lorempixe/200/400/abstract")
+    private String imageUrl;
+
+    @Schema(description = "id of the category this post belongs to, a key of the categories dictionary", accessMode = Schema.AccessMode.READ_ONLY, example = "4")
+    private Long categoryId;
+
+    @Schema(description = "id of the user who created this post, a key of the users dictionary", accessMode = Schema.AccessMode.READ_ONLY, example = "25")
+    private Long userId;
+
+    @Schema(description = "ISO8601 date of when this post was created", accessMode = Schema.AccessMode.READ_ONLY)
+    private LocalDateTime created;
+
+    @Schema(description = "URL that identifies this post", accessMode = Schema.AccessMode.READ_ONLY, example = "/api/v1/posts/43")
+    private String postUrl;
+
+    @Schema(description = "URL that identifies the parent of this post, will be null if the post is a parent", accessMode = Schema.AccessMode.READ_ONLY, example = "/api/v1/posts/40")
+    private String parentPostUrl;
+
+    @Schema(description = "if this is a parent post, contains its child posts", accessMode = Schema.AccessMode.READ_ONLY)
+    private List<NormalizedPostDTO> children;
+
+    @Schema(description = "number of replies to a parent post", accessMode = Schema.AccessMode.READ_ONLY, example = "3")
+    private int replyCount;
+
+    @Schema(description = "ISO8601 date of the latest reply to a parent post, null if it has no replies", accessMode = Schema.AccessMode.READ_ONLY)
+    private LocalDateTime lastReplyAt;
+
+    @Schema(description = "id of the user who made the latest reply to a parent post, a key of the users dictionary", accessMode = Schema.AccessMode.READ_ONLY, example = "23")
+    private Long lastReplierId;
+}
@@ -0,0 +1,35 @@
+package com.blogen.api.v1.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wrapper object used to hold a list of {@link NormalizedPostDTO}, along with every user and category that the
+ * posts refer to. Each user and category appears once, no matter how many posts refer to it.
+ *
+ * @author Cliff
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@XmlRootElement
+public class NormalizedPostListDTO {
+
+    @Schema(description = "container for normalized postDTO", accessMode = Schema.AccessMode.READ_ONLY)
+    List<NormalizedPostDTO> posts;
+
+    @Schema(description = "the users referred to by the posts, keyed by user id", accessMode = Schema.AccessMode.READ_ONLY)
+    Map<Long, PostUserDTO> users;
+
+    @Schema(description = "the categories referred to by the posts, keyed by category id", accessMode = Schema.AccessMode.READ_ONLY)
+    Map<Long, CategoryDTO> categories;
+
+    @Schema(description = "container for a PageInfoResponse", accessMode = Schema.AccessMode.READ_ONLY)
+    PageInfoResponse pageInfo;
+}
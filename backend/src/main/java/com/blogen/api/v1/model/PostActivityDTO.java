@@ -0,0 +1,41 @@
+package com.blogen.api.v1.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object for the posting activity in one category during one hour or one day
+ *
+ * @author Cliff
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PostActivityDTO {
+
+    @Schema(description = "ISO8601 date of the start of the hour or day", accessMode = Schema.AccessMode.READ_ONLY)
+    private LocalDateTime start;
+
+    @Schema(description = "ID of the category", accessMode = Schema.AccessMode.READ_ONLY, example = "3")
+    private Long categoryId;
+
+    @Schema(description = "url that identifies the category", accessMode = Schema.AccessMode.READ_ONLY,
+            example = "/api/v1/categories/3")
+    private String categoryUrl;
+
+    @Schema(description = "number of threads started", accessMode = Schema.AccessMode.READ_ONLY, example = "12")
+    private long posts;
+
+    @Schema(description = "number of replies posted", accessMode = Schema.AccessMode.READ_ONLY, example = "40")
+    private long replies;
+
+    @Schema(description = "number of users who started a thread or replied", accessMode = Schema.AccessMode.READ_ONLY,
+            example = "9")
+    private long activeAuthors;
+}
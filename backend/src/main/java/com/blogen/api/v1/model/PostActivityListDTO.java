@@ -0,0 +1,36 @@
+package com.blogen.api.v1.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.xml.bind.annotation.XmlRootElement;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Wrapper object used to hold a list of {@link PostActivityDTO}, for the days that were asked for
+ *
+ * @author Cliff
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@XmlRootElement
+public class PostActivityListDTO {
+
+    @Schema(description = "length of each period of activity, hour or day", accessMode = Schema.AccessMode.READ_ONLY,
+            example = "day")
+    private String granularity;
+
+    @Schema(description = "first day of the activity", accessMode = Schema.AccessMode.READ_ONLY)
+    private LocalDate from;
+
+    @Schema(description = "last day of the activity", accessMode = Schema.AccessMode.READ_ONLY)
+    private LocalDate to;
+
+    @Schema(description = "activity of each category in each period, ordered by start and category id. Periods in "
+            + "which a category had no activity are left out", accessMode = Schema.AccessMode.READ_ONLY)
+    private List<PostActivityDTO> activity;
+}
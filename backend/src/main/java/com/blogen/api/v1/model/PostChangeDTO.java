@@ -0,0 +1,35 @@
+package com.blogen.api.v1.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for a post that changed since a client last synced. A created or updated post carries its
+ * current content, which replaces any copy the client has. A deleted post only carries its id.
+ *
+ * @author Cliff
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PostChangeDTO {
+
+    public static final String CREATED = "created";
+    public static final String UPDATED = "updated";
+    public static final String DELETED = "deleted";
+
+    @Schema(description = "what happened to the post since the token", accessMode = Schema.AccessMode.READ_ONLY,
+            allowableValues = {CREATED, UPDATED, DELETED}, example = UPDATED)
+    private String type;
+
+    @Schema(description = "Post ID", accessMode = Schema.AccessMode.READ_ONLY, example = "1")
+    private Long postId;
+
+    @Schema(description = "the post, without its child posts, which are changes of their own. Null if the post was "
+            + "deleted", accessMode = Schema.AccessMode.READ_ONLY)
+    private PostDTO post;
+}
@@ -0,0 +1,33 @@
+package com.blogen.api.v1.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.List;
+
+/**
+ * Wrapper object used to hold the posts that changed since a change token, and the token to sync from next time
+ *
+ * @author Cliff
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@XmlRootElement
+public class PostChangesDTO {
+
+    @Schema(description = "the posts that changed, each once, in the order of their latest change",
+            accessMode = Schema.AccessMode.READ_ONLY)
+    List<PostChangeDTO> changes;
+
+    @Schema(description = "pass this as the 'since' parameter of the next sync", accessMode = Schema.AccessMode.READ_ONLY,
+            example = "YzQy")
+    String token;
+
+    @Schema(description = "true if there are more changes after these, which can be read right away with the token",
+            accessMode = Schema.AccessMode.READ_ONLY, example = "false")
+    boolean more;
+}
@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.UUID;
 
 /**
  * Data Transfer Object for Blogen {@link com.blogen.domain.Post} data
@@ -21,12 +22,18 @@ public class PostDTO {
     @Schema(description = "Post ID", accessMode = Schema.AccessMode.READ_ONLY, example = "42")
     private Long id;
 
+    @Schema(description = "unique, time-ordered, identifier of the post", accessMode = Schema.AccessMode.READ_ONLY, example = "01595982-f600-7099-b81a-eb871da2e7a6")
+    private UUID uuid;
+
     @Schema(description = "title of the post", required = true, example = "Some Amazing Title")
     private String title;
 
-    @Schema(description = "text of the post", required = true, example = "text of the post")
+    @Schema(description = "text of the post, only included when a single post is requested", required = true, example = "text of the post")
     private String text;
 
+    @Schema(description = "a short summary of the post text", accessMode = Schema.AccessMode.READ_ONLY, example = "text of the...")
+    private String excerpt;
+
     @Schema(description = "url to an image on the web", example = "http://lorempixe/200/400/abstract")
     private String imageUrl;
 
@@ -48,4 +55,22 @@ public class PostDTO {
     @Schema(description = "if this is a parent post, contains its child posts", accessMode = Schema.AccessMode.READ_ONLY)
     private List<PostDTO> children;
 
+    @Schema(description = "number of replies to a parent post", accessMode = Schema.AccessMode.READ_ONLY, example = "3")
+    private int replyCount;
+
+    @Schema(description = "ISO8601 date of the latest reply to a parent post, null if it has no replies", accessMode = Schema.AccessMode.READ_ONLY)
+    private LocalDateTime lastReplyAt;
+
+    @Schema(description = "the user who made the latest reply to a parent post, null if it has no replies", accessMode = Schema.AccessMode.READ_ONLY)
+    private PostUserDTO lastReplier;
+
+    @Schema(description = "number of times the post was read, recent views may take a minute to be included", accessMode = Schema.AccessMode.READ_ONLY, example = "1024")
+    private long viewCount;
+
+    @Schema(description = "number of users that like the post", accessMode = Schema.AccessMode.READ_ONLY, example = "7")
+    private long likeCount;
+
+    @Schema(description = "approximate number of distinct signed in users that read the post, within 4.6% of the true count 95% of the time. Only set when a single post is read", accessMode = Schema.AccessMode.READ_ONLY, example = "310")
+    private Long viewerCount;
+
 }
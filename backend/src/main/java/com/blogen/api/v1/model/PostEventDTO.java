@@ -0,0 +1,53 @@
+package com.blogen.api.v1.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object sent on the post event stream when a post is created, replied to or deleted. It only
+ * identifies the post, clients that want its content GET it from its postUrl.
+ *
+ * @author Cliff
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PostEventDTO {
+
+    // event types, also used as the name of the server-sent event
+    public static final String POST_CREATED = "post-created";
+    public static final String REPLY_CREATED = "reply-created";
+    public static final String POST_DELETED = "post-deleted";
+    // sent instead of a replay when the events after the client's Last-Event-ID are no longer kept. It is the only
+    // field of the event, the client resyncs its posts from /posts/changes
+    public static final String STREAM_RESET = "stream-reset";
+
+    @Schema(description = "what happened to the post", accessMode = Schema.AccessMode.READ_ONLY,
+            allowableValues = {POST_CREATED, REPLY_CREATED, POST_DELETED, STREAM_RESET}, example = POST_CREATED)
+    private String type;
+
+    @Schema(description = "Post ID", accessMode = Schema.AccessMode.READ_ONLY, example = "1")
+    private Long postId;
+
+    @Schema(description = "ID of the parent post, null if the post is a parent post", accessMode = Schema.AccessMode.READ_ONLY,
+            example = "1")
+    private Long parentPostId;
+
+    @Schema(description = "Category ID of the post", accessMode = Schema.AccessMode.READ_ONLY, example = "2")
+    private Long categoryId;
+
+    @Schema(description = "User ID of the author of the post", accessMode = Schema.AccessMode.READ_ONLY, example = "3")
+    private Long userId;
+
+    @Schema(description = "url that identifies the post", accessMode = Schema.AccessMode.READ_ONLY, example = "/api/v1/posts/1")
+    private String postUrl;
+
+    @Schema(description = "when it happened, the created date of the post if it was created", accessMode = Schema.AccessMode.READ_ONLY, example = "2018-01-01T22:10:33")
+    private LocalDateTime occurred;
+}
@@ -0,0 +1,59 @@
+package com.blogen.api.v1.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A flattened, URL free, representation of a {@link com.blogen.domain.Post} used when exporting posts.
+ * Each exported thread is written as one line of newline delimited JSON containing the parent post and its children.
+ *
+ * Author: Cliff
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PostExportDTO {
+
+    @Schema(description = "Post ID", accessMode = Schema.AccessMode.READ_ONLY, example = "42")
+    private Long id;
+
+    @Schema(description = "unique identifier of the post", accessMode = Schema.AccessMode.READ_ONLY)
+    private UUID uuid;
+
+    @Schema(description = "title of the post", accessMode = Schema.AccessMode.READ_ONLY, example = "Some Amazing Title")
+    private String title;
+
+    @Schema(description = "text of the post", accessMode = Schema.AccessMode.READ_ONLY, example = "text of the post")
+    private String text;
+
+    @Schema(description = "url to an image on the web", accessMode = Schema.AccessMode.READ_ONLY)
+    private String imageUrl;
+
+    @Schema(description = "ISO8601 date of when this post was created", accessMode = Schema.AccessMode.READ_ONLY)
+    private LocalDateTime created;
+
+    @Schema(description = "id of the user who created this post", accessMode = Schema.AccessMode.READ_ONLY, example = "2")
+    private Long userId;
+
+    @Schema(description = "user name of the user who created this post", accessMode = Schema.AccessMode.READ_ONLY, example = "superCool2049")
+    private String userName;
+
+    @Schema(description = "id of the category this post belongs to", accessMode = Schema.AccessMode.READ_ONLY, example = "3")
+    private Long categoryId;
+
+    @Schema(description = "name of the category this post belongs to", accessMode = Schema.AccessMode.READ_ONLY, example = "Tech Gadgets")
+    private String categoryName;
+
+    @Schema(description = "if this is a parent post, contains its child posts", accessMode = Schema.AccessMode.READ_ONLY)
+    @Builder.Default
+    private List<PostExportDTO> children = new ArrayList<>();
+}
@@ -0,0 +1,28 @@
+package com.blogen.api.v1.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object with the like count of a post and whether the current user likes it
+ *
+ * @author Cliff
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PostLikesDTO {
+
+    @Schema(description = "Post ID", accessMode = Schema.AccessMode.READ_ONLY, example = "42")
+    private Long postId;
+
+    @Schema(description = "number of users that like the post", accessMode = Schema.AccessMode.READ_ONLY, example = "7")
+    private long likeCount;
+
+    @Schema(description = "true if the current user likes the post", accessMode = Schema.AccessMode.READ_ONLY, example = "true")
+    private boolean liked;
+}
@@ -0,0 +1,29 @@
+package com.blogen.api.v1.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.List;
+
+/**
+ * Wrapper object used to hold one slice of a list of {@link PostDTO} that is paged with a cursor, rather than by page
+ * number.
+ *
+ * @author Cliff
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@XmlRootElement
+public class PostSliceDTO {
+
+    @Schema(description = "container for postDTO", accessMode = Schema.AccessMode.READ_ONLY)
+    List<PostDTO> posts;
+
+    @Schema(description = "pass this as the 'after' parameter to get the next slice, null if there are no more posts",
+            accessMode = Schema.AccessMode.READ_ONLY, example = "MjAxNy0wMS0wMVQxMDoxNToxMl8yMQ")
+    String nextCursor;
+}
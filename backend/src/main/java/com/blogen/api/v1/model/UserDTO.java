@@ -7,6 +7,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Data Transfer Object for {@link com.blogen.domain.User}
@@ -46,4 +47,10 @@ public class UserDTO {
     @Schema(description = "url that identifies this user", accessMode = Schema.AccessMode.READ_ONLY, example = "/api/v1/users/23")
     private String userUrl;
 
+    @Schema(description = "number of posts the user has started, not counting replies", accessMode = Schema.AccessMode.READ_ONLY, example = "12")
+    private Long postCount;
+
+    @Schema(description = "number of posts the user has started in each category, by category id, only included when a single user is requested", accessMode = Schema.AccessMode.READ_ONLY, example = "{\"1\": 4, \"3\": 8}")
+    private Map<Long, Long> categoryPostCounts;
+
 }
@@ -0,0 +1,33 @@
+package com.blogen.api.v1.services;
+
+import com.blogen.api.v1.model.PostActivityListDTO;
+
+import java.time.LocalDate;
+
+/**
+ * Service for reading aggregates of the activity on Blogen, for activity charts
+ *
+ * Author: Cliff
+ */
+public interface AnalyticsService {
+
+    String GRANULARITY_HOUR = "hour";
+    String GRANULARITY_DAY = "day";
+
+    // hourly activity can be read for at most this many days at a time
+    int MAX_HOURLY_DAYS = 31;
+
+    /**
+     * Get the number of threads started, replies posted and users active in each category, an hour or a day at a
+     * time. Only the activity of the last days is kept
+     *
+     * @param from        first day of the activity, inclusive
+     * @param to          last day of the activity, inclusive
+     * @param granularity {@link #GRANULARITY_HOUR} or {@link #GRANULARITY_DAY}
+     * @param categoryId  id of the category to get the activity of, or -1 for every category
+     * @return the activity of each category in each hour or day of the range that had activity
+     * @throws com.blogen.exceptions.BadRequestException if the range is empty, starts before the oldest day kept,
+     * is too long for hourly activity, or the granularity is unknown
+     */
+    PostActivityListDTO getPostActivity(LocalDate from, LocalDate to, String granularity, Long categoryId);
+}
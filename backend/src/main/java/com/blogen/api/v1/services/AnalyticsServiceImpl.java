@@ -0,0 +1,53 @@
+package com.blogen.api.v1.services;
+
+import com.blogen.api.v1.controllers.CategoryController;
+import com.blogen.api.v1.model.PostActivityDTO;
+import com.blogen.api.v1.model.PostActivityListDTO;
+import com.blogen.exceptions.BadRequestException;
+import com.blogen.services.analytics.PostActivityAggregates;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Reads activity from the in-memory {@link PostActivityAggregates}, so activity charts never query the post table.
+ *
+ * Author: Cliff
+ */
+@Service
+public class AnalyticsServiceImpl implements AnalyticsService {
+
+    private final PostActivityAggregates postActivityAggregates;
+
+    @Autowired
+    public AnalyticsServiceImpl(PostActivityAggregates postActivityAggregates) {
+        this.postActivityAggregates = postActivityAggregates;
+    }
+
+    @Override
+    @PreAuthorize("hasAuthority('SCOPE_ROLE_ADMIN')")
+    public PostActivityListDTO getPostActivity(LocalDate from, LocalDate to, String granularity, Long categoryId) {
+        boolean daily = GRANULARITY_DAY.equals(granularity);
+        if (!daily && !GRANULARITY_HOUR.equals(granularity)) {
+            throw new BadRequestException("Unknown granularity: " + granularity + ", it must be "
+                    + GRANULARITY_HOUR + " or " + GRANULARITY_DAY);
+        }
+        if (to.isBefore(from)) {
+            throw new BadRequestException("The from date " + from + " is after the to date " + to);
+        }
+        LocalDate oldest = LocalDate.now().minusDays(postActivityAggregates.getRetentionDays() - 1L);
+        if (from.isBefore(oldest)) {
+            throw new BadRequestException("Activity is only kept since " + oldest);
+        }
+        if (!daily && from.plusDays(MAX_HOURLY_DAYS).isBefore(to.plusDays(1))) {
+            throw new BadRequestException("Hourly activity can be read for at most " + MAX_HOURLY_DAYS + " days");
+        }
+        List<PostActivityDTO> activity = postActivityAggregates.getActivity(from.atStartOfDay(),
+                to.plusDays(1).atStartOfDay(), daily, (categoryId != null && categoryId > -1) ? categoryId : null);
+        activity.forEach(dto -> dto.setCategoryUrl(CategoryController.BASE_URL + "/" + dto.getCategoryId()));
+        return new PostActivityListDTO(granularity, from, to, activity);
+    }
+}
@@ -4,6 +4,7 @@ import com.blogen.api.v1.controllers.CategoryController;
 import com.blogen.api.v1.model.CategoryDTO;
 import com.blogen.api.v1.model.CategoryListDTO;
 import com.blogen.domain.Category;
+import com.blogen.services.utils.ResourceVersion;
 
 /**
  * Service for managing Blogen categories in the REST API.
@@ -15,7 +16,8 @@ public interface CategoryService {
      *
      * @param pageNum  The page number of categories to retrieve using 0-based indices.
      * @param pageSize The maximum number of categories to retrieve per page.
-     * @return A CategoryListDTO containing the categories for the specified page.
+     * @return A CategoryListDTO containing the categories for the specified page, each with the number of posts
+     * started in it and its latest thread.
      */
     CategoryListDTO getCategories(int pageNum, int pageSize);
 
@@ -23,10 +25,30 @@ public interface CategoryService {
      * Get a specific Category.
      *
      * @param id The Category ID to search for.
-     * @return A CategoryDTO representing the Blogen {@link com.blogen.domain.Category}.
+     * @return A CategoryDTO representing the Blogen {@link com.blogen.domain.Category}, with the number of posts
+     * started in it and its latest thread.
      */
     CategoryDTO getCategory(Long id);
 
+    /**
+     * Get the version of a page of categories, to answer conditional requests. The version is a hash of the
+     * categories on the page and of the page info, so it changes whenever {@link #getCategories(int, int)} would
+     * return something different.
+     *
+     * @param pageNum  The page number of categories using 0-based indices.
+     * @param pageSize The maximum number of categories per page.
+     * @return the version of the page
+     */
+    ResourceVersion getCategoriesVersion(int pageNum, int pageSize);
+
+    /**
+     * Get the version of a specific Category, a hash of the properties that are sent for it.
+     *
+     * @param id The Category ID.
+     * @return the version of the Category.
+     */
+    ResourceVersion getCategoryVersion(Long id);
+
     /**
      * Create a new Blogen Category.
      *
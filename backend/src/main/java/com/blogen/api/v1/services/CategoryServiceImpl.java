@@ -1,12 +1,21 @@
 package com.blogen.api.v1.services;
 
+import com.blogen.api.v1.controllers.PostController;
 import com.blogen.api.v1.mappers.CategoryMapper;
 import com.blogen.api.v1.model.CategoryDTO;
 import com.blogen.api.v1.model.CategoryListDTO;
+import com.blogen.api.v1.model.LatestThreadDTO;
 import com.blogen.domain.Category;
 import com.blogen.exceptions.BadRequestException;
 import com.blogen.repositories.CategoryRepository;
+import com.blogen.repositories.LatestThread;
+import com.blogen.repositories.PostRepository;
+import com.blogen.services.analytics.UniqueCounts;
+import com.blogen.services.utils.CategoryRegistry;
 import com.blogen.services.utils.PageRequestBuilder;
+import com.blogen.services.utils.PostCounts;
+import com.blogen.services.utils.PostJsonCache;
+import com.blogen.services.utils.ResourceVersion;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
@@ -15,15 +24,19 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Service implementation for managing Blogen categories in the REST API.
  * This service supports CRUD operations on categories, but only Blogen admins can perform these operations.
  *
  * Deleting categories is not supported in this API for now.
+ * Categories are read from the {@link CategoryRegistry}, which created and updated categories are put in.
  * 
  * Author: Cliff
  */
@@ -34,22 +47,39 @@ public class CategoryServiceImpl implements CategoryService {
     private final CategoryRepository categoryRepository;
     private final CategoryMapper categoryMapper;
     private final PageRequestBuilder pageRequestBuilder;
+    private final PostJsonCache postJsonCache;
+    private final PostRepository postRepository;
+    private final PostCounts postCounts;
+    private final UniqueCounts uniqueCounts;
+    private final CategoryRegistry categoryRegistry;
 
     @Autowired
     public CategoryServiceImpl(CategoryRepository categoryRepository, CategoryMapper categoryMapper,
-                               PageRequestBuilder pageRequestBuilder) {
+                               PageRequestBuilder pageRequestBuilder, PostJsonCache postJsonCache,
+                               PostRepository postRepository, PostCounts postCounts, UniqueCounts uniqueCounts,
+                               CategoryRegistry categoryRegistry) {
         this.categoryRepository = categoryRepository;
         this.categoryMapper = categoryMapper;
         this.pageRequestBuilder = pageRequestBuilder;
+        this.postJsonCache = postJsonCache;
+        this.postRepository = postRepository;
+        this.postCounts = postCounts;
+        this.uniqueCounts = uniqueCounts;
+        this.categoryRegistry = categoryRegistry;
     }
 
     @Override
     public CategoryListDTO getCategories(int pageNum, int pageSize) {
         PageRequest pageRequest = pageRequestBuilder.buildPageRequest(pageNum, pageSize, Sort.Direction.DESC, "id");
-        Page<Category> page = categoryRepository.findAllBy(pageRequest);
+        Page<CategoryDTO> page = categoryRegistry.getCategoryDtos(pageRequest);
+        Map<Long, Long> postCountsByCategory = getPostCounts(page);
+        Map<Long, Long> authorCountsByCategory = getWeeklyAuthorCounts(page);
+        Map<Long, LatestThread> latestThreadsByCategory = getLatestThreads(page);
         List<CategoryDTO> categoryDTOs = new ArrayList<>();
-        page.forEach(category -> {
-            CategoryDTO dto = categoryMapper.categoryToCategoryDto(category);
+        page.forEach(dto -> {
+            dto.setPostCount(postCountsByCategory.get(dto.getId()));
+            dto.setWeeklyAuthorCount(authorCountsByCategory.get(dto.getId()));
+            dto.setLatestThread(buildLatestThreadDto(latestThreadsByCategory.get(dto.getId())));
             categoryDTOs.add(dto);
         });
         return new CategoryListDTO(categoryDTOs, PageRequestBuilder.buildPageInfoResponse(page));
@@ -57,19 +87,49 @@ public class CategoryServiceImpl implements CategoryService {
 
     @Override
     public CategoryDTO getCategory(Long id) {
-        Category category = categoryRepository.findById(id)
+        CategoryDTO categoryDTO = categoryRegistry.getCategoryDto(id)
                 .orElseThrow(() -> new BadRequestException("Category with id: " + id + " does not exist"));
-        CategoryDTO categoryDTO = categoryMapper.categoryToCategoryDto(category);
-        categoryDTO.setCategoryUrl(CategoryService.buildCategoryUrl(category));
+        categoryDTO.setPostCount(postCounts.getCategoryPostCounts(List.of(id)).get(id));
+        categoryDTO.setWeeklyAuthorCount(uniqueCounts.getWeeklyAuthorCounts(List.of(id)).get(id));
+        categoryDTO.setLatestThread(buildLatestThreadDto(postCounts.getLatestThreads(List.of(id)).get(id)));
         return categoryDTO;
     }
 
+    @Override
+    public ResourceVersion getCategoriesVersion(int pageNum, int pageSize) {
+        PageRequest pageRequest = pageRequestBuilder.buildPageRequest(pageNum, pageSize, Sort.Direction.DESC, "id");
+        Page<CategoryDTO> page = categoryRegistry.getCategoryDtos(pageRequest);
+        Map<Long, Long> postCountsByCategory = getPostCounts(page);
+        Map<Long, Long> authorCountsByCategory = getWeeklyAuthorCounts(page);
+        Map<Long, LatestThread> latestThreadsByCategory = getLatestThreads(page);
+        List<Object> content = new ArrayList<>();
+        page.forEach(category -> {
+            content.add(category.getId());
+            content.add(category.getName());
+            content.add(postCountsByCategory.get(category.getId()));
+            content.add(authorCountsByCategory.get(category.getId()));
+            content.add(latestThreadsByCategory.get(category.getId()));
+        });
+        return ResourceVersion.ofContent(content, page.getTotalElements(), page.getNumber(), page.getSize());
+    }
+
+    @Override
+    public ResourceVersion getCategoryVersion(Long id) {
+        CategoryDTO category = categoryRegistry.getCategoryDto(id)
+                .orElseThrow(() -> new BadRequestException("Category with id: " + id + " does not exist"));
+        return ResourceVersion.ofContent(category.getId(), category.getName(),
+                postCounts.getCategoryPostCounts(List.of(id)).get(id),
+                uniqueCounts.getWeeklyAuthorCounts(List.of(id)).get(id),
+                postCounts.getLatestThreads(List.of(id)).get(id));
+    }
+
     @PreAuthorize("hasAuthority('SCOPE_ROLE_ADMIN')")
     @Override
     public CategoryDTO createNewCategory(CategoryDTO categoryDTO) {
         try {
             Category categoryToSave = categoryMapper.categoryDtoToCategory(categoryDTO);
             Category savedCategory = categoryRepository.save(categoryToSave);
+            categoryRegistry.put(savedCategory);
             CategoryDTO savedDTO = categoryMapper.categoryToCategoryDto(savedCategory);
             savedDTO.setCategoryUrl(CategoryService.buildCategoryUrl(savedCategory));
             return savedDTO;
@@ -82,11 +142,41 @@ public class CategoryServiceImpl implements CategoryService {
 
     @PreAuthorize("hasAuthority('SCOPE_ROLE_ADMIN')")
     @Override
+    @Transactional
     public CategoryDTO updateCategory(Long id, CategoryDTO categoryDTO) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new BadRequestException("Category does not exist with id: " + id));
         categoryMapper.updateCategoryFromCategoryDTO(categoryDTO, category);
         Category savedCategory = categoryRepository.save(category);
+        categoryRegistry.put(savedCategory);
+        // posts show the name of their category. Renames are rare, so every cached post is dropped
+        postRepository.incrementVersionOfPostsInCategory(savedCategory.getId());
+        postRepository.incrementVersionOfThreadsWithRepliesInCategory(savedCategory.getId());
+        postJsonCache.invalidateAll();
         return categoryMapper.categoryToCategoryDto(savedCategory);
     }
+
+    private Map<Long, Long> getPostCounts(Page<CategoryDTO> page) {
+        return postCounts.getCategoryPostCounts(page.stream().map(CategoryDTO::getId).collect(Collectors.toList()));
+    }
+
+    private Map<Long, Long> getWeeklyAuthorCounts(Page<CategoryDTO> page) {
+        return uniqueCounts.getWeeklyAuthorCounts(page.stream().map(CategoryDTO::getId).collect(Collectors.toList()));
+    }
+
+    private Map<Long, LatestThread> getLatestThreads(Page<CategoryDTO> page) {
+        return postCounts.getLatestThreads(page.stream().map(CategoryDTO::getId).collect(Collectors.toList()));
+    }
+
+    private static LatestThreadDTO buildLatestThreadDto(LatestThread thread) {
+        if (thread == null) {
+            return null;
+        }
+        return LatestThreadDTO.builder()
+                .id(thread.getId())
+                .title(thread.getTitle())
+                .created(thread.getCreated())
+                .postUrl(PostController.BASE_URL + "/" + thread.getId())
+                .build();
+    }
 }
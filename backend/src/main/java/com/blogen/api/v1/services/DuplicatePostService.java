@@ -0,0 +1,20 @@
+package com.blogen.api.v1.services;
+
+import com.blogen.api.v1.model.DuplicateClusterListDTO;
+
+/**
+ * Service for finding Blogen {@link com.blogen.domain.Post}s that are near-duplicates of each other, such as the
+ * slightly modified copies of a post that spam bots post.
+ *
+ * Author: Cliff
+ */
+public interface DuplicatePostService {
+
+    /**
+     * Scan every parent post and group the posts whose titles and texts are near-duplicates of each other. Posts
+     * with too few words to tell are left out
+     *
+     * @return the clusters of two or more near-duplicate posts, largest first
+     */
+    DuplicateClusterListDTO getDuplicateClusters();
+}
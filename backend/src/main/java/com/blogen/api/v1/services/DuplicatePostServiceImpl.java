@@ -0,0 +1,52 @@
+package com.blogen.api.v1.services;
+
+import com.blogen.api.v1.controllers.PostController;
+import com.blogen.api.v1.model.DuplicateClusterDTO;
+import com.blogen.api.v1.model.DuplicateClusterListDTO;
+import com.blogen.services.utils.DuplicatePostIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Finds near-duplicate posts by fingerprinting every parent post with a parallel scan, see
+ * {@link DuplicatePostIndex#scanFingerprints()}, and clustering the fingerprints. The scan reads the posts as they
+ * are in the database, rather than the index of new posts, so it also finds duplicates that were posted before the
+ * index checked for them.
+ *
+ * Author: Cliff
+ */
+@Slf4j
+@Service
+public class DuplicatePostServiceImpl implements DuplicatePostService {
+
+    private final DuplicatePostIndex duplicatePostIndex;
+
+    @Autowired
+    public DuplicatePostServiceImpl(DuplicatePostIndex duplicatePostIndex) {
+        this.duplicatePostIndex = duplicatePostIndex;
+    }
+
+    @Override
+    @PreAuthorize("hasAuthority('SCOPE_ROLE_ADMIN')")
+    public DuplicateClusterListDTO getDuplicateClusters() {
+        Map<Long, Long> fingerprints = duplicatePostIndex.scanFingerprints();
+        List<DuplicateClusterDTO> clusters = DuplicatePostIndex.clusters(fingerprints).stream()
+                .map(DuplicatePostServiceImpl::buildClusterDto)
+                .collect(Collectors.toList());
+        log.info("found {} clusters of near-duplicates in {} posts", clusters.size(), fingerprints.size());
+        return new DuplicateClusterListDTO(clusters);
+    }
+
+    private static DuplicateClusterDTO buildClusterDto(List<Long> postIds) {
+        return DuplicateClusterDTO.builder()
+                .postIds(postIds)
+                .postUrls(postIds.stream().map(id -> PostController.BASE_URL + "/" + id).collect(Collectors.toList()))
+                .build();
+    }
+}
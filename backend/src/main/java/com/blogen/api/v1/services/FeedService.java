@@ -0,0 +1,48 @@
+package com.blogen.api.v1.services;
+
+import com.blogen.api.v1.model.PostSliceDTO;
+
+/**
+ * Service for following Blogen {@link com.blogen.domain.User}s, and for the home feed made of the parent posts of
+ * the users a user follows.
+ *
+ * Author: Cliff
+ */
+public interface FeedService {
+
+    /**
+     * the most posts that can be requested from a feed at once
+     */
+    int MAX_FEED_LIMIT = 100;
+
+    /**
+     * Make a user follow another user. Following a user that is already followed does nothing.
+     *
+     * @param followerId The id of the user that follows.
+     * @param followedId The id of the user to follow.
+     * @throws com.blogen.exceptions.NotFoundException if either user does not exist
+     * @throws com.blogen.exceptions.BadRequestException if the users are the same
+     */
+    void follow(Long followerId, Long followedId);
+
+    /**
+     * Make a user stop following another user. Unfollowing a user that is not followed does nothing.
+     *
+     * @param followerId The id of the user that follows.
+     * @param followedId The id of the user to stop following.
+     */
+    void unfollow(Long followerId, Long followedId);
+
+    /**
+     * Get a slice of the home feed of a user: the parent posts of the users they follow, newest first.
+     *
+     * @param userId The id of the user.
+     * @param after  The nextCursor of the previous slice, or null to get the newest posts.
+     * @param limit  The maximum number of posts to return, from 1 to {@link #MAX_FEED_LIMIT}.
+     * @return A PostSliceDTO containing the posts and the cursor of the next slice. Posts contain their excerpt, but
+     * not their full text.
+     * @throws com.blogen.exceptions.NotFoundException if the user does not exist
+     * @throws com.blogen.exceptions.BadRequestException if limit is out of range or after is not a valid cursor
+     */
+    PostSliceDTO getFeed(Long userId, String after, int limit);
+}
@@ -0,0 +1,192 @@
+package com.blogen.api.v1.services;
+
+import com.blogen.api.v1.model.PostEventDTO;
+import com.blogen.api.v1.model.PostSliceDTO;
+import com.blogen.domain.Follow;
+import com.blogen.exceptions.BadRequestException;
+import com.blogen.exceptions.NotFoundException;
+import com.blogen.repositories.FollowRepository;
+import com.blogen.repositories.PostKey;
+import com.blogen.repositories.PostRepository;
+import com.blogen.repositories.UserRepository;
+import com.blogen.services.utils.KeysetCursor;
+import com.blogen.services.utils.TimelineStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Follows and home feeds.
+ * <p>
+ * A feed is read from the precomputed timeline of its user in the {@link TimelineStore}, which new parent posts are
+ * fanned out to after they commit. Authors with more than {@code blogen.timeline.fanout.max.followers} followers are
+ * not fanned out, a single post of theirs would update too many timelines. Their posts are instead merged into the
+ * feeds of their followers on read, with one indexed query over just those authors.
+ * <p>
+ * Timelines are bounded, so the fanned out part of a feed ends after the newest {@code blogen.timeline.size} posts.
+ *
+ * Author: Cliff
+ */
+@Slf4j
+@Service
+public class FeedServiceImpl implements FeedService {
+
+    private final FollowRepository followRepository;
+    private final PostRepository postRepository;
+    private final UserRepository userRepository;
+    private final PostService postService;
+    private final TimelineStore timelineStore;
+    private final long maxFanOutFollowers;
+
+    @Autowired
+    public FeedServiceImpl(FollowRepository followRepository, PostRepository postRepository,
+                           UserRepository userRepository, PostService postService, TimelineStore timelineStore,
+                           @Value("${blogen.timeline.fanout.max.followers:1000}") long maxFanOutFollowers) {
+        this.followRepository = followRepository;
+        this.postRepository = postRepository;
+        this.userRepository = userRepository;
+        this.postService = postService;
+        this.timelineStore = timelineStore;
+        this.maxFanOutFollowers = maxFanOutFollowers;
+    }
+
+    @Override
+    @Transactional
+    @PreAuthorize("hasAuthority('SCOPE_ROLE_ADMIN') || #followerId.toString() == authentication.name")
+    public void follow(Long followerId, Long followedId) {
+        if (followerId.equals(followedId)) {
+            throw new BadRequestException("User with id " + followerId + " cannot follow themselves");
+        }
+        validateUserId(followerId);
+        validateUserId(followedId);
+        if (followRepository.existsByFollowerIdAndFollowedId(followerId, followedId)) {
+            return;
+        }
+        long followersBefore = followRepository.countByFollowedId(followedId);
+        followRepository.save(Follow.of(followerId, followedId));
+        timelineStore.invalidate(followerId);
+        if (!isMergedOnRead(followersBefore) && isMergedOnRead(followRepository.countByFollowedId(followedId))) {
+            // the posts of the user move from being fanned out to being merged on read, in every timeline
+            timelineStore.invalidateAll();
+        }
+    }
+
+    @Override
+    @Transactional
+    @PreAuthorize("hasAuthority('SCOPE_ROLE_ADMIN') || #followerId.toString() == authentication.name")
+    public void unfollow(Long followerId, Long followedId) {
+        long followersBefore = followRepository.countByFollowedId(followedId);
+        if (followRepository.deleteFollow(followerId, followedId) == 0) {
+            return;
+        }
+        timelineStore.invalidate(followerId);
+        if (isMergedOnRead(followersBefore) && !isMergedOnRead(followRepository.countByFollowedId(followedId))) {
+            // the posts of the user move from being merged on read to being fanned out, in every timeline
+            timelineStore.invalidateAll();
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @PreAuthorize("hasAuthority('SCOPE_ROLE_ADMIN') || #userId.toString() == authentication.name")
+    public PostSliceDTO getFeed(Long userId, String after, int limit) {
+        if (limit < 1 || limit > MAX_FEED_LIMIT) {
+            throw new BadRequestException("Invalid limit: " + limit + ", must be between 1 and " + MAX_FEED_LIMIT);
+        }
+        KeysetCursor cursor = (after != null) ? KeysetCursor.decode(after) : null;
+        TimelineStore.Timeline timeline = timelineStore.get(userId);
+        if (timeline == null) {
+            validateUserId(userId);
+            timeline = buildTimeline(userId);
+        }
+
+        List<KeysetCursor> entries = new ArrayList<>(timeline.page(cursor, limit));
+        if (!timeline.getMergedAuthorIds().isEmpty()) {
+            PageRequest pageRequest = PageRequest.of(0, limit);
+            List<PostKey> merged = (cursor == null)
+                    ? postRepository.findTimelineKeys(timeline.getMergedAuthorIds(), pageRequest)
+                    : postRepository.findTimelineKeysBefore(timeline.getMergedAuthorIds(), cursor.getCreated(),
+                    cursor.getId(), pageRequest);
+            Set<KeysetCursor> sorted = new TreeSet<>(TimelineStore.NEWEST_FIRST);
+            sorted.addAll(entries);
+            merged.forEach(key -> sorted.add(new KeysetCursor(key.getCreated(), key.getId())));
+            entries = sorted.stream().limit(limit).collect(Collectors.toList());
+        }
+
+        List<Long> postIds = entries.stream().map(KeysetCursor::getId).collect(Collectors.toList());
+        // a full slice may be followed by more posts, the cursor is that of the last post read, even if it was deleted
+        String nextCursor = (entries.size() == limit) ? entries.get(entries.size() - 1).encode() : null;
+        return new PostSliceDTO(postService.getPostSummaries(postIds), nextCursor);
+    }
+
+    /**
+     * Fan a new parent post out to the timelines of its author's followers, or remove a deleted post from them. Runs
+     * after the transaction that created or deleted the post commits
+     *
+     * @param event the post event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostEvent(PostEventDTO event) {
+        if (event.getParentPostId() != null || event.getUserId() == null) {
+            return;
+        }
+        if (PostEventDTO.POST_CREATED.equals(event.getType())) {
+            List<Long> followerIds = followRepository.findFollowerIds(event.getUserId());
+            if (isMergedOnRead(followerIds.size())) {
+                return;
+            }
+            timelineStore.addPost(event.getUserId(), followerIds, new KeysetCursor(event.getOccurred(), event.getPostId()));
+        } else if (PostEventDTO.POST_DELETED.equals(event.getType())) {
+            timelineStore.removePost(followRepository.findFollowerIds(event.getUserId()), event.getPostId());
+        }
+    }
+
+    private TimelineStore.Timeline buildTimeline(Long userId) {
+        // read before the follows and posts, see TimelineStore.put
+        long followGeneration = timelineStore.followGeneration();
+        long postSequence = timelineStore.postSequence();
+        Set<Long> followedIds = new HashSet<>(followRepository.findFollowedIds(userId));
+        Set<Long> mergedAuthorIds = new HashSet<>(
+                followRepository.findFollowedIdsWithMoreFollowersThan(userId, maxFanOutFollowers));
+        Set<Long> fannedOutAuthorIds = new HashSet<>(followedIds);
+        fannedOutAuthorIds.removeAll(mergedAuthorIds);
+
+        List<KeysetCursor> entries = new ArrayList<>();
+        if (!fannedOutAuthorIds.isEmpty()) {
+            postRepository.findTimelineKeys(fannedOutAuthorIds, PageRequest.of(0, timelineStore.getTimelineSize()))
+                    .forEach(key -> entries.add(new KeysetCursor(key.getCreated(), key.getId())));
+        }
+        log.debug("built timeline of user {} - posts: {}, authors merged on read: {}", userId, entries.size(),
+                mergedAuthorIds.size());
+        return timelineStore.put(userId, fannedOutAuthorIds, mergedAuthorIds, entries, followGeneration, postSequence);
+    }
+
+    /**
+     * The mode of an author is compared before and after a change of their followers, rather than looking for an
+     * exact count, so that concurrent follows or unfollows that together cross the limit still rebuild the timelines
+     *
+     * @param followers number of followers of an author
+     * @return true if the posts of the author are merged into feeds on read, false if they are fanned out
+     */
+    private boolean isMergedOnRead(long followers) {
+        return followers > maxFanOutFollowers;
+    }
+
+    private void validateUserId(Long id) {
+        if (!userRepository.existsById(id)) {
+            throw new NotFoundException("User with id: " + id + " does not exist");
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.blogen.api.v1.services;
+
+import com.blogen.api.v1.model.PostLikesDTO;
+
+/**
+ * Service for liking Blogen {@link com.blogen.domain.Post}s. Likes are made by the current user.
+ *
+ * Author: Cliff
+ */
+public interface LikeService {
+
+    /**
+     * Get the like count of a post and whether the current user likes it.
+     *
+     * @param postId The id of the post.
+     * @return the likes of the post
+     * @throws com.blogen.exceptions.NotFoundException if the post does not exist
+     */
+    PostLikesDTO getLikes(Long postId);
+
+    /**
+     * Make the current user like a post. Liking a post that is already liked does nothing.
+     *
+     * @param postId The id of the post.
+     * @return the likes of the post
+     * @throws com.blogen.exceptions.NotFoundException if the post does not exist
+     */
+    PostLikesDTO likePost(Long postId);
+
+    /**
+     * Make the current user stop liking a post. Unliking a post that is not liked does nothing.
+     *
+     * @param postId The id of the post.
+     * @return the likes of the post
+     * @throws com.blogen.exceptions.NotFoundException if the post does not exist
+     */
+    PostLikesDTO unlikePost(Long postId);
+}
@@ -0,0 +1,97 @@
+package com.blogen.api.v1.services;
+
+import com.blogen.api.v1.model.PostLikesDTO;
+import com.blogen.domain.PostLike;
+import com.blogen.exceptions.BadRequestException;
+import com.blogen.exceptions.NotFoundException;
+import com.blogen.repositories.PostLikeRepository;
+import com.blogen.repositories.PostRepository;
+import com.blogen.services.PrincipalService;
+import com.blogen.services.utils.PostLikeCounter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Likes of posts.
+ * <p>
+ * Liking a post inserts one post_like row and never updates the post row, so concurrent likes of a viral post do
+ * not wait on each other. The like count is kept by the {@link PostLikeCounter}.
+ * <p>
+ * Likes and unlikes are not made in a service transaction. The insert or delete commits on its own, so that a
+ * concurrent like by the same user, which fails on the unique index, can be told apart and ignored, and so that the
+ * returned like count already includes the change.
+ *
+ * Author: Cliff
+ */
+@Slf4j
+@Service
+public class LikeServiceImpl implements LikeService {
+
+    private final PostLikeRepository postLikeRepository;
+    private final PostRepository postRepository;
+    private final PrincipalService principalService;
+    private final PostLikeCounter postLikeCounter;
+
+    @Autowired
+    public LikeServiceImpl(PostLikeRepository postLikeRepository, PostRepository postRepository,
+                           PrincipalService principalService, PostLikeCounter postLikeCounter) {
+        this.postLikeRepository = postLikeRepository;
+        this.postRepository = postRepository;
+        this.principalService = principalService;
+        this.postLikeCounter = postLikeCounter;
+    }
+
+    @Override
+    public PostLikesDTO getLikes(Long postId) {
+        long likeCount = findLikeCount(postId);
+        return buildLikes(postId, likeCount, postLikeCounter.likes(postId, getUserId()));
+    }
+
+    @Override
+    public PostLikesDTO likePost(Long postId) {
+        Long userId = getUserId();
+        long likeCount = findLikeCount(postId);
+        if (!postLikeCounter.likes(postId, userId)) {
+            try {
+                postLikeRepository.save(PostLike.of(postId, userId));
+                postLikeCounter.liked(postId, userId);
+            } catch (DataIntegrityViolationException e) {
+                // the user liked the post in a concurrent request, which counted the like, or the post was deleted.
+                // Read the count again, so that it includes the concurrent like, or throw if there is no post
+                likeCount = findLikeCount(postId);
+                log.debug("post {} is already liked by user {}", postId, userId);
+            }
+        }
+        return buildLikes(postId, likeCount, true);
+    }
+
+    @Override
+    public PostLikesDTO unlikePost(Long postId) {
+        Long userId = getUserId();
+        long likeCount = findLikeCount(postId);
+        if (postLikeRepository.deleteLike(postId, userId) > 0) {
+            postLikeCounter.unliked(postId, userId);
+        }
+        return buildLikes(postId, likeCount, false);
+    }
+
+    private PostLikesDTO buildLikes(Long postId, long likeCount, boolean liked) {
+        return PostLikesDTO.builder()
+                .postId(postId)
+                .likeCount(likeCount + postLikeCounter.pendingLikes(postId))
+                .liked(liked)
+                .build();
+    }
+
+    private long findLikeCount(Long postId) {
+        return postRepository.findLikeCountById(postId)
+                .orElseThrow(() -> new NotFoundException("Post not found with id: " + postId));
+    }
+
+    private Long getUserId() {
+        return principalService.getPrincipalUserId()
+                .orElseThrow(() -> new BadRequestException("JWT user id does not exist in database"));
+    }
+}
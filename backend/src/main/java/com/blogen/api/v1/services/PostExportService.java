@@ -0,0 +1,23 @@
+package com.blogen.api.v1.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Service for exporting all Blogen {@link com.blogen.domain.Post}s, typically for backups or analytics.
+ *
+ * Author: Cliff
+ */
+public interface PostExportService {
+
+    /**
+     * Write every thread (a parent post plus its child posts) to the output stream as newline delimited JSON (NDJSON),
+     * one thread per line. Threads are written as they are read from the database, so the full result set is never
+     * held in memory.
+     *
+     * @param out the stream to write to. It is flushed, but not closed, when the export completes
+     * @return the number of threads that were written
+     * @throws IOException if an error occurs writing to the output stream
+     */
+    long exportThreads(OutputStream out) throws IOException;
+}
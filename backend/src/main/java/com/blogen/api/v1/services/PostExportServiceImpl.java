@@ -0,0 +1,112 @@
+package com.blogen.api.v1.services;
+
+import com.blogen.api.v1.model.PostExportDTO;
+import com.blogen.domain.Post;
+import com.blogen.repositories.PostRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Exports Blogen posts as newline delimited JSON.
+ * <p>
+ * Posts are read through a forward-only stream that returns each parent post followed by its children. Only the
+ * thread currently being written is kept in memory, once it has been written its entities are detached from the
+ * persistence context so that heap usage stays flat no matter how many posts are exported.
+ *
+ * Author: Cliff
+ */
+@Slf4j
+@Service
+public class PostExportServiceImpl implements PostExportService {
+
+    private final PostRepository postRepository;
+    private final EntityManager entityManager;
+    private final ObjectWriter threadWriter;
+
+    @Autowired
+    public PostExportServiceImpl(PostRepository postRepository, EntityManager entityManager, ObjectMapper objectMapper) {
+        this.postRepository = postRepository;
+        this.entityManager = entityManager;
+        this.threadWriter = objectMapper.writerFor(PostExportDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    @Override
+    @PreAuthorize("hasAuthority('SCOPE_ROLE_ADMIN')")
+    @Transactional(readOnly = true)
+    public long exportThreads(OutputStream out) throws IOException {
+        long threadCount = 0;
+        try (Stream<Post> posts = postRepository.streamAllByThread();
+             JsonGenerator generator = threadWriter.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // each thread is terminated by a newline instead of jackson's default root value separator
+            generator.setRootValueSeparator(null);
+
+            List<Post> threadPosts = new ArrayList<>();
+            PostExportDTO thread = null;
+            Iterator<Post> it = posts.iterator();
+            while (it.hasNext()) {
+                Post post = it.next();
+                if (post.isParentPost()) {
+                    if (thread != null) {
+                        writeThread(generator, thread, threadPosts);
+                        threadCount++;
+                    }
+                    thread = buildExportDto(post);
+                } else if (thread != null && thread.getId().equals(post.getParent().getId())) {
+                    thread.getChildren().add(buildExportDto(post));
+                }
+                threadPosts.add(post);
+            }
+            if (thread != null) {
+                writeThread(generator, thread, threadPosts);
+                threadCount++;
+            }
+            generator.flush();
+        }
+        log.info("exported {} threads", threadCount);
+        return threadCount;
+    }
+
+    /**
+     * write a thread as a single line of JSON and then detach the thread's posts from the persistence context.
+     * Posts are only detached once their whole thread has been read so that the parent of a child post can
+     * always be resolved from the persistence context.
+     */
+    private void writeThread(JsonGenerator generator, PostExportDTO thread, List<Post> threadPosts) throws IOException {
+        threadWriter.writeValue(generator, thread);
+        generator.writeRaw('\n');
+        threadPosts.forEach(entityManager::detach);
+        threadPosts.clear();
+    }
+
+    private PostExportDTO buildExportDto(Post post) {
+        return PostExportDTO.builder()
+                .id(post.getId())
+                .uuid(post.getUuid())
+                .title(post.getTitle())
+                .text(post.getText())
+                .imageUrl(post.getImageUrl())
+                .created(post.getCreated())
+                .userId(post.getUser().getId())
+                .userName(post.getUser().getUserName())
+                .categoryId(post.getCategory().getId())
+                .categoryName(post.getCategory().getName())
+                .build();
+    }
+}
@@ -1,10 +1,18 @@
 package com.blogen.api.v1.services;
 
 import com.blogen.api.v1.controllers.PostController;
+import com.blogen.api.v1.model.NormalizedPostListDTO;
+import com.blogen.api.v1.model.PostChangesDTO;
 import com.blogen.api.v1.model.PostDTO;
 import com.blogen.api.v1.model.PostListDTO;
 import com.blogen.api.v1.model.PostRequestDTO;
+import com.blogen.api.v1.model.PostSliceDTO;
 import com.blogen.domain.Post;
+import com.blogen.services.utils.FieldSelection;
+import com.blogen.services.utils.ResourceVersion;
+
+import java.util.List;
+import java.util.UUID;
 
 /**
  * Service interface for REST methods that operate on Blogen
@@ -14,6 +22,21 @@ import com.blogen.domain.Post;
  */
 public interface PostService {
 
+    /**
+     * the most child posts that can be requested at once, either embedded in a parent post or as a slice of replies
+     */
+    int MAX_REPLY_LIMIT = 100;
+
+    /**
+     * the most changes that can be read at once from the change log of posts
+     */
+    int MAX_CHANGE_LIMIT = 500;
+
+    /**
+     * the most related posts that can be requested at once
+     */
+    int MAX_RELATED_LIMIT = 20;
+
     /**
      * Get all posts containing the specified categoryId, for the specified pageNum,
      * with up to pageSize posts per page.
@@ -22,10 +45,96 @@ public interface PostService {
      *                   in all categories.
      * @param pageNum    the page number of posts to retrieve.
      * @param pageSize   the number of posts per page to retrieve.
-     * @return A PostListDTO containing the posts.
+     * @return A PostListDTO containing the posts. Posts contain their excerpt, but not their full text.
      */
     PostListDTO getPosts(Long categoryId, int pageNum, int pageSize);
 
+    /**
+     * Get a page of parent posts ordered by recent activity. A thread's activity is the time of its latest
+     * reply, or the time it was created if it has no replies.
+     *
+     * @param categoryId the category ID of the posts to retrieve, a value of -1 will retrieve posts
+     *                   in all categories.
+     * @param pageNum    the page number of posts to retrieve.
+     * @param pageSize   the number of posts per page to retrieve.
+     * @return A PostListDTO containing the most recently active posts first.
+     */
+    PostListDTO getPostsByActivity(Long categoryId, int pageNum, int pageSize);
+
+    /**
+     * Get a page of the trending parent posts, the threads with the most recent activity: replies, views and likes,
+     * weighted by how recent they are. Only the highest ranked threads of each category are kept, so the pages end
+     * there.
+     *
+     * @param categoryId the category ID of the posts to retrieve, a value of -1 will retrieve posts
+     *                   in all categories.
+     * @param pageNum    the page number of posts to retrieve.
+     * @param pageSize   the number of posts per page to retrieve, at most the number of threads ranked.
+     * @return A PostListDTO containing the highest ranked posts first.
+     * @throws com.blogen.exceptions.BadRequestException if the page is negative or the page size is out of range
+     */
+    PostListDTO getTrendingPosts(Long categoryId, int pageNum, int pageSize);
+
+    /**
+     * Get a page of parent posts, building only the selected fields of each post. Only the database columns needed
+     * for those fields are read, so the fewer fields selected, the less is read, built and sent. If the child posts
+     * are selected, the posts are read in full.
+     *
+     * @param userId       only get posts made by this user, null to get posts of all users
+     * @param categoryId   only get posts in this category, -1 or null to get posts in all categories
+     * @param sortProperty the Post property to sort by, in descending order, e.g. "created" or "lastActivity"
+     * @param pageNum      the page number of posts to retrieve.
+     * @param pageSize     the number of posts per page to retrieve.
+     * @param fields       the PostDTO fields to build
+     * @return A PostListDTO containing the posts, with only the selected fields set
+     */
+    PostListDTO getPostsWithFields(Long userId, Long categoryId, String sortProperty, int pageNum, int pageSize,
+                                   FieldSelection fields);
+
+    /**
+     * Get the version of a post that is being read, without loading it, to answer conditional requests, and count the
+     * read against its thread, the post or its parent post, in the heavy hitters. A client that revalidates its copy
+     * of a post has still read it again. The version changes whenever
+     * the post, as returned by {@link #getPost(Long)}, changes: when the post is edited, when one of its replies is
+     * added, edited or deleted, and when the user or category of the post or of one of its replies is updated. The
+     * version is weak, the view and like counts of the post only change it when they are written, and its viewer
+     * count and the counts of its replies never do.
+     *
+     * @param id The id of the post.
+     * @return the version of the post, last modified at the later of its creation and its last reply
+     * @throws com.blogen.exceptions.NotFoundException if the post does not exist
+     */
+    ResourceVersion readPostVersion(Long id);
+
+    /**
+     * Get the version of a post that is being read by its UUID, see {@link #readPostVersion(Long)}.
+     *
+     * @param uuid The uuid of the post.
+     * @return the version of the post
+     * @throws com.blogen.exceptions.NotFoundException if no post has the uuid
+     */
+    ResourceVersion readPostVersion(UUID uuid);
+
+    /**
+     * Count a view of a post. Views are counted in memory and added to the view count of the post in the database
+     * a few seconds later, in batches.
+     *
+     * @param id The id of the post that was read.
+     */
+    void recordView(Long id);
+
+    /**
+     * Get a specific post by its ID, serialized as JSON in the same form as {@link #getPost(Long)}. The JSON is cached
+     * by the version of the post, so it is built again once the post, one of its replies, or one of their authors
+     * changes.
+     *
+     * @param id      The id of the post to retrieve.
+     * @param version The version of the post, as returned by {@link #readPostVersion(Long)} before this call.
+     * @return UTF-8 encoded JSON of the PostDTO of the post.
+     * @throws com.blogen.exceptions.NotFoundException if the post does not exist
+     */
+    byte[] getPostJson(Long id, ResourceVersion version);
+
     /**
      * Get a specific post by its ID.
      *
@@ -36,6 +145,51 @@ public interface PostService {
      */
     PostDTO getPost(Long id);
 
+    /**
+     * Get a specific post by its ID, embedding at most replyLimit of its child posts. Use this instead of
+     * {@link #getPost(Long)} when a thread may have too many replies to return at once, and page through the rest
+     * with {@link #getChildPosts(Long, String, int)}.
+     *
+     * @param id         The id of the post to retrieve.
+     * @param replyLimit The maximum number of child posts to embed, oldest first, from 0 to {@link #MAX_REPLY_LIMIT}.
+     *                   Ignored if the id refers to a child post.
+     * @return A PostDTO representing the post and its first replies.
+     * @throws com.blogen.exceptions.BadRequestException if replyLimit is out of range
+     * @throws com.blogen.exceptions.NotFoundException if the post does not exist
+     */
+    PostDTO getPost(Long id, int replyLimit);
+
+    /**
+     * Get posts by id, in the order of the ids. Ids of posts that no longer exist are skipped.
+     *
+     * @param ids The ids of the posts.
+     * @return The PostDTOs of the posts that exist. Posts contain their excerpt, but not their full text.
+     */
+    List<PostDTO> getPostSummaries(List<Long> ids);
+
+    /**
+     * Get a slice of the child posts of a parent post, oldest first. Slices are paged with a cursor instead of a
+     * page number, so reading a slice deep into a large thread costs the same as reading its first slice.
+     *
+     * @param parentId The id of the parent post.
+     * @param after    The nextCursor of the previous slice, or null to get the first slice.
+     * @param limit    The maximum number of child posts to return, from 1 to {@link #MAX_REPLY_LIMIT}.
+     * @return A PostSliceDTO containing the child posts and the cursor of the next slice.
+     * @throws com.blogen.exceptions.BadRequestException if limit is out of range or after is not a valid cursor
+     * @throws com.blogen.exceptions.NotFoundException if the parent post does not exist
+     */
+    PostSliceDTO getChildPosts(Long parentId, String after, int limit);
+
+    /**
+     * Get a specific post by its UUID.
+     *
+     * @param uuid The uuid of the post to retrieve. As with {@link #getPost(Long)}, a parent post is returned
+     *             with its children.
+     * @return A PostDTO representing the post.
+     * @throws com.blogen.exceptions.NotFoundException if no post has the uuid
+     */
+    PostDTO getPostByUuid(UUID uuid);
+
     /**
      * Get posts for the specified user and category.
      * 
@@ -43,12 +197,22 @@ public interface PostService {
      * @param categoryId The categoryId of the posts to retrieve.
      * @param pageNum    The page number of posts to return.
      * @param limit      The maximum number of posts per page to return.
-     * @return A PostListDTO containing the user's posts.
+     * @return A PostListDTO containing the user's posts. Posts contain their excerpt, but not their full text.
      */
     PostListDTO getPostsForUser(Long userId, Long categoryId, int pageNum, int limit);
 
     /**
-     * Create a new Parent Post. Any PostDTO.children sent will be ignored.
+     * Normalize a list of posts, so that each user and category they refer to is sent only once.
+     *
+     * @param postListDTO a list of posts, as returned by {@link #getPosts(Long, int, int)} and the other list methods
+     * @return the same posts, referring to their user and category by id, along with a dictionary of those users
+     * and categories
+     */
+    NormalizedPostListDTO normalizePostList(PostListDTO postListDTO);
+
+    /**
+     * Create a new Parent Post. Any PostDTO.children sent will be ignored. A post whose title and text are a near
+     * duplicate of those of an existing parent post is rejected with a BadRequestException.
      *
      * @param requestDTO Contains post data to create.
      * @return A PostDTO representing the newly created post.
@@ -80,10 +244,23 @@ public interface PostService {
      * 
      * @param search The text string to search for.
      * @param limit  The maximum number of posts to return.
-     * @return A PostListDTO containing the search results.
+     * @return A PostListDTO containing the search results. Posts contain their excerpt, but not their full text.
      */
     PostListDTO searchPosts(String search, int limit);
 
+    /**
+     * Get the parent posts that are most related to a parent post, the ones whose titles and texts share the most
+     * words with it. Related posts are found in memory, only the related posts themselves are read from the database.
+     *
+     * @param id    The id of the parent post.
+     * @param limit The maximum number of posts to return, from 1 to {@link #MAX_RELATED_LIMIT}.
+     * @return A PostListDTO containing the most related posts first. Empty if the post is a child post, or has too
+     * few words to be related to others. Posts contain their excerpt, but not their full text.
+     * @throws com.blogen.exceptions.BadRequestException if limit is out of range
+     * @throws com.blogen.exceptions.NotFoundException if the post does not exist
+     */
+    PostListDTO getRelatedPosts(Long id, int limit);
+
     /**
      * Delete the post with the specified ID.
      * 
@@ -91,6 +268,18 @@ public interface PostService {
      */
     void deletePost(Long id);
 
+    /**
+     * Get the posts that were created, updated or deleted since a client last synced, from the change log of posts.
+     * Each changed post is returned once, with its current content, no matter how often it changed.
+     *
+     * @param since The token returned by the previous sync, or null to get the token of the latest change, without
+     *              any changes. Clients that have no token fetch the posts they want first, and then sync from it.
+     * @param limit The maximum number of changes to read, from 1 to {@link #MAX_CHANGE_LIMIT}.
+     * @return A PostChangesDTO containing the changed posts and the token to sync from next time.
+     * @throws com.blogen.exceptions.BadRequestException if limit is out of range or since is not a valid token
+     */
+    PostChangesDTO getPostChanges(String since, int limit);
+
     /**
      * Helper method that builds a URL string to a particular post.
      * 
@@ -1,32 +1,72 @@
 package com.blogen.api.v1.services;
 
+import com.blogen.api.v1.controllers.CategoryController;
 import com.blogen.api.v1.controllers.PostController;
+import com.blogen.api.v1.controllers.UserController;
 import com.blogen.api.v1.mappers.PostMapper;
 import com.blogen.api.v1.mappers.PostRequestMapper;
+import com.blogen.api.v1.model.CategoryDTO;
+import com.blogen.api.v1.model.NormalizedPostListDTO;
+import com.blogen.api.v1.model.PostChangeDTO;
+import com.blogen.api.v1.model.PostChangesDTO;
 import com.blogen.api.v1.model.PostDTO;
+import com.blogen.api.v1.model.PostEventDTO;
 import com.blogen.api.v1.model.PostListDTO;
 import com.blogen.api.v1.model.PostRequestDTO;
+import com.blogen.api.v1.model.PostSliceDTO;
+import com.blogen.api.v1.model.PostUserDTO;
 import com.blogen.domain.Category;
 import com.blogen.domain.Post;
+import com.blogen.domain.PostChange;
 import com.blogen.domain.User;
 import com.blogen.exceptions.BadRequestException;
 import com.blogen.exceptions.NotFoundException;
-import com.blogen.repositories.CategoryRepository;
+import com.blogen.repositories.PostChangeRepository;
 import com.blogen.repositories.PostRepository;
+import com.blogen.repositories.PostVersion;
 import com.blogen.services.AvatarService;
 import com.blogen.services.PrincipalService;
+import com.blogen.services.analytics.HeavyHitterTracker;
+import com.blogen.services.analytics.UniqueCounts;
+import com.blogen.services.utils.CategoryRegistry;
+import com.blogen.services.utils.ChangeToken;
+import com.blogen.services.utils.DuplicatePostIndex;
+import com.blogen.services.utils.FieldSelection;
+import com.blogen.services.utils.KeysetCursor;
 import com.blogen.services.utils.PageRequestBuilder;
+import com.blogen.services.utils.PostCounts;
+import com.blogen.services.utils.PostJsonCache;
+import com.blogen.services.utils.PostLikeCounter;
+import com.blogen.services.utils.PostViewCounter;
+import com.blogen.services.utils.ResourceVersion;
+import com.blogen.services.utils.RelatedThreadIndex;
+import com.blogen.services.utils.TrendingThreads;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.Tuple;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.UUID;
 
 /**
  * Service for performing RESTful CRUD operations on Blogen
@@ -38,28 +78,87 @@ import java.util.List;
 @Service
 public class PostServiceImpl implements PostService {
 
+    // the Post attributes that each PostDTO field of a parent post is built from. Selecting a field of a nested DTO
+    // also reads the id of that DTO, so that a null association can be told apart from an unselected one.
+    // Lists never contain the text of a post, and parent posts have no parentPostUrl, so they need no attributes
+    private static final Map<String, List<String>> FIELD_ATTRIBUTES = Map.ofEntries(
+            Map.entry("id", List.of("id")),
+            Map.entry("uuid", List.of("uuid")),
+            Map.entry("title", List.of("title")),
+            Map.entry("excerpt", List.of("excerpt")),
+            Map.entry("imageUrl", List.of("imageUrl")),
+            Map.entry("created", List.of("created")),
+            Map.entry("postUrl", List.of("id")),
+            Map.entry("replyCount", List.of("replyCount")),
+            Map.entry("lastReplyAt", List.of("lastReplyAt")),
+            Map.entry("viewCount", List.of("viewCount")),
+            Map.entry("likeCount", List.of("likeCount")),
+            Map.entry("category.id", List.of("category.id")),
+            Map.entry("category.name", List.of("category.id", "category.name")),
+            Map.entry("category.categoryUrl", List.of("category.id")),
+            Map.entry("user.id", List.of("user.id")),
+            Map.entry("user.userName", List.of("user.id", "user.userName")),
+            Map.entry("user.userUrl", List.of("user.id")),
+            Map.entry("user.avatarUrl", List.of("user.id", "user.userPrefs.avatar.fileName")),
+            Map.entry("lastReplier.id", List.of("lastReplier.id")),
+            Map.entry("lastReplier.userName", List.of("lastReplier.id", "lastReplier.userName")),
+            Map.entry("lastReplier.userUrl", List.of("lastReplier.id")),
+            Map.entry("lastReplier.avatarUrl", List.of("lastReplier.id", "lastReplier.userPrefs.avatar.fileName")));
+
     private final PageRequestBuilder pageRequestBuilder;
     private final PostRepository postRepository;
-    private final CategoryRepository categoryRepository;
+    private final CategoryRegistry categoryRegistry;
     private final UserService userService;
     private final AvatarService avatarService;
     private final PostMapper postMapper;
     private final PostRequestMapper postRequestMapper;
     private final PrincipalService principalService;
+    private final PostJsonCache postJsonCache;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PostChangeRepository postChangeRepository;
+    private final PostViewCounter postViewCounter;
+    private final PostLikeCounter postLikeCounter;
+    private final TrendingThreads trendingThreads;
+    private final DuplicatePostIndex duplicatePostIndex;
+    private final RelatedThreadIndex relatedThreadIndex;
+    private final PostCounts postCounts;
+    private final UniqueCounts uniqueCounts;
+    private final HeavyHitterTracker heavyHitterTracker;
+
+    // seconds after which a gap in the ids of the change log is taken to be a rolled back change
+    static final long CHANGE_SETTLE_SECONDS = 10;
 
     @Autowired
     public PostServiceImpl(PageRequestBuilder pageRequestBuilder, PostRepository postRepository,
-            CategoryRepository categoryRepository, UserService userService,
+            CategoryRegistry categoryRegistry, UserService userService,
             AvatarService avatarService, PostMapper postMapper,
-            PostRequestMapper postRequestMapper, PrincipalService principalService) {
+            PostRequestMapper postRequestMapper, PrincipalService principalService,
+            PostJsonCache postJsonCache, ObjectMapper objectMapper,
+            ApplicationEventPublisher eventPublisher, PostChangeRepository postChangeRepository,
+            PostViewCounter postViewCounter, PostLikeCounter postLikeCounter, TrendingThreads trendingThreads,
+            DuplicatePostIndex duplicatePostIndex, RelatedThreadIndex relatedThreadIndex, PostCounts postCounts,
+            UniqueCounts uniqueCounts, HeavyHitterTracker heavyHitterTracker) {
         this.pageRequestBuilder = pageRequestBuilder;
         this.postRepository = postRepository;
-        this.categoryRepository = categoryRepository;
+        this.categoryRegistry = categoryRegistry;
         this.userService = userService;
         this.avatarService = avatarService;
         this.postMapper = postMapper;
         this.postRequestMapper = postRequestMapper;
         this.principalService = principalService;
+        this.postJsonCache = postJsonCache;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.postChangeRepository = postChangeRepository;
+        this.postViewCounter = postViewCounter;
+        this.postLikeCounter = postLikeCounter;
+        this.trendingThreads = trendingThreads;
+        this.duplicatePostIndex = duplicatePostIndex;
+        this.relatedThreadIndex = relatedThreadIndex;
+        this.postCounts = postCounts;
+        this.uniqueCounts = uniqueCounts;
+        this.heavyHitterTracker = heavyHitterTracker;
     }
 
     @Override
@@ -73,10 +172,133 @@ public class PostServiceImpl implements PostService {
                 : postRepository.findAllByParentNullOrderByCreatedDesc(pageRequest);
 
         List<PostDTO> postDTOS = new ArrayList<>();
-        page.forEach(post -> postDTOS.add(buildReturnDto(post)));
+        page.forEach(post -> postDTOS.add(buildSummaryDto(post)));
         return new PostListDTO(postDTOS, PageRequestBuilder.buildPageInfoResponse(page));
     }
 
+    @Override
+    public PostListDTO getPostsByActivity(Long categoryId, int pageNum, int pageSize) {
+        if (categoryId != null && categoryId > -1) {
+            validateCategoryId(categoryId);
+        }
+        PageRequest pageRequest = pageRequestBuilder.buildPageRequest(pageNum, pageSize, Sort.Direction.DESC,
+                "lastActivity");
+        Page<Post> page = (categoryId > -1) ? postRepository.findAllByCategory_IdAndParentNull(categoryId, pageRequest)
+                : postRepository.findAllByParentNullOrderByLastActivityDesc(pageRequest);
+
+        List<PostDTO> postDTOS = new ArrayList<>();
+        page.forEach(post -> postDTOS.add(buildSummaryDto(post)));
+        return new PostListDTO(postDTOS, PageRequestBuilder.buildPageInfoResponse(page));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PostListDTO getTrendingPosts(Long categoryId, int pageNum, int pageSize) {
+        // a page never holds more than the threads ranked in a category
+        if (pageNum < 0 || pageSize < 1 || pageSize > trendingThreads.getSize()) {
+            throw new BadRequestException("Invalid page: " + pageNum + " or limit: " + pageSize
+                    + ", page must be at least 0 and limit between 1 and " + trendingThreads.getSize());
+        }
+        Long category = TrendingThreads.ALL_CATEGORIES;
+        if (categoryId != null && categoryId > -1) {
+            validateCategoryId(categoryId);
+            category = categoryId;
+        }
+        // the ranking is read from memory, only the posts of the page are read from the database
+        List<Long> ranking = trendingThreads.getTrending(category);
+        PageRequest pageRequest = PageRequest.of(pageNum, pageSize);
+        int from = (int) Math.min(pageRequest.getOffset(), ranking.size());
+        List<Long> ids = ranking.subList(from, Math.min(ranking.size(), from + pageSize));
+        Page<Long> page = new PageImpl<>(ids, pageRequest, ranking.size());
+        return new PostListDTO(getPostSummaries(ids), PageRequestBuilder.buildPageInfoResponse(page));
+    }
+
+    @Override
+    public PostListDTO getPostsWithFields(Long userId, Long categoryId, String sortProperty, int pageNum,
+                                          int pageSize, FieldSelection fields) {
+        Long category = (categoryId != null && categoryId > -1) ? categoryId : null;
+        if (fields.includes("children")) {
+            // child posts can only be built from the post entities
+            if (userId != null) {
+                return getPostsForUser(userId, categoryId, pageNum, pageSize);
+            }
+            return "lastActivity".equals(sortProperty) ? getPostsByActivity(categoryId, pageNum, pageSize)
+                    : getPosts(categoryId, pageNum, pageSize);
+        }
+        if (userId != null) {
+            validateUserId(userId);
+        }
+        if (category != null) {
+            validateCategoryId(category);
+        }
+        PageRequest pageRequest = pageRequestBuilder.buildPageRequest(pageNum, pageSize, Sort.Direction.DESC,
+                sortProperty);
+        Page<Tuple> page = postRepository.findParentPostColumns(attributesOf(fields), userId, category, pageRequest);
+
+        List<PostDTO> postDTOS = new ArrayList<>();
+        page.forEach(row -> postDTOS.add(buildDtoFromColumns(row, fields)));
+        return new PostListDTO(postDTOS, PageRequestBuilder.buildPageInfoResponse(page));
+    }
+
+    @Override
+    public ResourceVersion readPostVersion(Long id) {
+        return countThreadRead(postRepository.findVersionById(id)
+                .orElseThrow(() -> new NotFoundException("Post not found with id: " + id)));
+    }
+
+    @Override
+    public ResourceVersion readPostVersion(UUID uuid) {
+        return countThreadRead(postRepository.findVersionByUuid(uuid)
+                .orElseThrow(() -> new NotFoundException("Post not found with uuid: " + uuid)));
+    }
+
+    // a read of a reply is a read of its thread
+    private ResourceVersion countThreadRead(PostVersion postVersion) {
+        heavyHitterTracker.read((postVersion.getParentId() != null) ? postVersion.getParentId() : postVersion.getId());
+        return buildResourceVersion(postVersion);
+    }
+
+    /**
+     * the version of a post is weak, since its view, like and viewer counts change without changing its version. The
+     * written view and like counts are part of the tag, so clients that revalidate see them change each time they are
+     * written, but the counts not written yet and the counts of replies are not
+     */
+    private static ResourceVersion buildResourceVersion(PostVersion postVersion) {
+        LocalDateTime lastModified = postVersion.getCreated();
+        if (postVersion.getLastActivity() != null
+                && (lastModified == null || postVersion.getLastActivity().isAfter(lastModified))) {
+            lastModified = postVersion.getLastActivity();
+        }
+        long version = (postVersion.getVersion() != null) ? postVersion.getVersion() : 0;
+        return ResourceVersion.weak("post-" + postVersion.getId() + "-v" + version + "-views"
+                + postVersion.getViewCount() + "-likes" + postVersion.getLikeCount(), lastModified);
+    }
+
+    @Override
+    public byte[] getPostJson(Long id, ResourceVersion version) {
+        byte[] json = postJsonCache.get(id, version.getTag());
+        if (json != null) {
+            return json;
+        }
+        long generation = postJsonCache.generation();
+        Post post = postRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Post not found with id: " + id));
+        PostDTO postDTO = buildReturnDto(post);
+        try {
+            json = objectMapper.writeValueAsBytes(postDTO);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize post with id: " + id, e);
+        }
+        postJsonCache.put(id, version.getTag(), generation, collectUserIds(postDTO), json);
+        return json;
+    }
+
+    @Override
+    public void recordView(Long id) {
+        postViewCounter.recordView(id);
+        principalService.getPrincipalUserId().ifPresent(userId -> uniqueCounts.viewed(id, userId));
+    }
+
     @Override
     public PostDTO getPost(Long id) {
         Post post = postRepository.findById(id)
@@ -84,6 +306,68 @@ public class PostServiceImpl implements PostService {
         return buildReturnDto(post);
     }
 
+    @Override
+    public PostDTO getPost(Long id, int replyLimit) {
+        validateReplyLimit(replyLimit, 0);
+        Post post = postRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Post not found with id: " + id));
+        PostDTO postDTO = addUrls(postMapper.postToPostDtoWithoutChildren(post), post);
+        addPendingCounts(postDTO);
+        if (post.isParentPost()) {
+            List<Post> replies = (replyLimit > 0)
+                    ? postRepository.findChildren(id, PageRequest.of(0, replyLimit))
+                    : Collections.emptyList();
+            postDTO.setChildren(buildReplyDtos(replies));
+        }
+        return postDTO;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PostDTO> getPostSummaries(List<Long> ids) {
+        Map<Long, Post> postsById = new HashMap<>();
+        postRepository.findAllById(ids).forEach(post -> postsById.put(post.getId(), post));
+        List<PostDTO> postDTOS = new ArrayList<>();
+        ids.stream()
+                .map(postsById::get)
+                .filter(Objects::nonNull)
+                .forEach(post -> postDTOS.add(buildSummaryDto(post)));
+        return postDTOS;
+    }
+
+    @Override
+    public PostSliceDTO getChildPosts(Long parentId, String after, int limit) {
+        validateReplyLimit(limit, 1);
+        if (!postRepository.existsById(parentId)) {
+            throw new NotFoundException("Post not found with id: " + parentId);
+        }
+        // one extra reply is read to find out if there is another slice after this one
+        PageRequest pageRequest = PageRequest.of(0, limit + 1);
+        List<Post> replies;
+        if (after == null) {
+            replies = postRepository.findChildren(parentId, pageRequest);
+        } else {
+            KeysetCursor cursor = KeysetCursor.decode(after);
+            replies = postRepository.findChildrenAfter(parentId, cursor.getCreated(), cursor.getId(),
+                    pageRequest);
+        }
+
+        String nextCursor = null;
+        if (replies.size() > limit) {
+            replies = replies.subList(0, limit);
+            Post last = replies.get(limit - 1);
+            nextCursor = new KeysetCursor(last.getCreated(), last.getId()).encode();
+        }
+        return new PostSliceDTO(buildReplyDtos(replies), nextCursor);
+    }
+
+    @Override
+    public PostDTO getPostByUuid(UUID uuid) {
+        Post post = postRepository.findByUuid(uuid)
+                .orElseThrow(() -> new NotFoundException("Post not found with uuid: " + uuid));
+        return buildReturnDto(post);
+    }
+
     @Override
     public PostListDTO getPostsForUser(Long userId, Long categoryId, int pageNum, int pageSize) {
         validateUserId(userId);
@@ -97,22 +381,39 @@ public class PostServiceImpl implements PostService {
                 : postRepository.findAllByUser_IdAndParentNull(userId, pageRequest);
 
         List<PostDTO> postDTOS = new ArrayList<>();
-        page.forEach(post -> postDTOS.add(buildReturnDto(post)));
+        page.forEach(post -> postDTOS.add(buildSummaryDto(post)));
         return new PostListDTO(postDTOS, PageRequestBuilder.buildPageInfoResponse(page));
     }
 
+    @Override
+    public NormalizedPostListDTO normalizePostList(PostListDTO postListDTO) {
+        return postMapper.postListDtoToNormalizedPostListDto(postListDTO);
+    }
+
     @Override
     @Transactional
     public PostDTO createNewPost(PostRequestDTO postDTO) {
+        OptionalLong fingerprint = duplicatePostIndex.fingerprint(postDTO.getTitle(), postDTO.getText());
+        if (fingerprint.isPresent()) {
+            duplicatePostIndex.findNearDuplicate(fingerprint.getAsLong()).ifPresent(duplicateId -> {
+                throw new BadRequestException("Post is a near duplicate of post with id: " + duplicateId);
+            });
+        }
         Post post = buildNewPost(postDTO);
         Post savedPost = postRepository.save(post);
+        fingerprint.ifPresent(value -> duplicatePostIndex.put(savedPost.getId(), value));
+        relatedThreadIndex.put(savedPost.getId(), savedPost.getTitle(), savedPost.getText());
+        postCounts.postCreated(savedPost.getUser().getId(), savedPost.getCategory().getId(), savedPost.getId());
+        recordChange(PostChange.Type.CREATED, savedPost.getId());
+        eventPublisher.publishEvent(buildEvent(PostEventDTO.POST_CREATED, savedPost));
         return buildReturnDto(savedPost);
     }
 
     @Override
     @Transactional
     public PostDTO createNewChildPost(Long parentId, PostRequestDTO requestDTO) {
-        Post parentPost = postRepository.findById(parentId)
+        // the parent row stays locked until commit, so concurrent replies cannot lose updates to its reply summary
+        Post parentPost = postRepository.findByIdForUpdate(parentId)
                 .orElseThrow(() -> new BadRequestException("Post with id " + parentId + " was not found"));
         if (!parentPost.isParentPost()) {
             throw new BadRequestException("Post with id: " + parentId
@@ -120,18 +421,51 @@ public class PostServiceImpl implements PostService {
         }
         Post childPost = buildNewPost(requestDTO);
         parentPost.addChild(childPost);
+        // the reply must be inserted before the parent is flushed, otherwise hibernate finds an unsaved post in the
+        // children of the (already persistent) parent while checking them for orphans
+        postRepository.save(childPost);
         Post savedPost = postRepository.saveAndFlush(parentPost);
+        postJsonCache.invalidate(parentId);
+        recordChange(PostChange.Type.CREATED, childPost.getId());
+        // the reply summary of the parent changed
+        recordChange(PostChange.Type.UPDATED, parentId);
+        eventPublisher.publishEvent(buildEvent(PostEventDTO.REPLY_CREATED, childPost));
         return buildReturnDto(savedPost);
     }
 
     @Override
+    @Transactional
     public PostDTO saveUpdatePost(Long id, PostRequestDTO requestDTO) {
         Post postToUpdate = postRepository.findById(id)
                 .orElseThrow(() -> new BadRequestException("Post with id " + id + " was not found"));
         validateCategoryId(requestDTO.getCategoryId());
         postRequestMapper.updatePostFromPostRequestDTO(requestDTO, postToUpdate);
         postToUpdate.setCreated(LocalDateTime.now());
+        if (!postToUpdate.isParentPost()) {
+            // lock the parent before its reply summary is changed, so that concurrent replies cannot lose updates to
+            // it. An edited reply counts as the latest reply of its thread. This also changes the version of the
+            // parent, whose representation includes the reply
+            Post parent = postRepository.findByIdForUpdate(postToUpdate.getParent().getId())
+                    .orElseThrow(() -> new BadRequestException("Parent of post with id " + id + " was not found"));
+            parent.setLastReply(postToUpdate);
+        }
         Post savedPost = postRepository.save(postToUpdate);
+        // the JSON of a parent post includes its replies
+        postJsonCache.invalidate(id, postToUpdate.isParentPost() ? null : postToUpdate.getParent().getId());
+        recordChange(PostChange.Type.UPDATED, id);
+        if (!postToUpdate.isParentPost()) {
+            recordChange(PostChange.Type.UPDATED, postToUpdate.getParent().getId());
+        } else {
+            OptionalLong fingerprint = duplicatePostIndex.fingerprint(postToUpdate.getTitle(), postToUpdate.getText());
+            if (fingerprint.isPresent()) {
+                duplicatePostIndex.put(id, fingerprint.getAsLong());
+            } else {
+                duplicatePostIndex.remove(id);
+            }
+            relatedThreadIndex.put(id, postToUpdate.getTitle(), postToUpdate.getText());
+            // the edit made it the newest thread of its category
+            postCounts.postEdited(postToUpdate.getCategory().getId(), id);
+        }
         return buildReturnDto(savedPost);
     }
 
@@ -140,20 +474,121 @@ public class PostServiceImpl implements PostService {
         PageRequest pageRequest = pageRequestBuilder.buildPageRequest(0, limit, Sort.Direction.DESC, "created");
         Page<Post> page = postRepository.findByTextOrTitleIgnoreCaseContaining(search, pageRequest);
         List<PostDTO> postDTOS = new ArrayList<>();
-        page.forEach(post -> postDTOS.add(buildReturnDto(post)));
+        page.forEach(post -> postDTOS.add(buildSummaryDto(post)));
         return new PostListDTO(postDTOS, PageRequestBuilder.buildPageInfoResponse(page));
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public PostListDTO getRelatedPosts(Long id, int limit) {
+        if (limit < 1 || limit > MAX_RELATED_LIMIT) {
+            throw new BadRequestException("Invalid limit: " + limit + ", must be between 1 and " + MAX_RELATED_LIMIT);
+        }
+        if (!postRepository.existsById(id)) {
+            throw new NotFoundException("Post not found with id: " + id);
+        }
+        List<Long> ids = relatedThreadIndex.findRelated(id, limit);
+        return new PostListDTO(getPostSummaries(ids), PageRequestBuilder.buildPageInfoResponse(new PageImpl<>(ids)));
+    }
+
     @Override
     @Transactional
     public void deletePost(Long id) {
         Post post = postRepository.findById(id)
                 .orElseThrow(() -> new BadRequestException("Post with id " + id + " was not found"));
+        // built before a child post is removed from its parent, which clears its parent
+        PostEventDTO event = buildEvent(PostEventDTO.POST_DELETED, post);
         if (!post.isParentPost()) {
-            Post parent = post.getParent();
-            parent.removeChild(post);
+            // lock the parent before its last reply is read, so concurrent replies cannot change its reply summary
+            Post parent = postRepository.findByIdForUpdate(post.getParent().getId())
+                    .orElseThrow(() -> new BadRequestException("Parent of post with id " + id + " was not found"));
+            if (parent.removeChild(post)) {
+                // the deleted reply was the last one, the newest remaining reply takes its place
+                Post lastReply = (parent.getReplyCount() == 0) ? null : postRepository
+                        .findNewestChildren(parent.getId(), id, PageRequest.of(0, 1)).stream().findFirst().orElse(null);
+                parent.setLastReply(lastReply);
+            }
+            postJsonCache.invalidate(parent.getId());
+            recordChange(PostChange.Type.UPDATED, parent.getId());
+        } else {
+            // the child posts are deleted along with their parent
+            post.getChildren().forEach(child -> recordChange(PostChange.Type.DELETED, child.getId()));
+            postCounts.postDeleted(post.getUser().getId(), post.getCategory().getId(), id);
         }
         postRepository.delete(post);
+        postJsonCache.invalidate(id);
+        recordChange(PostChange.Type.DELETED, id);
+        eventPublisher.publishEvent(event);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PostChangesDTO getPostChanges(String since, int limit) {
+        if (limit < 1 || limit > MAX_CHANGE_LIMIT) {
+            throw new BadRequestException("Invalid limit: " + limit + ", must be between 1 and " + MAX_CHANGE_LIMIT);
+        }
+        if (since == null) {
+            long latestId = postChangeRepository.findLatestId().orElse(0L);
+            return new PostChangesDTO(Collections.emptyList(), ChangeToken.encode(latestId), false);
+        }
+        long lastSeenId = ChangeToken.decode(since);
+        List<PostChange> changes = postChangeRepository.findChangesAfter(lastSeenId, PageRequest.of(0, limit + 1));
+        boolean more = changes.size() > limit;
+
+        // change ids are taken when a change is inserted, but become visible when its transaction commits, so a gap
+        // in the ids may be a change that is yet to commit. Reading stops in front of a gap until it is old enough to
+        // be a rolled back transaction, otherwise the token would move past the change and the client never see it
+        LocalDateTime settled = LocalDateTime.now().minusSeconds(CHANGE_SETTLE_SECONDS);
+        List<PostChange> read = new ArrayList<>();
+        long expectedId = lastSeenId + 1;
+        for (PostChange change : changes.subList(0, Math.min(limit, changes.size()))) {
+            if (change.getId() != expectedId && change.getChanged().isAfter(settled)) {
+                more = false;
+                break;
+            }
+            read.add(change);
+            expectedId = change.getId() + 1;
+        }
+
+        // each post is sent once, ordered by its latest change. A post created since the token stays created
+        Map<Long, PostChange.Type> typeByPostId = new LinkedHashMap<>();
+        read.forEach(change -> {
+            PostChange.Type previous = typeByPostId.remove(change.getPostId());
+            typeByPostId.put(change.getPostId(), (previous == PostChange.Type.CREATED
+                    && change.getType() == PostChange.Type.UPDATED) ? PostChange.Type.CREATED : change.getType());
+        });
+        Map<Long, Post> postsById = new HashMap<>();
+        postRepository.findAllById(typeByPostId.keySet()).forEach(post -> postsById.put(post.getId(), post));
+        List<PostChangeDTO> changeDTOS = new ArrayList<>();
+        typeByPostId.forEach((postId, type) -> {
+            Post post = postsById.get(postId);
+            // a post that no longer exists was deleted by a change that is not read yet
+            changeDTOS.add((post == null) ? new PostChangeDTO(PostChangeDTO.DELETED, postId, null)
+                    : new PostChangeDTO(type == PostChange.Type.CREATED ? PostChangeDTO.CREATED : PostChangeDTO.UPDATED,
+                    postId, addUrls(postMapper.postToPostDtoWithoutChildren(post), post)));
+        });
+        long tokenId = read.isEmpty() ? lastSeenId : read.get(read.size() - 1).getId();
+        return new PostChangesDTO(changeDTOS, ChangeToken.encode(tokenId), more);
+    }
+
+    private void recordChange(PostChange.Type type, Long postId) {
+        postChangeRepository.save(PostChange.of(type, postId));
+    }
+
+    /**
+     * builds an event for the clients of the post event stream. Published events are only sent once the current
+     * transaction commits
+     */
+    private PostEventDTO buildEvent(String type, Post post) {
+        return PostEventDTO.builder()
+                .type(type)
+                .postId(post.getId())
+                .parentPostId(post.isParentPost() ? null : post.getParent().getId())
+                .categoryId(post.getCategory().getId())
+                .userId(post.getUser().getId())
+                .postUrl(PostController.BASE_URL + "/" + post.getId())
+                .occurred(PostEventDTO.POST_DELETED.equals(type) ? LocalDateTime.now() : post.getCreated())
+                .build();
     }
 
     private Post buildNewPost(PostRequestDTO requestDTO) {
@@ -161,7 +596,7 @@ public class PostServiceImpl implements PostService {
                 .orElseThrow(() -> new BadRequestException("JWT user id does not exist in database"));
         Post post = postRequestMapper.postRequestDtoToPost(requestDTO);
         post.setCreated(LocalDateTime.now());
-        Category category = categoryRepository.findById(requestDTO.getCategoryId())
+        Category category = categoryRegistry.getCategory(requestDTO.getCategoryId())
                 .orElseThrow(() -> new BadRequestException(
                         "Category does not exist with id: " + requestDTO.getCategoryId()));
         User user = userService.findById(userId)
@@ -179,13 +614,120 @@ public class PostServiceImpl implements PostService {
     }
 
     private PostDTO buildReturnDto(Post post) {
-        PostDTO postDTO = postMapper.postToPostDto(post);
+        return addPendingCounts(addUrls(postMapper.postToPostDto(post), post));
+    }
+
+    /**
+     * adds the views and likes that are not written to the database yet to the counts of a single post, and its
+     * approximate number of viewers. Lists show the written counts, so they don't look up every post they contain
+     */
+    private PostDTO addPendingCounts(PostDTO postDTO) {
+        postDTO.setViewCount(postDTO.getViewCount() + postViewCounter.pendingViews(postDTO.getId()));
+        postDTO.setLikeCount(postDTO.getLikeCount() + postLikeCounter.pendingLikes(postDTO.getId()));
+        postDTO.setViewerCount(uniqueCounts.getViewerCounts(List.of(postDTO.getId())).get(postDTO.getId()));
+        return postDTO;
+    }
+
+    /**
+     * builds a PostDTO for list views. The DTO contains the post excerpt instead of the full text, so that the
+     * text CLOB of each post does not have to be loaded
+     */
+    private PostDTO buildSummaryDto(Post post) {
+        return addUrls(postMapper.postToPostSummaryDto(post), post);
+    }
+
+    private static Set<String> attributesOf(FieldSelection fields) {
+        Set<String> attributes = new LinkedHashSet<>();
+        attributes.add("id");
+        FIELD_ATTRIBUTES.forEach((field, fieldAttributes) -> {
+            if (fields.includes(field)) {
+                attributes.addAll(fieldAttributes);
+            }
+        });
+        return attributes;
+    }
+
+    /**
+     * builds a PostDTO, with only the selected fields set, from the columns read by
+     * {@link PostRepository#findParentPostColumns}
+     */
+    private PostDTO buildDtoFromColumns(Tuple row, FieldSelection fields) {
+        Map<String, Object> values = new HashMap<>();
+        row.getElements().forEach(element -> values.put(element.getAlias(), row.get(element)));
+
+        PostDTO postDTO = new PostDTO();
+        postDTO.setId((Long) values.get("id"));
+        postDTO.setUuid((UUID) values.get("uuid"));
+        postDTO.setTitle((String) values.get("title"));
+        postDTO.setExcerpt((String) values.get("excerpt"));
+        postDTO.setImageUrl((String) values.get("imageUrl"));
+        postDTO.setCreated((LocalDateTime) values.get("created"));
+        postDTO.setReplyCount(values.get("replyCount") != null ? (Integer) values.get("replyCount") : 0);
+        postDTO.setLastReplyAt((LocalDateTime) values.get("lastReplyAt"));
+        postDTO.setViewCount(values.get("viewCount") != null ? (Long) values.get("viewCount") : 0);
+        postDTO.setLikeCount(values.get("likeCount") != null ? (Long) values.get("likeCount") : 0);
+        if (fields.includes("postUrl")) {
+            postDTO.setPostUrl(PostController.BASE_URL + "/" + postDTO.getId());
+        }
+        if (values.get("category.id") != null) {
+            Long categoryId = (Long) values.get("category.id");
+            postDTO.setCategory(CategoryDTO.builder()
+                    .id(categoryId)
+                    .name((String) values.get("category.name"))
+                    .categoryUrl(fields.includes("category.categoryUrl") ? CategoryController.BASE_URL + "/" + categoryId : null)
+                    .build());
+        }
+        postDTO.setUser(buildPostUserDtoFromColumns(values, "user", fields));
+        postDTO.setLastReplier(buildPostUserDtoFromColumns(values, "lastReplier", fields));
+        return postDTO;
+    }
+
+    private PostUserDTO buildPostUserDtoFromColumns(Map<String, Object> values, String prefix, FieldSelection fields) {
+        Long userId = (Long) values.get(prefix + ".id");
+        if (userId == null) {
+            return null;
+        }
+        String avatarFileName = (String) values.get(prefix + ".userPrefs.avatar.fileName");
+        return PostUserDTO.builder()
+                .id(userId)
+                .userName((String) values.get(prefix + ".userName"))
+                .userUrl(fields.includes(prefix + ".userUrl") ? UserController.BASE_URL + "/" + userId : null)
+                .avatarUrl(avatarFileName != null ? avatarService.buildAvatarUrl(avatarFileName) : null)
+                .build();
+    }
+
+    /**
+     * @return the ids of the users of a post and of its replies
+     */
+    private static Set<Long> collectUserIds(PostDTO postDTO) {
+        Set<Long> userIds = new HashSet<>();
+        userIds.add(postDTO.getUser().getId());
+        if (postDTO.getLastReplier() != null) {
+            userIds.add(postDTO.getLastReplier().getId());
+        }
+        if (postDTO.getChildren() != null) {
+            postDTO.getChildren().forEach(child -> userIds.add(child.getUser().getId()));
+        }
+        return userIds;
+    }
+
+    private List<PostDTO> buildReplyDtos(List<Post> replies) {
+        List<PostDTO> replyDTOS = new ArrayList<>();
+        replies.forEach(reply -> replyDTOS.add(addUrls(postMapper.postToPostDtoWithoutChildren(reply), reply)));
+        return replyDTOS;
+    }
+
+    private PostDTO addUrls(PostDTO postDTO, Post post) {
         postDTO.setPostUrl(buildPostUrl(post));
         postDTO.getUser().setAvatarUrl(avatarService.buildAvatarUrl(post.getUser()));
+        if (postDTO.getLastReplier() != null) {
+            postDTO.getLastReplier().setAvatarUrl(avatarService.buildAvatarUrl(post.getLastReplier()));
+        }
         if (post.getParent() != null) {
             postDTO.setParentPostUrl(buildPostUrl(post.getParent()));
         }
-        if (post.getChildren() != null) {
+        // DTOs mapped without children are left alone, so that the children collection is not loaded
+        if (postDTO.getChildren() != null && post.getChildren() != null) {
             for (int i = 0; i < post.getChildren().size(); i++) {
                 PostDTO childDTO = postDTO.getChildren().get(i);
                 Post child = post.getChildren().get(i);
@@ -197,9 +739,17 @@ public class PostServiceImpl implements PostService {
         return postDTO;
     }
 
+    private void validateReplyLimit(int limit, int min) {
+        if (limit < min || limit > MAX_REPLY_LIMIT) {
+            throw new BadRequestException("Invalid reply limit: " + limit + ", must be between " + min + " and "
+                    + MAX_REPLY_LIMIT);
+        }
+    }
+
     private void validateCategoryId(Long id) {
-        categoryRepository.findById(id)
-                .orElseThrow(() -> new NotFoundException("Category with id: " + id + " does not exist"));
+        if (!categoryRegistry.exists(id)) {
+            throw new NotFoundException("Category with id: " + id + " does not exist");
+        }
     }
 
     private void validateUserId(Long id) {
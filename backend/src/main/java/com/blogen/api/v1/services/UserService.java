@@ -20,7 +20,7 @@ public interface UserService {
     /**
      * Fetch a list of all users.
      *
-     * @return A UserListDTO containing a list of {@link UserDTO}.
+     * @return A UserListDTO containing a list of {@link UserDTO}, each with the number of posts the user started.
      */
     UserListDTO getAllUsers();
 
@@ -28,7 +28,8 @@ public interface UserService {
      * Fetch a {@link User} by their ID.
      *
      * @param id The database ID of the user.
-     * @return A UserDTO representing the user.
+     * @return A UserDTO representing the user, with the number of posts the user started, in all and in each
+     * category.
      */
     UserDTO getUser(Long id);
 
@@ -9,10 +9,13 @@ import com.blogen.domain.Role;
 import com.blogen.domain.User;
 import com.blogen.domain.UserPrefs;
 import com.blogen.exceptions.BadRequestException;
+import com.blogen.repositories.PostRepository;
 import com.blogen.repositories.UserRepository;
 import com.blogen.services.AvatarService;
 import com.blogen.services.RoleService;
 import com.blogen.services.security.PasswordEncryptionService;
+import com.blogen.services.utils.PostCounts;
+import com.blogen.services.utils.PostJsonCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -20,6 +23,8 @@ import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -37,26 +42,39 @@ public class UserServiceImpl implements UserService {
     private final PasswordEncryptionService encryptionService;
     private final RoleService roleService;
     private final UserMapper userMapper;
+    private final PostJsonCache postJsonCache;
+    private final PostRepository postRepository;
+    private final PostCounts postCounts;
 
     @Autowired
     public UserServiceImpl(UserRepository userRepository,
                            AvatarService avatarService,
                            PasswordEncryptionService encryptionService,
                            RoleService roleService,
-                           UserMapper userMapper) {
+                           UserMapper userMapper,
+                           PostJsonCache postJsonCache,
+                           PostRepository postRepository,
+                           PostCounts postCounts) {
         this.userRepository = userRepository;
         this.avatarService = avatarService;
         this.encryptionService = encryptionService;
         this.roleService = roleService;
         this.userMapper = userMapper;
+        this.postJsonCache = postJsonCache;
+        this.postRepository = postRepository;
+        this.postCounts = postCounts;
     }
 
     @Override
     public UserListDTO getAllUsers() {
-        List<UserDTO> userDTOS = userRepository.findAll().stream()
+        List<User> users = userRepository.findAll();
+        Map<Long, Long> postCountsByUser = postCounts.getUserPostCounts(
+                users.stream().map(User::getId).collect(Collectors.toList()));
+        List<UserDTO> userDTOS = users.stream()
                 .map(user -> {
                     UserDTO dto = userMapper.userToUserDto(user);
                     dto.setUserUrl(UserService.buildUserUrl(user));
+                    dto.setPostCount(postCountsByUser.get(user.getId()));
                     return dto;
                 }).collect(Collectors.toList());
         return new UserListDTO(userDTOS);
@@ -67,6 +85,8 @@ public class UserServiceImpl implements UserService {
         User user = validateUserId(id);
         UserDTO userDTO = userMapper.userToUserDto(user);
         userDTO.setUserUrl(UserService.buildUserUrl(user));
+        userDTO.setPostCount(postCounts.getUserPostCounts(List.of(id)).get(id));
+        userDTO.setCategoryPostCounts(postCounts.getCategoryPostCountsOfUser(id));
         return userDTO;
     }
 
@@ -86,7 +106,10 @@ public class UserServiceImpl implements UserService {
 
     @Override
     @PreAuthorize("hasAuthority('SCOPE_ROLE_ADMIN') || #user.getId().toString() == authentication.name")
+    @Transactional
     public UserDTO updateUser(User user, UserDTO userDTO) {
+        String userName = user.getUserName();
+        String avatarFileName = avatarFileNameOf(user);
         userMapper.updateUserFromDTO(userDTO, user);
         if (userDTO.getAvatarImage() != null) {
             Avatar avatar = avatarService.getAvatarByFileName(userDTO.getAvatarImage())
@@ -94,6 +117,13 @@ public class UserServiceImpl implements UserService {
             user.getUserPrefs().setAvatar(avatar);
         }
         User savedUser = userRepository.save(user);
+        // posts show the user name and avatar of their authors, so their cached JSON and their versions are stale when
+        // either changed. Other changes leave the posts alone, bumping their versions writes and locks many rows
+        if (!Objects.equals(userName, user.getUserName()) || !Objects.equals(avatarFileName, avatarFileNameOf(user))) {
+            postRepository.incrementVersionOfPostsByUser(savedUser.getId());
+            postRepository.incrementVersionOfThreadsRepliedToByUser(savedUser.getId());
+            postJsonCache.invalidateUser(savedUser.getId());
+        }
         UserDTO returnDto = userMapper.userToUserDto(savedUser);
         returnDto.setUserUrl(UserService.buildUserUrl(savedUser));
         return returnDto;
@@ -159,4 +189,11 @@ public class UserServiceImpl implements UserService {
         userPrefs.setAvatar(defaultAvatar);
         return userPrefs;
     }
+
+    private static String avatarFileNameOf(User user) {
+        if (user.getUserPrefs() == null || user.getUserPrefs().getAvatar() == null) {
+            return null;
+        }
+        return user.getUserPrefs().getAvatar().getFileName();
+    }
 }
@@ -127,7 +127,7 @@ public class Bootstrapper implements ApplicationListener<ContextRefreshedEvent>
     }
 
     private void createPost(String username, String category, String title, String body, LocalDateTime dateTime) {
-        User user = userService.findByUsername(username);
+        User user = userService.findByUserName(username).orElse(null);
         Category cat = categoryRepository.findByName(category);
         PostBuilder pb = new PostBuilder(user, cat, sequentialImageUrl(), title, body, dateTime);
         Post post = pb.build();
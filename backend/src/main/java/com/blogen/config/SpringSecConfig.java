@@ -86,7 +86,8 @@ public class SpringSecConfig extends WebSecurityConfigurerAdapter {
                         "/webjars/**",
                         "/console/*",
                         "/h2-console/**",
-                        "/actuator/**",
+                        "/actuator/health",
+                        "/actuator/health/**",
                         "/favicon.ico",
                         "/**/*.png", "/**/*.gif", "/**/*.svg", "/**/*.jpg",
                         "/**/*.html", "/**/*.css", "/**/*.js", "/**/*.map"
@@ -100,6 +101,8 @@ public class SpringSecConfig extends WebSecurityConfigurerAdapter {
             .authorizeHttpRequests(authorize -> authorize
                     .antMatchers("/", "/api/v1/auth/**", "/login/form").permitAll()
                     .antMatchers("/api/**").hasAuthority("SCOPE_ROLE_API")
+                    // the other actuator endpoints show who is doing what, such as the heavy hitters
+                    .antMatchers("/actuator/**").hasAuthority("SCOPE_ROLE_ADMIN")
                     .anyRequest().authenticated()
             )
             .oauth2Login(c -> c.defaultSuccessUrl("/login/oauth2/success", true))
@@ -1,14 +1,37 @@
 package com.blogen.config;
 
+import com.blogen.api.v1.model.CategoryDTO;
+import com.blogen.api.v1.model.PostDTO;
+import com.blogen.api.v1.model.PostUserDTO;
+import com.blogen.api.v1.model.UserDTO;
+import com.blogen.services.utils.FieldSelectionFilter;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
 /**
  * Configuration to enable cross-origin requests globally.
  * <p>
  * This is typically needed by JavaScript single-page applications that run on their own separate development servers.
  * </p>
+ * <p>
+ * Also registers the DTOs that support sparse fieldsets with the application ObjectMapper, and configures the CBOR
+ * and Smile message converters used when a client asks for a binary response.
+ * </p>
  * Author: Cliff
  */
 @Configuration
@@ -16,6 +39,12 @@ public class WebMvcConfig implements WebMvcConfigurer {
 
     private static final long MAX_AGE_SECS = 3600;
 
+    private final ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilder;
+
+    public WebMvcConfig(ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilder) {
+        this.objectMapperBuilder = objectMapperBuilder;
+    }
+
     /**
      * Configure CORS mappings.
      *
@@ -30,4 +59,40 @@ public class WebMvcConfig implements WebMvcConfigurer {
                 .exposedHeaders("Authorization")
                 .maxAge(MAX_AGE_SECS);
     }
+
+    /**
+     * Spring adds CBOR and Smile converters when their Jackson modules are present, but with a default ObjectMapper.
+     * Replace them with converters whose ObjectMapper is built like the application's JSON ObjectMapper, so binary
+     * responses have the same properties (date formats, field selection) as JSON responses.
+     *
+     * @param converters the configured message converters
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter
+                || converter instanceof MappingJackson2SmileHttpMessageConverter);
+        converters.add(new MappingJackson2CborHttpMessageConverter(
+                objectMapperBuilder.getObject().factory(new CBORFactory()).build()));
+        converters.add(new MappingJackson2SmileHttpMessageConverter(
+                objectMapperBuilder.getObject().factory(new SmileFactory()).build()));
+    }
+
+    /**
+     * Attach the {@link FieldSelectionFilter} to the DTOs that support sparse fieldsets. Unless a response selects
+     * fields, the filter writes every property.
+     */
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer fieldSelectionCustomizer() {
+        return builder -> builder
+                .mixIn(PostDTO.class, FieldSelectionMixIn.class)
+                .mixIn(PostUserDTO.class, FieldSelectionMixIn.class)
+                .mixIn(CategoryDTO.class, FieldSelectionMixIn.class)
+                .mixIn(UserDTO.class, FieldSelectionMixIn.class)
+                .filters(new SimpleFilterProvider()
+                        .addFilter(FieldSelectionFilter.FILTER_ID, SimpleBeanPropertyFilter.serializeAll()));
+    }
+
+    @JsonFilter(FieldSelectionFilter.FILTER_ID)
+    private abstract static class FieldSelectionMixIn {
+    }
 }
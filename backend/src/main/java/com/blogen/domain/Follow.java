@@ -0,0 +1,40 @@
+package com.blogen.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Domain Model of one user following another. The parent posts of followed users make up the home feed of the
+ * follower. Users are only referred to by id, because following is only ever read as lists of ids
+ *
+ * Author: Cliff
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "user_follow")
+public class Follow {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long followerId;
+
+    @Column(nullable = false)
+    private Long followedId;
+
+    private LocalDateTime created;
+
+    public static Follow of(Long followerId, Long followedId) {
+        return Follow.builder().followerId(followerId).followedId(followedId).created(LocalDateTime.now()).build();
+    }
+}
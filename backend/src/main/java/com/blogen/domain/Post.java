@@ -1,9 +1,12 @@
 package com.blogen.domain;
 
+import com.blogen.services.utils.TimeOrderedUuid;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Type;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
@@ -24,20 +27,43 @@ import java.util.UUID;
 @NoArgsConstructor
 @EqualsAndHashCode(of = "uuid")
 @Entity
+@NamedEntityGraph(name = Post.SUMMARY_GRAPH,
+        attributeNodes = @NamedAttributeNode(value = "lastReplier", subgraph = "user"),
+        subgraphs = {
+                @NamedSubgraph(name = "user",
+                        attributeNodes = @NamedAttributeNode(value = "userPrefs", subgraph = "userPrefs")),
+                @NamedSubgraph(name = "userPrefs", attributeNodes = @NamedAttributeNode("avatar"))
+        })
 public class Post {
 
+    // max length of a post excerpt, including the trailing ellipsis
+    public static final int EXCERPT_LENGTH = 200;
+
+    // entity graph of the posts of a thread listing. The summary of each thread shows its last replier, which is
+    // lazily loaded, so it is fetched along with the posts instead of one query per thread
+    public static final String SUMMARY_GRAPH = "Post.summary";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     private String title;
 
+    // post bodies can be large, so they are stored as a CLOB and only loaded when first accessed
+    @Lob
+    @Basic(fetch = FetchType.LAZY)
     private String text;
 
+    // A short, stored, summary of the text. List views use this instead of loading the full text
+    private String excerpt;
+
     private String imageUrl;
 
-    // A quick and hacky way to generate a unique id for a post
-    private String uuid = UUID.randomUUID().toString();
+    // A unique, time-ordered, public id for a post. It is stored as BINARY(16) so that the unique index on it stays
+    // compact and new posts are appended to the end of that index
+    @Type(type = "uuid-binary")
+    @Column(columnDefinition = "binary(16)", nullable = false, unique = true, updatable = false)
+    private UUID uuid = TimeOrderedUuid.next();
 
     // The user who created this post
     @ManyToOne
@@ -56,25 +82,120 @@ public class Post {
     @OneToMany(mappedBy = "parent", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Post> children = new ArrayList<>();
 
+    // Thread summary, maintained on parent posts whenever a child is added or removed, so that thread listings
+    // never have to load the children of a thread
+    private int replyCount;
+
+    private LocalDateTime lastReplyAt;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private User lastReplier;
+
+    // the later of the created time of this post and its last reply. Threads are sorted by this to list them by
+    // recent activity
+    private LocalDateTime lastActivity;
+
+    // number of times the post was read. Views are counted in memory and added to this column in batches by
+    // PostViewCounter, so hibernate never writes it
+    @Column(insertable = false, updatable = false)
+    private long viewCount;
+
+    // number of users that like the post, as last reconciled with the post_like table by PostLikeCounter, so
+    // hibernate never writes it either
+    @Column(insertable = false, updatable = false)
+    private long likeCount;
+
+    // incremented by hibernate on every update, so concurrent updates of a post cannot overwrite each other. Since
+    // adding or removing a reply updates the reply summary of its parent, the version of a parent post also changes
+    // whenever its replies do
+    @Version
+    private Long version;
+
     /**
-     * Add a child post.
+     * Sets the text of this post and refreshes its excerpt.
+     * @param text the full text of the post
+     */
+    public void setText(String text) {
+        this.text = text;
+        this.excerpt = buildExcerpt(text);
+    }
+
+    /**
+     * Builds an excerpt of the given text that is at most {@link #EXCERPT_LENGTH} characters long. Longer text
+     * is cut at the last whitespace that fits and ends with an ellipsis.
+     *
+     * @param text the text to summarize
+     * @return the excerpt, or null if text is null
+     */
+    public static String buildExcerpt(String text) {
+        if (text == null || text.length() <= EXCERPT_LENGTH) {
+            return text;
+        }
+        String ellipsis = "...";
+        int end = EXCERPT_LENGTH - ellipsis.length();
+        int lastSpace = text.lastIndexOf(' ', end);
+        if (lastSpace > 0) {
+            end = lastSpace;
+        }
+        return text.substring(0, end).trim() + ellipsis;
+    }
+
+    /**
+     * Add a child post. The reply summary of this post is updated from the child alone, so that the other children
+     * are never loaded.
      * @param child the child post to add
      * @return the added child post
      */
     public Post addChild(Post child) {
         child.setParent(this);
+        // an inverse bag queues the added child instead of loading the collection
         children.add(child);
+        replyCount++;
+        if (isLastReply(child)) {
+            setLastReply(child);
+        }
         return child;
     }
 
     /**
-     * Remove a child post.
+     * Remove a child post and decrement the reply count. If the child was the last reply, the caller reads the
+     * newest remaining child, with one query, and passes it to {@link #setLastReply}.
      * @param child the child post to remove
+     * @return true if the child was the last reply of this post
+     */
+    public boolean removeChild(Post child) {
+        // the children are only loaded if something else already needed them
+        if (Hibernate.isInitialized(children)) {
+            children.remove(child);
+        }
+        child.setParent(null);
+        replyCount = Math.max(0, replyCount - 1);
+        return isLastReply(child);
+    }
+
+    /**
+     * Set the last reply time, last replier and last activity of this post from a reply. Adding a child does this,
+     * call it directly when the last reply is removed, or when a reply is edited, which makes it the newest one
+     * @param reply the newest reply of this post, or null if it has none
      */
-    public void removeChild(Post child) {
-        // For Collections.remove() to work, need to make sure the post.equals() and hashCode() methods are working correctly
-        boolean isRemoved = children.remove(child);
-        if (isRemoved) child.setParent(null);
+    public void setLastReply(Post reply) {
+        lastReplyAt = (reply != null) ? reply.getCreated() : null;
+        lastReplier = (reply != null) ? reply.getUser() : null;
+        lastActivity = (lastReplyAt != null && (created == null || lastReplyAt.isAfter(created))) ? lastReplyAt : created;
+    }
+
+    /**
+     * @return true if the given child is at least as new as the last reply of this post
+     */
+    private boolean isLastReply(Post child) {
+        return lastReplyAt == null || child.getCreated() == null || !child.getCreated().isBefore(lastReplyAt);
+    }
+
+    @PrePersist
+    private void initLastActivity() {
+        if (lastActivity == null) {
+            lastActivity = created;
+        }
     }
 
     /**
@@ -93,7 +214,7 @@ public class Post {
                 "id=" + id +
                 ", uuid=" + uuid +
                 ", title=" + title +
-                ", text='" + text + '\'' +
+                ", excerpt='" + excerpt + '\'' +
                 ", imageUrl='" + imageUrl + '\'' +
                 ", userName=" + user.getUserName() +
                 ", category=" + category.getName() +
@@ -0,0 +1,47 @@
+package com.blogen.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Domain Model of one entry in the change log of posts. An entry is appended whenever a post is inserted, updated or
+ * deleted, so that clients can ask for the posts that changed since they last synced, instead of refetching pages.
+ * Entries are never updated, and only refer to posts by id, so they outlive the posts they describe.
+ *
+ * Author: Cliff
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "post_change")
+public class PostChange {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    // increases with every change, clients sync from the id of the last change they have seen
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long postId;
+
+    // stored as its ordinal, in a tinyint column
+    @Enumerated(EnumType.ORDINAL)
+    @Column(name = "change_type", nullable = false)
+    private Type type;
+
+    @Column(nullable = false)
+    private LocalDateTime changed;
+
+    public static PostChange of(Type type, Long postId) {
+        return PostChange.builder().type(type).postId(postId).changed(LocalDateTime.now()).build();
+    }
+}
@@ -0,0 +1,41 @@
+package com.blogen.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Domain Model of a user liking a post. A user likes a post at most once, which the unique (post_id, user_id)
+ * index enforces. The like count of a post is kept in the post table and reconciled with these rows, see
+ * {@link com.blogen.services.utils.PostLikeCounter}
+ *
+ * Author: Cliff
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "post_like")
+public class PostLike {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long postId;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    private LocalDateTime created;
+
+    public static PostLike of(Long postId, Long userId) {
+        return PostLike.builder().postId(postId).userId(userId).created(LocalDateTime.now()).build();
+    }
+}
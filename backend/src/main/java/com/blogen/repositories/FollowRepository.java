@@ -0,0 +1,53 @@
+package com.blogen.repositories;
+
+import com.blogen.domain.Follow;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+/**
+ * Spring-Data-JPA query methods for the user_follow table
+ *
+ * @author Cliff
+ */
+public interface FollowRepository extends JpaRepository<Follow, Long> {
+
+  boolean existsByFollowerIdAndFollowedId(Long followerId, Long followedId);
+
+  /**
+   * @param followerId - id of the follower
+   * @param followedId - id of the followed user
+   * @return the number of rows deleted, 0 if the user was not followed
+   */
+  @Modifying
+  @Query("delete from Follow f where f.followerId = ?1 and f.followedId = ?2")
+  int deleteFollow(Long followerId, Long followedId);
+
+  /**
+   * @param followedId - id of a user
+   * @return the ids of the users that follow the user, read from the (followed_id) index
+   */
+  @Query("select f.followerId from Follow f where f.followedId = ?1")
+  List<Long> findFollowerIds(Long followedId);
+
+  /**
+   * @param followerId - id of a user
+   * @return the ids of the users that the user follows, read from the (follower_id, followed_id) unique index
+   */
+  @Query("select f.followedId from Follow f where f.followerId = ?1")
+  List<Long> findFollowedIds(Long followerId);
+
+  long countByFollowedId(Long followedId);
+
+  /**
+   * @param followerId - id of a user
+   * @param followerCount - the number of followers to exceed
+   * @return the ids of the users that the user follows and that have more than followerCount followers
+   */
+  @Query("select f.followedId from Follow f where f.followedId in "
+          + "(select mine.followedId from Follow mine where mine.followerId = ?1) "
+          + "group by f.followedId having count(f) > ?2")
+  List<Long> findFollowedIdsWithMoreFollowersThan(Long followerId, long followerCount);
+}
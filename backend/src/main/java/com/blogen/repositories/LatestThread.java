@@ -0,0 +1,20 @@
+package com.blogen.repositories;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * The newest parent post of a category, as kept with the post count of the category
+ *
+ * @author Cliff
+ */
+@Value
+public class LatestThread {
+
+    Long id;
+
+    String title;
+
+    LocalDateTime created;
+}
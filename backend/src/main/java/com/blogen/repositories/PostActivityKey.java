@@ -0,0 +1,15 @@
+package com.blogen.repositories;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of the columns that say who posted what, where and when, as counted by the post activity aggregates
+ *
+ * @author Cliff
+ */
+public interface PostActivityKey extends PostThreadKey {
+
+    Long getUserId();
+
+    LocalDateTime getCreated();
+}
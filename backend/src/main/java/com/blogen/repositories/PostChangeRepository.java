@@ -0,0 +1,33 @@
+package com.blogen.repositories;
+
+import com.blogen.domain.PostChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Spring-Data-JPA query methods for the change log of posts
+ *
+ * @author Cliff
+ */
+public interface PostChangeRepository extends JpaRepository<PostChange, Long> {
+
+  /**
+   * get the changes made after a change, oldest first. This is a range scan of the primary key
+   *
+   * @param id - id of the last change already read
+   * @param pageable - limits the number of changes returned, its sort is ignored
+   * @return a List of changes ordered by id
+   */
+  @Query("select c from PostChange c where c.id > ?1 order by c.id")
+  List<PostChange> findChangesAfter(Long id, Pageable pageable);
+
+  /**
+   * @return the id of the latest change, or an empty Optional if nothing changed yet
+   */
+  @Query("select max(c.id) from PostChange c")
+  Optional<Long> findLatestId();
+}
@@ -0,0 +1,28 @@
+package com.blogen.repositories;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import javax.persistence.Tuple;
+import java.util.Collection;
+
+/**
+ * Query methods that read only some of the columns of a post, for responses that only need a few of its fields
+ *
+ * @author Cliff
+ */
+public interface PostColumnsRepository {
+
+    /**
+     * get a page of parent posts, reading only the given attributes of each post. Attributes of associations, such
+     * as {@code user.userName}, are read with a left join, so they are null when the association is.
+     *
+     * @param attributes - paths of the Post attributes to read, each element of a returned Tuple is aliased with
+     *                   its path
+     * @param userId     - only return posts of this user, or null for posts of all users
+     * @param categoryId - only return posts of this category, or null for posts of all categories
+     * @param pageable   - the page to read and the order of the posts
+     * @return a Page of Tuples holding the attribute values of each post
+     */
+    Page<Tuple> findParentPostColumns(Collection<String> attributes, Long userId, Long categoryId, Pageable pageable);
+}
@@ -0,0 +1,96 @@
+package com.blogen.repositories;
+
+import com.blogen.domain.Post;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.From;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Criteria API implementation of {@link PostColumnsRepository}, mixed in to {@link PostRepository} by Spring Data
+ *
+ * @author Cliff
+ */
+public class PostColumnsRepositoryImpl implements PostColumnsRepository {
+
+    private final EntityManager entityManager;
+
+    public PostColumnsRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Page<Tuple> findParentPostColumns(Collection<String> attributes, Long userId, Long categoryId,
+                                             Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Post> post = query.from(Post.class);
+
+        Map<String, From<?, ?>> joins = new HashMap<>();
+        List<Selection<?>> selections = new ArrayList<>();
+        for (String attribute : attributes) {
+            int dot = attribute.lastIndexOf('.');
+            From<?, ?> from = (dot < 0) ? post : join(post, joins, attribute.substring(0, dot));
+            selections.add(from.get(attribute.substring(dot + 1)).alias(attribute));
+        }
+        query.multiselect(selections)
+                .where(parentPostsOf(cb, post, userId, categoryId))
+                .orderBy(QueryUtils.toOrders(pageable.getSort(), post, cb));
+
+        List<Tuple> content = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+        return PageableExecutionUtils.getPage(content, pageable, () -> countParentPosts(userId, categoryId));
+    }
+
+    private long countParentPosts(Long userId, Long categoryId) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Post> post = query.from(Post.class);
+        query.select(cb.count(post)).where(parentPostsOf(cb, post, userId, categoryId));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static Predicate[] parentPostsOf(CriteriaBuilder cb, Root<Post> post, Long userId, Long categoryId) {
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.isNull(post.get("parent")));
+        if (userId != null) {
+            predicates.add(cb.equal(post.get("user").get("id"), userId));
+        }
+        if (categoryId != null) {
+            predicates.add(cb.equal(post.get("category").get("id"), categoryId));
+        }
+        return predicates.toArray(new Predicate[0]);
+    }
+
+    /**
+     * left join the association at path, e.g. {@code user.userPrefs.avatar}, reusing joins already made for the
+     * same path or its prefixes
+     */
+    private static From<?, ?> join(Root<Post> post, Map<String, From<?, ?>> joins, String path) {
+        From<?, ?> from = joins.get(path);
+        if (from == null) {
+            int dot = path.lastIndexOf('.');
+            From<?, ?> parent = (dot < 0) ? post : join(post, joins, path.substring(0, dot));
+            from = parent.join(path.substring(dot + 1), JoinType.LEFT);
+            joins.put(path, from);
+        }
+        return from;
+    }
+}
@@ -0,0 +1,66 @@
+package com.blogen.repositories;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Repository for the number of parent posts of each user, of each category, and of each user in each category, and
+ * for the latest thread of each category. Counts are kept in their own tables and changed with plain JDBC in the
+ * transaction that creates or deletes a parent post, so that they can be read without counting posts. The latest
+ * thread of a category is kept with its count, as the id of its newest parent post by created date.
+ *
+ * @author Cliff
+ */
+public interface PostCountRepository {
+
+    /**
+     * Add to the post counts of a user, of a category, and of the user in the category, in the current transaction
+     *
+     * @param userId     id of the user
+     * @param categoryId id of the category
+     * @param delta      the number of posts to add, negative to subtract
+     */
+    void addPosts(Long userId, Long categoryId, long delta);
+
+    /**
+     * Make a parent post the latest thread of its category, in the current transaction. A new or edited post is the
+     * newest of its category, so this is called after a post is counted or edited
+     *
+     * @param categoryId id of the category
+     * @param postId     id of the post
+     */
+    void setLatestThread(Long categoryId, Long postId);
+
+    /**
+     * Make the newest other parent post the latest thread of a category, if a parent post that is being deleted is
+     * its latest thread, in the current transaction
+     *
+     * @param categoryId id of the category
+     * @param postId     id of the post being deleted
+     */
+    void replaceLatestThread(Long categoryId, Long postId);
+
+    /**
+     * @param userIds ids of users
+     * @return the post count of each user that has a count, by user id
+     */
+    Map<Long, Long> findUserPostCounts(Collection<Long> userIds);
+
+    /**
+     * @param categoryIds ids of categories
+     * @return the post count of each category that has a count, by category id
+     */
+    Map<Long, Long> findCategoryPostCounts(Collection<Long> categoryIds);
+
+    /**
+     * @param userId id of a user
+     * @return the post count of the user in each category the user has a count in, by category id
+     */
+    Map<Long, Long> findCategoryPostCountsOfUser(Long userId);
+
+    /**
+     * @param categoryIds ids of categories
+     * @return the latest thread of each category that has one, by category id
+     */
+    Map<Long, LatestThread> findLatestThreads(Collection<Long> categoryIds);
+}
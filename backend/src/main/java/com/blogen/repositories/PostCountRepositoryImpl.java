@@ -0,0 +1,148 @@
+package com.blogen.repositories;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Implementation of the PostCountRepository using JdbcTemplate
+ *
+ * @author Cliff
+ */
+@Repository
+public class PostCountRepositoryImpl implements PostCountRepository {
+
+    private static final String ADD_USER_POSTS_SQL =
+            "UPDATE user_post_count SET post_count = post_count + ? WHERE user_id = ?";
+    private static final String INSERT_USER_POSTS_SQL =
+            "INSERT INTO user_post_count(post_count, user_id) VALUES (?, ?)";
+    private static final String ADD_CATEGORY_POSTS_SQL =
+            "UPDATE category_post_count SET post_count = post_count + ? WHERE category_id = ?";
+    private static final String INSERT_CATEGORY_POSTS_SQL =
+            "INSERT INTO category_post_count(post_count, category_id) VALUES (?, ?)";
+    private static final String ADD_USER_CATEGORY_POSTS_SQL =
+            "UPDATE user_category_post_count SET post_count = post_count + ? WHERE user_id = ? AND category_id = ?";
+    private static final String INSERT_USER_CATEGORY_POSTS_SQL =
+            "INSERT INTO user_category_post_count(post_count, user_id, category_id) VALUES (?, ?, ?)";
+    private static final String SET_LATEST_THREAD_SQL =
+            "UPDATE category_post_count SET latest_post_id = ? WHERE category_id = ?";
+    private static final String REPLACE_LATEST_THREAD_SQL =
+            "UPDATE category_post_count SET latest_post_id = (SELECT id FROM post "
+                    + "WHERE category_id = ? AND parent_id IS NULL AND id <> ? ORDER BY created DESC, id DESC LIMIT 1) "
+                    + "WHERE category_id = ? AND latest_post_id = ?";
+
+    private static final String FIND_USER_POST_COUNTS_SQL =
+            "SELECT user_id, post_count FROM user_post_count WHERE user_id IN (:ids)";
+    private static final String FIND_CATEGORY_POST_COUNTS_SQL =
+            "SELECT category_id, post_count FROM category_post_count WHERE category_id IN (:ids)";
+    private static final String FIND_CATEGORY_POST_COUNTS_OF_USER_SQL =
+            "SELECT category_id, post_count FROM user_category_post_count WHERE user_id = ?";
+    private static final String FIND_LATEST_THREADS_SQL =
+            "SELECT c.category_id, p.id, p.title, p.created FROM category_post_count c "
+                    + "JOIN post p ON p.id = c.latest_post_id WHERE c.category_id IN (:ids)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    public PostCountRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    @Override
+    @Transactional
+    public void addPosts(Long userId, Long categoryId, long delta) {
+        // users before categories, in every transaction, so concurrent posts lock the rows in the same order
+        add(ADD_USER_POSTS_SQL, INSERT_USER_POSTS_SQL, delta, userId);
+        add(ADD_USER_CATEGORY_POSTS_SQL, INSERT_USER_CATEGORY_POSTS_SQL, delta, userId, categoryId);
+        add(ADD_CATEGORY_POSTS_SQL, INSERT_CATEGORY_POSTS_SQL, delta, categoryId);
+    }
+
+    @Override
+    @Transactional
+    public void setLatestThread(Long categoryId, Long postId) {
+        jdbcTemplate.update(SET_LATEST_THREAD_SQL, postId, categoryId);
+    }
+
+    @Override
+    @Transactional
+    public void replaceLatestThread(Long categoryId, Long postId) {
+        // the post is excluded, as it may not be deleted yet
+        jdbcTemplate.update(REPLACE_LATEST_THREAD_SQL, categoryId, postId, categoryId, postId);
+    }
+
+    @Override
+    public Map<Long, Long> findUserPostCounts(Collection<Long> userIds) {
+        return findCounts(FIND_USER_POST_COUNTS_SQL, userIds);
+    }
+
+    @Override
+    public Map<Long, Long> findCategoryPostCounts(Collection<Long> categoryIds) {
+        return findCounts(FIND_CATEGORY_POST_COUNTS_SQL, categoryIds);
+    }
+
+    @Override
+    public Map<Long, Long> findCategoryPostCountsOfUser(Long userId) {
+        Map<Long, Long> counts = new HashMap<>();
+        jdbcTemplate.query(FIND_CATEGORY_POST_COUNTS_OF_USER_SQL,
+                rs -> {
+                    counts.put(rs.getLong(1), rs.getLong(2));
+                }, userId);
+        return counts;
+    }
+
+    @Override
+    public Map<Long, LatestThread> findLatestThreads(Collection<Long> categoryIds) {
+        Map<Long, LatestThread> threads = new HashMap<>();
+        if (categoryIds.isEmpty()) {
+            return threads;
+        }
+        namedJdbcTemplate.query(FIND_LATEST_THREADS_SQL, Map.of("ids", categoryIds),
+                rs -> {
+                    threads.put(rs.getLong(1), new LatestThread(rs.getLong(2), rs.getString(3),
+                            rs.getTimestamp(4).toLocalDateTime()));
+                });
+        return threads;
+    }
+
+    /**
+     * Add to a count row, inserting it if it does not exist yet. A row inserted by a concurrent transaction in between
+     * is updated instead
+     */
+    private void add(String updateSql, String insertSql, long delta, Object... keys) {
+        Object[] args = new Object[keys.length + 1];
+        args[0] = delta;
+        System.arraycopy(keys, 0, args, 1, keys.length);
+        if (jdbcTemplate.update(updateSql, args) > 0) {
+            return;
+        }
+        // a count that was never added to is zero, and cannot go below it
+        Object[] insertArgs = args.clone();
+        insertArgs[0] = Math.max(delta, 0);
+        try {
+            jdbcTemplate.update(insertSql, insertArgs);
+        } catch (DuplicateKeyException e) {
+            jdbcTemplate.update(updateSql, args);
+        }
+    }
+
+    private Map<Long, Long> findCounts(String sql, Collection<Long> ids) {
+        Map<Long, Long> counts = new HashMap<>();
+        if (ids.isEmpty()) {
+            return counts;
+        }
+        namedJdbcTemplate.query(sql, Map.of("ids", ids),
+                rs -> {
+                    counts.put(rs.getLong(1), rs.getLong(2));
+                });
+        return counts;
+    }
+}
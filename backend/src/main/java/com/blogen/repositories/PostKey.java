@@ -0,0 +1,15 @@
+package com.blogen.repositories;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of the columns that order posts in a timeline, newest first
+ *
+ * @author Cliff
+ */
+public interface PostKey {
+
+    Long getId();
+
+    LocalDateTime getCreated();
+}
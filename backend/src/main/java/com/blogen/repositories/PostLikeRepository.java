@@ -0,0 +1,46 @@
+package com.blogen.repositories;
+
+import com.blogen.domain.PostLike;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Spring-Data-JPA query methods for the post_like table
+ *
+ * @author Cliff
+ */
+public interface PostLikeRepository extends JpaRepository<PostLike, Long> {
+
+  /**
+   * @param postId - id of the post
+   * @param userId - id of the user
+   * @return the number of rows deleted, 0 if the user did not like the post
+   */
+  @Transactional
+  @Modifying
+  @Query("delete from PostLike l where l.postId = ?1 and l.userId = ?2")
+  int deleteLike(Long postId, Long userId);
+
+  /**
+   * @param postId - id of a post
+   * @return the ids of the users that like the post, in ascending order, read from the (post_id, user_id) unique index
+   */
+  @Query("select l.userId from PostLike l where l.postId = ?1 order by l.userId")
+  List<Long> findUserIds(Long postId);
+
+  /**
+   * Set the like count of posts to the number of their likes
+   *
+   * @param postIds - ids of the posts
+   * @return the number of posts updated
+   */
+  @Modifying
+  @Query(value = "update post set like_count = (select count(*) from post_like where post_like.post_id = post.id) "
+          + "where post.id in (?1)", nativeQuery = true)
+  int reconcileLikeCounts(Collection<Long> postIds);
+}
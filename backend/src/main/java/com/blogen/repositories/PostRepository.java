@@ -3,17 +3,37 @@ package com.blogen.repositories;
 import com.blogen.domain.Post;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 /**
  * Spring-Data-JPA query methods for the Post table
  *
  * @author Cliff
  */
-public interface PostRepository extends JpaRepository<Post, Long> {
+public interface PostRepository extends JpaRepository<Post, Long>, PostColumnsRepository {
+
+  /**
+   * number of rows the JDBC driver should fetch per round trip when streaming posts
+   */
+  String EXPORT_FETCH_SIZE = "500";
 
   /**
    * find all parent posts. Parent posts have a PARENT_ID = NULL in the database.
@@ -22,6 +42,90 @@ public interface PostRepository extends JpaRepository<Post, Long> {
    */
   List<Post> findAllByParentNull();
 
+  /**
+   * find a post by its uuid. This is a single lookup on the unique index of the binary(16) uuid column
+   *
+   * @param uuid - the uuid of the post
+   * @return an Optional containing the post, or an empty Optional if no post has the uuid
+   */
+  Optional<Post> findByUuid(UUID uuid);
+
+  /**
+   * read the version columns of a post, its written counts and the id of its parent, without loading the post itself
+   *
+   * @param id - the id of the post
+   * @return an Optional containing the version of the post, or an empty Optional if it does not exist
+   */
+  @Query("select p.id as id, p.parent.id as parentId, p.version as version, p.created as created, "
+          + "p.lastActivity as lastActivity, p.viewCount as viewCount, p.likeCount as likeCount from Post p "
+          + "where p.id = ?1")
+  Optional<PostVersion> findVersionById(Long id);
+
+  /**
+   * read the version columns of a post, its written counts and the id of its parent, by its uuid, without loading the
+   * post itself
+   *
+   * @param uuid - the uuid of the post
+   * @return an Optional containing the version of the post, or an empty Optional if no post has the uuid
+   */
+  @Query("select p.id as id, p.parent.id as parentId, p.version as version, p.created as created, "
+          + "p.lastActivity as lastActivity, p.viewCount as viewCount, p.likeCount as likeCount from Post p "
+          + "where p.uuid = ?1")
+  Optional<PostVersion> findVersionByUuid(UUID uuid);
+
+  /**
+   * Find the like count of a post, as last reconciled, without loading the post
+   *
+   * @param id - the id of the post
+   * @return an Optional containing the like count of the post, or an empty Optional if it does not exist
+   */
+  @Query("select p.likeCount from Post p where p.id = ?1")
+  Optional<Long> findLikeCountById(Long id);
+
+  /**
+   * increment the version of every post of a user. The representation of a post includes the name and avatar of
+   * its user, so this is done whenever those change
+   *
+   * @param userId - id of the user
+   * @return the number of posts updated
+   */
+  @Modifying(flushAutomatically = true)
+  @Query("update Post p set p.version = p.version + 1 where p.user.id = ?1")
+  int incrementVersionOfPostsByUser(Long userId);
+
+  /**
+   * increment the version of every parent post that has a reply by a user, because a parent post includes its
+   * replies
+   *
+   * @param userId - id of the user
+   * @return the number of parent posts updated
+   */
+  @Modifying(flushAutomatically = true)
+  @Query("update Post p set p.version = p.version + 1 where p.id in "
+          + "(select c.parent.id from Post c where c.user.id = ?1)")
+  int incrementVersionOfThreadsRepliedToByUser(Long userId);
+
+  /**
+   * increment the version of every post in a category, whenever the category is changed
+   *
+   * @param categoryId - id of the category
+   * @return the number of posts updated
+   */
+  @Modifying(flushAutomatically = true)
+  @Query("update Post p set p.version = p.version + 1 where p.category.id = ?1")
+  int incrementVersionOfPostsInCategory(Long categoryId);
+
+  /**
+   * increment the version of every parent post that has a reply in a category, whenever the category is changed
+   *
+   * @param categoryId - id of the category
+   * @return the number of parent posts updated
+   */
+  @Modifying(flushAutomatically = true)
+  @Query("update Post p set p.version = p.version + 1 where p.id in "
+          + "(select c.parent.id from Post c where c.category.id = ?1)")
+  int incrementVersionOfThreadsWithRepliesInCategory(Long categoryId);
+
   /**
    * find all parent posts CREATED by a user with the specified user.id
    * 
@@ -31,13 +135,151 @@ public interface PostRepository extends JpaRepository<Post, Long> {
   // Page<Post> findAllByUser_IdAndParentNullOrderByCreatedDesc( Long userId,
   // Pageable pageable );
 
+  /**
+   * find posts by their ids, along with their last repliers, see {@link Post#SUMMARY_GRAPH}
+   *
+   * @param ids - ids of the posts
+   * @return the posts that exist, in no particular order
+   */
+  @Override
+  @EntityGraph(Post.SUMMARY_GRAPH)
+  List<Post> findAllById(Iterable<Long> ids);
+
   /**
    * get a page of Parent Posts (aka Threads) in descending order of creation
    * 
    * @return a Page of parent posts ordered by creation date, in descending order
    */
+  @EntityGraph(Post.SUMMARY_GRAPH)
   Page<Post> findAllByParentNullOrderByCreatedDesc(Pageable pageable);
 
+  /**
+   * get a page of Parent Posts (aka Threads) ordered by their most recent activity, i.e. the time of their latest
+   * reply, or their creation time if they have no replies
+   *
+   * @return a Page of parent posts ordered by last activity, in descending order
+   */
+  @EntityGraph(Post.SUMMARY_GRAPH)
+  Page<Post> findAllByParentNullOrderByLastActivityDesc(Pageable pageable);
+
+  /**
+   * find a post and lock its row until the end of the current transaction. Used to serialize changes to the
+   * thread summary (reply count, last reply) of a parent post
+   *
+   * @param id - id of the post
+   * @return an Optional containing the locked post, or an empty Optional if it does not exist
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select p from Post p where p.id = ?1")
+  Optional<Post> findByIdForUpdate(Long id);
+
+  /**
+   * get the first child posts of a parent post, oldest first. Posts created at the same time are ordered by id, so
+   * that the order is total and can be paged through with {@link #findChildrenAfter}
+   *
+   * @param parentId - id of the parent post
+   * @param pageable - limits the number of posts returned, its sort is ignored
+   * @return a List of child posts ordered by created date and id
+   */
+  @Query("select p from Post p where p.parent.id = ?1 order by p.created, p.id")
+  List<Post> findChildren(Long parentId, Pageable pageable);
+
+  /**
+   * get the newest child posts of a parent post, other than the given one, newest first. Used with a page of one to
+   * find the new last reply of a thread when its last reply is deleted, it reads from the (parent_id, created) index
+   *
+   * @param parentId - id of the parent post
+   * @param excludedId - id of the child post being deleted
+   * @param pageable - limits the number of posts returned, its sort is ignored
+   * @return a List of child posts ordered by created date and id, in descending order
+   */
+  @Query("select p from Post p where p.parent.id = ?1 and p.id <> ?2 order by p.created desc, p.id desc")
+  List<Post> findNewestChildren(Long parentId, Long excludedId, Pageable pageable);
+
+  /**
+   * get the child posts of a parent post that come after the given (created, id) position, oldest first. This is a
+   * keyset query, so it starts reading at the given position, using the (parent_id, created) index, no matter how
+   * far into a thread the position is. {@code created >= ?2} is repeated outside of the OR so that the database can
+   * use it as the start of an index range
+   *
+   * @param parentId - id of the parent post
+   * @param created - created date of the last child post already read
+   * @param id - id of the last child post already read
+   * @param pageable - limits the number of posts returned, its sort is ignored
+   * @return a List of child posts ordered by created date and id
+   */
+  @Query("select p from Post p where p.parent.id = ?1 and p.created >= ?2 and (p.created > ?2 or p.id > ?3) "
+          + "order by p.created, p.id")
+  List<Post> findChildrenAfter(Long parentId, LocalDateTime created, Long id, Pageable pageable);
+
+  /**
+   * get the newest parent posts of some users, newest first. Used to build the home feed of a user from the posts of
+   * the users they follow
+   *
+   * @param userIds - ids of the authors
+   * @param pageable - limits the number of posts returned, its sort is ignored
+   * @return the ids and created dates of the posts, ordered by created date and id, in descending order
+   */
+  @Query("select p.id as id, p.created as created from Post p where p.user.id in ?1 and p.parent is null "
+          + "order by p.created desc, p.id desc")
+  List<PostKey> findTimelineKeys(Collection<Long> userIds, Pageable pageable);
+
+  /**
+   * get the thread and category of some posts, without loading the posts
+   *
+   * @param ids - ids of the posts
+   * @return the ids of the posts that exist, with the ids of their parent posts and categories
+   */
+  @Query("select p.id as id, p.parent.id as parentId, p.category.id as categoryId from Post p where p.id in ?1")
+  List<PostThreadKey> findThreadKeys(Collection<Long> ids);
+
+  /**
+   * @return the highest post id, or an empty Optional if there are no posts
+   */
+  @Query("select max(p.id) from Post p")
+  Optional<Long> findMaxId();
+
+  /**
+   * get the titles and texts of the parent posts whose ids are in a range, in id order. Pages of a range are read
+   * by passing the id of the last post read as afterId
+   *
+   * @param afterId - the posts have ids greater than this
+   * @param beforeId - the posts have ids less than this
+   * @param pageable - limits the number of posts returned, its sort is ignored
+   * @return the ids, titles and texts of the posts, ordered by id
+   */
+  @Query("select p.id as id, p.title as title, p.text as text from Post p "
+          + "where p.parent is null and p.id > ?1 and p.id < ?2 order by p.id")
+  List<PostText> findParentTextsBetween(Long afterId, Long beforeId, Pageable pageable);
+
+  /**
+   * get the authors, categories and created dates of the posts and replies whose ids are in a range and that were
+   * created since a date, in id order. Pages of a range are read by passing the id of the last post read as afterId
+   *
+   * @param afterId - the posts have ids greater than this
+   * @param beforeId - the posts have ids less than this
+   * @param since - the posts were created at or after this date
+   * @param pageable - limits the number of posts returned, its sort is ignored
+   * @return the ids, parent ids, category ids, user ids and created dates of the posts, ordered by id
+   */
+  @Query("select p.id as id, p.parent.id as parentId, p.category.id as categoryId, p.user.id as userId, "
+          + "p.created as created from Post p where p.id > ?1 and p.id < ?2 and p.created >= ?3 order by p.id")
+  List<PostActivityKey> findActivityKeysBetween(Long afterId, Long beforeId, LocalDateTime since, Pageable pageable);
+
+  /**
+   * get the parent posts of some users that come before the given (created, id) position, newest first. This is
+   * the keyset form of {@link #findTimelineKeys}
+   *
+   * @param userIds - ids of the authors
+   * @param created - created date of the last post already read
+   * @param id - id of the last post already read
+   * @param pageable - limits the number of posts returned, its sort is ignored
+   * @return the ids and created dates of the posts, ordered by created date and id, in descending order
+   */
+  @Query("select p.id as id, p.created as created from Post p where p.user.id in ?1 and p.parent is null "
+          + "and p.created <= ?2 and (p.created < ?2 or p.id < ?3) order by p.created desc, p.id desc")
+  List<PostKey> findTimelineKeysBefore(Collection<Long> userIds, LocalDateTime created, Long id, Pageable pageable);
+
   /**
    * get a Page of posts, parent or child, ordered by created date
    * 
@@ -52,6 +294,7 @@ public interface PostRepository extends JpaRepository<Post, Long> {
    * @param pageable
    * @return a Page of posts having the specified category
    */
+  @EntityGraph(Post.SUMMARY_GRAPH)
   Page<Post> findAllByCategory_IdAndParentNull(Long categoryId, Pageable pageable);
 
   /**
@@ -63,6 +306,7 @@ public interface PostRepository extends JpaRepository<Post, Long> {
    * @return a lists of posts made by the specified user id to be displayed on the
    *         pageable
    */
+  @EntityGraph(Post.SUMMARY_GRAPH)
   Page<Post> findAllByUser_IdAndParentNull(Long userId, Pageable pageable);
 
   /**
@@ -74,6 +318,7 @@ public interface PostRepository extends JpaRepository<Post, Long> {
    * @param pageable
    * @return
    */
+  @EntityGraph(Post.SUMMARY_GRAPH)
   Page<Post> findAllByUser_IdAndCategory_IdAndParentNull(Long userId, Long categoryId, Pageable pageable);
 
   /**
@@ -91,6 +336,7 @@ public interface PostRepository extends JpaRepository<Post, Long> {
    * @param searchStr - the substring to search for in post.text or post.title
    * @return {@link Page} containing Posts matching the searchStr
    */
+  @EntityGraph(Post.SUMMARY_GRAPH)
   @Query("select p from Post p where lower(p.title) like %?1% or lower(p.text) like %?1% order by p.created desc ")
   Page<Post> findByTextOrTitleIgnoreCaseContaining(String searchStr, Pageable pageable);
 
@@ -100,5 +346,28 @@ public interface PostRepository extends JpaRepository<Post, Long> {
    */
   List<Post> findTop10ByOrderByCreatedDesc();
 
-Object ByParentNullOrderByCreatedDesc(Pageable any);
+  /**
+   * Streams every post, parent or child, grouped by thread. A parent post is always followed by all of its
+   * child posts before the next thread begins. The result is read forward-only using a JDBC fetch size, so
+   * callers must consume the stream within a (read-only) transaction and close it when done. The lazily loaded
+   * text of each post is read by this query too, as every exported post needs it.
+   * <p>
+   * NOTE: MySQL Connector/J only honours the fetch size when {@code useCursorFetch=true} is set on the JDBC url, as
+   * it is in application-mysql.properties, otherwise the driver buffers the whole result set in memory.
+   * <p>
+   * No index matches {@code coalesce(parent_id, id)}, so the database reads the whole table and sorts it before
+   * returning the first row, spilling to disk when the sort does not fit in its sort buffer. That cost is paid by the
+   * database, once per export, and the application still reads the rows a fetch at a time. Ordering by an indexed
+   * key instead would either separate replies from their threads, which would then have to be held in memory until
+   * complete, or take one query per thread.
+   *
+   * @return a Stream of all posts, ordered by thread and then by post id
+   */
+  @QueryHints({
+          @QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+          @QueryHint(name = HINT_CACHEABLE, value = "false"),
+          @QueryHint(name = HINT_READONLY, value = "true")
+  })
+  @Query("select p from Post p fetch all properties order by coalesce(p.parent.id, p.id), p.id")
+  Stream<Post> streamAllByThread();
 }
\ No newline at end of file
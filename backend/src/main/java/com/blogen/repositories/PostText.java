@@ -0,0 +1,15 @@
+package com.blogen.repositories;
+
+/**
+ * Projection of the title and text of a post, for reading the text of many posts without loading them
+ *
+ * @author Cliff
+ */
+public interface PostText {
+
+    Long getId();
+
+    String getTitle();
+
+    String getText();
+}
@@ -0,0 +1,18 @@
+package com.blogen.repositories;
+
+/**
+ * Projection of the columns that identify the thread, and category, a post belongs to
+ *
+ * @author Cliff
+ */
+public interface PostThreadKey {
+
+    Long getId();
+
+    /**
+     * @return id of the parent post, null if the post is a parent post
+     */
+    Long getParentId();
+
+    Long getCategoryId();
+}
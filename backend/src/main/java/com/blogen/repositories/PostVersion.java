@@ -0,0 +1,27 @@
+package com.blogen.repositories;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns of a post that tell whether its representation changed, and the thread it is in, read without loading the
+ * post
+ *
+ * @author Cliff
+ */
+public interface PostVersion {
+
+    Long getId();
+
+    // null if the post is a parent post
+    Long getParentId();
+
+    Long getVersion();
+
+    LocalDateTime getCreated();
+
+    LocalDateTime getLastActivity();
+
+    long getViewCount();
+
+    long getLikeCount();
+}
@@ -0,0 +1,19 @@
+package com.blogen.repositories;
+
+import java.util.Map;
+
+/**
+ * Repository for the view counts of posts. View counts are kept in their own column of the post table and changed
+ * with plain JDBC, so that counting views never loads posts, changes their version, or conflicts with an edit.
+ *
+ * @author Cliff
+ */
+public interface PostViewRepository {
+
+    /**
+     * Add views to the view counts of posts, in one transaction. Ids of posts that no longer exist are ignored
+     *
+     * @param views the number of views to add, by post id
+     */
+    void addViews(Map<Long, Long> views);
+}
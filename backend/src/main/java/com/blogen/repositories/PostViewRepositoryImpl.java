@@ -0,0 +1,43 @@
+package com.blogen.repositories;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Implementation of the PostViewRepository using JdbcTemplate batch updates
+ *
+ * @author Cliff
+ */
+@Repository
+public class PostViewRepositoryImpl implements PostViewRepository {
+
+    private static final String ADD_VIEWS_SQL = "UPDATE post SET view_count = view_count + ? WHERE id = ?";
+
+    // number of updates sent to the database in one round trip
+    static final int BATCH_SIZE = 200;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public PostViewRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    @Transactional
+    public void addViews(Map<Long, Long> views) {
+        // rows are updated in id order, so that concurrent flushes from several instances lock them in the same
+        // order and cannot deadlock
+        jdbcTemplate.batchUpdate(ADD_VIEWS_SQL, new ArrayList<>(new TreeMap<>(views).entrySet()), BATCH_SIZE,
+                (ps, entry) -> {
+                    ps.setLong(1, entry.getValue());
+                    ps.setLong(2, entry.getKey());
+                });
+    }
+}
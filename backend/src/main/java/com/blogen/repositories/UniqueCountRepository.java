@@ -0,0 +1,46 @@
+package com.blogen.repositories;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Repository for the {@link com.blogen.services.analytics.HyperLogLog} sketches of the users that viewed each post,
+ * and of the users that posted in each category each week. Sketches are stored as byte arrays in their own tables
+ * and merged into the stored sketch, so every node can write the sketch of what it counted without losing what the
+ * others counted.
+ *
+ * @author Cliff
+ */
+public interface UniqueCountRepository {
+
+    /**
+     * Merge sketches of viewers into the stored sketches of posts, in one transaction. Ids of posts that no longer
+     * exist are ignored
+     *
+     * @param sketches sketches of the users that viewed each post, by post id
+     */
+    void mergePostViewers(Map<Long, byte[]> sketches);
+
+    /**
+     * @param postIds ids of posts
+     * @return the stored sketch of the viewers of each post that has one, by post id
+     */
+    Map<Long, byte[]> findPostViewers(Collection<Long> postIds);
+
+    /**
+     * Merge sketches of authors into the stored sketches of categories for a week, in one transaction. Ids of
+     * categories that no longer exist are ignored
+     *
+     * @param weekStart first day of the week
+     * @param sketches  sketches of the users that posted in each category during the week, by category id
+     */
+    void mergeCategoryAuthors(LocalDate weekStart, Map<Long, byte[]> sketches);
+
+    /**
+     * @param weekStart   first day of a week
+     * @param categoryIds ids of categories
+     * @return the stored sketch of the authors of each category during the week that has one, by category id
+     */
+    Map<Long, byte[]> findCategoryAuthors(LocalDate weekStart, Collection<Long> categoryIds);
+}
@@ -0,0 +1,125 @@
+package com.blogen.repositories;
+
+import com.blogen.services.analytics.HyperLogLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Implementation of the UniqueCountRepository using JdbcTemplate. A sketch is merged by locking its row, merging
+ * in memory, and writing it back
+ *
+ * @author Cliff
+ */
+@Repository
+public class UniqueCountRepositoryImpl implements UniqueCountRepository {
+
+    private static final String LOCK_POST_VIEWERS_SQL =
+            "SELECT sketch FROM post_viewer_sketch WHERE post_id = ? FOR UPDATE";
+    private static final String UPDATE_POST_VIEWERS_SQL =
+            "UPDATE post_viewer_sketch SET sketch = ? WHERE post_id = ?";
+    // inserts nothing if the post was deleted
+    private static final String INSERT_POST_VIEWERS_SQL =
+            "INSERT INTO post_viewer_sketch(sketch, post_id) SELECT ?, id FROM post WHERE id = ?";
+    private static final String FIND_POST_VIEWERS_SQL =
+            "SELECT post_id, sketch FROM post_viewer_sketch WHERE post_id IN (:ids)";
+
+    private static final String LOCK_CATEGORY_AUTHORS_SQL =
+            "SELECT sketch FROM category_author_sketch WHERE category_id = ? AND week_start = ? FOR UPDATE";
+    private static final String UPDATE_CATEGORY_AUTHORS_SQL =
+            "UPDATE category_author_sketch SET sketch = ? WHERE category_id = ? AND week_start = ?";
+    // inserts nothing if the category was deleted
+    private static final String INSERT_CATEGORY_AUTHORS_SQL =
+            "INSERT INTO category_author_sketch(sketch, category_id, week_start) SELECT ?, id, ? FROM category WHERE id = ?";
+    private static final String FIND_CATEGORY_AUTHORS_SQL =
+            "SELECT category_id, sketch FROM category_author_sketch WHERE week_start = :weekStart AND category_id IN (:ids)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    public UniqueCountRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    @Override
+    @Transactional
+    public void mergePostViewers(Map<Long, byte[]> sketches) {
+        // rows are locked in id order, so that concurrent flushes from several nodes cannot deadlock
+        new TreeMap<>(sketches).forEach((postId, sketch) -> merge(sketch,
+                () -> jdbcTemplate.queryForList(LOCK_POST_VIEWERS_SQL, byte[].class, postId),
+                merged -> jdbcTemplate.update(UPDATE_POST_VIEWERS_SQL, merged, postId),
+                () -> jdbcTemplate.update(INSERT_POST_VIEWERS_SQL, sketch, postId)));
+    }
+
+    @Override
+    public Map<Long, byte[]> findPostViewers(Collection<Long> postIds) {
+        return findSketches(FIND_POST_VIEWERS_SQL, Map.of("ids", postIds), postIds);
+    }
+
+    @Override
+    @Transactional
+    public void mergeCategoryAuthors(LocalDate weekStart, Map<Long, byte[]> sketches) {
+        Date week = Date.valueOf(weekStart);
+        new TreeMap<>(sketches).forEach((categoryId, sketch) -> merge(sketch,
+                () -> jdbcTemplate.queryForList(LOCK_CATEGORY_AUTHORS_SQL, byte[].class, categoryId, week),
+                merged -> jdbcTemplate.update(UPDATE_CATEGORY_AUTHORS_SQL, merged, categoryId, week),
+                () -> jdbcTemplate.update(INSERT_CATEGORY_AUTHORS_SQL, sketch, week, categoryId)));
+    }
+
+    @Override
+    public Map<Long, byte[]> findCategoryAuthors(LocalDate weekStart, Collection<Long> categoryIds) {
+        return findSketches(FIND_CATEGORY_AUTHORS_SQL, Map.of("weekStart", Date.valueOf(weekStart), "ids", categoryIds),
+                categoryIds);
+    }
+
+    /**
+     * Merge a sketch into its row, inserting the row if it does not exist yet. A row inserted by a concurrent
+     * transaction in between is merged into instead
+     */
+    private void merge(byte[] sketch, Supplier<List<byte[]>> lock, Consumer<byte[]> update, Runnable insert) {
+        if (mergeLocked(sketch, lock, update)) {
+            return;
+        }
+        try {
+            insert.run();
+        } catch (DuplicateKeyException e) {
+            mergeLocked(sketch, lock, update);
+        }
+    }
+
+    private boolean mergeLocked(byte[] sketch, Supplier<List<byte[]>> lock, Consumer<byte[]> update) {
+        List<byte[]> stored = lock.get();
+        if (stored.isEmpty()) {
+            return false;
+        }
+        update.accept(HyperLogLog.fromBytes(stored.get(0)).merge(HyperLogLog.fromBytes(sketch)).toBytes());
+        return true;
+    }
+
+    private Map<Long, byte[]> findSketches(String sql, Map<String, Object> params, Collection<Long> ids) {
+        Map<Long, byte[]> sketches = new HashMap<>();
+        if (ids.isEmpty()) {
+            return sketches;
+        }
+        namedJdbcTemplate.query(sql, params,
+                rs -> {
+                    sketches.put(rs.getLong(1), rs.getBytes(2));
+                });
+        return sketches;
+    }
+}
@@ -26,4 +26,11 @@ public interface AvatarService {
      */
     String buildAvatarUrl( User user );
 
+    /**
+     * builds a relative URL to an avatar image
+     * @param fileName file name of the avatar image
+     * @return a relative URL to the avatar image
+     */
+    String buildAvatarUrl( String fileName );
+
 }
@@ -53,7 +53,12 @@ public class AvatarServiceImpl implements AvatarService {
 
     @Override
     public String buildAvatarUrl( User user ) {
-        return AVATAR_DIR + "/" + user.getUserPrefs().getAvatar().getFileName();
+        return buildAvatarUrl( user.getUserPrefs().getAvatar().getFileName() );
+    }
+
+    @Override
+    public String buildAvatarUrl( String fileName ) {
+        return AVATAR_DIR + "/" + fileName;
     }
 
 }
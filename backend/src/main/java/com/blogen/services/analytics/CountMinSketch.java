@@ -0,0 +1,84 @@
+package com.blogen.services.analytics;
+
+import com.blogen.services.utils.Hashes;
+
+import java.util.Arrays;
+
+/**
+ * A Count-Min Sketch, which estimates how often each key was counted in a fixed amount of memory, whatever the
+ * number of distinct keys.
+ * <p>
+ * Each of the rows hashes a key to one of its counters, and the estimate of a key is the lowest of its counters.
+ * Counters are shared by the keys that hash to them, so an estimate is never too low, and is too high by more than
+ * e / width of the total count with a probability of at most e^-depth. Sketches are not thread safe.
+ *
+ * @author Cliff
+ */
+public class CountMinSketch {
+
+    private final int depth;
+
+    private final int width;
+
+    // row after row
+    private final long[] counters;
+
+    public CountMinSketch(int depth, int width) {
+        if (depth < 1 || width < 1) {
+            throw new IllegalArgumentException("A Count-Min Sketch needs at least one row and one column");
+        }
+        this.depth = depth;
+        this.width = width;
+        this.counters = new long[depth * width];
+    }
+
+    /**
+     * @param key   a key, such as the id of a user
+     * @param count the number of times to count it, negative to uncount
+     */
+    public void add(long key, long count) {
+        for (int row = 0; row < depth; row++) {
+            counters[index(key, row)] += count;
+        }
+    }
+
+    /**
+     * @param key a key
+     * @return the estimated number of times it was counted, never less than the true number
+     */
+    public long estimate(long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters[index(key, row)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Subtract the counts of another sketch of the same size, which were added to this one
+     *
+     * @param other a sketch
+     */
+    public void subtract(CountMinSketch other) {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] -= other.counters[i];
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(counters, 0);
+    }
+
+    /**
+     * @return the relative error of estimates, as a fraction of the total count
+     */
+    public double relativeError() {
+        return Math.E / width;
+    }
+
+    private int index(long key, int row) {
+        // a different odd multiplier per row makes the hashes of the rows independent enough for a sketch
+        long hash = Hashes.mix64(key * (2L * row + 1) + row + Hashes.GOLDEN_GAMMA);
+        return row * width + (int) Long.remainderUnsigned(hash, width);
+    }
+}
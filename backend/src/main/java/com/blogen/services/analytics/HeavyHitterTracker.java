@@ -0,0 +1,74 @@
+package com.blogen.services.analytics;
+
+import com.blogen.api.v1.model.HeavyHitterListDTO;
+import com.blogen.api.v1.model.PostEventDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+/**
+ * Live heavy hitters for abuse response: the users that posted most during the last hour, and the threads that were
+ * read most during the last minutes. Posts are counted by their author from the post events, reads are counted by
+ * thread whenever PostService reads the version of a post or reply. Each is a {@link SlidingHeavyHitters}, so the
+ * memory used is fixed by the sketch size, however many users and threads are counted.
+ *
+ * @author Cliff
+ */
+@Component
+public class HeavyHitterTracker {
+
+    // rows of each sketch, a count is too high by more than the error bound with a probability of e^-4, under 2%
+    static final int DEPTH = 4;
+
+    // slices each window is split into
+    static final int SLICES = 12;
+
+    private final SlidingHeavyHitters posters;
+
+    private final SlidingHeavyHitters threads;
+
+    public HeavyHitterTracker(@Value("${blogen.heavyhitters.posters.window.seconds:3600}") long postersWindowSeconds,
+                              @Value("${blogen.heavyhitters.threads.window.seconds:300}") long threadsWindowSeconds,
+                              @Value("${blogen.heavyhitters.sketch.width:2048}") int width,
+                              @Value("${blogen.heavyhitters.top.k:20}") int topK) {
+        this.posters = new SlidingHeavyHitters(Duration.ofSeconds(postersWindowSeconds), SLICES, DEPTH, width, topK);
+        this.threads = new SlidingHeavyHitters(Duration.ofSeconds(threadsWindowSeconds), SLICES, DEPTH, width, topK);
+    }
+
+    /**
+     * Count the author of a new post or reply. Runs after the transaction that created it commits
+     *
+     * @param event the post event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostEvent(PostEventDTO event) {
+        if (PostEventDTO.POST_CREATED.equals(event.getType()) || PostEventDTO.REPLY_CREATED.equals(event.getType())) {
+            posters.add(event.getUserId(), System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Count a read of a thread
+     *
+     * @param threadId id of the parent post of the thread
+     */
+    public void read(Long threadId) {
+        threads.add(threadId, System.currentTimeMillis());
+    }
+
+    /**
+     * @return the users that posted most during the posters window, by user id
+     */
+    public HeavyHitterListDTO getTopPosters() {
+        return posters.top(System.currentTimeMillis());
+    }
+
+    /**
+     * @return the threads that were read most during the threads window, by id of their parent post
+     */
+    public HeavyHitterListDTO getTopThreads() {
+        return threads.top(System.currentTimeMillis());
+    }
+}
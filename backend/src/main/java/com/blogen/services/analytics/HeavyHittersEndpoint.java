@@ -0,0 +1,54 @@
+package com.blogen.services.analytics;
+
+import com.blogen.api.v1.model.HeavyHitterListDTO;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint that shows the live heavy hitters of the {@link HeavyHitterTracker}, at /actuator/heavyhitters
+ * for all of them, or /actuator/heavyhitters/{name} for one. Like every actuator endpoint except health, it can only
+ * be read by Blogen admins.
+ *
+ * @author Cliff
+ */
+@Component
+@Endpoint(id = "heavyhitters")
+public class HeavyHittersEndpoint {
+
+    public static final String POSTERS = "posters";
+    public static final String THREADS = "threads";
+
+    private final HeavyHitterTracker heavyHitterTracker;
+
+    public HeavyHittersEndpoint(HeavyHitterTracker heavyHitterTracker) {
+        this.heavyHitterTracker = heavyHitterTracker;
+    }
+
+    @ReadOperation
+    public Map<String, HeavyHitterListDTO> heavyHitters() {
+        Map<String, HeavyHitterListDTO> heavyHitters = new LinkedHashMap<>();
+        heavyHitters.put(POSTERS, heavyHitterTracker.getTopPosters());
+        heavyHitters.put(THREADS, heavyHitterTracker.getTopThreads());
+        return heavyHitters;
+    }
+
+    /**
+     * @param name {@link #POSTERS} or {@link #THREADS}
+     * @return the heavy hitters, or null, which the actuator answers with 404, if there are none by that name
+     */
+    @ReadOperation
+    public HeavyHitterListDTO heavyHitters(@Selector String name) {
+        if (POSTERS.equals(name)) {
+            return heavyHitterTracker.getTopPosters();
+        }
+        if (THREADS.equals(name)) {
+            return heavyHitterTracker.getTopThreads();
+        }
+        return null;
+    }
+}
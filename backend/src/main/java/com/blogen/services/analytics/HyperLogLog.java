@@ -0,0 +1,116 @@
+package com.blogen.services.analytics;
+
+import com.blogen.services.utils.Hashes;
+
+import java.util.Arrays;
+
+/**
+ * A HyperLogLog sketch, which estimates the number of distinct values added to it in a fixed amount of memory.
+ * <p>
+ * Each value is hashed, the first {@link #PRECISION} bits of the hash pick one of 2^PRECISION registers, and the
+ * register keeps the highest position of the first 1 bit in the rest of the hash seen so far. A long run of 0 bits is
+ * rare, so the registers together tell how many distinct hashes were seen. With 2048 registers the standard error of
+ * the estimate is 1.04 / sqrt(2048), about 2.3%, so 95% of estimates are within 4.6% of the true count. Small counts
+ * are estimated from the number of empty registers instead, which is nearly exact.
+ * <p>
+ * Sketches merge by keeping the highest value of each register, so merging is commutative and idempotent: the
+ * sketches of several nodes, or a sketch merged twice, estimate the distinct values of all of them. A sketch is
+ * stored as {@link #BYTES} bytes, the precision and then one byte per register. Sketches are not thread safe.
+ *
+ * @author Cliff
+ */
+public class HyperLogLog {
+
+    public static final int PRECISION = 11;
+
+    public static final int BYTES = 1 + (1 << PRECISION);
+
+    // relative standard error of an estimate, 1.04 / sqrt(2^PRECISION)
+    public static final double STANDARD_ERROR = 1.04 / Math.sqrt(1 << PRECISION);
+
+    private static final int REGISTERS = 1 << PRECISION;
+
+    // bias correction of the raw estimate for 128 or more registers
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this.registers = new byte[REGISTERS];
+    }
+
+    private HyperLogLog(byte[] registers) {
+        this.registers = registers;
+    }
+
+    /**
+     * @param bytes a sketch as written by {@link #toBytes()}
+     * @return the sketch
+     * @throws IllegalArgumentException if the bytes are not a sketch of this precision
+     */
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes.length != BYTES || bytes[0] != PRECISION) {
+            throw new IllegalArgumentException("Not a HyperLogLog sketch of precision " + PRECISION);
+        }
+        return new HyperLogLog(Arrays.copyOfRange(bytes, 1, BYTES));
+    }
+
+    /**
+     * @param value a value, such as the id of a user
+     */
+    public void add(long value) {
+        long hash = Hashes.mix64(value + Hashes.GOLDEN_GAMMA);
+        int register = (int) (hash >>> (Long.SIZE - PRECISION));
+        // position of the first 1 bit after the register bits, the last position if they are all 0
+        int rank = Math.min(Long.numberOfLeadingZeros(hash << PRECISION), Long.SIZE - PRECISION) + 1;
+        if (rank > registers[register]) {
+            registers[register] = (byte) rank;
+        }
+    }
+
+    /**
+     * Add the values of another sketch to this one
+     *
+     * @param other a sketch
+     * @return this sketch
+     */
+    public HyperLogLog merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @return the estimated number of distinct values added
+     */
+    public long estimate() {
+        double sum = 0;
+        int empty = 0;
+        for (byte rank : registers) {
+            sum += 1.0 / (1L << rank);
+            if (rank == 0) {
+                empty++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && empty > 0) {
+            // linear counting is more accurate while many registers are empty
+            estimate = REGISTERS * Math.log((double) REGISTERS / empty);
+        }
+        return Math.round(estimate);
+    }
+
+    public HyperLogLog copy() {
+        return new HyperLogLog(registers.clone());
+    }
+
+    public byte[] toBytes() {
+        byte[] bytes = new byte[BYTES];
+        bytes[0] = PRECISION;
+        System.arraycopy(registers, 0, bytes, 1, REGISTERS);
+        return bytes;
+    }
+}
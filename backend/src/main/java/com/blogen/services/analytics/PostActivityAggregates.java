@@ -0,0 +1,263 @@
+package com.blogen.services.analytics;
+
+import com.blogen.api.v1.model.PostActivityDTO;
+import com.blogen.api.v1.model.PostEventDTO;
+import com.blogen.repositories.PostActivityKey;
+import com.blogen.repositories.PostRepository;
+import com.blogen.services.utils.ParallelIdRangeScan;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Hourly aggregates of the posting activity in each category: the threads started, the replies posted and the
+ * users who did either, for the last days. Activity charts are read from here, so they never group the post table.
+ * Daily activity is rolled up from the hours of each day when it is read.
+ * <p>
+ * The aggregates are kept in memory. They are backfilled from the database in the background on startup, by a
+ * parallel scan of the posts created during the retention period, and counted from post events as posts are created
+ * after that. They count activity as it happened, so deleting a post does not uncount it, but a backfill only sees
+ * the posts that still exist. Hours are those of the local date and time of the posts.
+ *
+ * @author Cliff
+ */
+@Slf4j
+@Component
+public class PostActivityAggregates {
+
+    private static final int SECONDS_PER_HOUR = 3600;
+
+    private static final int HOURS_PER_DAY = 24;
+
+    private final PostRepository postRepository;
+
+    private final int retentionDays;
+
+    private final int scanThreads;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // guarded by lock. Aggregates by hour, and by category id within each hour
+    private final NavigableMap<Long, Map<Long, Aggregate>> hours = new TreeMap<>();
+    // posts counted from events and posts counted by the backfill, while the backfill runs, so that no post is
+    // counted twice. Null once backfilled
+    private Set<Long> countedWhileLoading = new HashSet<>();
+    private Set<Long> loaded = new HashSet<>();
+
+    private final ExecutorService loader;
+
+    // completes when the backfill is done, or has failed
+    final CompletableFuture<Void> loading;
+
+    public PostActivityAggregates(PostRepository postRepository,
+                                  @Value("${blogen.analytics.retention.days:90}") int retentionDays,
+                                  @Value("${blogen.analytics.scan.threads:4}") int scanThreads) {
+        this.postRepository = postRepository;
+        this.retentionDays = retentionDays;
+        this.scanThreads = scanThreads;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("post-activity-loader-");
+        threadFactory.setDaemon(true);
+        this.loader = Executors.newSingleThreadExecutor(threadFactory);
+        this.loading = CompletableFuture.runAsync(this::load, loader);
+    }
+
+    /**
+     * @return the number of days activity is kept for, counting today
+     */
+    public int getRetentionDays() {
+        return retentionDays;
+    }
+
+    /**
+     * Count a new post or reply. Runs after the transaction that created it commits
+     *
+     * @param event the post event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostEvent(PostEventDTO event) {
+        boolean reply = PostEventDTO.REPLY_CREATED.equals(event.getType());
+        if (!reply && !PostEventDTO.POST_CREATED.equals(event.getType())) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (countedWhileLoading != null) {
+                if (loaded.contains(event.getPostId())) {
+                    return;
+                }
+                countedWhileLoading.add(event.getPostId());
+            }
+            count(event.getCategoryId(), event.getUserId(), reply, event.getOccurred());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Read the activity in a period, an hour or a day at a time
+     *
+     * @param from       start of the period, inclusive
+     * @param to         end of the period, exclusive
+     * @param daily      true to roll the activity up into days, false for hours. A daily period should start and end
+     *                   at midnight
+     * @param categoryId id of the category to read the activity of, or null for every category
+     * @return the activity of each category in each hour or day that had activity, ordered by start and category id.
+     * The category urls are not set
+     */
+    public List<PostActivityDTO> getActivity(LocalDateTime from, LocalDateTime to, boolean daily, Long categoryId) {
+        int periodHours = daily ? HOURS_PER_DAY : 1;
+        NavigableMap<Long, Map<Long, Aggregate>> periods = new TreeMap<>();
+        lock.readLock().lock();
+        try {
+            hours.subMap(hourOf(from), true, hourOf(to), false).forEach((hour, categories) -> {
+                Map<Long, Aggregate> period = periods.computeIfAbsent(Math.floorDiv(hour, periodHours),
+                        key -> new TreeMap<>());
+                categories.forEach((category, aggregate) -> {
+                    if (categoryId == null || categoryId.equals(category)) {
+                        period.computeIfAbsent(category, key -> new Aggregate()).add(aggregate);
+                    }
+                });
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<PostActivityDTO> activity = new ArrayList<>();
+        periods.forEach((period, categories) -> categories.forEach((category, aggregate) ->
+                activity.add(PostActivityDTO.builder()
+                        .start(startOf(period * periodHours))
+                        .categoryId(category)
+                        .posts(aggregate.posts)
+                        .replies(aggregate.replies)
+                        .activeAuthors(aggregate.authors.size())
+                        .build())));
+        return activity;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    /**
+     * Backfill the aggregates with the posts created during the retention period. The ids are split into ranges
+     * that are read in parallel, by several threads, each reading its ranges a page at a time, and each page is
+     * counted as it is read. Only called by the loader thread
+     */
+    private void load() {
+        LocalDateTime since = startOf(oldestHour());
+        AtomicInteger count = new AtomicInteger();
+        try {
+            Optional<Long> maxId = postRepository.findMaxId();
+            if (maxId.isPresent()) {
+                ParallelIdRangeScan.scan("post-activity-scan-", scanThreads, maxId.get(),
+                        (after, before, pageable) -> postRepository.findActivityKeysBetween(after, before, since, pageable),
+                        PostActivityKey::getId, page -> {
+                            countLoaded(page);
+                            count.addAndGet(page.size());
+                        });
+            }
+            log.info("backfilled the post activity aggregates with {} posts", count.get());
+        } catch (RuntimeException e) {
+            log.warn("could not backfill the post activity aggregates, only new posts are counted", e);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                countedWhileLoading = null;
+                loaded = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void countLoaded(List<PostActivityKey> page) {
+        lock.writeLock().lock();
+        try {
+            if (loaded == null) {
+                // the backfill failed in another range
+                return;
+            }
+            for (PostActivityKey post : page) {
+                if (!countedWhileLoading.contains(post.getId())) {
+                    loaded.add(post.getId());
+                    count(post.getCategoryId(), post.getUserId(), post.getParentId() != null, post.getCreated());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // guarded by the write lock. Also drops the hours that are past the retention period
+    private void count(Long categoryId, Long userId, boolean reply, LocalDateTime created) {
+        long oldestHour = oldestHour();
+        hours.headMap(oldestHour, false).clear();
+        long hour = hourOf(created);
+        if (hour < oldestHour) {
+            return;
+        }
+        Aggregate aggregate = hours.computeIfAbsent(hour, key -> new HashMap<>())
+                .computeIfAbsent(categoryId, key -> new Aggregate());
+        if (reply) {
+            aggregate.replies++;
+        } else {
+            aggregate.posts++;
+        }
+        aggregate.authors.add(userId);
+    }
+
+    /**
+     * @return the first hour of the oldest day that is kept
+     */
+    private long oldestHour() {
+        return hourOf(LocalDate.now().minusDays(retentionDays - 1).atStartOfDay());
+    }
+
+    private static long hourOf(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), SECONDS_PER_HOUR);
+    }
+
+    private static LocalDateTime startOf(long hour) {
+        return LocalDateTime.ofEpochSecond(hour * SECONDS_PER_HOUR, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * The activity in one category during one hour, or during a longer period when hours are rolled up
+     */
+    private static class Aggregate {
+
+        long posts;
+
+        long replies;
+
+        final Set<Long> authors = new HashSet<>();
+
+        void add(Aggregate other) {
+            posts += other.posts;
+            replies += other.replies;
+            authors.addAll(other.authors);
+        }
+    }
+}
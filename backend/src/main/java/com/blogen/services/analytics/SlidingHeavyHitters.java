@@ -0,0 +1,176 @@
+package com.blogen.services.analytics;
+
+import com.blogen.api.v1.model.HeavyHitterDTO;
+import com.blogen.api.v1.model.HeavyHitterListDTO;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+
+/**
+ * The keys counted most often during a sliding window of time, such as the users that posted most in the last hour,
+ * tracked in a fixed amount of memory whatever the number of distinct keys.
+ * <p>
+ * The window is split into slices of time, each with its own {@link CountMinSketch}, and a total sketch holds the sum
+ * of the slices in the window. When a slice falls out of the window its counts are subtracted from the total and it
+ * is reused for the newest slice, so the window slides a slice at a time and covers between slices - 1 and slices
+ * slices of time. A min-heap keeps the top keys by their estimated count in the window: a counted key that is not in
+ * the heap replaces the lowest key in it if its estimate is higher. Estimates are never too low, and are too high by
+ * at most {@link CountMinSketch#relativeError()} of the window total, with a high probability.
+ * <p>
+ * Every method is synchronized, counting a key costs a few array updates and, when it is a top key, a heap update.
+ *
+ * @author Cliff
+ */
+public class SlidingHeavyHitters {
+
+    private final Duration window;
+
+    private final long sliceMillis;
+
+    private final CountMinSketch[] slices;
+
+    // number of the slice of time held by each slice, -1 if none
+    private final long[] sliceNumbers;
+
+    private final long[] sliceCounts;
+
+    private final CountMinSketch total;
+
+    private long totalCount;
+
+    private final int topK;
+
+    private final PriorityQueue<Candidate> heap = new PriorityQueue<>(Comparator.comparingLong(Candidate::getCount));
+
+    private final Map<Long, Candidate> candidates = new HashMap<>();
+
+    /**
+     * @param window the length of the window
+     * @param slices the number of slices the window is split into
+     * @param depth  rows of each sketch
+     * @param width  counters in each row of each sketch
+     * @param topK   number of top keys kept
+     */
+    public SlidingHeavyHitters(Duration window, int slices, int depth, int width, int topK) {
+        this.window = window;
+        this.sliceMillis = Math.max(1, window.toMillis() / slices);
+        this.slices = new CountMinSketch[slices];
+        for (int i = 0; i < slices; i++) {
+            this.slices[i] = new CountMinSketch(depth, width);
+        }
+        this.sliceNumbers = new long[slices];
+        Arrays.fill(sliceNumbers, -1);
+        this.sliceCounts = new long[slices];
+        this.total = new CountMinSketch(depth, width);
+        this.topK = topK;
+    }
+
+    /**
+     * Count a key once
+     *
+     * @param key       the key
+     * @param nowMillis the current time, in milliseconds since the epoch
+     */
+    public synchronized void add(long key, long nowMillis) {
+        int slice = slide(nowMillis);
+        slices[slice].add(key, 1);
+        sliceCounts[slice]++;
+        total.add(key, 1);
+        totalCount++;
+
+        long estimate = total.estimate(key);
+        Candidate candidate = candidates.get(key);
+        if (candidate != null) {
+            heap.remove(candidate);
+            candidate.count = estimate;
+            heap.add(candidate);
+        } else if (candidates.size() < topK) {
+            addCandidate(key, estimate);
+        } else if (estimate > heap.peek().count) {
+            candidates.remove(heap.poll().key);
+            addCandidate(key, estimate);
+        }
+    }
+
+    /**
+     * @param nowMillis the current time, in milliseconds since the epoch
+     * @return the top keys in the window, most counted first, with the window total and error bound
+     */
+    public synchronized HeavyHitterListDTO top(long nowMillis) {
+        slide(nowMillis);
+        List<HeavyHitterDTO> hitters = candidates.values().stream()
+                .sorted(Comparator.comparingLong(Candidate::getCount).reversed()
+                        .thenComparingLong(Candidate::getKey))
+                .map(candidate -> new HeavyHitterDTO(candidate.key, candidate.count))
+                .collect(Collectors.toList());
+        return new HeavyHitterListDTO(window.toSeconds(), totalCount,
+                (long) Math.ceil(total.relativeError() * totalCount), hitters);
+    }
+
+    /**
+     * Drop the slices that fell out of the window, and re-estimate the top keys if any did
+     *
+     * @return the index of the slice of the current time
+     */
+    private int slide(long nowMillis) {
+        long sliceNumber = nowMillis / sliceMillis;
+        boolean dropped = false;
+        for (int i = 0; i < slices.length; i++) {
+            if (sliceNumbers[i] >= 0 && sliceNumbers[i] <= sliceNumber - slices.length) {
+                total.subtract(slices[i]);
+                totalCount -= sliceCounts[i];
+                slices[i].clear();
+                sliceCounts[i] = 0;
+                sliceNumbers[i] = -1;
+                dropped = true;
+            }
+        }
+        int slice = (int) (sliceNumber % slices.length);
+        sliceNumbers[slice] = sliceNumber;
+        if (dropped) {
+            List<Candidate> kept = new ArrayList<>(candidates.values());
+            heap.clear();
+            candidates.clear();
+            for (Candidate candidate : kept) {
+                long estimate = total.estimate(candidate.key);
+                if (estimate > 0) {
+                    addCandidate(candidate.key, estimate);
+                }
+            }
+        }
+        return slice;
+    }
+
+    private void addCandidate(long key, long count) {
+        Candidate candidate = new Candidate(key, count);
+        candidates.put(key, candidate);
+        heap.add(candidate);
+    }
+
+    private static class Candidate {
+
+        private final long key;
+
+        private long count;
+
+        Candidate(long key, long count) {
+            this.key = key;
+            this.count = count;
+        }
+
+        long getKey() {
+            return key;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.blogen.services.analytics;
+
+import com.blogen.api.v1.model.PostEventDTO;
+import com.blogen.repositories.UniqueCountRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Approximate counts of the distinct users that viewed each post, and of the distinct users that started a thread
+ * or replied in each category each week, kept as {@link HyperLogLog} sketches instead of every (user, post) pair. The
+ * counts have a standard error of {@link HyperLogLog#STANDARD_ERROR}.
+ * <p>
+ * Views and posts are added to pending sketches in memory, which a flusher thread merges into the stored sketches
+ * every flush interval. Merging keeps the highest of each register, so every node merges what it counted into the
+ * same stored sketch. A count is read from the stored sketch, through a small cache, merged with the sketches this
+ * node has not stored yet. Counts that other nodes add show up once the cached sketch expires.
+ *
+ * @author Cliff
+ */
+@Slf4j
+@Component
+public class UniqueCounts {
+
+    private final SketchStore<Long> viewers;
+
+    private final SketchStore<CategoryWeek> authors;
+
+    private final ScheduledExecutorService flusher;
+
+    public UniqueCounts(UniqueCountRepository uniqueCountRepository,
+                        @Value("${blogen.unique.cache.size:5000}") long cacheSize,
+                        @Value("${blogen.unique.cache.ttl.seconds:60}") long ttlSeconds,
+                        @Value("${blogen.unique.flush.millis:10000}") long flushMillis) {
+        this.viewers = new SketchStore<>(cacheSize, ttlSeconds, uniqueCountRepository::findPostViewers,
+                uniqueCountRepository::mergePostViewers);
+        this.authors = new SketchStore<>(cacheSize, ttlSeconds,
+                keys -> readByWeek(uniqueCountRepository, keys),
+                sketches -> writeByWeek(uniqueCountRepository, sketches));
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("unique-count-flusher-");
+        threadFactory.setDaemon(true);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        flusher.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param date a date
+     * @return the Monday of the week of the date
+     */
+    public static LocalDate weekStart(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    /**
+     * Count a view of a post by a user
+     *
+     * @param postId id of the post
+     * @param userId id of the user that viewed it
+     */
+    public void viewed(Long postId, Long userId) {
+        viewers.add(postId, userId);
+    }
+
+    /**
+     * Count the author of a new post or reply in its category and week. Runs after the transaction that created it
+     * commits
+     *
+     * @param event the post event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostEvent(PostEventDTO event) {
+        if (PostEventDTO.POST_CREATED.equals(event.getType()) || PostEventDTO.REPLY_CREATED.equals(event.getType())) {
+            authors.add(new CategoryWeek(event.getCategoryId(), weekStart(event.getOccurred().toLocalDate())),
+                    event.getUserId());
+        }
+    }
+
+    /**
+     * @param postIds ids of posts
+     * @return the approximate number of distinct users that viewed each post, by post id
+     */
+    public Map<Long, Long> getViewerCounts(Collection<Long> postIds) {
+        return viewers.estimates(postIds);
+    }
+
+    /**
+     * @param categoryIds ids of categories
+     * @return the approximate number of distinct users that started a thread or replied in each category this week,
+     * by category id
+     */
+    public Map<Long, Long> getWeeklyAuthorCounts(Collection<Long> categoryIds) {
+        LocalDate week = weekStart(LocalDate.now());
+        List<CategoryWeek> keys = categoryIds.stream()
+                .map(categoryId -> new CategoryWeek(categoryId, week))
+                .collect(Collectors.toList());
+        Map<Long, Long> counts = new HashMap<>();
+        authors.estimates(keys).forEach((key, count) -> counts.put(key.getCategoryId(), count));
+        return counts;
+    }
+
+    /**
+     * Merge the pending sketches into the stored sketches. Only called by the flusher thread, on shutdown, and by
+     * tests
+     */
+    void flush() {
+        viewers.flush();
+        authors.flush();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+    }
+
+    private static Map<CategoryWeek, byte[]> readByWeek(UniqueCountRepository repository,
+                                                        Collection<CategoryWeek> keys) {
+        Map<CategoryWeek, byte[]> sketches = new HashMap<>();
+        groupByWeek(keys).forEach((week, categoryIds) -> repository.findCategoryAuthors(week, categoryIds)
+                .forEach((categoryId, sketch) -> sketches.put(new CategoryWeek(categoryId, week), sketch)));
+        return sketches;
+    }
+
+    private static void writeByWeek(UniqueCountRepository repository, Map<CategoryWeek, byte[]> sketches) {
+        Map<LocalDate, Map<Long, byte[]>> byWeek = new HashMap<>();
+        sketches.forEach((key, sketch) -> byWeek.computeIfAbsent(key.getWeekStart(), week -> new HashMap<>())
+                .put(key.getCategoryId(), sketch));
+        byWeek.forEach(repository::mergeCategoryAuthors);
+    }
+
+    private static Map<LocalDate, List<Long>> groupByWeek(Collection<CategoryWeek> keys) {
+        return keys.stream().collect(Collectors.groupingBy(CategoryWeek::getWeekStart,
+                Collectors.mapping(CategoryWeek::getCategoryId, Collectors.toList())));
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class CategoryWeek {
+        private final Long categoryId;
+        private final LocalDate weekStart;
+    }
+
+    /**
+     * The pending, flushing and cached stored sketches of one kind of count
+     */
+    private static class SketchStore<K> {
+
+        private final Function<Collection<K>, Map<K, byte[]>> reader;
+
+        private final Consumer<Map<K, byte[]>> writer;
+
+        // sketches of what was counted since the last flush. A sketch is only changed while its entry is locked
+        private final ConcurrentMap<K, HyperLogLog> pending = new ConcurrentHashMap<>();
+
+        // sketches that are being stored, still read until the cached sketches they were merged into are invalidated
+        private volatile Map<K, HyperLogLog> flushing = Map.of();
+
+        private final Cache<K, HyperLogLog> stored;
+
+        // incremented by every flush
+        private final AtomicLong generation = new AtomicLong();
+
+        SketchStore(long cacheSize, long ttlSeconds, Function<Collection<K>, Map<K, byte[]>> reader,
+                    Consumer<Map<K, byte[]>> writer) {
+            this.reader = reader;
+            this.writer = writer;
+            this.stored = Caffeine.newBuilder()
+                    .maximumSize(cacheSize)
+                    .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                    .build();
+        }
+
+        void add(K key, long value) {
+            pending.compute(key, (k, sketch) -> {
+                HyperLogLog added = (sketch != null) ? sketch : new HyperLogLog();
+                added.add(value);
+                return added;
+            });
+        }
+
+        Map<K, Long> estimates(Collection<K> keys) {
+            Map<K, HyperLogLog> sketches = new HashMap<>(stored.getAllPresent(keys));
+            List<K> missing = new ArrayList<>();
+            for (K key : keys) {
+                if (!sketches.containsKey(key)) {
+                    missing.add(key);
+                }
+            }
+            if (!missing.isEmpty()) {
+                long generation = this.generation.get();
+                Map<K, byte[]> read = reader.apply(missing);
+                for (K key : missing) {
+                    byte[] bytes = read.get(key);
+                    HyperLogLog sketch = (bytes != null) ? HyperLogLog.fromBytes(bytes) : new HyperLogLog();
+                    sketches.put(key, sketch);
+                    stored.asMap().compute(key, (k, cached) -> (generation == this.generation.get()) ? sketch : cached);
+                }
+            }
+            Map<K, HyperLogLog> flushing = this.flushing;
+            Map<K, Long> estimates = new HashMap<>();
+            sketches.forEach((key, sketch) -> {
+                HyperLogLog merged = sketch.copy();
+                HyperLogLog flushed = flushing.get(key);
+                if (flushed != null) {
+                    merged.merge(flushed);
+                }
+                pending.computeIfPresent(key, (k, unflushed) -> {
+                    merged.merge(unflushed);
+                    return unflushed;
+                });
+                estimates.put(key, merged.estimate());
+            });
+            return estimates;
+        }
+
+        void flush() {
+            Map<K, HyperLogLog> drained = new HashMap<>();
+            for (K key : pending.keySet()) {
+                HyperLogLog sketch = pending.remove(key);
+                if (sketch != null) {
+                    drained.put(key, sketch);
+                }
+            }
+            if (drained.isEmpty()) {
+                return;
+            }
+            flushing = drained;
+            try {
+                Map<K, byte[]> bytes = new HashMap<>();
+                drained.forEach((key, sketch) -> bytes.put(key, sketch.toBytes()));
+                writer.accept(bytes);
+                generation.incrementAndGet();
+                stored.invalidateAll(drained.keySet());
+            } catch (RuntimeException e) {
+                log.warn("could not store {} sketches of unique counts, retrying at the next flush", drained.size(), e);
+                drained.forEach((key, sketch) -> pending.merge(key, sketch, HyperLogLog::merge));
+            } finally {
+                flushing = Map.of();
+            }
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.blogen.services.utils;
+
+import com.blogen.api.v1.model.CategoryDTO;
+import com.blogen.api.v1.services.CategoryService;
+import com.blogen.domain.Category;
+import com.blogen.repositories.CategoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.blogen.services.utils.TransactionCallbacks.afterCommit;
+
+/**
+ * Every category, kept in memory with its CategoryDTO built in advance, so that checking a category id, building the
+ * category of a new post and listing categories read no rows. There are few categories, and they change rarely.
+ * <p>
+ * The categories are loaded once the application is ready, or by the first read before that, as reading them while
+ * the context starts can deadlock with the loader threads of other components. They are held in an immutable
+ * snapshot that readers use without locking. A change builds a new snapshot from the current one and swaps it in:
+ * categories created or updated on this node are put after the transaction that saved them commits, and every
+ * snapshot is reloaded from the database each refresh interval, which picks up the changes of other nodes. An id that
+ * is not in the snapshot is looked up in the database before it is taken to not exist, so a category created on
+ * another node can be posted to right away. Changes are serialized, and a reload reads the categories while it holds
+ * the lock, so it cannot swap in a snapshot older than a put.
+ *
+ * @author Cliff
+ */
+@Slf4j
+@Component
+public class CategoryRegistry {
+
+    private final CategoryRepository categoryRepository;
+
+    // null until loaded
+    private volatile Snapshot snapshot;
+
+    private final ScheduledExecutorService refresher;
+
+    public CategoryRegistry(CategoryRepository categoryRepository,
+                            @Value("${blogen.categories.refresh.seconds:60}") long refreshSeconds) {
+        this.categoryRepository = categoryRepository;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("category-registry-refresher-");
+        threadFactory.setDaemon(true);
+        this.refresher = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        refresher.scheduleWithFixedDelay(this::refresh, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Load the categories, if no read has loaded them yet
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        snapshot();
+    }
+
+    /**
+     * @param id id of a category
+     * @return true if the category exists
+     */
+    public boolean exists(Long id) {
+        return find(id) != null;
+    }
+
+    /**
+     * @param id id of a category
+     * @return a new, detached, Category with the columns of the category, to set as the category of a post without
+     * reading it, or an empty Optional if it does not exist
+     */
+    public Optional<Category> getCategory(Long id) {
+        Entry entry = find(id);
+        return (entry != null) ? Optional.of(entry.toCategory()) : Optional.empty();
+    }
+
+    /**
+     * @param id id of a category
+     * @return a copy of the CategoryDTO of the category, with its url, or an empty Optional if it does not exist
+     */
+    public Optional<CategoryDTO> getCategoryDto(Long id) {
+        Entry entry = find(id);
+        return (entry != null) ? Optional.of(entry.copyDto()) : Optional.empty();
+    }
+
+    /**
+     * @param pageable the page of categories to get, its sort is ignored
+     * @return copies of the CategoryDTOs of the categories on the page, ordered by id in descending order
+     */
+    public Page<CategoryDTO> getCategoryDtos(Pageable pageable) {
+        List<Entry> byIdDesc = snapshot().byIdDesc;
+        long offset = Math.min(pageable.getOffset(), byIdDesc.size());
+        List<CategoryDTO> content = byIdDesc.subList((int) offset,
+                        (int) Math.min(offset + pageable.getPageSize(), byIdDesc.size())).stream()
+                .map(Entry::copyDto)
+                .collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, byIdDesc.size());
+    }
+
+    /**
+     * Put a created or updated category, after the current transaction commits, or now if there is none
+     *
+     * @param category the saved category
+     */
+    public void put(Category category) {
+        Entry entry = new Entry(category.getId(), category.getName(), category.getCreated());
+        afterCommit(() -> {
+            synchronized (this) {
+                snapshot = snapshot().with(List.of(entry));
+            }
+        });
+    }
+
+    /**
+     * Reload every category from the database. Only called by the refresher thread and by tests
+     */
+    void refresh() {
+        try {
+            synchronized (this) {
+                snapshot = new Snapshot(categoryRepository.findAll());
+            }
+        } catch (RuntimeException e) {
+            log.warn("could not reload the categories, keeping the ones loaded", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    snapshot = new Snapshot(categoryRepository.findAll());
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    private Entry find(Long id) {
+        Entry entry = snapshot().byId.get(id);
+        if (entry != null || id == null) {
+            return entry;
+        }
+        Optional<Category> category = categoryRepository.findById(id);
+        if (category.isEmpty()) {
+            return null;
+        }
+        Entry found = new Entry(id, category.get().getName(), category.get().getCreated());
+        synchronized (this) {
+            // a put or reload in between has the same or a newer category
+            if (!snapshot().byId.containsKey(id)) {
+                snapshot = snapshot().with(List.of(found));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * An immutable set of categories, by id and ordered by id in descending order
+     */
+    private static class Snapshot {
+
+        final Map<Long, Entry> byId;
+
+        final List<Entry> byIdDesc;
+
+        Snapshot(Collection<Category> categories) {
+            this(categories.stream()
+                    .map(category -> new Entry(category.getId(), category.getName(), category.getCreated()))
+                    .collect(Collectors.toMap(entry -> entry.id, entry -> entry)));
+        }
+
+        private Snapshot(Map<Long, Entry> byId) {
+            this.byId = Map.copyOf(byId);
+            List<Entry> entries = new ArrayList<>(byId.values());
+            entries.sort(Comparator.comparing((Entry entry) -> entry.id).reversed());
+            this.byIdDesc = List.copyOf(entries);
+        }
+
+        Snapshot with(Collection<Entry> entries) {
+            Map<Long, Entry> copy = new HashMap<>(byId);
+            entries.forEach(entry -> copy.put(entry.id, entry));
+            return new Snapshot(copy);
+        }
+    }
+
+    /**
+     * A category and its CategoryDTO, which is copied before it is handed out as DTOs are mutable
+     */
+    private static class Entry {
+
+        final Long id;
+
+        final String name;
+
+        final LocalDateTime created;
+
+        private final CategoryDTO dto;
+
+        Entry(Long id, String name, LocalDateTime created) {
+            this.id = id;
+            this.name = name;
+            this.created = created;
+            this.dto = CategoryDTO.builder()
+                    .id(id)
+                    .name(name)
+                    .categoryUrl(CategoryService.buildCategoryUrl(toCategory()))
+                    .build();
+        }
+
+        Category toCategory() {
+            return new Category(id, name, created);
+        }
+
+        CategoryDTO copyDto() {
+            return CategoryDTO.builder()
+                    .id(dto.getId())
+                    .name(dto.getName())
+                    .categoryUrl(dto.getCategoryUrl())
+                    .build();
+        }
+    }
+}
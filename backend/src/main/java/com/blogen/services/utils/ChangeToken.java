@@ -0,0 +1,54 @@
+package com.blogen.services.utils;
+
+import com.blogen.exceptions.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * An opaque position in the change log of posts, the id of the last change a client has seen. Clients ask for the
+ * changes since a token, and get the token to ask with next time along with those changes.
+ * <p>
+ * Tokens are sent to clients as url-safe base64 strings.
+ *
+ * @author Cliff
+ */
+public final class ChangeToken {
+
+    private static final String PREFIX = "c";
+
+    private ChangeToken() {
+    }
+
+    /**
+     * @param changeId id of the last change seen, 0 if none
+     * @return the token of the position after changeId, as an opaque, url-safe, string
+     */
+    public static String encode(long changeId) {
+        String value = PREFIX + changeId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parse a token previously returned by {@link #encode(long)}
+     *
+     * @param token the encoded token
+     * @return the id of the last change seen
+     * @throws BadRequestException if token was not produced by {@link #encode(long)}
+     */
+    public static long decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (!value.startsWith(PREFIX)) {
+                throw new BadRequestException("Invalid change token: " + token);
+            }
+            long changeId = Long.parseLong(value.substring(PREFIX.length()));
+            if (changeId < 0) {
+                throw new BadRequestException("Invalid change token: " + token);
+            }
+            return changeId;
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid change token: " + token, e);
+        }
+    }
+}
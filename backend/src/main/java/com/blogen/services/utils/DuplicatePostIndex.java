@@ -0,0 +1,304 @@
+package com.blogen.services.utils;
+
+import com.blogen.api.v1.model.PostEventDTO;
+import com.blogen.repositories.PostRepository;
+import com.blogen.repositories.PostText;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.blogen.services.utils.TransactionCallbacks.afterCommit;
+
+/**
+ * An in-memory index of the {@link SimHash} fingerprints of the title and text of parent posts, for finding
+ * near-duplicates of a new post without comparing it to every post.
+ * <p>
+ * Fingerprints that differ in at most {@link #MAX_DISTANCE} bits are near-duplicates. Each fingerprint is split into
+ * MAX_DISTANCE + 1 bands of bits, and the index keeps the posts whose fingerprints have each value of each band. Two
+ * near-duplicate fingerprints differ in at most MAX_DISTANCE bands, so they have at least one band in common, and
+ * only the posts that share a band with a fingerprint are compared to it.
+ * <p>
+ * The index is loaded from the database in the background on startup, and kept up to date as posts are created,
+ * updated and deleted. Posts with fewer than the minimum number of words are not indexed, short texts are too often
+ * alike by chance.
+ *
+ * @author Cliff
+ */
+@Slf4j
+@Component
+public class DuplicatePostIndex {
+
+    // fingerprints that differ in at most this many bits are near-duplicates. Reposts with two or three words
+    // changed are mostly within 6 bits of the original, while unrelated texts are about 32 bits apart
+    public static final int MAX_DISTANCE = 6;
+
+    // bands of 9 or 10 bits, so a fingerprint shares a band with about 1 in 70 unrelated posts
+    private static final int BANDS = MAX_DISTANCE + 1;
+
+    private final PostRepository postRepository;
+
+    private final int minWords;
+
+    private final int scanThreads;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // guarded by lock
+    private final Map<Long, Long> fingerprints = new HashMap<>();
+    private final Map<Integer, Set<Long>> bands = new HashMap<>();
+    // posts removed while the index is loading, so the load does not add them back. Null once loaded
+    private Set<Long> removedWhileLoading = new HashSet<>();
+
+    private final ExecutorService loader;
+
+    public DuplicatePostIndex(PostRepository postRepository,
+                              @Value("${blogen.post.duplicates.min.words:8}") int minWords,
+                              @Value("${blogen.post.duplicates.scan.threads:4}") int scanThreads) {
+        this.postRepository = postRepository;
+        this.minWords = minWords;
+        this.scanThreads = scanThreads;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("duplicate-index-loader-");
+        threadFactory.setDaemon(true);
+        this.loader = Executors.newSingleThreadExecutor(threadFactory);
+        loader.execute(this::load);
+    }
+
+    /**
+     * @param title title of a post
+     * @param text  text of a post
+     * @return the fingerprint of the title and text, or an empty OptionalLong if they have too few words
+     */
+    public OptionalLong fingerprint(String title, String text) {
+        List<String> words = SimHash.words(title);
+        words.addAll(SimHash.words(text));
+        return (words.size() < minWords) ? OptionalLong.empty() : OptionalLong.of(SimHash.fingerprint(words));
+    }
+
+    /**
+     * @param fingerprint fingerprint of a post
+     * @return the id of an indexed post that is a near-duplicate of it, or an empty Optional if there is none
+     */
+    public Optional<Long> findNearDuplicate(long fingerprint) {
+        lock.readLock().lock();
+        try {
+            for (int band = 0; band < BANDS; band++) {
+                for (Long postId : bands.getOrDefault(bandKey(fingerprint, band), Set.of())) {
+                    if (SimHash.distance(fingerprint, fingerprints.get(postId)) <= MAX_DISTANCE) {
+                        return Optional.of(postId);
+                    }
+                }
+            }
+            return Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Index the fingerprint of a new or updated post, after the current transaction commits, or right away if there
+     * is no transaction
+     *
+     * @param postId      id of the post
+     * @param fingerprint fingerprint of its title and text
+     */
+    public void put(Long postId, long fingerprint) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                unindex(postId);
+                index(postId, fingerprint);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Remove a post from the index, after the current transaction commits, or right away if there is no transaction
+     *
+     * @param postId id of the post
+     */
+    public void remove(Long postId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                unindex(postId);
+                if (removedWhileLoading != null) {
+                    removedWhileLoading.add(postId);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Remove deleted parent posts from the index. Runs after the transaction that deleted the post commits
+     *
+     * @param event the post event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostEvent(PostEventDTO event) {
+        if (PostEventDTO.POST_DELETED.equals(event.getType()) && event.getParentPostId() == null) {
+            remove(event.getPostId());
+        }
+    }
+
+    /**
+     * Read the title and text of every parent post and fingerprint them. The ids are split into ranges that are
+     * read and fingerprinted in parallel, by several threads, each reading its ranges a page at a time
+     *
+     * @return the fingerprint of every parent post with enough words, by post id
+     */
+    public Map<Long, Long> scanFingerprints() {
+        Optional<Long> maxId = postRepository.findMaxId();
+        if (maxId.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, Long> scanned = new ConcurrentHashMap<>();
+        ParallelIdRangeScan.scan("duplicate-scan-", scanThreads, maxId.get(), postRepository::findParentTextsBetween,
+                PostText::getId, page -> page.forEach(post -> fingerprint(post.getTitle(), post.getText())
+                        .ifPresent(fingerprint -> scanned.put(post.getId(), fingerprint))));
+        return scanned;
+    }
+
+    /**
+     * Group near-duplicate posts into clusters. Posts are in the same cluster if a chain of near-duplicates links
+     * them
+     *
+     * @param fingerprints fingerprints by post id
+     * @return the clusters of two or more posts, largest first, each with its post ids in ascending order
+     */
+    public static List<List<Long>> clusters(Map<Long, Long> fingerprints) {
+        Map<Integer, List<Long>> bandPosts = new HashMap<>();
+        fingerprints.forEach((postId, fingerprint) -> {
+            for (int band = 0; band < BANDS; band++) {
+                bandPosts.computeIfAbsent(bandKey(fingerprint, band), key -> new ArrayList<>()).add(postId);
+            }
+        });
+        Map<Long, Long> parents = new HashMap<>();
+        for (List<Long> postIds : bandPosts.values()) {
+            for (int i = 0; i < postIds.size(); i++) {
+                for (int j = i + 1; j < postIds.size(); j++) {
+                    Long postId1 = postIds.get(i);
+                    Long postId2 = postIds.get(j);
+                    if (SimHash.distance(fingerprints.get(postId1), fingerprints.get(postId2)) <= MAX_DISTANCE) {
+                        parents.put(root(parents, postId1), root(parents, postId2));
+                    }
+                }
+            }
+        }
+        Map<Long, List<Long>> clusters = new HashMap<>();
+        parents.keySet().forEach(postId -> clusters.computeIfAbsent(root(parents, postId), id -> new ArrayList<>())
+                .add(postId));
+        List<List<Long>> sorted = new ArrayList<>();
+        for (List<Long> cluster : clusters.values()) {
+            cluster.sort(null);
+            sorted.add(cluster);
+        }
+        sorted.sort(Comparator.comparingInt((List<Long> cluster) -> cluster.size()).reversed()
+                .thenComparing(cluster -> cluster.get(0)));
+        return sorted;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    /**
+     * Index every parent post, except for posts that were indexed or removed since the index was created. Only
+     * called by the loader thread, and by tests
+     */
+    void load() {
+        Map<Long, Long> scanned;
+        try {
+            scanned = scanFingerprints();
+        } catch (RuntimeException e) {
+            log.warn("could not load the duplicate post index, only new posts are checked for duplicates", e);
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Set<Long> removed = (removedWhileLoading != null) ? removedWhileLoading : Set.of();
+            removedWhileLoading = null;
+            scanned.forEach((postId, fingerprint) -> {
+                if (!fingerprints.containsKey(postId) && !removed.contains(postId)) {
+                    index(postId, fingerprint);
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("loaded the fingerprints of {} posts into the duplicate post index", scanned.size());
+    }
+
+    // guarded by the write lock
+    private void index(Long postId, long fingerprint) {
+        fingerprints.put(postId, fingerprint);
+        for (int band = 0; band < BANDS; band++) {
+            bands.computeIfAbsent(bandKey(fingerprint, band), key -> new HashSet<>()).add(postId);
+        }
+    }
+
+    // guarded by the write lock
+    private void unindex(Long postId) {
+        Long fingerprint = fingerprints.remove(postId);
+        if (fingerprint == null) {
+            return;
+        }
+        for (int band = 0; band < BANDS; band++) {
+            Integer key = bandKey(fingerprint, band);
+            Set<Long> postIds = bands.get(key);
+            postIds.remove(postId);
+            if (postIds.isEmpty()) {
+                bands.remove(key);
+            }
+        }
+    }
+
+    /**
+     * @return the band number in the high bits, and the value of the band in the low bits
+     */
+    private static Integer bandKey(long fingerprint, int band) {
+        int from = band * Long.SIZE / BANDS;
+        int to = (band + 1) * Long.SIZE / BANDS;
+        long value = (fingerprint >>> from) & ((1L << (to - from)) - 1);
+        return (band << 16) | (int) value;
+    }
+
+    private static Long root(Map<Long, Long> parents, Long postId) {
+        Long root = postId;
+        Long parent;
+        while ((parent = parents.get(root)) != null && !parent.equals(root)) {
+            root = parent;
+        }
+        // point every post on the path straight at the root, so later lookups are short
+        Long next = postId;
+        while (!next.equals(root)) {
+            Long following = parents.get(next);
+            parents.put(next, root);
+            next = following;
+        }
+        parents.putIfAbsent(root, root);
+        return root;
+    }
+}
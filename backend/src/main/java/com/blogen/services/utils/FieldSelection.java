@@ -0,0 +1,121 @@
+package com.blogen.services.utils;
+
+import com.blogen.exceptions.BadRequestException;
+
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The properties of a DTO that a client asked for, using a sparse fieldset such as
+ * {@code ?fields=id,title,created,user.userName}.
+ * <p>
+ * A property of a nested DTO is selected with its dotted path, e.g. {@code user.userName}. Selecting a nested DTO
+ * without a path, e.g. {@code user}, selects all of its properties. An empty selection selects everything.
+ *
+ * @author Cliff
+ */
+public final class FieldSelection {
+
+    private static final FieldSelection ALL = new FieldSelection(Collections.emptySet());
+
+    private static final String DTO_PACKAGE = "com.blogen.api.v1.model";
+
+    private final Set<String> paths;
+
+    private FieldSelection(Set<String> paths) {
+        this.paths = paths;
+    }
+
+    /**
+     * @return a selection of every property
+     */
+    public static FieldSelection all() {
+        return ALL;
+    }
+
+    /**
+     * Parse a comma separated list of property paths
+     *
+     * @param fields  the value of a fields request parameter, null or blank selects every property
+     * @param dtoType the DTO that the paths are relative to
+     * @return the selection
+     * @throws BadRequestException if a path does not name a property of dtoType or of one of its nested DTOs
+     */
+    public static FieldSelection parse(String fields, Class<?> dtoType) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        Set<String> paths = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String path = field.trim();
+            if (!path.isEmpty()) {
+                validatePath(path, dtoType);
+                paths.add(path);
+            }
+        }
+        return paths.isEmpty() ? ALL : new FieldSelection(Collections.unmodifiableSet(paths));
+    }
+
+    /**
+     * @return true if every property is selected
+     */
+    public boolean isAll() {
+        return paths.isEmpty();
+    }
+
+    /**
+     * @return the selected paths, empty if every property is selected
+     */
+    public Set<String> getPaths() {
+        return paths;
+    }
+
+    /**
+     * A path is included if it was selected, if it is nested in a selected DTO, or if it is a nested DTO that has a
+     * selected property.
+     *
+     * @param path a property path such as {@code title} or {@code user.userName}
+     * @return true if the property at path should be built and serialized
+     */
+    public boolean includes(String path) {
+        if (isAll() || paths.contains(path)) {
+            return true;
+        }
+        for (String selected : paths) {
+            if (path.startsWith(selected + ".") || selected.startsWith(path + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void validatePath(String path, Class<?> dtoType) {
+        Class<?> type = dtoType;
+        for (String name : path.split("\\.", -1)) {
+            Field field = (type != null) ? findField(type, name) : null;
+            if (field == null) {
+                throw new BadRequestException("Unknown field: " + path);
+            }
+            type = isDto(field.getType()) ? field.getType() : null;
+        }
+    }
+
+    private static Field findField(Class<?> type, String name) {
+        try {
+            return type.getDeclaredField(name);
+        } catch (NoSuchFieldException e) {
+            return null;
+        }
+    }
+
+    private static boolean isDto(Class<?> type) {
+        return type.getPackage() != null && type.getPackage().getName().equals(DTO_PACKAGE);
+    }
+
+    @Override
+    public String toString() {
+        return isAll() ? "FieldSelection{all}" : "FieldSelection" + paths;
+    }
+}
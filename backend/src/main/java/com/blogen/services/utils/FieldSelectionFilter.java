@@ -0,0 +1,58 @@
+package com.blogen.services.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+
+/**
+ * Jackson property filter that only writes the properties of a {@link FieldSelection}.
+ * <p>
+ * Paths are relative to the nearest enclosing object of the root DTO type, so the selection made for a post also
+ * applies to each of its child posts, and {@code user.userName} selects the userName of the user of every post.
+ * Properties of objects that are not DTOs of the root type, or nested in one, are always written.
+ *
+ * @author Cliff
+ */
+public class FieldSelectionFilter extends SimpleBeanPropertyFilter {
+
+    /**
+     * id of this filter. DTOs that can be filtered are registered with this id in the application ObjectMapper
+     */
+    public static final String FILTER_ID = "fieldSelection";
+
+    private final FieldSelection selection;
+    private final Class<?> rootType;
+
+    public FieldSelectionFilter(FieldSelection selection, Class<?> rootType) {
+        this.selection = selection;
+        this.rootType = rootType;
+    }
+
+    @Override
+    public void serializeAsField(Object pojo, JsonGenerator gen, SerializerProvider provider, PropertyWriter writer)
+            throws Exception {
+        String path = pathOf(pojo, gen, writer);
+        if (path == null || selection.includes(path)) {
+            writer.serializeAsField(pojo, gen, provider);
+        } else if (!gen.canOmitFields()) {
+            writer.serializeAsOmittedField(pojo, gen, provider);
+        }
+    }
+
+    /**
+     * @return the path of the property relative to the enclosing root DTO, or null if it is not inside one
+     */
+    private String pathOf(Object pojo, JsonGenerator gen, PropertyWriter writer) {
+        if (rootType.isInstance(pojo)) {
+            return writer.getName();
+        }
+        // the generator is writing the fields of pojo, so its parent context is the object that holds pojo
+        JsonStreamContext parent = gen.getOutputContext().getParent();
+        if (parent != null && parent.inObject() && rootType.isInstance(parent.getCurrentValue())) {
+            return parent.getCurrentName() + "." + writer.getName();
+        }
+        return null;
+    }
+}
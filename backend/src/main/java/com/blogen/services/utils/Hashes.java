@@ -0,0 +1,27 @@
+package com.blogen.services.utils;
+
+/**
+ * Bit mixing shared by the sketches and fingerprints, which need hashes whose bits are all equally random.
+ *
+ * @author Cliff
+ */
+public final class Hashes {
+
+    // the increment of splitmix64, added to a value before it is mixed so that 0 does not hash to 0
+    public static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private Hashes() {
+    }
+
+    /**
+     * The splitmix64 finalizer, which spreads values that differ in a few bits over all 64 bits
+     *
+     * @param value the value to mix
+     * @return the mixed value
+     */
+    public static long mix64(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,87 @@
+package com.blogen.services.utils;
+
+import com.blogen.exceptions.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * An opaque position in a list of posts ordered by (created, id). A page of results is requested with the cursor of
+ * the last post of the previous page, and the next page starts right after that post. Unlike an offset, the cost of
+ * reading a page does not grow with how far into the list it is, and posts added while a client pages through the
+ * list do not shift the pages it has yet to read.
+ * <p>
+ * Cursors are sent to clients as url-safe base64 strings.
+ *
+ * @author Cliff
+ */
+public final class KeysetCursor {
+
+    private static final String SEPARATOR = "_";
+
+    private final LocalDateTime created;
+    private final Long id;
+
+    public KeysetCursor(LocalDateTime created, Long id) {
+        this.created = Objects.requireNonNull(created, "created");
+        this.id = Objects.requireNonNull(id, "id");
+    }
+
+    public LocalDateTime getCreated() {
+        return created;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * @return this cursor as an opaque, url-safe, string
+     */
+    public String encode() {
+        String value = created + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parse a cursor previously returned by {@link #encode()}
+     *
+     * @param cursor the encoded cursor
+     * @return the decoded cursor
+     * @throws BadRequestException if cursor was not produced by {@link #encode()}
+     */
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new BadRequestException("Invalid cursor: " + cursor);
+            }
+            return new KeysetCursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Long.valueOf(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        KeysetCursor that = (KeysetCursor) o;
+        return created.equals(that.created) && id.equals(that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(created, id);
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetCursor{created=" + created + ", id=" + id + '}';
+    }
+}
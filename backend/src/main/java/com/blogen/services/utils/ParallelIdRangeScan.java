@@ -0,0 +1,99 @@
+package com.blogen.services.utils;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Reads every row of a table in parallel, by id. The ids up to the largest one are split into ranges that several
+ * threads read a page at a time, each page starting after the last id of the page before it, so no page is read with
+ * an offset.
+ *
+ * @author Cliff
+ */
+public final class ParallelIdRangeScan {
+
+    // number of rows read by one query of a scan
+    public static final int PAGE_SIZE = 500;
+
+    // ranges of ids a scan is split into, per scan thread, so that threads that finish early take on more ranges
+    private static final int RANGES_PER_THREAD = 4;
+
+    private ParallelIdRangeScan() {
+    }
+
+    /**
+     * Reads a page of rows by id
+     *
+     * @param <T> type of the rows
+     */
+    @FunctionalInterface
+    public interface PageReader<T> {
+
+        /**
+         * @param afterId  the rows have ids greater than this
+         * @param beforeId the rows have ids less than this
+         * @param pageable the page to read, its size is the most rows to read
+         * @return the rows, ordered by id
+         */
+        List<T> read(long afterId, long beforeId, Pageable pageable);
+    }
+
+    /**
+     * Read every row with an id from 0 to maxId, and pass each page to the consumer. Pages are passed from several
+     * threads at once, so the consumer must be thread safe. Returns once every range has been read, or throws the
+     * first exception thrown by a reader or the consumer, and the other ranges stop at their next page
+     *
+     * @param threadNamePrefix prefix of the names of the scan threads
+     * @param threads          number of threads to read with
+     * @param maxId            the largest id to read
+     * @param reader           reads a page of rows
+     * @param idOf             the id of a row
+     * @param pageConsumer     takes each page that was read
+     * @param <T>              type of the rows
+     */
+    public static <T> void scan(String threadNamePrefix, int threads, long maxId, PageReader<T> reader,
+                                ToLongFunction<T> idOf, Consumer<List<T>> pageConsumer) {
+        int ranges = threads * RANGES_PER_THREAD;
+        long rangeSize = maxId / ranges + 1;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(threadNamePrefix);
+        threadFactory.setDaemon(true);
+        ExecutorService executor = Executors.newFixedThreadPool(threads, threadFactory);
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int range = 0; range < ranges; range++) {
+                long from = range * rangeSize;
+                futures.add(CompletableFuture.runAsync(
+                        () -> scanRange(from, from + rangeSize, reader, idOf, pageConsumer), executor));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static <T> void scanRange(long from, long to, PageReader<T> reader, ToLongFunction<T> idOf,
+                                      Consumer<List<T>> pageConsumer) {
+        long after = from - 1;
+        List<T> page;
+        do {
+            if (Thread.currentThread().isInterrupted()) {
+                // another range failed
+                return;
+            }
+            page = reader.read(after, to, PageRequest.of(0, PAGE_SIZE));
+            pageConsumer.accept(page);
+            if (!page.isEmpty()) {
+                after = idOf.applyAsLong(page.get(page.size() - 1));
+            }
+        } while (page.size() == PAGE_SIZE);
+    }
+}
@@ -0,0 +1,202 @@
+package com.blogen.services.utils;
+
+import com.blogen.repositories.LatestThread;
+import com.blogen.repositories.PostCountRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static com.blogen.services.utils.TransactionCallbacks.afterCommit;
+
+/**
+ * The number of parent posts of each user, of each category, and of each user in each category, and the latest thread
+ * of each category, as shown with users and categories. Counts are changed in the transaction that creates or deletes
+ * a parent post, and the latest thread in the transaction that creates, edits or deletes one. Both are read through a
+ * small cache, so showing them costs neither a count nor a latest post query, and mostly no query at all.
+ * <p>
+ * Cached counts and threads of a user and a category are invalidated after the transaction that changes them commits.
+ * A value read from the database may race with a change, so a reader takes a generation before it reads the values
+ * and only caches them if no invalidation happened in between, in the same way as {@link PostJsonCache}.
+ *
+ * @author Cliff
+ */
+@Component
+public class PostCounts {
+
+    private final PostCountRepository postCountRepository;
+
+    private final Cache<Long, Long> userCounts;
+
+    private final Cache<Long, Long> categoryCounts;
+
+    private final Cache<Long, Map<Long, Long>> userCategoryCounts;
+
+    // empty for a category without threads
+    private final Cache<Long, Optional<LatestThread>> latestThreads;
+
+    // incremented by every invalidation
+    private final AtomicLong generation = new AtomicLong();
+
+    public PostCounts(PostCountRepository postCountRepository,
+                      @Value("${blogen.post.counts.cache.size:10000}") long cacheSize,
+                      @Value("${blogen.post.counts.cache.ttl.seconds:600}") long ttlSeconds) {
+        this.postCountRepository = postCountRepository;
+        this.userCounts = buildCache(cacheSize, ttlSeconds);
+        this.categoryCounts = buildCache(cacheSize, ttlSeconds);
+        this.userCategoryCounts = buildCache(cacheSize, ttlSeconds);
+        this.latestThreads = buildCache(cacheSize, ttlSeconds);
+    }
+
+    /**
+     * Count a new parent post, and make it the latest thread of its category. Must be called in the transaction that
+     * saves the post
+     *
+     * @param userId     id of the author of the post
+     * @param categoryId id of the category of the post
+     * @param postId     id of the post
+     */
+    public void postCreated(Long userId, Long categoryId, Long postId) {
+        postCountRepository.addPosts(userId, categoryId, 1);
+        postCountRepository.setLatestThread(categoryId, postId);
+        invalidateAfterCommit(userId, categoryId);
+    }
+
+    /**
+     * Make an edited parent post the latest thread of its category, as an edit changes the created date of a post.
+     * Must be called in the transaction that saves the post
+     *
+     * @param categoryId id of the category of the post
+     * @param postId     id of the post
+     */
+    public void postEdited(Long categoryId, Long postId) {
+        postCountRepository.setLatestThread(categoryId, postId);
+        invalidateAfterCommit(null, categoryId);
+    }
+
+    /**
+     * Stop counting a deleted parent post, and replace it if it is the latest thread of its category. Must be called
+     * in the transaction that deletes the post
+     *
+     * @param userId     id of the author of the post
+     * @param categoryId id of the category of the post
+     * @param postId     id of the post
+     */
+    public void postDeleted(Long userId, Long categoryId, Long postId) {
+        postCountRepository.addPosts(userId, categoryId, -1);
+        postCountRepository.replaceLatestThread(categoryId, postId);
+        invalidateAfterCommit(userId, categoryId);
+    }
+
+    /**
+     * @param userIds ids of users
+     * @return the number of parent posts of each user, by user id. Users without posts have a count of 0
+     */
+    public Map<Long, Long> getUserPostCounts(Collection<Long> userIds) {
+        return getCounts(userCounts, userIds, postCountRepository::findUserPostCounts);
+    }
+
+    /**
+     * @param categoryIds ids of categories
+     * @return the number of parent posts in each category, by category id. Categories without posts have a count
+     * of 0
+     */
+    public Map<Long, Long> getCategoryPostCounts(Collection<Long> categoryIds) {
+        return getCounts(categoryCounts, categoryIds, postCountRepository::findCategoryPostCounts);
+    }
+
+    /**
+     * @param categoryIds ids of categories
+     * @return the newest parent post of each category that has one, by category id
+     */
+    public Map<Long, LatestThread> getLatestThreads(Collection<Long> categoryIds) {
+        Map<Long, LatestThread> threads = new HashMap<>();
+        getAll(latestThreads, categoryIds, Optional.empty(), ids -> {
+            Map<Long, Optional<LatestThread>> read = new HashMap<>();
+            postCountRepository.findLatestThreads(ids).forEach((id, thread) -> read.put(id, Optional.of(thread)));
+            return read;
+        }).forEach((id, thread) -> thread.ifPresent(latest -> threads.put(id, latest)));
+        return threads;
+    }
+
+    /**
+     * @param userId id of a user
+     * @return the number of parent posts of the user in each category the user has posted in, by category id
+     */
+    public Map<Long, Long> getCategoryPostCountsOfUser(Long userId) {
+        Map<Long, Long> cached = userCategoryCounts.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = this.generation.get();
+        Map<Long, Long> counts = Map.copyOf(postCountRepository.findCategoryPostCountsOfUser(userId));
+        put(userCategoryCounts, userId, counts, generation);
+        return counts;
+    }
+
+    // a null user id only invalidates the category
+    private void invalidateAfterCommit(Long userId, Long categoryId) {
+        afterCommit(() -> {
+            generation.incrementAndGet();
+            if (userId != null) {
+                userCounts.invalidate(userId);
+                userCategoryCounts.invalidate(userId);
+            }
+            categoryCounts.invalidate(categoryId);
+            latestThreads.invalidate(categoryId);
+        });
+    }
+
+    private Map<Long, Long> getCounts(Cache<Long, Long> cache, Collection<Long> ids,
+                                      Function<Collection<Long>, Map<Long, Long>> reader) {
+        return getAll(cache, ids, 0L, reader);
+    }
+
+    /**
+     * Read values through a cache, reading the ones that are not cached with one call of the reader
+     *
+     * @param absent the value of an id the reader returns nothing for
+     */
+    private <V> Map<Long, V> getAll(Cache<Long, V> cache, Collection<Long> ids, V absent,
+                                    Function<Collection<Long>, Map<Long, V>> reader) {
+        Map<Long, V> values = new HashMap<>(cache.getAllPresent(ids));
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            if (!values.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        if (missing.isEmpty()) {
+            return values;
+        }
+        long generation = this.generation.get();
+        Map<Long, V> read = reader.apply(missing);
+        for (Long id : missing) {
+            V value = read.getOrDefault(id, absent);
+            values.put(id, value);
+            put(cache, id, value, generation);
+        }
+        return values;
+    }
+
+    private <V> void put(Cache<Long, V> cache, Long id, V value, long generation) {
+        cache.asMap().compute(id, (key, cached) -> (generation == this.generation.get()) ? value : cached);
+    }
+
+    private static <V> Cache<Long, V> buildCache(long cacheSize, long ttlSeconds) {
+        return Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+}
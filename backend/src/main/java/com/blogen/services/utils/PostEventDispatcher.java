@@ -0,0 +1,251 @@
+package com.blogen.services.utils;
+
+import com.blogen.api.v1.model.PostEventDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fans {@link PostEventDTO}s out to the clients of the post event stream, as server-sent events.
+ * <p>
+ * Each client is an {@link SseEmitter}, an async request that holds no thread while it waits. One dispatcher thread
+ * assigns ids to events and offers them to a bounded queue per client, so publishing never waits for a client. A
+ * small pool of sender threads drains those queues, one client at a time. A client that falls so far behind that
+ * its queue is full is disconnected, and catches up by reconnecting with the Last-Event-ID header: the most recent
+ * events are kept and replayed to it. A client that missed more events than are kept, or reconnects after a restart,
+ * gets a {@link PostEventDTO#STREAM_RESET} event instead, and resyncs from the post changes.
+ * <p>
+ * A comment is sent to every client as a heartbeat, which keeps proxies from closing idle connections and finds
+ * clients that went away.
+ *
+ * @author Cliff
+ */
+@Slf4j
+@Component
+public class PostEventDispatcher {
+
+    // number of recent events kept to replay to reconnecting clients
+    static final int REPLAY_SIZE = 256;
+
+    // clients reconnect when their stream times out
+    private static final long STREAM_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    private static final QueuedEvent HEARTBEAT = new QueuedEvent(0, null);
+
+    private final int queueSize;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    // the fields below are only used by the dispatcher thread
+    private final Deque<QueuedEvent> recentEvents = new ArrayDeque<>();
+    // ids start at the current time, so they keep increasing across restarts
+    private long lastEventId = System.currentTimeMillis();
+
+    private final ExecutorService dispatcher;
+    private final ExecutorService senders;
+    private final ScheduledExecutorService heartbeats;
+
+    public PostEventDispatcher(@Value("${blogen.post.events.queue.size:64}") int queueSize,
+                               @Value("${blogen.post.events.sender.threads:4}") int senderThreads,
+                               @Value("${blogen.post.events.heartbeat.seconds:20}") long heartbeatSeconds) {
+        this.queueSize = queueSize;
+        this.dispatcher = Executors.newSingleThreadExecutor(daemonThreads("post-event-dispatcher-"));
+        this.senders = Executors.newFixedThreadPool(senderThreads, daemonThreads("post-event-sender-"));
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(daemonThreads("post-event-heartbeat-"));
+        heartbeats.scheduleAtFixedRate(this::sendHeartbeats, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Open a stream of post events
+     *
+     * @param categoryIds only send events of posts in these categories, or every event if empty
+     * @param lastEventId id of the last event the client received, from its Last-Event-ID header, or null. The
+     *                    recent events after it are sent first, or a reset event if some of them are no longer kept
+     * @return the emitter to return from the controller
+     */
+    public SseEmitter subscribe(Set<Long> categoryIds, Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MILLIS);
+        Subscriber subscriber = new Subscriber(emitter, categoryIds);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscribers.remove(subscriber));
+        // registering on the dispatcher thread means no event is missed or sent twice between the replay and the
+        // first live event
+        dispatcher.execute(() -> {
+            if (lastEventId != null && missedEventsAfter(lastEventId)) {
+                subscriber.offer(new QueuedEvent(this.lastEventId,
+                        PostEventDTO.builder().type(PostEventDTO.STREAM_RESET).build()));
+            } else if (lastEventId != null) {
+                recentEvents.stream()
+                        .filter(event -> event.id > lastEventId)
+                        .forEach(subscriber::offer);
+            }
+            subscribers.add(subscriber);
+        });
+        return emitter;
+    }
+
+    /**
+     * Send an event to the clients that subscribed to it. Events published in a transaction are sent after it
+     * commits, and dropped if it rolls back
+     *
+     * @param event the event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostEvent(PostEventDTO event) {
+        try {
+            dispatcher.execute(() -> dispatch(event));
+        } catch (RejectedExecutionException e) {
+            log.debug("post event dispatcher is shut down, dropping {}", event);
+        }
+    }
+
+    /**
+     * @return the number of open streams
+     */
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    private void dispatch(PostEventDTO event) {
+        QueuedEvent queuedEvent = new QueuedEvent(++lastEventId, event);
+        recentEvents.addLast(queuedEvent);
+        if (recentEvents.size() > REPLAY_SIZE) {
+            recentEvents.removeFirst();
+        }
+        subscribers.forEach(subscriber -> subscriber.offer(queuedEvent));
+    }
+
+    // true if events after the id were dropped from the recent events, or were sent before a restart. Ids are
+    // consecutive, so no event was dropped if the id is at most one before the oldest event kept
+    private boolean missedEventsAfter(long eventId) {
+        long oldestKeptId = recentEvents.isEmpty() ? lastEventId + 1 : recentEvents.getFirst().id;
+        return eventId < oldestKeptId - 1;
+    }
+
+    private void sendHeartbeats() {
+        subscribers.forEach(subscriber -> subscriber.offer(HEARTBEAT));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+        dispatcher.shutdownNow();
+        senders.shutdownNow();
+        subscribers.forEach(Subscriber::close);
+    }
+
+    private static CustomizableThreadFactory daemonThreads(String prefix) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(prefix);
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    /**
+     * an event with the id it is sent with
+     */
+    private static final class QueuedEvent {
+        private final long id;
+        private final PostEventDTO event;
+
+        private QueuedEvent(long id, PostEventDTO event) {
+            this.id = id;
+            this.event = event;
+        }
+    }
+
+    /**
+     * one open stream and the events waiting to be sent on it
+     */
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Set<Long> categoryIds;
+        private final BlockingQueue<QueuedEvent> queue = new LinkedBlockingQueue<>(queueSize);
+        // true while a sender is draining the queue
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter, Set<Long> categoryIds) {
+            this.emitter = emitter;
+            this.categoryIds = (categoryIds != null) ? categoryIds : Collections.emptySet();
+        }
+
+        private void offer(QueuedEvent queuedEvent) {
+            if (queuedEvent != HEARTBEAT && !PostEventDTO.STREAM_RESET.equals(queuedEvent.event.getType())
+                    && !categoryIds.isEmpty() && !categoryIds.contains(queuedEvent.event.getCategoryId())) {
+                return;
+            }
+            if (!queue.offer(queuedEvent)) {
+                log.debug("post event stream is {} events behind, disconnecting it", queueSize);
+                close();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                QueuedEvent queuedEvent;
+                while ((queuedEvent = queue.poll()) != null) {
+                    send(queuedEvent);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // the client went away, or the stream already completed
+                close();
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // an event offered after the last poll but before draining was reset would otherwise wait for the next one
+            if (!queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        private void send(QueuedEvent queuedEvent) throws IOException {
+            if (queuedEvent == HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } else {
+                emitter.send(SseEmitter.event()
+                        .id(String.valueOf(queuedEvent.id))
+                        .name(queuedEvent.event.getType())
+                        .data(queuedEvent.event, MediaType.APPLICATION_JSON));
+            }
+        }
+
+        private void close() {
+            subscribers.remove(this);
+            queue.clear();
+            emitter.complete();
+        }
+    }
+}
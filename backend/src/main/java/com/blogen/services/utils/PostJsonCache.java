@@ -0,0 +1,141 @@
+package com.blogen.services.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.blogen.services.utils.TransactionCallbacks.afterCommit;
+
+/**
+ * Cache of the serialized JSON of single posts, as sent by GET /api/v1/posts/{id}, so that reading a popular thread
+ * again costs a hash lookup and a byte copy instead of mapping, building urls for, and serializing the thread and
+ * all of its replies.
+ * <p>
+ * Entries are keyed by post id and hold the version of the post they were built from, the tag of its
+ * {@link ResourceVersion}. A lookup for any other version is a miss, so a post changed by another node, or by a bulk
+ * update of post versions, is never served stale. Entries are also invalidated when the post or one of its replies is
+ * edited, replied to or deleted, and when a user shown in the post changes their name or avatar, which frees them
+ * early. Invalidations run after the transaction that made the change commits. Entries also expire after a while,
+ * since the counts of a post that are not written yet change without changing its version.
+ * <p>
+ * JSON is built from a read that may race with a change, so a reader takes a {@link #generation()} before it reads
+ * the post and passes it to {@link #put}. If any invalidation happened in between, the JSON may be stale and is not
+ * cached.
+ *
+ * @author Cliff
+ */
+@Component
+public class PostJsonCache {
+
+    private final Cache<Long, CachedPost> cache;
+
+    // incremented by every invalidation
+    private final AtomicLong generation = new AtomicLong();
+
+    public PostJsonCache(@Value("${blogen.post.json.cache.max.bytes:33554432}") long maxBytes,
+                         @Value("${blogen.post.json.cache.ttl.seconds:60}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .weigher((Long postId, CachedPost cachedPost) -> cachedPost.json.length)
+                .build();
+    }
+
+    /**
+     * @param postId  id of a post
+     * @param version the current version of the post
+     * @return the cached JSON of that version of the post, or null if it is not cached
+     */
+    public byte[] get(Long postId, String version) {
+        CachedPost cachedPost = cache.getIfPresent(postId);
+        return (cachedPost != null && cachedPost.version.equals(version)) ? cachedPost.json : null;
+    }
+
+    /**
+     * @return the current generation, to be read before reading a post whose JSON will be passed to {@link #put}
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Cache the JSON of a post, unless it was invalidated after generation was read. A put that races with the put of
+     * another version may replace it, which only causes a miss
+     *
+     * @param postId     id of the post
+     * @param version    version of the post, read before the post the JSON was built from
+     * @param generation the {@link #generation()} read before the post was read
+     * @param userIds    ids of every user shown in the JSON, the author of the post and of its replies
+     * @param json       the serialized post
+     */
+    public void put(Long postId, String version, long generation, Set<Long> userIds, byte[] json) {
+        cache.asMap().compute(postId, (id, cached) -> {
+            if (generation != this.generation.get()) {
+                return cached;
+            }
+            return new CachedPost(version, userIds, json);
+        });
+    }
+
+    /**
+     * Remove the JSON of posts after the current transaction commits, or right away if there is no transaction
+     *
+     * @param postIds ids of the posts that changed, null ids are ignored
+     */
+    public void invalidate(Long... postIds) {
+        afterCommit(() -> {
+            generation.incrementAndGet();
+            for (Long postId : postIds) {
+                if (postId != null) {
+                    cache.invalidate(postId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Remove the JSON of every post that shows a user, after the current transaction commits
+     *
+     * @param userId id of the user that changed
+     */
+    public void invalidateUser(Long userId) {
+        afterCommit(() -> {
+            generation.incrementAndGet();
+            cache.asMap().values().removeIf(cachedPost -> cachedPost.userIds.contains(userId));
+        });
+    }
+
+    /**
+     * Remove every post, after the current transaction commits
+     */
+    public void invalidateAll() {
+        afterCommit(() -> {
+            generation.incrementAndGet();
+            cache.invalidateAll();
+        });
+    }
+
+    /**
+     * @return the number of cached posts
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private static final class CachedPost {
+        private final String version;
+        private final Set<Long> userIds;
+        private final byte[] json;
+
+        private CachedPost(String version, Set<Long> userIds, byte[] json) {
+            this.version = version;
+            this.userIds = userIds;
+            this.json = json;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.blogen.services.utils;
+
+import com.blogen.repositories.PostLikeRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.blogen.services.utils.TransactionCallbacks.afterCommit;
+
+/**
+ * Keeps the like counts of posts, and who liked them, in memory, so that liking a post never updates the post row.
+ * The post_like table is the record of who likes what. Liking a post inserts a row into it, and its unique index
+ * makes liking idempotent.
+ * <p>
+ * Likes and unlikes are added to a {@link LongAdder} per post once they commit. The adders spread concurrent
+ * updates over several cells, so likes of a viral post do not contend on one counter. Every reconcile interval one
+ * thread recounts the likes of the posts whose count changed from post_like and stores the counts in the post
+ * table, so counts that drift, such as when a process stops before it reconciles, are corrected the next time the
+ * post is liked. Posts that gained likes since the last reconcile are added to the {@link TrendingThreads}.
+ * <p>
+ * Whether a user likes a post is answered from a {@link LikeSet} of the post, the sorted ids of the users that like
+ * it, read once from post_like and kept up to date as likes commit. A set that is read while a like of the post
+ * commits may miss that like, so it is only kept if no like of the post committed in the meantime.
+ *
+ * @author Cliff
+ */
+@Slf4j
+@Component
+public class PostLikeCounter {
+
+    // number of posts reconciled by one statement
+    static final int RECONCILE_BATCH_SIZE = 500;
+
+    // the like sets of posts that hash to the same stripe share a generation
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final PostLikeRepository postLikeRepository;
+
+    private final TrendingThreads trendingThreads;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ConcurrentHashMap<Long, LongAdder> counters = new ConcurrentHashMap<>();
+
+    private final Cache<Long, LikeSet> likeSets;
+
+    // incremented, for the stripe of a post, every time a like of the post commits
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    private final ScheduledExecutorService reconciler;
+
+    public PostLikeCounter(PostLikeRepository postLikeRepository, TrendingThreads trendingThreads,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${blogen.post.likes.cache.max.bytes:16777216}") long maxBytes,
+                           @Value("${blogen.post.likes.reconcile.millis:5000}") long reconcileMillis) {
+        this.postLikeRepository = postLikeRepository;
+        this.trendingThreads = trendingThreads;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.likeSets = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long postId, LikeSet likeSet) -> likeSet.weight())
+                .build();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("post-like-reconciler-");
+        threadFactory.setDaemon(true);
+        this.reconciler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        reconciler.scheduleWithFixedDelay(this::reconcile, reconcileMillis, reconcileMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param postId id of a post
+     * @param userId id of a user
+     * @return true if the user likes the post
+     */
+    public boolean likes(Long postId, Long userId) {
+        LikeSet likeSet = likeSets.getIfPresent(postId);
+        if (likeSet == null) {
+            long generation = generations.get(stripe(postId));
+            LikeSet read = LikeSet.of(postLikeRepository.findUserIds(postId));
+            likeSet = likeSets.asMap().compute(postId, (id, cached) -> {
+                if (cached != null) {
+                    return cached;
+                }
+                return (generation == generations.get(stripe(postId))) ? read : null;
+            });
+            if (likeSet == null) {
+                // not kept, but still as recent as the read
+                likeSet = read;
+            }
+        }
+        return likeSet.contains(userId);
+    }
+
+    /**
+     * Count a like, after the current transaction commits, or right away if there is no transaction
+     *
+     * @param postId id of the post
+     * @param userId id of the user that liked it
+     */
+    public void liked(Long postId, Long userId) {
+        afterCommit(() -> {
+            generations.incrementAndGet(stripe(postId));
+            likeSets.asMap().computeIfPresent(postId, (id, likeSet) -> likeSet.with(userId));
+            counter(postId).increment();
+        });
+    }
+
+    /**
+     * Count an unlike, after the current transaction commits, or right away if there is no transaction
+     *
+     * @param postId id of the post
+     * @param userId id of the user that no longer likes it
+     */
+    public void unliked(Long postId, Long userId) {
+        afterCommit(() -> {
+            generations.incrementAndGet(stripe(postId));
+            likeSets.asMap().computeIfPresent(postId, (id, likeSet) -> likeSet.without(userId));
+            counter(postId).decrement();
+        });
+    }
+
+    /**
+     * @param postId id of a post
+     * @return the likes of the post, less its unlikes, that are not yet in its like count in the post table
+     */
+    public long pendingLikes(Long postId) {
+        LongAdder counter = counters.get(postId);
+        return (counter != null) ? counter.sum() : 0;
+    }
+
+    /**
+     * Recount the likes of every post whose count changed. Only called by the reconciler thread, on shutdown, and
+     * by tests
+     */
+    void reconcile() {
+        Map<Long, Long> drained = new HashMap<>();
+        counters.forEach((postId, counter) -> {
+            long likes = counter.sumThenReset();
+            if (likes != 0) {
+                drained.put(postId, likes);
+            } else if (counters.remove(postId, counter)) {
+                // a like that got hold of the counter just before it was removed is moved to a new one
+                long late = counter.sumThenReset();
+                if (late != 0) {
+                    counter(postId).add(late);
+                }
+            }
+        });
+        if (drained.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> liked = new HashMap<>(drained);
+        liked.values().removeIf(likes -> likes < 0);
+        trendingThreads.addLikes(liked);
+
+        List<Long> postIds = new ArrayList<>(drained.keySet());
+        postIds.sort(null);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int from = 0; from < postIds.size(); from += RECONCILE_BATCH_SIZE) {
+                    postLikeRepository.reconcileLikeCounts(
+                            postIds.subList(from, Math.min(postIds.size(), from + RECONCILE_BATCH_SIZE)));
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("could not reconcile the like counts of {} posts, retrying at the next reconcile",
+                    postIds.size(), e);
+            drained.forEach((postId, likes) -> counter(postId).add(likes));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        reconciler.shutdown();
+        reconciler.awaitTermination(10, TimeUnit.SECONDS);
+        reconcile();
+    }
+
+    private LongAdder counter(Long postId) {
+        LongAdder counter = counters.get(postId);
+        return (counter != null) ? counter : counters.computeIfAbsent(postId, id -> new LongAdder());
+    }
+
+    private static int stripe(Long postId) {
+        return Long.hashCode(postId) & (GENERATION_STRIPES - 1);
+    }
+
+    /**
+     * The ids of the users that like a post, as a sorted array of longs. Sets are immutable, changes replace them.
+     * <p>
+     * Copying the whole array for every like would make liking a viral post slow, so users that like or unlike the
+     * post after the set was built are kept in two small sorted arrays, that are merged into the large one once they
+     * grow to a sixteenth of its size. That bounds the copying to a small constant per like, on average.
+     */
+    public static final class LikeSet {
+
+        private static final long[] EMPTY = new long[0];
+
+        // merge the added and removed arrays into the large one once they hold this many ids, at least
+        private static final int MIN_MERGE_SIZE = 32;
+
+        private final long[] userIds;
+        // users that are not in userIds and like the post
+        private final long[] added;
+        // users that are in userIds and no longer like the post
+        private final long[] removed;
+
+        private LikeSet(long[] userIds, long[] added, long[] removed) {
+            this.userIds = userIds;
+            this.added = added;
+            this.removed = removed;
+        }
+
+        /**
+         * @param userIds ids of the users that like a post, in ascending order
+         * @return the set of the ids
+         */
+        public static LikeSet of(List<Long> userIds) {
+            long[] ids = new long[userIds.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = userIds.get(i);
+            }
+            return new LikeSet(ids, EMPTY, EMPTY);
+        }
+
+        /**
+         * @param userId id of a user
+         * @return true if the user likes the post
+         */
+        public boolean contains(long userId) {
+            if (Arrays.binarySearch(added, userId) >= 0) {
+                return true;
+            }
+            return Arrays.binarySearch(userIds, userId) >= 0 && Arrays.binarySearch(removed, userId) < 0;
+        }
+
+        /**
+         * @return the number of users that like the post
+         */
+        public int size() {
+            return userIds.length + added.length - removed.length;
+        }
+
+        /**
+         * @param userId id of a user that likes the post
+         * @return a set that contains the user
+         */
+        public LikeSet with(long userId) {
+            if (contains(userId)) {
+                return this;
+            }
+            if (Arrays.binarySearch(removed, userId) >= 0) {
+                return new LikeSet(userIds, added, remove(removed, userId)).mergeIfLarge();
+            }
+            return new LikeSet(userIds, insert(added, userId), removed).mergeIfLarge();
+        }
+
+        /**
+         * @param userId id of a user that no longer likes the post
+         * @return a set that does not contain the user
+         */
+        public LikeSet without(long userId) {
+            if (!contains(userId)) {
+                return this;
+            }
+            if (Arrays.binarySearch(added, userId) >= 0) {
+                return new LikeSet(userIds, remove(added, userId), removed).mergeIfLarge();
+            }
+            return new LikeSet(userIds, added, insert(removed, userId)).mergeIfLarge();
+        }
+
+        private int weight() {
+            return Long.BYTES * (userIds.length + added.length + removed.length);
+        }
+
+        private LikeSet mergeIfLarge() {
+            if (added.length + removed.length < Math.max(MIN_MERGE_SIZE, userIds.length / 16)) {
+                return this;
+            }
+            long[] merged = new long[size()];
+            int i = 0;
+            int a = 0;
+            int m = 0;
+            while (i < userIds.length || a < added.length) {
+                long next;
+                if (a == added.length || (i < userIds.length && userIds[i] < added[a])) {
+                    next = userIds[i++];
+                    if (Arrays.binarySearch(removed, next) >= 0) {
+                        continue;
+                    }
+                } else {
+                    next = added[a++];
+                }
+                merged[m++] = next;
+            }
+            return new LikeSet(merged, EMPTY, EMPTY);
+        }
+
+        private static long[] insert(long[] ids, long id) {
+            int index = -Arrays.binarySearch(ids, id) - 1;
+            long[] inserted = new long[ids.length + 1];
+            System.arraycopy(ids, 0, inserted, 0, index);
+            inserted[index] = id;
+            System.arraycopy(ids, index, inserted, index + 1, ids.length - index);
+            return inserted;
+        }
+
+        private static long[] remove(long[] ids, long id) {
+            int index = Arrays.binarySearch(ids, id);
+            long[] removed = new long[ids.length - 1];
+            System.arraycopy(ids, 0, removed, 0, index);
+            System.arraycopy(ids, index + 1, removed, index, ids.length - index - 1);
+            return removed;
+        }
+    }
+}
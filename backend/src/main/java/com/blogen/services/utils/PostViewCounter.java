@@ -0,0 +1,155 @@
+package com.blogen.services.utils;
+
+import com.blogen.repositories.PostViewRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts views of posts in memory and writes them to the database behind the requests that made them, so that
+ * reading a post never updates the post table.
+ * <p>
+ * Each post has a {@link LongAdder}, which spreads concurrent increments over several cells, so views of a popular
+ * post do not contend on one counter. A single flusher thread drains the counters every journal interval and
+ * appends the drained views to a {@link PostViewJournal}, forcing it to disk once for all of them. Every flush
+ * interval it writes the journaled views to the database in JDBC batches and clears the journal. Views in the
+ * journal of a process that stopped are written by the next one, so a crash loses at most one journal interval of
+ * views. A crash between writing views to the database and clearing the journal counts them twice.
+ * <p>
+ * Views that are not written yet are added to the view count of a single post when it is read, see
+ * {@link #pendingViews}. Drained views are also added to the {@link TrendingThreads}.
+ *
+ * @author Cliff
+ */
+@Slf4j
+@Component
+public class PostViewCounter {
+
+    private final PostViewRepository postViewRepository;
+
+    private final TrendingThreads trendingThreads;
+
+    private final PostViewJournal journal;
+
+    private final ConcurrentHashMap<Long, LongAdder> counters = new ConcurrentHashMap<>();
+
+    // views that are in the journal but not in the database, only changed by the flusher thread
+    private final ConcurrentHashMap<Long, Long> journaled = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService flusher;
+
+    public PostViewCounter(PostViewRepository postViewRepository, TrendingThreads trendingThreads,
+                           @Value("${blogen.post.views.journal.file:data/post-views.journal}") String journalFile,
+                           @Value("${blogen.post.views.journal.millis:1000}") long journalMillis,
+                           @Value("${blogen.post.views.flush.millis:10000}") long flushMillis) {
+        this.postViewRepository = postViewRepository;
+        this.trendingThreads = trendingThreads;
+        try {
+            this.journal = new PostViewJournal(Paths.get(journalFile));
+            journaled.putAll(journal.read());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the post view journal: " + journalFile, e);
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("post-view-flusher-");
+        threadFactory.setDaemon(true);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        flusher.scheduleWithFixedDelay(this::journalViews, journalMillis, journalMillis, TimeUnit.MILLISECONDS);
+        flusher.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Count a view of a post
+     *
+     * @param postId id of the post
+     */
+    public void recordView(Long postId) {
+        LongAdder counter = counters.get(postId);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(postId, id -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    /**
+     * @param postId id of a post
+     * @return the views of the post that are counted but not yet written to the database
+     */
+    public long pendingViews(Long postId) {
+        LongAdder counter = counters.get(postId);
+        return ((counter != null) ? counter.sum() : 0) + journaled.getOrDefault(postId, 0L);
+    }
+
+    /**
+     * Drain the counters into the journal. Only called by the flusher thread, and by tests
+     */
+    void journalViews() {
+        Map<Long, Long> drained = new HashMap<>();
+        counters.forEach((postId, counter) -> {
+            long views = counter.sumThenReset();
+            if (views > 0) {
+                drained.put(postId, views);
+            } else if (counters.remove(postId, counter)) {
+                // the post was not viewed for a whole interval. A view that got hold of its counter just before it
+                // was removed is moved to a new one
+                long late = counter.sumThenReset();
+                if (late > 0) {
+                    counters.computeIfAbsent(postId, id -> new LongAdder()).add(late);
+                }
+            }
+        });
+        if (drained.isEmpty()) {
+            return;
+        }
+        try {
+            journal.append(drained);
+        } catch (IOException e) {
+            // the views are still written to the database, they are only at risk until then
+            log.warn("could not journal {} post view counts", drained.size(), e);
+        }
+        drained.forEach((postId, views) -> journaled.merge(postId, views, Long::sum));
+        trendingThreads.addViews(drained);
+    }
+
+    /**
+     * Write every counted view to the database. Only called by the flusher thread, on shutdown, and by tests
+     */
+    void flush() {
+        journalViews();
+        if (journaled.isEmpty()) {
+            return;
+        }
+        try {
+            postViewRepository.addViews(new HashMap<>(journaled));
+        } catch (RuntimeException e) {
+            log.warn("could not write {} post view counts, retrying at the next flush", journaled.size(), e);
+            return;
+        }
+        journaled.clear();
+        try {
+            journal.clear();
+        } catch (IOException e) {
+            log.warn("could not clear the post view journal, its views will be counted again on restart", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException, IOException {
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+        journal.close();
+    }
+}
@@ -0,0 +1,115 @@
+package com.blogen.services.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Append-only file of post views that are counted but not yet written to the database, so that they are not lost
+ * if the process stops before they are. Each record is a post id and a number of views, both 8 byte longs. Every
+ * append is forced to disk before it returns, and the journal is cleared once its views are in the database.
+ * <p>
+ * A record that was only partly written when the process stopped is ignored when the journal is read back.
+ * Instances are not thread safe.
+ *
+ * @author Cliff
+ */
+public final class PostViewJournal implements Closeable {
+
+    private static final int RECORD_BYTES = 2 * Long.BYTES;
+
+    private final FileChannel channel;
+
+    /**
+     * Open a journal, creating it and its directory if they do not exist
+     *
+     * @param file path of the journal
+     * @throws IOException if the journal cannot be opened
+     */
+    public PostViewJournal(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Read the views in the journal, left by a process that stopped before it wrote them to the database. New
+     * records are appended after them
+     *
+     * @return the number of views in the journal, by post id
+     * @throws IOException if the journal cannot be read
+     */
+    public Map<Long, Long> read() throws IOException {
+        long complete = channel.size() - channel.size() % RECORD_BYTES;
+        Map<Long, Long> views = new HashMap<>();
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_BYTES * 512);
+        channel.position(0);
+        while (channel.position() < complete) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), complete - channel.position()));
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the buffer is full
+            }
+            buffer.flip();
+            while (buffer.remaining() >= RECORD_BYTES) {
+                views.merge(buffer.getLong(), buffer.getLong(), Long::sum);
+            }
+        }
+        // drop a partly written record
+        channel.truncate(complete);
+        channel.position(complete);
+        return views;
+    }
+
+    /**
+     * Append views to the journal and force them to disk
+     *
+     * @param views the number of views to append, by post id
+     * @throws IOException if the views cannot be written
+     */
+    public void append(Map<Long, Long> views) throws IOException {
+        if (views.isEmpty()) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(views.size() * RECORD_BYTES);
+        views.forEach((postId, count) -> buffer.putLong(postId).putLong(count));
+        buffer.flip();
+        long start = channel.position();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            // don't leave a partial record in front of the next append
+            channel.truncate(start);
+            channel.position(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Remove every record, once their views are written to the database
+     *
+     * @throws IOException if the journal cannot be truncated
+     */
+    public void clear() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
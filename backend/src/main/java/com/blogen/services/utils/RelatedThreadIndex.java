@@ -0,0 +1,394 @@
+package com.blogen.services.utils;
+
+import com.blogen.api.v1.model.PostEventDTO;
+import com.blogen.repositories.PostRepository;
+import com.blogen.repositories.PostText;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+import static com.blogen.services.utils.TransactionCallbacks.afterCommit;
+
+/**
+ * An in-memory index of the MinHash signatures of the title and text of parent posts, for finding the threads that
+ * are related to a thread without reading any other post from the database.
+ * <p>
+ * The shingles of a post are the distinct words of its title and text, leaving out very short and very common words
+ * that say nothing about what the post is about. The signature of a post holds, for each of {@link #SIGNATURE_SIZE}
+ * hash functions, the lowest hash of any of its shingles. Two posts have the same lowest hash for a function with a
+ * probability equal to the Jaccard similarity of their shingles, so the fraction of their signatures that is equal
+ * estimates how similar they are.
+ * <p>
+ * Signatures are split into {@link #BANDS} bands of {@link #ROWS} hashes, and the index keeps the posts that have
+ * each value of each band. Posts whose shingles are 25% alike share a band with even odds, posts that are 50% alike
+ * almost always do, so only the posts that share a band with a post are compared to it. A large band bucket is read
+ * only in part, so the work of a lookup is bounded no matter how many posts there are.
+ * <p>
+ * The index is loaded from the database in the background on startup, and kept up to date as posts are created,
+ * updated and deleted. The signatures of the posts read by the load are computed in parallel, as a fork/join job.
+ *
+ * @author Cliff
+ */
+@Slf4j
+@Component
+public class RelatedThreadIndex {
+
+    static final int BANDS = 16;
+
+    static final int ROWS = 2;
+
+    static final int SIGNATURE_SIZE = BANDS * ROWS;
+
+    // the most posts read from one band bucket by a lookup
+    static final int MAX_BUCKET_READS = 100;
+
+    // number of posts read by one query of the load
+    static final int LOAD_PAGE_SIZE = 500;
+
+    // number of posts the load reads before computing their signatures
+    static final int LOAD_BATCH_SIZE = 5_000;
+
+    // a signature task computes the signatures of at most this many posts itself, and splits larger batches in two
+    private static final int TASK_THRESHOLD = 64;
+
+    private static final int MIN_WORD_LENGTH = 3;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "about", "after", "again", "all", "also", "and", "any", "are", "because", "been", "before", "but", "can",
+            "could", "did", "does", "for", "from", "had", "has", "have", "her", "here", "his", "how", "into", "its",
+            "just", "like", "more", "most", "not", "now", "only", "other", "our", "out", "over", "same", "she",
+            "should", "some", "than", "that", "the", "their", "them", "then", "there", "these", "they", "this",
+            "those", "too", "very", "was", "way", "were", "what", "when", "where", "which", "while", "who", "why",
+            "will", "with", "would", "you", "your");
+
+    // one seed per hash function, fixed so that signatures do not change from one run to the next
+    private static final long[] SEEDS = new SplittableRandom(0x5eed_b10_9e11L).longs(SIGNATURE_SIZE).toArray();
+
+    private final PostRepository postRepository;
+
+    private final int minShingles;
+
+    private final int loadThreads;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // guarded by lock
+    private final Map<Long, int[]> signatures = new HashMap<>();
+    private final List<Map<Long, Set<Long>>> bands = new ArrayList<>();
+    // posts removed while the index is loading, so the load does not add them back. Null once loaded
+    private Set<Long> removedWhileLoading = new HashSet<>();
+
+    private final ExecutorService loader;
+
+    public RelatedThreadIndex(PostRepository postRepository,
+                              @Value("${blogen.post.related.min.shingles:5}") int minShingles,
+                              @Value("${blogen.post.related.load.threads:4}") int loadThreads) {
+        this.postRepository = postRepository;
+        this.minShingles = minShingles;
+        this.loadThreads = loadThreads;
+        for (int band = 0; band < BANDS; band++) {
+            bands.add(new HashMap<>());
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("related-index-loader-");
+        threadFactory.setDaemon(true);
+        this.loader = Executors.newSingleThreadExecutor(threadFactory);
+        loader.execute(this::load);
+    }
+
+    /**
+     * @param title title of a post
+     * @param text  text of a post
+     * @return the signature of the title and text, or null if they have too few shingles
+     */
+    public int[] signature(String title, String text) {
+        Set<String> shingles = shingles(title);
+        shingles.addAll(shingles(text));
+        if (shingles.size() < minShingles) {
+            return null;
+        }
+        int[] signature = new int[SIGNATURE_SIZE];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (String shingle : shingles) {
+            long hash = SimHash.hash(shingle);
+            // each seed gives an independent hash of the shingle, the high half of its mixed bits
+            for (int i = 0; i < SIGNATURE_SIZE; i++) {
+                signature[i] = Math.min(signature[i], (int) (Hashes.mix64(hash ^ SEEDS[i]) >>> Integer.SIZE));
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * @return the estimated Jaccard similarity of the shingles of two posts, from 0 to 1
+     */
+    public static double similarity(int[] signature1, int[] signature2) {
+        int equal = 0;
+        for (int i = 0; i < SIGNATURE_SIZE; i++) {
+            if (signature1[i] == signature2[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / SIGNATURE_SIZE;
+    }
+
+    /**
+     * @param postId id of a parent post
+     * @param limit  the most ids to return
+     * @return the ids of the indexed posts most similar to the post, most similar first. Empty if the post is not
+     * indexed
+     */
+    public List<Long> findRelated(Long postId, int limit) {
+        Map<Long, Double> candidates = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int[] signature = signatures.get(postId);
+            if (signature == null) {
+                return List.of();
+            }
+            for (int band = 0; band < BANDS; band++) {
+                int reads = 0;
+                for (Long candidateId : bands.get(band).getOrDefault(bandKey(signature, band), Set.of())) {
+                    if (reads++ == MAX_BUCKET_READS) {
+                        break;
+                    }
+                    if (!candidateId.equals(postId)) {
+                        candidates.computeIfAbsent(candidateId,
+                                id -> similarity(signature, signatures.get(id)));
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        // newer posts first among equally similar ones
+        return candidates.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Index the title and text of a new or updated parent post, after the current transaction commits, or right
+     * away if there is no transaction. A post with too few shingles is removed from the index
+     *
+     * @param postId id of the post
+     * @param title  its title
+     * @param text   its text
+     */
+    public void put(Long postId, String title, String text) {
+        int[] signature = signature(title, text);
+        if (signature == null) {
+            remove(postId);
+            return;
+        }
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                unindex(postId);
+                index(postId, signature);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Remove a post from the index, after the current transaction commits, or right away if there is no transaction
+     *
+     * @param postId id of the post
+     */
+    public void remove(Long postId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                unindex(postId);
+                if (removedWhileLoading != null) {
+                    removedWhileLoading.add(postId);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Remove deleted parent posts from the index. Runs after the transaction that deleted the post commits
+     *
+     * @param event the post event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostEvent(PostEventDTO event) {
+        if (PostEventDTO.POST_DELETED.equals(event.getType()) && event.getParentPostId() == null) {
+            remove(event.getPostId());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    /**
+     * Index every parent post, except for posts that were indexed or removed since the index was created. Posts are
+     * read a page at a time, and the signatures of each batch of posts are computed by a fork/join pool. Only called
+     * by the loader thread, and by tests
+     */
+    void load() {
+        ForkJoinPool pool = new ForkJoinPool(loadThreads);
+        int loaded = 0;
+        try {
+            List<PostText> batch = new ArrayList<>();
+            long after = 0;
+            List<PostText> page;
+            do {
+                page = postRepository.findParentTextsBetween(after, Long.MAX_VALUE,
+                        PageRequest.of(0, LOAD_PAGE_SIZE));
+                batch.addAll(page);
+                if (!page.isEmpty()) {
+                    after = page.get(page.size() - 1).getId();
+                }
+                if (batch.size() >= LOAD_BATCH_SIZE || page.size() < LOAD_PAGE_SIZE) {
+                    SignatureTask task = new SignatureTask(batch);
+                    pool.invoke(task);
+                    loaded += indexLoaded(batch, task.result);
+                    batch = new ArrayList<>();
+                }
+            } while (page.size() == LOAD_PAGE_SIZE);
+        } catch (RuntimeException e) {
+            log.warn("could not load the related thread index, only posts created or updated from now on are related",
+                    e);
+            return;
+        } finally {
+            pool.shutdownNow();
+            lock.writeLock().lock();
+            try {
+                removedWhileLoading = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("loaded the signatures of {} posts into the related thread index", loaded);
+    }
+
+    /**
+     * @return the number of posts indexed
+     */
+    private int indexLoaded(List<PostText> posts, int[][] loadedSignatures) {
+        int indexed = 0;
+        lock.writeLock().lock();
+        try {
+            Set<Long> removed = (removedWhileLoading != null) ? removedWhileLoading : Set.of();
+            for (int i = 0; i < posts.size(); i++) {
+                Long postId = posts.get(i).getId();
+                if (loadedSignatures[i] != null && !signatures.containsKey(postId) && !removed.contains(postId)) {
+                    index(postId, loadedSignatures[i]);
+                    indexed++;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return indexed;
+    }
+
+    /**
+     * Computes the signatures of a range of posts, splitting the range in two until it is small enough
+     */
+    private class SignatureTask extends RecursiveAction {
+
+        private final List<PostText> posts;
+        private final int from;
+        private final int to;
+        // the signatures of the posts, null for posts with too few shingles. Shared by all the tasks of a batch,
+        // each writes its own range
+        private final int[][] result;
+
+        SignatureTask(List<PostText> posts) {
+            this(posts, 0, posts.size(), new int[posts.size()][]);
+        }
+
+        private SignatureTask(List<PostText> posts, int from, int to, int[][] result) {
+            this.posts = posts;
+            this.from = from;
+            this.to = to;
+            this.result = result;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= TASK_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    result[i] = signature(posts.get(i).getTitle(), posts.get(i).getText());
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SignatureTask(posts, from, middle, result), new SignatureTask(posts, middle, to, result));
+        }
+    }
+
+    // guarded by the write lock
+    private void index(Long postId, int[] signature) {
+        signatures.put(postId, signature);
+        for (int band = 0; band < BANDS; band++) {
+            bands.get(band).computeIfAbsent(bandKey(signature, band), key -> new HashSet<>()).add(postId);
+        }
+    }
+
+    // guarded by the write lock
+    private void unindex(Long postId) {
+        int[] signature = signatures.remove(postId);
+        if (signature == null) {
+            return;
+        }
+        for (int band = 0; band < BANDS; band++) {
+            Map<Long, Set<Long>> buckets = bands.get(band);
+            Long key = bandKey(signature, band);
+            Set<Long> postIds = buckets.get(key);
+            postIds.remove(postId);
+            if (postIds.isEmpty()) {
+                buckets.remove(key);
+            }
+        }
+    }
+
+    /**
+     * @return the two hashes of a band in one long
+     */
+    private static Long bandKey(int[] signature, int band) {
+        return ((long) signature[band * ROWS] << Integer.SIZE) | (signature[band * ROWS + 1] & 0xFFFF_FFFFL);
+    }
+
+    private static Set<String> shingles(String text) {
+        Set<String> shingles = new HashSet<>();
+        for (String word : SimHash.words(text)) {
+            if (word.length() >= MIN_WORD_LENGTH && !STOP_WORDS.contains(word)) {
+                shingles.add(word);
+            }
+        }
+        return shingles;
+    }
+}
@@ -0,0 +1,60 @@
+package com.blogen.services.utils;
+
+import lombok.Value;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * The validators of a resource: a tag that changes whenever the representation of the resource changes, and
+ * optionally the time it was last modified. Controllers use these to answer conditional GETs with a 304 without
+ * building the representation.
+ * <p>
+ * A weak version only changes when the representation changes in a meaningful way. It is for representations that
+ * contain approximate values, such as counters, that change without changing the tag.
+ *
+ * @author Cliff
+ */
+@Value
+public class ResourceVersion {
+
+    // opaque, contains only characters that are allowed in an ETag
+    String tag;
+
+    // null if the resource does not track modification times
+    LocalDateTime lastModified;
+
+    // true if representations with the same tag may differ byte for byte
+    boolean weak;
+
+    /**
+     * @param tag          a tag derived from the version of an entity, e.g. {@code post-1-v3}
+     * @param lastModified the time the resource was last modified, may be null
+     * @return the validators
+     */
+    public static ResourceVersion of(String tag, LocalDateTime lastModified) {
+        return new ResourceVersion(tag, lastModified, false);
+    }
+
+    /**
+     * @param tag          a tag derived from the version of an entity and its approximate values
+     * @param lastModified the time the resource was last modified, may be null
+     * @return weak validators
+     */
+    public static ResourceVersion weak(String tag, LocalDateTime lastModified) {
+        return new ResourceVersion(tag, lastModified, true);
+    }
+
+    /**
+     * Tag a resource with a hash of its content, for resources that have no version
+     *
+     * @param content the values that the representation of the resource is built from
+     * @return validators with a hex MD5 tag of the content and no modification time
+     */
+    public static ResourceVersion ofContent(Object... content) {
+        byte[] bytes = Arrays.deepToString(content).getBytes(StandardCharsets.UTF_8);
+        return new ResourceVersion(DigestUtils.md5DigestAsHex(bytes), null, false);
+    }
+}
@@ -0,0 +1,95 @@
+package com.blogen.services.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Computes 64 bit SimHash fingerprints of text. Texts that share most of their words get fingerprints that differ
+ * in only a few bits, so near-duplicate texts are found by comparing fingerprints with {@link #distance} instead of
+ * comparing the texts.
+ * <p>
+ * The features of a text are its lower cased words, counted once for every time they occur, so that changing one
+ * word of a text only changes one of its features. Each feature is hashed to 64 bits and every bit of the fingerprint
+ * is set by a majority vote of that bit over the hashes of the features. Features made of pairs of adjacent words
+ * would also capture word order, but a small edit changes twice as many of them, which moves the fingerprints of
+ * short texts, such as posts, too far apart.
+ *
+ * @author Cliff
+ */
+public final class SimHash {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private SimHash() {
+    }
+
+    /**
+     * @param text some text, may be null
+     * @return the lower cased words of the text, in order
+     */
+    public static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        for (String word : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * @param words the words of a text, as returned by {@link #words}
+     * @return the fingerprint of the text, 0 if it has no words
+     */
+    public static long fingerprint(List<String> words) {
+        if (words.isEmpty()) {
+            return 0;
+        }
+        int[] votes = new int[Long.SIZE];
+        for (String word : words) {
+            vote(votes, hash(word));
+        }
+        long fingerprint = 0;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if (votes[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint;
+    }
+
+    /**
+     * @return the number of bits the fingerprints differ in
+     */
+    public static int distance(long fingerprint1, long fingerprint2) {
+        return Long.bitCount(fingerprint1 ^ fingerprint2);
+    }
+
+    private static void vote(int[] votes, long hash) {
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            votes[bit] += ((hash >>> bit) & 1) != 0 ? 1 : -1;
+        }
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes of the feature, with the bits of the result mixed by the splitmix64 finalizer so
+     * that every bit of the hash depends on every byte of the feature
+     */
+    static long hash(String feature) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : feature.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= FNV_PRIME;
+        }
+        return Hashes.mix64(hash);
+    }
+}
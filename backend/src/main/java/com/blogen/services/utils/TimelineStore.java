@@ -0,0 +1,254 @@
+package com.blogen.services.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.blogen.services.utils.TransactionCallbacks.afterCommit;
+
+/**
+ * Precomputed home timelines: for each user, the ids of the newest parent posts of the users they follow, newest
+ * first and bounded in length. A new parent post is fanned out on write to the timelines of its author's followers,
+ * so reading a feed is a range read of one list instead of a query over every followed user.
+ * <p>
+ * Timelines are built from the database the first time they are read, and kept for the most recently active users.
+ * A timeline is rebuilt when its user follows or unfollows someone. Deleted posts are removed from timelines, and
+ * readers skip posts that no longer exist in case they read a timeline before that.
+ * <p>
+ * A post published while a timeline is being built may be missing from the database read, and still not be fanned
+ * out to the timeline because it is not stored yet. Recently fanned out posts are therefore kept and added to a
+ * timeline when it is stored.
+ *
+ * @author Cliff
+ */
+@Component
+public class TimelineStore {
+
+    // newest first, the order of a timeline
+    public static final Comparator<KeysetCursor> NEWEST_FIRST =
+            Comparator.comparing(KeysetCursor::getCreated).thenComparing(KeysetCursor::getId).reversed();
+
+    // number of recently fanned out posts kept for timelines that are being built
+    private static final int RECENT_POSTS_SIZE = 1024;
+
+    private final int timelineSize;
+
+    private final Cache<Long, Timeline> timelines;
+
+    // incremented by every invalidation
+    private final AtomicLong followGeneration = new AtomicLong();
+
+    // guarded by this
+    private final Deque<RecentPost> recentPosts = new ArrayDeque<>();
+    private long postSequence;
+
+    public TimelineStore(@Value("${blogen.timeline.size:500}") int timelineSize,
+                         @Value("${blogen.timeline.cache.users:10000}") long maxUsers) {
+        this.timelineSize = timelineSize;
+        this.timelines = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .build();
+    }
+
+    /**
+     * @return the most posts a timeline holds
+     */
+    public int getTimelineSize() {
+        return timelineSize;
+    }
+
+    /**
+     * @param userId id of a user
+     * @return the timeline of the user, or null if it is not built
+     */
+    public Timeline get(Long userId) {
+        return timelines.getIfPresent(userId);
+    }
+
+    /**
+     * @return the current follow generation, to be read before reading the users a user follows
+     */
+    public long followGeneration() {
+        return followGeneration.get();
+    }
+
+    /**
+     * @return the sequence number of the latest fanned out post, to be read before reading the posts of a timeline
+     */
+    public synchronized long postSequence() {
+        return postSequence;
+    }
+
+    /**
+     * Store a timeline that was built from the database. Posts fanned out after postSequence was read, by authors
+     * that are fanned out to the timeline, are added to it. The timeline is not stored if the user's follows were
+     * invalidated after followGeneration was read, or if too many posts were fanned out since postSequence to be
+     * sure that none were missed
+     *
+     * @param userId             id of the user
+     * @param fannedOutAuthorIds ids of the followed users whose posts are fanned out to the timeline
+     * @param mergedAuthorIds    ids of the followed users whose posts are merged into the timeline on read
+     * @param entries            the newest posts of the fanned out authors, newest first
+     * @param followGeneration   the {@link #followGeneration()} read before the follows of the user were read
+     * @param postSequence       the {@link #postSequence()} read before the posts were read
+     * @return the timeline, whether it was stored or not
+     */
+    public Timeline put(Long userId, Set<Long> fannedOutAuthorIds, Set<Long> mergedAuthorIds,
+                        List<KeysetCursor> entries, long followGeneration, long postSequence) {
+        Timeline[] built = new Timeline[1];
+        // built while holding the lock of the user's entry, so that posts fanned out after the recent posts are read
+        // wait for the timeline to be stored, and are then added to it
+        timelines.asMap().compute(userId, (id, cached) -> {
+            if (cached != null) {
+                built[0] = cached;
+                return cached;
+            }
+            Timeline timeline = new Timeline(mergedAuthorIds, entries);
+            boolean complete;
+            synchronized (this) {
+                complete = recentPosts.isEmpty() || recentPosts.peekFirst().sequence <= postSequence + 1;
+                for (RecentPost recentPost : recentPosts) {
+                    if (recentPost.sequence > postSequence && fannedOutAuthorIds.contains(recentPost.authorId)) {
+                        timeline = timeline.with(recentPost.entry, timelineSize);
+                    }
+                }
+            }
+            built[0] = timeline;
+            return (complete && followGeneration == this.followGeneration.get()) ? timeline : null;
+        });
+        return built[0];
+    }
+
+    /**
+     * Add a new post to the stored timelines of the followers of its author
+     *
+     * @param authorId    id of the author of the post
+     * @param followerIds ids of the followers of the author
+     * @param entry       created date and id of the post
+     */
+    public void addPost(Long authorId, Collection<Long> followerIds, KeysetCursor entry) {
+        synchronized (this) {
+            recentPosts.addLast(new RecentPost(++postSequence, authorId, entry));
+            if (recentPosts.size() > RECENT_POSTS_SIZE) {
+                recentPosts.removeFirst();
+            }
+        }
+        followerIds.forEach(followerId -> timelines.asMap()
+                .computeIfPresent(followerId, (id, timeline) -> timeline.with(entry, timelineSize)));
+    }
+
+    /**
+     * Remove a deleted post from the stored timelines of the followers of its author
+     *
+     * @param followerIds ids of the followers of the author
+     * @param postId      id of the post
+     */
+    public void removePost(Collection<Long> followerIds, Long postId) {
+        followerIds.forEach(followerId -> timelines.asMap()
+                .computeIfPresent(followerId, (id, timeline) -> timeline.without(postId)));
+    }
+
+    /**
+     * Remove the timeline of a user whose follows changed, after the current transaction commits
+     *
+     * @param userId id of the user
+     */
+    public void invalidate(Long userId) {
+        afterCommit(() -> {
+            followGeneration.incrementAndGet();
+            timelines.invalidate(userId);
+        });
+    }
+
+    /**
+     * Remove every timeline, after the current transaction commits
+     */
+    public void invalidateAll() {
+        afterCommit(() -> {
+            followGeneration.incrementAndGet();
+            timelines.invalidateAll();
+        });
+    }
+
+    /**
+     * The timeline of one user. Timelines are immutable, changes replace them
+     */
+    public static final class Timeline {
+        private final Set<Long> mergedAuthorIds;
+        private final List<KeysetCursor> entries;
+
+        private Timeline(Set<Long> mergedAuthorIds, List<KeysetCursor> entries) {
+            this.mergedAuthorIds = Collections.unmodifiableSet(mergedAuthorIds);
+            this.entries = Collections.unmodifiableList(entries);
+        }
+
+        /**
+         * @return ids of the followed users whose posts are not in the timeline, but are merged in on read
+         */
+        public Set<Long> getMergedAuthorIds() {
+            return mergedAuthorIds;
+        }
+
+        /**
+         * @return the posts of the timeline, newest first
+         */
+        public List<KeysetCursor> getEntries() {
+            return entries;
+        }
+
+        /**
+         * @param after the last post already read, or null to read from the newest post
+         * @param limit the most posts to return
+         * @return the posts that come after the given post, newest first
+         */
+        public List<KeysetCursor> page(KeysetCursor after, int limit) {
+            int from = 0;
+            if (after != null) {
+                int index = Collections.binarySearch(entries, after, NEWEST_FIRST);
+                from = (index >= 0) ? index + 1 : -index - 1;
+            }
+            return entries.subList(from, Math.min(entries.size(), from + limit));
+        }
+
+        private Timeline with(KeysetCursor entry, int maxSize) {
+            int index = Collections.binarySearch(entries, entry, NEWEST_FIRST);
+            if (index >= 0 || -index - 1 >= maxSize) {
+                // already in the timeline, or older than all of its posts
+                return this;
+            }
+            List<KeysetCursor> added = new ArrayList<>(Math.min(entries.size() + 1, maxSize));
+            added.addAll(entries.subList(0, -index - 1));
+            added.add(entry);
+            added.addAll(entries.subList(-index - 1, Math.min(entries.size(), maxSize - 1)));
+            return new Timeline(mergedAuthorIds, added);
+        }
+
+        private Timeline without(Long postId) {
+            List<KeysetCursor> removed = new ArrayList<>(entries);
+            return removed.removeIf(entry -> entry.getId().equals(postId)) ? new Timeline(mergedAuthorIds, removed) : this;
+        }
+    }
+
+    private static final class RecentPost {
+        private final long sequence;
+        private final Long authorId;
+        private final KeysetCursor entry;
+
+        private RecentPost(long sequence, Long authorId, KeysetCursor entry) {
+            this.sequence = sequence;
+            this.authorId = authorId;
+            this.entry = entry;
+        }
+    }
+}
@@ -0,0 +1,477 @@
+package com.blogen.services.utils;
+
+import com.blogen.api.v1.model.PostEventDTO;
+import com.blogen.repositories.PostRepository;
+import com.blogen.repositories.PostThreadKey;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ranks threads, parent posts and their replies, by their recent activity: new replies, views and likes, each
+ * weighted and decayed by its age, so that an activity loses half its weight every half-life.
+ * <p>
+ * Scores are kept with forward decay. A thread's score is the log, base 2, of the sum of weight * 2^(t / half-life)
+ * over its activities at times t. Adding an activity never touches the score of another thread, and scores compare
+ * the same way as the decayed scores they stand for, so the scores never need to be recomputed as time passes.
+ * <p>
+ * The highest scoring threads of each category, and of all categories, are kept in a heap-backed {@link TopK} that
+ * is updated as activities are added. Requests read an immutable ranking of each, published whenever it changes, so
+ * they never wait for an update. Threads whose decayed score is negligible are forgotten, and the scores are saved to
+ * a snapshot file every snapshot interval, and on shutdown, which is read back on startup.
+ * <p>
+ * Replies and new threads are added from post events. Views and likes are added in batches by the
+ * {@link PostViewCounter} and the {@link PostLikeCounter}, as they drain their counters. A thread is ranked in the
+ * category it had when its first activity was added.
+ *
+ * @author Cliff
+ */
+@Slf4j
+@Component
+public class TrendingThreads {
+
+    // id of the ranking of all categories
+    public static final Long ALL_CATEGORIES = -1L;
+
+    // weight of each kind of activity
+    static final double POST_WEIGHT = 10;
+    static final double REPLY_WEIGHT = 10;
+    static final double LIKE_WEIGHT = 5;
+    static final double VIEW_WEIGHT = 1;
+
+    // threads whose decayed score is below this, a tenth of a view, are forgotten
+    static final double MIN_SCORE = 0.1;
+
+    // number of post ids looked up by one query
+    private static final int LOOKUP_BATCH_SIZE = 500;
+
+    private static final int SNAPSHOT_VERSION = 1;
+
+    // lowest score first, the order of the heap of a TopK
+    private static final Comparator<ThreadScore> LOWEST_FIRST =
+            Comparator.comparingDouble((ThreadScore thread) -> thread.logScore).thenComparing(thread -> thread.id);
+
+    private final PostRepository postRepository;
+
+    private final int size;
+
+    private final long halfLifeMillis;
+
+    private final Path snapshotFile;
+
+    // guarded by this
+    private final Map<Long, ThreadScore> threads = new HashMap<>();
+    private final Map<Long, TopK> tops = new HashMap<>();
+
+    // the ids of the highest scoring threads of each category, highest first, replaced whenever one changes
+    private volatile Map<Long, List<Long>> rankings = Collections.emptyMap();
+
+    private final ScheduledExecutorService snapshotter;
+
+    public TrendingThreads(PostRepository postRepository,
+                           @Value("${blogen.trending.size:100}") int size,
+                           @Value("${blogen.trending.half.life.hours:12}") long halfLifeHours,
+                           @Value("${blogen.trending.snapshot.file:data/trending.snapshot}") String snapshotFile,
+                           @Value("${blogen.trending.snapshot.millis:300000}") long snapshotMillis) {
+        this.postRepository = postRepository;
+        this.size = size;
+        this.halfLifeMillis = TimeUnit.HOURS.toMillis(halfLifeHours);
+        this.snapshotFile = Paths.get(snapshotFile);
+        readSnapshot();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("trending-snapshotter-");
+        threadFactory.setDaemon(true);
+        this.snapshotter = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        snapshotter.scheduleWithFixedDelay(this::snapshot, snapshotMillis, snapshotMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the most threads ranked in each category
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @param categoryId id of a category, or {@link #ALL_CATEGORIES}
+     * @return the ids of the highest scoring threads of the category, highest first
+     */
+    public List<Long> getTrending(Long categoryId) {
+        return rankings.getOrDefault(categoryId, Collections.emptyList());
+    }
+
+    /**
+     * Add new threads and replies, or forget deleted threads. Runs after the transaction that created or deleted
+     * the post commits
+     *
+     * @param event the post event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostEvent(PostEventDTO event) {
+        long occurred = event.getOccurred().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if (PostEventDTO.POST_CREATED.equals(event.getType()) && event.getParentPostId() == null) {
+            add(Map.of(event.getPostId(), new Activity(event.getCategoryId(), POST_WEIGHT)), occurred);
+        } else if (PostEventDTO.REPLY_CREATED.equals(event.getType())) {
+            add(Map.of(event.getParentPostId(), new Activity(event.getCategoryId(), REPLY_WEIGHT)), occurred);
+        } else if (PostEventDTO.POST_DELETED.equals(event.getType()) && event.getParentPostId() == null) {
+            remove(event.getPostId());
+        }
+    }
+
+    /**
+     * Add views of posts, a view of a reply counts as a view of its thread
+     *
+     * @param views the number of views of each post
+     */
+    public void addViews(Map<Long, Long> views) {
+        addCounts(views, VIEW_WEIGHT);
+    }
+
+    /**
+     * Add likes of posts, a like of a reply counts as a like of its thread
+     *
+     * @param likes the number of new likes of each post
+     */
+    public void addLikes(Map<Long, Long> likes) {
+        addCounts(likes, LIKE_WEIGHT);
+    }
+
+    /**
+     * Forget the threads whose score decayed below {@link #MIN_SCORE}, and save the rest to the snapshot file. Only
+     * called by the snapshotter thread, on shutdown, and by tests
+     */
+    void snapshot() {
+        List<ThreadScore> kept;
+        synchronized (this) {
+            prune(System.currentTimeMillis());
+            kept = new ArrayList<>(threads.size());
+            threads.values().forEach(thread -> kept.add(new ThreadScore(thread.id, thread.categoryId, thread.logScore)));
+        }
+        try {
+            Path parent = snapshotFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, snapshotFile.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeLong(halfLifeMillis);
+                out.writeInt(kept.size());
+                for (ThreadScore thread : kept) {
+                    out.writeLong(thread.id);
+                    out.writeLong(thread.categoryId);
+                    out.writeDouble(thread.logScore);
+                }
+            } catch (IOException e) {
+                Files.delete(temp);
+                throw e;
+            }
+            // readers see the old snapshot or the new one, never part of one
+            Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            log.warn("could not save the trending threads to {}", snapshotFile, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        snapshotter.shutdown();
+        snapshotter.awaitTermination(10, TimeUnit.SECONDS);
+        snapshot();
+    }
+
+    /**
+     * Add activities to threads
+     *
+     * @param activities the activity of each thread, by thread id
+     * @param epochMillis when the activities happened
+     */
+    synchronized void add(Map<Long, Activity> activities, long epochMillis) {
+        Set<Long> changed = new HashSet<>();
+        activities.forEach((threadId, activity) -> {
+            double logWeight = log2(activity.weight) + (double) epochMillis / halfLifeMillis;
+            ThreadScore thread = threads.get(threadId);
+            if (thread == null) {
+                thread = new ThreadScore(threadId, activity.categoryId, logWeight);
+                threads.put(threadId, thread);
+            } else {
+                // the score only grows, a thread in a top K stays in it
+                removeFromTops(thread);
+                thread.logScore = logSum(thread.logScore, logWeight);
+            }
+            offerToTops(thread, changed);
+        });
+        publish(changed);
+    }
+
+    /**
+     * Forget a deleted thread
+     *
+     * @param threadId id of the thread
+     */
+    synchronized void remove(Long threadId) {
+        ThreadScore thread = threads.remove(threadId);
+        if (thread == null) {
+            return;
+        }
+        Set<Long> changed = new HashSet<>();
+        if (removeFromTops(thread)) {
+            changed.add(ALL_CATEGORIES);
+            changed.add(thread.categoryId);
+            refill(changed);
+        }
+        publish(changed);
+    }
+
+    /**
+     * Forget the threads whose decayed score is below {@link #MIN_SCORE}
+     *
+     * @param epochMillis the current time
+     */
+    synchronized void prune(long epochMillis) {
+        double minLogScore = log2(MIN_SCORE) + (double) epochMillis / halfLifeMillis;
+        Set<Long> changed = new HashSet<>();
+        threads.values().removeIf(thread -> {
+            if (thread.logScore >= minLogScore) {
+                return false;
+            }
+            if (removeFromTops(thread)) {
+                changed.add(ALL_CATEGORIES);
+                changed.add(thread.categoryId);
+            }
+            return true;
+        });
+        refill(changed);
+        publish(changed);
+    }
+
+    private void addCounts(Map<Long, Long> counts, double weight) {
+        if (counts.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try {
+            Map<Long, Activity> activities = new HashMap<>();
+            List<Long> unknownIds = new ArrayList<>();
+            synchronized (this) {
+                counts.forEach((postId, count) -> {
+                    ThreadScore thread = threads.get(postId);
+                    if (thread != null) {
+                        activities.merge(postId, new Activity(thread.categoryId, weight * count), Activity::plus);
+                    } else {
+                        unknownIds.add(postId);
+                    }
+                });
+            }
+            // posts that are not ranked yet, or are replies, are looked up outside the lock
+            for (PostThreadKey key : findThreadKeys(unknownIds)) {
+                Long threadId = (key.getParentId() != null) ? key.getParentId() : key.getId();
+                activities.merge(threadId, new Activity(key.getCategoryId(), weight * counts.get(key.getId())),
+                        Activity::plus);
+            }
+            add(activities, now);
+        } catch (RuntimeException e) {
+            log.warn("could not add the activity of {} posts to the trending threads", counts.size(), e);
+        }
+    }
+
+    private List<PostThreadKey> findThreadKeys(List<Long> postIds) {
+        List<PostThreadKey> keys = new ArrayList<>();
+        for (int from = 0; from < postIds.size(); from += LOOKUP_BATCH_SIZE) {
+            keys.addAll(postRepository.findThreadKeys(
+                    postIds.subList(from, Math.min(postIds.size(), from + LOOKUP_BATCH_SIZE))));
+        }
+        return keys;
+    }
+
+    private void offerToTops(ThreadScore thread, Set<Long> changed) {
+        if (top(ALL_CATEGORIES).offer(thread)) {
+            changed.add(ALL_CATEGORIES);
+        }
+        if (top(thread.categoryId).offer(thread)) {
+            changed.add(thread.categoryId);
+        }
+    }
+
+    /**
+     * @return true if the thread was in a top K
+     */
+    private boolean removeFromTops(ThreadScore thread) {
+        boolean removed = top(ALL_CATEGORIES).remove(thread);
+        return top(thread.categoryId).remove(thread) || removed;
+    }
+
+    /**
+     * Offer every thread to the top Ks that lost threads. Threads only leave a top K when a higher scoring thread
+     * takes their place, or when they are removed, so only the latter leaves room for threads outside of it
+     */
+    private void refill(Collection<Long> categoryIds) {
+        for (Long categoryId : categoryIds) {
+            TopK top = top(categoryId);
+            if (top.isFull()) {
+                continue;
+            }
+            threads.values().stream()
+                    .filter(thread -> ALL_CATEGORIES.equals(categoryId) || categoryId.equals(thread.categoryId))
+                    .forEach(top::offer);
+        }
+    }
+
+    private TopK top(Long categoryId) {
+        return tops.computeIfAbsent(categoryId, id -> new TopK(size));
+    }
+
+    private void publish(Set<Long> changed) {
+        if (changed.isEmpty()) {
+            return;
+        }
+        Map<Long, List<Long>> published = new HashMap<>(rankings);
+        changed.forEach(categoryId -> published.put(categoryId, tops.get(categoryId).ranking()));
+        rankings = Collections.unmodifiableMap(published);
+    }
+
+    private void readSnapshot() {
+        if (!Files.exists(snapshotFile)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            if (in.readInt() != SNAPSHOT_VERSION || in.readLong() != halfLifeMillis) {
+                log.info("ignoring the trending threads in {}, they were saved with other settings", snapshotFile);
+                return;
+            }
+            int count = in.readInt();
+            Set<Long> changed = new HashSet<>();
+            synchronized (this) {
+                for (int i = 0; i < count; i++) {
+                    ThreadScore thread = new ThreadScore(in.readLong(), in.readLong(), in.readDouble());
+                    threads.put(thread.id, thread);
+                    offerToTops(thread, changed);
+                }
+                publish(changed);
+            }
+            log.info("read {} trending threads from {}", count, snapshotFile);
+        } catch (IOException e) {
+            // the rankings are rebuilt by new activity
+            log.warn("could not read the trending threads from {}", snapshotFile, e);
+        }
+    }
+
+    private static double logSum(double a, double b) {
+        double high = Math.max(a, b);
+        double low = Math.min(a, b);
+        return high + log2(1 + Math.pow(2, low - high));
+    }
+
+    private static double log2(double x) {
+        return Math.log(x) / Math.log(2);
+    }
+
+    /**
+     * Weighted activity of a thread, and the category of the thread
+     */
+    static final class Activity {
+        private final Long categoryId;
+        private final double weight;
+
+        Activity(Long categoryId, double weight) {
+            this.categoryId = categoryId;
+            this.weight = weight;
+        }
+
+        private Activity plus(Activity other) {
+            return new Activity(categoryId, weight + other.weight);
+        }
+    }
+
+    private static final class ThreadScore {
+        private final long id;
+        private final Long categoryId;
+        // log2 of the forward decayed score, only changed while the thread is in no top K
+        private double logScore;
+
+        private ThreadScore(long id, Long categoryId, double logScore) {
+            this.id = id;
+            this.categoryId = categoryId;
+            this.logScore = logScore;
+        }
+    }
+
+    /**
+     * The K highest scoring threads of a category, in a heap that has the lowest of them on top, so a thread is
+     * compared to that one only to find out if it belongs in the top K
+     */
+    private static final class TopK {
+        private final int capacity;
+        private final PriorityQueue<ThreadScore> heap = new PriorityQueue<>(LOWEST_FIRST);
+        private final Set<ThreadScore> members = new HashSet<>();
+
+        private TopK(int capacity) {
+            this.capacity = capacity;
+        }
+
+        private boolean isFull() {
+            return heap.size() >= capacity;
+        }
+
+        /**
+         * @return true if the thread is now in the top K
+         */
+        private boolean offer(ThreadScore thread) {
+            if (members.contains(thread)) {
+                return false;
+            }
+            if (isFull()) {
+                if (capacity == 0 || LOWEST_FIRST.compare(thread, heap.peek()) <= 0) {
+                    return false;
+                }
+                members.remove(heap.poll());
+            }
+            heap.add(thread);
+            members.add(thread);
+            return true;
+        }
+
+        /**
+         * @return true if the thread was in the top K
+         */
+        private boolean remove(ThreadScore thread) {
+            if (!members.remove(thread)) {
+                return false;
+            }
+            heap.remove(thread);
+            return true;
+        }
+
+        private List<Long> ranking() {
+            List<ThreadScore> sorted = new ArrayList<>(heap);
+            sorted.sort(LOWEST_FIRST.reversed());
+            List<Long> ids = new ArrayList<>(sorted.size());
+            sorted.forEach(thread -> ids.add(thread.id));
+            return Collections.unmodifiableList(ids);
+        }
+    }
+}
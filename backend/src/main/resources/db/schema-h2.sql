@@ -1,17 +1,48 @@
 create table avatar (id bigint generated by default as identity, file_name varchar(255), primary key (id))
 create table category (id bigint generated by default as identity, created timestamp, name varchar(255), primary key (id))
-create table post (id bigint generated by default as identity, created timestamp, image_url varchar(255), text varchar(255), title varchar(255), uuid varchar(255), category_id bigint, parent_id bigint, user_id bigint, primary key (id))
+create table category_post_count (category_id bigint not null, post_count bigint default 0 not null, latest_post_id bigint, primary key (category_id))
+create table category_author_sketch (category_id bigint not null, week_start date not null, sketch varbinary(2049) not null, primary key (category_id, week_start))
+create table post (id bigint generated by default as identity, created timestamp, image_url varchar(255), text clob, excerpt varchar(255), title varchar(255), uuid binary(16) not null, category_id bigint, parent_id bigint, user_id bigint, reply_count int default 0 not null, last_reply_at timestamp, last_replier_id bigint, last_activity timestamp, version bigint default 0 not null, view_count bigint default 0 not null, like_count bigint default 0 not null, primary key (id))
+create table post_like (id bigint generated by default as identity, post_id bigint not null, user_id bigint not null, created timestamp, primary key (id))
+create table post_change (id bigint generated by default as identity, post_id bigint not null, change_type tinyint not null, changed timestamp not null, primary key (id))
+create table post_viewer_sketch (post_id bigint not null, sketch varbinary(2049) not null, primary key (post_id))
 create table role (id bigint generated by default as identity, role varchar(255), primary key (id))
 create table user (id bigint generated by default as identity, email varchar(255), enabled boolean, encrypted_password varchar(255), first_name varchar(255), last_name varchar(255), user_name varchar(255) not null, user_prefs_id bigint, primary key (id))
+create table user_category_post_count (user_id bigint not null, category_id bigint not null, post_count bigint default 0 not null, primary key (user_id, category_id))
+create table user_follow (id bigint generated by default as identity, follower_id bigint not null, followed_id bigint not null, created timestamp, primary key (id))
 create table user_roles (users_id bigint not null, roles_id bigint not null)
+create table user_post_count (user_id bigint not null, post_count bigint default 0 not null, primary key (user_id))
 create table user_prefs (id bigint generated by default as identity, avatar_id bigint, user_id bigint, primary key (id))
 alter table avatar add constraint UK_AVATAR_FILE_NAME unique (file_name)
 alter table category add constraint UK_CATEGORY_NAME unique (name)
+alter table post add constraint UK_POST_UUID unique (uuid)
+create index IDX_POST_PARENT_ID_CREATED on post (parent_id, created desc)
+create index IDX_POST_CATEGORY_ID_PARENT_ID_CREATED on post (category_id, parent_id, created desc)
+create index IDX_POST_USER_ID_PARENT_ID_CREATED on post (user_id, parent_id, created desc)
+create index IDX_POST_USER_ID_CATEGORY_ID_PARENT_ID_CREATED on post (user_id, category_id, parent_id, created desc)
+create index IDX_POST_CREATED on post (created desc)
+create index IDX_POST_PARENT_ID_LAST_ACTIVITY on post (parent_id, last_activity desc)
+create index IDX_POST_CATEGORY_ID_PARENT_ID_LAST_ACTIVITY on post (category_id, parent_id, last_activity desc)
+alter table post_like add constraint UK_POST_LIKE_POST_ID_USER_ID unique (post_id, user_id)
+create index IDX_USER_USER_NAME on user (user_name)
+alter table user_follow add constraint UK_USER_FOLLOW_FOLLOWER_ID_FOLLOWED_ID unique (follower_id, followed_id)
+create index IDX_USER_FOLLOW_FOLLOWED_ID on user_follow (followed_id)
+alter table category_post_count add constraint FK_CATEGORY_POST_COUNT_CATEGORY__CATEGORY_ID foreign key (category_id) references category
+alter table category_author_sketch add constraint FK_CATEGORY_AUTHOR_SKETCH_CATEGORY__CATEGORY_ID foreign key (category_id) references category
 alter table post add constraint FK_POST_CATEGORY__CATEGORY_ID foreign key (category_id) references category
 alter table post add constraint FK_POST_POST__PARENT_ID foreign key (parent_id) references post
 alter table post add constraint FK_POST_USER__USER_ID foreign key (user_id) references user
+alter table post add constraint FK_POST_USER__LAST_REPLIER_ID foreign key (last_replier_id) references user
+alter table post_like add constraint FK_POST_LIKE_POST__POST_ID foreign key (post_id) references post on delete cascade
+alter table post_like add constraint FK_POST_LIKE_USER__USER_ID foreign key (user_id) references user
+alter table post_viewer_sketch add constraint FK_POST_VIEWER_SKETCH_POST__POST_ID foreign key (post_id) references post on delete cascade
 alter table user add constraint FK_USER_USER_PREFS__USER_PREFS_ID foreign key (user_prefs_id) references user_prefs
+alter table user_follow add constraint FK_USER_FOLLOW_USER__FOLLOWER_ID foreign key (follower_id) references user
+alter table user_follow add constraint FK_USER_FOLLOW_USER__FOLLOWED_ID foreign key (followed_id) references user
 alter table user_roles add constraint FK_USER_ROLES_ROLE__ROLES_ID foreign key (roles_id) references role
 alter table user_roles add constraint FK_USER_ROLES_USER__USERS_ID foreign key (users_id) references user
+alter table user_category_post_count add constraint FK_USER_CATEGORY_POST_COUNT_USER__USER_ID foreign key (user_id) references user
+alter table user_category_post_count add constraint FK_USER_CATEGORY_POST_COUNT_CATEGORY__CATEGORY_ID foreign key (category_id) references category
+alter table user_post_count add constraint FK_USER_POST_COUNT_USER__USER_ID foreign key (user_id) references user
 alter table user_prefs add constraint FK_USER_PREFS_AVATAR__AVATAR_ID foreign key (avatar_id) references avatar
 alter table user_prefs add constraint FK_USER_PREFS_USER__USER_ID foreign key (user_id) references user
\ No newline at end of file
@@ -46,6 +46,36 @@ CREATE TABLE `category` (
 ) ENGINE=MyISAM DEFAULT CHARSET=utf8 COLLATE=utf8_unicode_ci;
 /*!40101 SET character_set_client = @saved_cs_client */;
 
+--
+-- Table structure for table `category_author_sketch`
+--
+
+DROP TABLE IF EXISTS `category_author_sketch`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!40101 SET character_set_client = utf8 */;
+CREATE TABLE `category_author_sketch` (
+                             `category_id` bigint(20) NOT NULL,
+                             `week_start` date NOT NULL,
+                             `sketch` varbinary(2049) NOT NULL,
+                             PRIMARY KEY (`category_id`,`week_start`)
+) ENGINE=MyISAM DEFAULT CHARSET=utf8 COLLATE=utf8_unicode_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Table structure for table `category_post_count`
+--
+
+DROP TABLE IF EXISTS `category_post_count`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!40101 SET character_set_client = utf8 */;
+CREATE TABLE `category_post_count` (
+                             `category_id` bigint(20) NOT NULL,
+                             `post_count` bigint(20) NOT NULL DEFAULT '0',
+                             `latest_post_id` bigint(20) DEFAULT NULL,
+                             PRIMARY KEY (`category_id`)
+) ENGINE=MyISAM DEFAULT CHARSET=utf8 COLLATE=utf8_unicode_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
 --
 -- Table structure for table `post`
 --
@@ -57,16 +87,77 @@ CREATE TABLE `post` (
                       `id` bigint(20) NOT NULL AUTO_INCREMENT,
                       `created` datetime DEFAULT NULL,
                       `image_url` varchar(255) COLLATE utf8_unicode_ci DEFAULT NULL,
-                      `text` varchar(255) COLLATE utf8_unicode_ci DEFAULT NULL,
+                      `text` longtext COLLATE utf8_unicode_ci,
+                      `excerpt` varchar(255) COLLATE utf8_unicode_ci DEFAULT NULL,
                       `title` varchar(255) COLLATE utf8_unicode_ci DEFAULT NULL,
-                      `uuid` varchar(255) COLLATE utf8_unicode_ci DEFAULT NULL,
+                      `uuid` binary(16) NOT NULL,
                       `category_id` bigint(20) DEFAULT NULL,
                       `parent_id` bigint(20) DEFAULT NULL,
                       `user_id` bigint(20) DEFAULT NULL,
+                      `reply_count` int(11) NOT NULL DEFAULT 0,
+                      `last_reply_at` datetime DEFAULT NULL,
+                      `last_replier_id` bigint(20) DEFAULT NULL,
+                      `last_activity` datetime DEFAULT NULL,
+                      `version` bigint(20) NOT NULL DEFAULT 0,
+                      `view_count` bigint(20) NOT NULL DEFAULT 0,
+                      `like_count` bigint(20) NOT NULL DEFAULT 0,
                       PRIMARY KEY (`id`),
-                      KEY `FKg6l1ydp1pwkmyj166teiuov1b` (`category_id`),
-                      KEY `FK5yhuvatu7cubfxyltetys1c3n` (`parent_id`),
-                      KEY `FK72mt33dhhs48hf9gcqrq4fxte` (`user_id`)
+                      UNIQUE KEY `UK_POST_UUID` (`uuid`),
+                      KEY `IDX_POST_PARENT_ID_CREATED` (`parent_id`,`created`,`id`),
+                      KEY `IDX_POST_CATEGORY_ID_PARENT_ID_CREATED` (`category_id`,`parent_id`,`created`),
+                      KEY `IDX_POST_USER_ID_PARENT_ID_CREATED` (`user_id`,`parent_id`,`created`),
+                      KEY `IDX_POST_USER_ID_CATEGORY_ID_PARENT_ID_CREATED` (`user_id`,`category_id`,`parent_id`,`created`),
+                      KEY `IDX_POST_CREATED` (`created`),
+                      KEY `IDX_POST_PARENT_ID_LAST_ACTIVITY` (`parent_id`,`last_activity`),
+                      KEY `IDX_POST_CATEGORY_ID_PARENT_ID_LAST_ACTIVITY` (`category_id`,`parent_id`,`last_activity`),
+                      KEY `FK_POST_USER__LAST_REPLIER_ID` (`last_replier_id`)
+) ENGINE=MyISAM DEFAULT CHARSET=utf8 COLLATE=utf8_unicode_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Table structure for table `post_change`
+--
+
+DROP TABLE IF EXISTS `post_change`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!40101 SET character_set_client = utf8 */;
+CREATE TABLE `post_change` (
+                             `id` bigint(20) NOT NULL AUTO_INCREMENT,
+                             `post_id` bigint(20) NOT NULL,
+                             `change_type` tinyint(4) NOT NULL,
+                             `changed` datetime NOT NULL,
+                             PRIMARY KEY (`id`)
+) ENGINE=MyISAM DEFAULT CHARSET=utf8 COLLATE=utf8_unicode_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Table structure for table `post_like`
+--
+
+DROP TABLE IF EXISTS `post_like`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!40101 SET character_set_client = utf8 */;
+CREATE TABLE `post_like` (
+                             `id` bigint(20) NOT NULL AUTO_INCREMENT,
+                             `post_id` bigint(20) NOT NULL,
+                             `user_id` bigint(20) NOT NULL,
+                             `created` datetime DEFAULT NULL,
+                             PRIMARY KEY (`id`),
+                             UNIQUE KEY `UK_POST_LIKE_POST_ID_USER_ID` (`post_id`,`user_id`)
+) ENGINE=MyISAM DEFAULT CHARSET=utf8 COLLATE=utf8_unicode_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Table structure for table `post_viewer_sketch`
+--
+
+DROP TABLE IF EXISTS `post_viewer_sketch`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!40101 SET character_set_client = utf8 */;
+CREATE TABLE `post_viewer_sketch` (
+                             `post_id` bigint(20) NOT NULL,
+                             `sketch` varbinary(2049) NOT NULL,
+                             PRIMARY KEY (`post_id`)
 ) ENGINE=MyISAM DEFAULT CHARSET=utf8 COLLATE=utf8_unicode_ci;
 /*!40101 SET character_set_client = @saved_cs_client */;
 
@@ -101,10 +192,58 @@ CREATE TABLE `user` (
                       `user_name` varchar(255) COLLATE utf8_unicode_ci NOT NULL,
                       `user_prefs_id` bigint(20) DEFAULT NULL,
                       PRIMARY KEY (`id`),
+                      KEY `IDX_USER_USER_NAME` (`user_name`),
                       KEY `FKhsb0xqvo1jo6p7q90w5yd0rwp` (`user_prefs_id`)
 ) ENGINE=MyISAM DEFAULT CHARSET=utf8 COLLATE=utf8_unicode_ci;
 /*!40101 SET character_set_client = @saved_cs_client */;
 
+--
+-- Table structure for table `user_category_post_count`
+--
+
+DROP TABLE IF EXISTS `user_category_post_count`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!40101 SET character_set_client = utf8 */;
+CREATE TABLE `user_category_post_count` (
+                             `user_id` bigint(20) NOT NULL,
+                             `category_id` bigint(20) NOT NULL,
+                             `post_count` bigint(20) NOT NULL DEFAULT '0',
+                             PRIMARY KEY (`user_id`,`category_id`)
+) ENGINE=MyISAM DEFAULT CHARSET=utf8 COLLATE=utf8_unicode_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Table structure for table `user_follow`
+--
+
+DROP TABLE IF EXISTS `user_follow`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!40101 SET character_set_client = utf8 */;
+CREATE TABLE `user_follow` (
+                             `id` bigint(20) NOT NULL AUTO_INCREMENT,
+                             `follower_id` bigint(20) NOT NULL,
+                             `followed_id` bigint(20) NOT NULL,
+                             `created` datetime DEFAULT NULL,
+                             PRIMARY KEY (`id`),
+                             UNIQUE KEY `UK_USER_FOLLOW_FOLLOWER_ID_FOLLOWED_ID` (`follower_id`,`followed_id`),
+                             KEY `IDX_USER_FOLLOW_FOLLOWED_ID` (`followed_id`)
+) ENGINE=MyISAM DEFAULT CHARSET=utf8 COLLATE=utf8_unicode_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Table structure for table `user_post_count`
+--
+
+DROP TABLE IF EXISTS `user_post_count`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!40101 SET character_set_client = utf8 */;
+CREATE TABLE `user_post_count` (
+                             `user_id` bigint(20) NOT NULL,
+                             `post_count` bigint(20) NOT NULL DEFAULT '0',
+                             PRIMARY KEY (`user_id`)
+) ENGINE=MyISAM DEFAULT CHARSET=utf8 COLLATE=utf8_unicode_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
 --
 -- Table structure for table `user_prefs`
 --
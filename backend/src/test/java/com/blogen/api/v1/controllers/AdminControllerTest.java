@@ -0,0 +1,130 @@
+package com.blogen.api.v1.controllers;
+
+import com.blogen.api.v1.model.DuplicateClusterDTO;
+import com.blogen.api.v1.model.DuplicateClusterListDTO;
+import com.blogen.api.v1.model.PostActivityDTO;
+import com.blogen.api.v1.model.PostActivityListDTO;
+import com.blogen.api.v1.services.AnalyticsService;
+import com.blogen.api.v1.services.DuplicatePostService;
+import com.blogen.api.v1.services.PostExportService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.contains;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Tests for AdminController using @WebMvcTest
+ *
+ * @author Cliff
+ */
+@WebMvcTest(controllers = {AdminController.class})
+public class AdminControllerTest {
+
+    private static final String EXPORT_URL = AdminController.BASE_URL + "/posts/export";
+    private static final String THREAD_LINE = "{\"id\":1,\"children\":[]}\n";
+
+    @MockBean
+    PostExportService postExportService;
+
+    @MockBean
+    DuplicatePostService duplicatePostService;
+
+    @MockBean
+    AnalyticsService analyticsService;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_ADMIN"})
+    public void should_streamNdjson_when_exportPosts() throws Exception {
+        willAnswer(invocation -> writeThreadLine(invocation.getArgument(0)))
+                .given(postExportService).exportThreads(any(OutputStream.class));
+
+        mockMvc.perform(get(EXPORT_URL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(AdminController.NDJSON_VALUE + ";charset=UTF-8"))
+                .andExpect(content().string(THREAD_LINE));
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_ADMIN"})
+    public void should_gzipResponse_when_exportPostsWithGzip() throws Exception {
+        willAnswer(invocation -> writeThreadLine(invocation.getArgument(0)))
+                .given(postExportService).exportThreads(any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get(EXPORT_URL).param("gzip", "true"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn();
+
+        byte[] body = result.getResponse().getContentAsByteArray();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8), is(THREAD_LINE));
+        }
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_ADMIN"})
+    public void should_returnClusters_when_getDuplicateClusters() throws Exception {
+        DuplicateClusterDTO cluster = DuplicateClusterDTO.builder()
+                .postIds(List.of(3L, 17L))
+                .postUrls(List.of(PostController.BASE_URL + "/3", PostController.BASE_URL + "/17"))
+                .build();
+        given(duplicatePostService.getDuplicateClusters()).willReturn(new DuplicateClusterListDTO(List.of(cluster)));
+
+        mockMvc.perform(get(AdminController.BASE_URL + "/posts/duplicates"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.clusters[0].postIds", contains(3, 17)))
+                .andExpect(jsonPath("$.clusters[0].postUrls[1]", is(PostController.BASE_URL + "/17")));
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_ADMIN"})
+    public void should_returnActivity_when_getPostActivity() throws Exception {
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        PostActivityDTO activity = PostActivityDTO.builder()
+                .start(day.atStartOfDay())
+                .categoryId(2L)
+                .posts(4)
+                .replies(9)
+                .activeAuthors(5)
+                .build();
+        given(analyticsService.getPostActivity(day, day.plusDays(6), AnalyticsService.GRANULARITY_DAY, 2L))
+                .willReturn(new PostActivityListDTO(AnalyticsService.GRANULARITY_DAY, day, day.plusDays(6),
+                        List.of(activity)));
+
+        mockMvc.perform(get(AdminController.BASE_URL + "/analytics/posts")
+                        .param("from", "2024-03-01")
+                        .param("to", "2024-03-07")
+                        .param("category", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.granularity", is(AnalyticsService.GRANULARITY_DAY)))
+                .andExpect(jsonPath("$.activity[0].replies", is(9)))
+                .andExpect(jsonPath("$.activity[0].activeAuthors", is(5)));
+    }
+
+    private long writeThreadLine(OutputStream out) throws Exception {
+        out.write(THREAD_LINE.getBytes(StandardCharsets.UTF_8));
+        return 1L;
+    }
+}
@@ -1,11 +1,13 @@
 package com.blogen.api.v1.controllers;
 
 import com.blogen.api.v1.model.CategoryDTO;
+import com.blogen.api.v1.model.CategoryListDTO;
 import com.blogen.api.v1.services.CategoryService;
 import com.blogen.api.v1.validators.CategoryDtoValidator;
 import com.blogen.exceptions.BadRequestException;
 import com.blogen.services.security.BlogenAuthority;
 import com.blogen.services.security.WithMockJwt;
+import com.blogen.services.utils.ResourceVersion;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,17 +15,28 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Arrays;
 
 import static com.blogen.api.v1.controllers.AbstractRestControllerTest.asJsonString;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -48,9 +61,12 @@ public class CategoryControllerTest {
 
     @BeforeEach
     public void setUp() throws Exception {
-        catDto_1 = new CategoryDTO(1L, "Category1", CategoryController.BASE_URL + "/1");
-        catDto_2 = new CategoryDTO(2L, "Category2", null);
-        newCatDto = new CategoryDTO(2L, "Category2", CategoryController.BASE_URL + "/2");
+        catDto_1 = new CategoryDTO(1L, "Category1", CategoryController.BASE_URL + "/1", null, null, null);
+        catDto_2 = new CategoryDTO(2L, "Category2", null, null, null, null);
+        newCatDto = new CategoryDTO(2L, "Category2", CategoryController.BASE_URL + "/2", null, null, null);
+
+        given(categoryService.getCategoryVersion(anyLong())).willReturn(ResourceVersion.ofContent(1L, "Category1"));
+        given(categoryService.getCategoriesVersion(anyInt(), anyInt())).willReturn(ResourceVersion.ofContent("page"));
     }
 
 //    @Test
@@ -75,11 +91,63 @@ public class CategoryControllerTest {
                 .andExpect(jsonPath("$.categoryUrl", is(catDto_1.getCategoryUrl())));
     }
 
+    @Test
+    @WithMockUser(username = "1", authorities={"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_writeCbor_when_getCategoriesAcceptsCbor() throws Exception {
+        CategoryListDTO categoryListDTO = new CategoryListDTO(Arrays.asList(catDto_1, catDto_2), null);
+        given(categoryService.getCategories(anyInt(), anyInt())).willReturn(categoryListDTO);
+
+        byte[] body = mockMvc.perform(get(CategoryController.BASE_URL)
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        CategoryListDTO decoded = Jackson2ObjectMapperBuilder.cbor().build().readValue(body, CategoryListDTO.class);
+        assertThat(decoded.getCategories(), contains(catDto_1, catDto_2));
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities={"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_returnNotModified_when_getCategoryWithMatchingETag() throws Exception {
+        given(categoryService.getCategory(1L)).willReturn(catDto_1);
+        MvcResult result = mockMvc.perform(get(CategoryController.BASE_URL + "/1"))
+                .andExpect(status().isOk())
+                .andReturn();
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(CategoryController.BASE_URL + "/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        then(categoryService).should(times(1)).getCategory(anyLong());
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities={"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_returnNotModified_when_getCategoriesWithMatchingETag() throws Exception {
+        String etag = "\"" + ResourceVersion.ofContent("page").getTag() + "-json\"";
+
+        mockMvc.perform(get(CategoryController.BASE_URL)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        then(categoryService).should(never()).getCategories(anyInt(), anyInt());
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities={"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_returnHttpNotAcceptable_when_getCategoryAcceptsUnsupportedType() throws Exception {
+        mockMvc.perform(get(CategoryController.BASE_URL + "/1")
+                        .accept(MediaType.APPLICATION_PDF))
+                .andExpect(status().isNotAcceptable());
+    }
+
     @Test
     @WithMockUser(username = "1", authorities={"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
     public void should_returnHttpBadRequest_when_getCategoryWithInvalidId() throws Exception {
 
-        given(categoryService.getCategory(anyLong())).willThrow(new BadRequestException("invalid category id"));
+        given(categoryService.getCategoryVersion(anyLong())).willThrow(new BadRequestException("invalid category id"));
 
         mockMvc.perform(get(CategoryController.BASE_URL + "/56234"))
                 .andExpect(status().isBadRequest())
@@ -1,30 +1,52 @@
 package com.blogen.api.v1.controllers;
 
 import com.blogen.api.v1.model.*;
+import com.blogen.api.v1.services.LikeService;
 import com.blogen.api.v1.services.PostService;
 import com.blogen.api.v1.validators.PostRequestDtoValidator;
 import com.blogen.exceptions.NotFoundException;
+import com.blogen.services.utils.FieldSelection;
+import com.blogen.services.utils.PostEventDispatcher;
+import com.blogen.services.utils.ResourceVersion;
 import com.blogen.utils.DomainBuilder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
 
 import static com.blogen.api.v1.controllers.AbstractRestControllerTest.asJsonString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -34,24 +56,32 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * @author Cliff
  */
 @WebMvcTest(controllers = {PostController.class})
-@Import(PostRequestDtoValidator.class)
+@Import({PostRequestDtoValidator.class, PostEventDispatcher.class})
 public class PostControllerTest {
 
     @MockBean
     PostService postService;
 
+    @MockBean
+    LikeService likeService;
+
 //    @Autowired
 //    WebApplicationContext webCtx;
 
     @Autowired
     MockMvc mockMvc;
 
+    @Autowired
+    PostEventDispatcher postEventDispatcher;
+
     PostDTO postDTO_1;
     PostDTO postDTO_2;
     PostDTO childDTO_1;
     PostRequestDTO requestDTO;
     PageInfoResponse pageInfoResponse;
 
+    static final ResourceVersion POST_VERSION = ResourceVersion.weak("post-1-v3", LocalDateTime.of(2017, 1, 1, 10, 15, 12));
+
     @BeforeEach
     public void setUp() throws Exception {
         CategoryDTO catDTO1 = CategoryDTO.builder().id(1L).name("cat1").build();
@@ -70,6 +100,9 @@ public class PostControllerTest {
         postDTO_2.setPostUrl(PostController.BASE_URL + "/" + "2");
 
         pageInfoResponse = PageInfoResponse.builder().totalPages(1).totalElements(1L).totalPages(1).pageNumber(0).build();
+
+        given(postService.readPostVersion(anyLong())).willReturn(POST_VERSION);
+        given(postService.readPostVersion(any(UUID.class))).willReturn(POST_VERSION);
     }
 
     @Test
@@ -99,29 +132,361 @@ public class PostControllerTest {
                 .andExpect(jsonPath("$.posts", hasSize(2)));
     }
 
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_getPostsByActivity_when_getPostsSortedByActivity() throws Exception {
+        PostListDTO postListDTO = new PostListDTO(Arrays.asList(postDTO_1), pageInfoResponse);
+        given(postService.getPostsByActivity(anyLong(), anyInt(), anyInt())).willReturn(postListDTO);
+
+        mockMvc.perform(get(PostController.BASE_URL)
+                        .param("sort", PostController.SORT_BY_ACTIVITY)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts", hasSize(1)));
+
+        then(postService).should().getPostsByActivity(-1L, 0, 5);
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_getTrendingPosts_when_getPostsSortedByTrendingWithFields() throws Exception {
+        PostListDTO postListDTO = new PostListDTO(Arrays.asList(postDTO_1), pageInfoResponse);
+        given(postService.getTrendingPosts(anyLong(), anyInt(), anyInt())).willReturn(postListDTO);
+
+        mockMvc.perform(get(PostController.BASE_URL)
+                        .param("sort", PostController.SORT_BY_TRENDING)
+                        .param("category", "2")
+                        .param("fields", "id,title")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts", hasSize(1)))
+                .andExpect(jsonPath("$.posts[0].title", is(postDTO_1.getTitle())))
+                .andExpect(jsonPath("$.posts[0].text").doesNotExist());
+
+        then(postService).should().getTrendingPosts(2L, 0, 5);
+        then(postService).should(never()).getPostsWithFields(any(), any(), any(), anyInt(), anyInt(), any());
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_returnHTTP_BAD_REQUEST_when_getPostsWithUnknownSort() throws Exception {
+        mockMvc.perform(get(PostController.BASE_URL)
+                        .param("sort", "popularity")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_returnUserDictionary_when_getPostsNormalized() throws Exception {
+        PostListDTO postListDTO = new PostListDTO(Arrays.asList(postDTO_1, postDTO_2), pageInfoResponse);
+        NormalizedPostDTO normalizedPostDTO = new NormalizedPostDTO();
+        normalizedPostDTO.setId(1L);
+        normalizedPostDTO.setUserId(1L);
+        NormalizedPostListDTO normalizedListDTO = new NormalizedPostListDTO(Arrays.asList(normalizedPostDTO),
+                Collections.singletonMap(1L, postDTO_1.getUser()), Collections.singletonMap(1L, postDTO_1.getCategory()),
+                pageInfoResponse);
+        given(postService.getPosts(anyLong(), anyInt(), anyInt())).willReturn(postListDTO);
+        given(postService.normalizePostList(postListDTO)).willReturn(normalizedListDTO);
+
+        mockMvc.perform(get(PostController.BASE_URL)
+                        .param("normalized", "true")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts[0].userId", is(1)))
+                .andExpect(jsonPath("$.posts[0].user").doesNotExist())
+                .andExpect(jsonPath("$.users.1.userName", is("user")));
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_writeOnlySelectedFields_when_getPostsWithFields() throws Exception {
+        PostListDTO postListDTO = new PostListDTO(Arrays.asList(postDTO_1), pageInfoResponse);
+        given(postService.getPostsWithFields(isNull(), anyLong(), anyString(), anyInt(), anyInt(), any(FieldSelection.class)))
+                .willReturn(postListDTO);
+
+        mockMvc.perform(get(PostController.BASE_URL)
+                        .param("fields", "id,title,user.userName")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts[0].id", is(1)))
+                .andExpect(jsonPath("$.posts[0].title", is("post1 title")))
+                .andExpect(jsonPath("$.posts[0].user.userName", is("user")))
+                .andExpect(jsonPath("$.posts[0].user.id").doesNotExist())
+                .andExpect(jsonPath("$.posts[0].text").doesNotExist())
+                .andExpect(jsonPath("$.posts[0].category").doesNotExist())
+                .andExpect(jsonPath("$.posts[0].children").doesNotExist())
+                .andExpect(jsonPath("$.pageInfo.totalPages", is(1)));
+
+        then(postService).should().getPostsWithFields(isNull(), eq(-1L), eq("created"), eq(0), eq(5),
+                any(FieldSelection.class));
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_returnHTTP_BAD_REQUEST_when_getPostsWithUnknownField() throws Exception {
+        mockMvc.perform(get(PostController.BASE_URL)
+                        .param("fields", "id,password")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_notReadChildren_when_getPostWithFieldsWithoutChildren() throws Exception {
+        given(postService.getPost(1L, 0)).willReturn(postDTO_2);
+
+        mockMvc.perform(get(PostController.BASE_URL + "/1")
+                        .param("fields", "title,category.name")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title", is("post2 title")))
+                .andExpect(jsonPath("$.category.name", is("cat1")))
+                .andExpect(jsonPath("$.category.id").doesNotExist())
+                .andExpect(jsonPath("$.postUrl").doesNotExist());
+
+        then(postService).should().getPost(1L, 0);
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_writeCbor_when_getPostsAcceptsCbor() throws Exception {
+        PostListDTO postListDTO = new PostListDTO(Arrays.asList(postDTO_1, postDTO_2), pageInfoResponse);
+        given(postService.getPosts(anyLong(), anyInt(), anyInt())).willReturn(postListDTO);
+
+        byte[] body = mockMvc.perform(get(PostController.BASE_URL)
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        PostListDTO decoded = Jackson2ObjectMapperBuilder.cbor().build().readValue(body, PostListDTO.class);
+        assertThat(decoded, is(postListDTO));
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_writeSelectedFieldsAsSmile_when_getPostAcceptsSmileWithFields() throws Exception {
+        given(postService.getPost(1L, 0)).willReturn(postDTO_2);
+
+        byte[] body = mockMvc.perform(get(PostController.BASE_URL + "/1")
+                        .param("fields", "id,title")
+                        .accept(ApiMediaTypes.SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(ApiMediaTypes.SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode decoded = Jackson2ObjectMapperBuilder.smile().build().readTree(body);
+        assertThat(decoded.get("title").asText(), is("post2 title"));
+        assertThat(decoded.has("text"), is(false));
+    }
+
     @Test
     @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
     public void should_getPostById_when_getPost() throws Exception {
         String requestUrl = PostController.BASE_URL + "/1";
-        given(postService.getPost(anyLong())).willReturn(postDTO_1);
+        byte[] json = new ObjectMapper().findAndRegisterModules().writeValueAsBytes(postDTO_1);
+        given(postService.getPostJson(anyLong(), any(ResourceVersion.class))).willReturn(json);
 
         mockMvc.perform(get(requestUrl)
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.postUrl", is(requestUrl)));
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.postUrl", is(requestUrl)))
+                .andExpect(jsonPath("$.children", hasSize(1)));
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_returnRelatedPosts_when_getRelatedPosts() throws Exception {
+        PostListDTO postListDTO = new PostListDTO(Arrays.asList(postDTO_2), pageInfoResponse);
+        given(postService.getRelatedPosts(1L, 3)).willReturn(postListDTO);
+
+        mockMvc.perform(get(PostController.BASE_URL + "/1/related")
+                        .param("limit", "3")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts", hasSize(1)))
+                .andExpect(jsonPath("$.posts[0].title", is(postDTO_2.getTitle())));
+
+        then(postService).should(never()).recordView(anyLong());
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_writeCachedJsonAsIs_when_getPost() throws Exception {
+        byte[] json = "{\"id\":1,\"title\":\"cached\"}".getBytes(StandardCharsets.UTF_8);
+        given(postService.getPostJson(1L, POST_VERSION)).willReturn(json);
+
+        mockMvc.perform(get(PostController.BASE_URL + "/1"))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(json));
+
+        then(postService).should(never()).getPost(anyLong());
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_recordView_when_getPost() throws Exception {
+        given(postService.getPostJson(1L, POST_VERSION)).willReturn("{}".getBytes(StandardCharsets.UTF_8));
+        given(postService.getPost(1L)).willReturn(postDTO_1);
+
+        mockMvc.perform(get(PostController.BASE_URL + "/1"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get(PostController.BASE_URL + "/1")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk());
+
+        then(postService).should(times(2)).recordView(1L);
+        then(postService).should(times(2)).readPostVersion(1L);
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_notUseCachedJson_when_getPostAcceptsCbor() throws Exception {
+        given(postService.getPost(1L)).willReturn(postDTO_1);
+
+        mockMvc.perform(get(PostController.BASE_URL + "/1")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR));
+
+        then(postService).should(never()).getPostJson(anyLong(), any(ResourceVersion.class));
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_limitEmbeddedReplies_when_getPostWithReplies() throws Exception {
+        given(postService.getPost(1L, 1)).willReturn(postDTO_1);
+
+        mockMvc.perform(get(PostController.BASE_URL + "/1")
+                        .param("replies", "1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.children", hasSize(1)));
+
+        then(postService).should().getPost(1L, 1);
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_getSliceOfChildPosts_when_getChildPosts() throws Exception {
+        PostSliceDTO sliceDTO = new PostSliceDTO(Arrays.asList(childDTO_1), "next");
+        given(postService.getChildPosts(1L, "prev", 1)).willReturn(sliceDTO);
+
+        mockMvc.perform(get(PostController.BASE_URL + "/1/children")
+                        .param("after", "prev")
+                        .param("limit", "1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts", hasSize(1)))
+                .andExpect(jsonPath("$.nextCursor", is("next")));
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_returnETagAndLastModified_when_getPost() throws Exception {
+        given(postService.getPostJson(1L, POST_VERSION)).willReturn("{}".getBytes(StandardCharsets.UTF_8));
+
+        mockMvc.perform(get(PostController.BASE_URL + "/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"post-1-v3-json\""))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)));
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_returnNotModifiedWithoutReadingPost_when_getPostWithMatchingETag() throws Exception {
+        mockMvc.perform(get(PostController.BASE_URL + "/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/\"post-1-v3-json\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+
+        then(postService).should(never()).getPostJson(anyLong(), any(ResourceVersion.class));
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_returnPost_when_getPostWithETagOfOtherVersion() throws Exception {
+        given(postService.getPostJson(1L, POST_VERSION)).willReturn("{}".getBytes(StandardCharsets.UTF_8));
+
+        mockMvc.perform(get(PostController.BASE_URL + "/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/\"post-1-v2-json\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"post-1-v3-json\""));
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_returnNotModified_when_getPostNotModifiedSinceLastModified() throws Exception {
+        MvcResult result = mockMvc.perform(get(PostController.BASE_URL + "/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/\"post-1-v3-json\""))
+                .andReturn();
+        String lastModified = result.getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+
+        mockMvc.perform(get(PostController.BASE_URL + "/1")
+                        .header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isNotModified());
+
+        then(postService).should(never()).getPostJson(anyLong(), any(ResourceVersion.class));
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_notMatchJsonETag_when_getPostAcceptsCbor() throws Exception {
+        given(postService.getPost(1L)).willReturn(postDTO_1);
+
+        mockMvc.perform(get(PostController.BASE_URL + "/1")
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/\"post-1-v3-json\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"post-1-v3-cbor\""));
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_returnNotModified_when_getChildPostsWithMatchingETag() throws Exception {
+        mockMvc.perform(get(PostController.BASE_URL + "/1/children")
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/\"post-1-v3-json\""))
+                .andExpect(status().isNotModified());
+
+        then(postService).should(never()).getChildPosts(anyLong(), any(), anyInt());
     }
 
     @Test
     @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
     public void should_returnHTTP_NOT_FOUND_when_getPostWithBadID() throws Exception {
         String requestUrl = PostController.BASE_URL + "/565";
-        given(postService.getPost(anyLong())).willThrow(NotFoundException.class);
+        given(postService.readPostVersion(anyLong())).willThrow(NotFoundException.class);
 
         mockMvc.perform(get(requestUrl)
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_getPostByUuid_when_getPostByUuid() throws Exception {
+        UUID uuid = UUID.fromString("01595982-f600-7099-b81a-eb871da2e7a6");
+        postDTO_1.setUuid(uuid);
+        given(postService.getPostByUuid(uuid)).willReturn(postDTO_1);
+
+        mockMvc.perform(get(PostController.BASE_URL + "/uuid/" + uuid)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.uuid", is(uuid.toString())))
+                .andExpect(jsonPath("$.postUrl", is(PostController.BASE_URL + "/1")));
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_returnHTTP_BAD_REQUEST_when_getPostByUuidWithMalformedUuid() throws Exception {
+        mockMvc.perform(get(PostController.BASE_URL + "/uuid/not-a-uuid")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
     public void should_return_CREATED_when_createNewPostWithValidContent() throws Exception {
@@ -222,4 +587,139 @@ public class PostControllerTest {
         mockMvc.perform(delete(PostController.BASE_URL + "/2"))
                 .andExpect(status().isOk());
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_returnChangedPostsAndNextToken_when_getPostChanges() throws Exception {
+        PostChangesDTO changes = new PostChangesDTO(Arrays.asList(
+                new PostChangeDTO(PostChangeDTO.UPDATED, 1L, postDTO_1),
+                new PostChangeDTO(PostChangeDTO.DELETED, 2L, null)), "YzE0", false);
+        given(postService.getPostChanges("YzEw", 50)).willReturn(changes);
+
+        mockMvc.perform(get(PostController.BASE_URL + "/changes")
+                        .param("since", "YzEw")
+                        .param("limit", "50")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes", hasSize(2)))
+                .andExpect(jsonPath("$.changes[0].post.title", is("post1 title")))
+                .andExpect(jsonPath("$.changes[1].type", is(PostChangeDTO.DELETED)))
+                .andExpect(jsonPath("$.token", is("YzE0")));
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_streamEventsOfSubscribedCategories_when_getPostEvents() throws Exception {
+        int subscribers = postEventDispatcher.subscriberCount();
+        MvcResult result = mockMvc.perform(get(PostController.BASE_URL + "/events")
+                        .param("category", "1", "2")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        awaitSubscribers(subscribers + 1);
+
+        postEventDispatcher.onPostEvent(buildEvent(PostEventDTO.POST_CREATED, 10L, 3L));
+        postEventDispatcher.onPostEvent(buildEvent(PostEventDTO.REPLY_CREATED, 11L, 2L));
+
+        String stream = awaitStream(result, "reply-created");
+        assertThat(stream, containsString("event:reply-created"));
+        assertThat(stream, containsString("\"postUrl\":\"" + PostController.BASE_URL + "/11\""));
+        assertThat(stream, not(containsString("post-created")));
+        assertThat(result.getResponse().getContentType(), containsString(MediaType.TEXT_EVENT_STREAM_VALUE));
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_replayMissedEvents_when_getPostEventsWithLastEventId() throws Exception {
+        int subscribers = postEventDispatcher.subscriberCount();
+        MvcResult first = mockMvc.perform(get(PostController.BASE_URL + "/events")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        awaitSubscribers(subscribers + 1);
+        postEventDispatcher.onPostEvent(buildEvent(PostEventDTO.POST_CREATED, 20L, 1L));
+        postEventDispatcher.onPostEvent(buildEvent(PostEventDTO.POST_DELETED, 21L, 1L));
+        String firstStream = awaitStream(first, "post-deleted");
+        String firstEventId = firstStream.substring(firstStream.indexOf("id:") + 3, firstStream.indexOf('\n'));
+
+        // the client reconnects after it received the first event
+        MvcResult reconnected = mockMvc.perform(get(PostController.BASE_URL + "/events")
+                        .header(PostController.LAST_EVENT_ID_HEADER, firstEventId)
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String stream = awaitStream(reconnected, "post-deleted");
+        assertThat(stream, containsString(PostController.BASE_URL + "/21"));
+        assertThat(stream, not(containsString(PostController.BASE_URL + "/20\"")));
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_sendStreamReset_when_getPostEventsWithLastEventIdNoLongerKept() throws Exception {
+        postEventDispatcher.onPostEvent(buildEvent(PostEventDTO.POST_CREATED, 30L, 1L));
+
+        // ids start at the time the dispatcher started, so the events after id 1 were never kept
+        MvcResult result = mockMvc.perform(get(PostController.BASE_URL + "/events")
+                        .header(PostController.LAST_EVENT_ID_HEADER, "1")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String stream = awaitStream(result, PostEventDTO.STREAM_RESET);
+        assertThat(stream, containsString("event:" + PostEventDTO.STREAM_RESET));
+        assertThat(stream, not(containsString(PostController.BASE_URL + "/30\"")));
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_returnLikes_when_likeAndUnlikePost() throws Exception {
+        given(likeService.likePost(1L)).willReturn(new PostLikesDTO(1L, 8, true));
+        given(likeService.unlikePost(1L)).willReturn(new PostLikesDTO(1L, 7, false));
+
+        mockMvc.perform(put(PostController.BASE_URL + "/1/likes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.likeCount", is(8)))
+                .andExpect(jsonPath("$.liked", is(true)));
+        mockMvc.perform(delete(PostController.BASE_URL + "/1/likes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.likeCount", is(7)))
+                .andExpect(jsonPath("$.liked", is(false)));
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_returnNotFound_when_getLikesOfPostThatDoesNotExist() throws Exception {
+        given(likeService.getLikes(99L)).willThrow(new NotFoundException("Post not found with id: 99"));
+
+        mockMvc.perform(get(PostController.BASE_URL + "/99/likes"))
+                .andExpect(status().isNotFound());
+    }
+
+    private static PostEventDTO buildEvent(String type, Long postId, Long categoryId) {
+        return PostEventDTO.builder().type(type).postId(postId).categoryId(categoryId)
+                .postUrl(PostController.BASE_URL + "/" + postId).occurred(LocalDateTime.now()).build();
+    }
+
+    // subscribing completes asynchronously, on the dispatcher thread
+    private void awaitSubscribers(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (postEventDispatcher.subscriberCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(postEventDispatcher.subscriberCount(), is(count));
+    }
+
+    // events are sent asynchronously, by the sender threads of the dispatcher, and the lines of an event may be
+    // written separately. An event ends with a blank line
+    private static String awaitStream(MvcResult result, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String stream = result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        while (!(stream.contains(expected) && stream.endsWith("\n\n")) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            stream = result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        }
+        assertThat(stream, containsString(expected));
+        return stream;
+    }
+}
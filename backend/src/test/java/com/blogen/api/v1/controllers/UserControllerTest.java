@@ -1,13 +1,17 @@
 package com.blogen.api.v1.controllers;
 
+import com.blogen.api.v1.model.PostDTO;
+import com.blogen.api.v1.model.PostSliceDTO;
 import com.blogen.api.v1.model.UserDTO;
 import com.blogen.api.v1.model.UserListDTO;
+import com.blogen.api.v1.services.FeedService;
 import com.blogen.api.v1.services.PostService;
 import com.blogen.api.v1.services.UserService;
 import com.blogen.api.v1.validators.PasswordValidator;
 import com.blogen.api.v1.validators.UpdateUserValidator;
 import com.blogen.domain.User;
 import com.blogen.exceptions.BadRequestException;
+import com.blogen.exceptions.NotFoundException;
 import com.blogen.services.security.BlogenAuthority;
 import com.blogen.services.security.WithMockJwt;
 import org.junit.jupiter.api.BeforeEach;
@@ -32,6 +36,9 @@ import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willThrow;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -54,6 +61,9 @@ public class UserControllerTest {
     @Qualifier("postRestService")
     private PostService postService;
 
+    @MockBean
+    private FeedService feedService;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -67,10 +77,10 @@ public class UserControllerTest {
 
     @BeforeEach
     public void setUp() throws Exception {
-        userDTO1 = new UserDTO(1L, "jane", "smith", "janey", "js@zombo.com", "secret", "avatar1.jpg", null, UserController.BASE_URL + "/1");
-        userDTO2 = new UserDTO(2L, "fozzy", "zoeller", "shelly", "foz@gmail.com", "secret", "avatar2.jpg", null, UserController.BASE_URL + "/2");
-        newUserDTO = new UserDTO(3L, "new", "user", "noob", "nooblet@hotmail.com", "secret", "avatar1.jpg", null, null);
-        updateUserDTO1 = new UserDTO(3L, "Joan", "Crawford", null, "craw@hotmail.com", "newsecret", "avatar1.jpg", null, null);
+        userDTO1 = new UserDTO(1L, "jane", "smith", "janey", "js@zombo.com", "secret", "avatar1.jpg", null, UserController.BASE_URL + "/1", null, null);
+        userDTO2 = new UserDTO(2L, "fozzy", "zoeller", "shelly", "foz@gmail.com", "secret", "avatar2.jpg", null, UserController.BASE_URL + "/2", null, null);
+        newUserDTO = new UserDTO(3L, "new", "user", "noob", "nooblet@hotmail.com", "secret", "avatar1.jpg", null, null, null, null);
+        updateUserDTO1 = new UserDTO(3L, "Joan", "Crawford", null, "craw@hotmail.com", "newsecret", "avatar1.jpg", null, null, null, null);
 
     }
 
@@ -168,4 +178,43 @@ public class UserControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.globalError[0].message", is("username exists")));
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser(username = "1", authorities={"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_returnSliceOfFeed_when_getFeed() throws Exception {
+        PostDTO postDTO = new PostDTO();
+        postDTO.setId(7L);
+        postDTO.setTitle("followed post");
+        given(feedService.getFeed(1L, "MjAxNy0wMS0wMVQxMDoxNToxMl8yMQ", 10))
+                .willReturn(new PostSliceDTO(Arrays.asList(postDTO), "next"));
+
+        mockMvc.perform(get(UserController.BASE_URL + "/1/feed")
+                        .param("after", "MjAxNy0wMS0wMVQxMDoxNToxMl8yMQ")
+                        .param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts", hasSize(1)))
+                .andExpect(jsonPath("$.posts[0].title", is("followed post")))
+                .andExpect(jsonPath("$.nextCursor", is("next")));
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities={"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_followAndUnfollowUser() throws Exception {
+        mockMvc.perform(put(UserController.BASE_URL + "/1/following/2"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete(UserController.BASE_URL + "/1/following/2"))
+                .andExpect(status().isOk());
+
+        then(feedService).should().follow(1L, 2L);
+        then(feedService).should().unfollow(1L, 2L);
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities={"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_returnNotFound_when_followUserThatDoesNotExist() throws Exception {
+        willThrow(new NotFoundException("User with id: 99 does not exist")).given(feedService).follow(1L, 99L);
+
+        mockMvc.perform(put(UserController.BASE_URL + "/1/following/99"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -44,7 +44,7 @@ public class CategoryMapperTest {
     @Test
     public void categoryDtoToCategory() {
         //given
-        CategoryDTO categoryDTO = new CategoryDTO(1L, NAME, null);
+        CategoryDTO categoryDTO = new CategoryDTO(1L, NAME, null, null, null, null);
 
         //when
         Category category = categoryMapper.categoryDtoToCategory(categoryDTO);
@@ -1,21 +1,31 @@
 package com.blogen.api.v1.mappers;
 
 import com.blogen.api.v1.model.CategoryDTO;
+import com.blogen.api.v1.model.NormalizedPostDTO;
+import com.blogen.api.v1.model.NormalizedPostListDTO;
+import com.blogen.api.v1.model.PageInfoResponse;
 import com.blogen.api.v1.model.PostDTO;
+import com.blogen.api.v1.model.PostListDTO;
 import com.blogen.api.v1.model.PostUserDTO;
 import com.blogen.domain.*;
 import com.blogen.utils.DomainBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 /**
@@ -141,6 +151,78 @@ public class PostMapperTest {
 
     }
 
+    @Test
+    public void should_mapExcerptButNotTextNorChildren_when_postToPostSummaryDto() {
+        //when
+        PostDTO postDTO = postMapper.postToPostSummaryDto(parent);
+
+        //then
+        assertThat(postDTO.getText(), is(nullValue()));
+        assertThat(postDTO.getExcerpt(), is(PARENT_POST_TEXT));
+        assertThat(postDTO.getChildren(), is(nullValue()));
+        assertThat(postDTO.getReplyCount(), is(1));
+    }
+
+    @Test
+    public void should_truncateExcerptAtWhitespace_when_textIsLongerThanExcerptLength() {
+        String longText = String.join(" ", Collections.nCopies(100, "word"));
+
+        parent.setText(longText);
+
+        assertThat(parent.getText(), is(longText));
+        assertThat(parent.getExcerpt().length(), lessThanOrEqualTo(Post.EXCERPT_LENGTH));
+        assertThat(parent.getExcerpt(), endsWith("word..."));
+    }
+
+    @Test
+    public void should_referToUsersAndCategoriesById_when_postListDtoToNormalizedPostListDto() {
+        //given a thread by user1 with a reply by user2, and a second thread by user1
+        Post thread2 = new Post();
+        thread2.setId(POST_ID);
+        thread2.setCategory(parent.getCategory());
+        thread2.setUser(parent.getUser());
+        PageInfoResponse pageInfo = PageInfoResponse.builder().pageNumber(0).pageSize(2).totalElements(2L).build();
+        PostListDTO postListDTO = new PostListDTO(
+                Arrays.asList(postMapper.postToPostDto(parent), postMapper.postToPostDto(thread2)), pageInfo);
+
+        //when
+        NormalizedPostListDTO normalized = postMapper.postListDtoToNormalizedPostListDto(postListDTO);
+
+        //then
+        assertThat(normalized.getUsers().keySet(), contains(USER1_ID, USER2_ID));
+        assertThat(normalized.getUsers().get(USER2_ID).getUserName(), is(USER2_USERNAME));
+        assertThat(normalized.getCategories().keySet(), contains(CAT1_ID));
+        assertThat(normalized.getPageInfo(), is(pageInfo));
+
+        NormalizedPostDTO post1 = normalized.getPosts().get(0);
+        assertThat(post1.getUserId(), is(USER1_ID));
+        assertThat(post1.getCategoryId(), is(CAT1_ID));
+        assertThat(post1.getLastReplierId(), is(USER2_ID));
+        assertThat(post1.getText(), is(PARENT_POST_TEXT));
+        assertThat(post1.getChildren().get(0).getUserId(), is(USER2_ID));
+        assertThat(normalized.getPosts().get(1).getId(), is(POST_ID));
+    }
+
+    @Test
+    public void should_serializeSmallerPayload_when_postsAreNormalized() throws Exception {
+        //given a page of threads by the same user, each last replied to by the same other user
+        List<PostDTO> posts = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            PostDTO postDTO = postMapper.postToPostSummaryDto(parent);
+            postDTO.getUser().setAvatarUrl("/avatars/" + USER1_AVATAR);
+            posts.add(postDTO);
+        }
+        PostListDTO postListDTO = new PostListDTO(posts, PageInfoResponse.builder().build());
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+        //when
+        int size = objectMapper.writeValueAsBytes(postListDTO).length;
+        int normalizedSize = objectMapper.writeValueAsBytes(postMapper.postListDtoToNormalizedPostListDto(postListDTO)).length;
+
+        //then
+        assertThat(normalizedSize, lessThan(size));
+    }
+
     @Test
     public void should_mapPostDTOtoPost_when_postDTOtoPost() {
         //given
@@ -77,7 +77,7 @@ public class UserMapperTest {
     public void userDtoToUser() {
         //given
         List<String> roles = Arrays.asList("USER", "ADMIN");
-        UserDTO userDTO = new UserDTO(ID, FIRSTNAME, LASTNAME, USERNAME, EMAIL, PASSWORD, AVATAR_IMAGE, roles, null);
+        UserDTO userDTO = new UserDTO(ID, FIRSTNAME, LASTNAME, USERNAME, EMAIL, PASSWORD, AVATAR_IMAGE, roles, null, null, null);
 
         //when
         User user = userMapper.userDtoToUser(userDTO);
@@ -95,7 +95,7 @@ public class UserMapperTest {
     public void userDtoToUser_withNullId_shouldSetUserIdToNull() {
         //given
         List<String> roles = Arrays.asList("USER", "ADMIN");
-        UserDTO userDTO = new UserDTO(null, FIRSTNAME, LASTNAME, USERNAME, EMAIL, PASSWORD, AVATAR_IMAGE, roles, null);
+        UserDTO userDTO = new UserDTO(null, FIRSTNAME, LASTNAME, USERNAME, EMAIL, PASSWORD, AVATAR_IMAGE, roles, null, null, null);
 
         //when
         User user = userMapper.userDtoToUser(userDTO);
@@ -0,0 +1,84 @@
+package com.blogen.api.v1.services;
+
+import com.blogen.api.v1.model.PostActivityDTO;
+import com.blogen.api.v1.model.PostActivityListDTO;
+import com.blogen.exceptions.BadRequestException;
+import com.blogen.services.analytics.PostActivityAggregates;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+
+/**
+ * Unit Tests for AnalyticsServiceImpl
+ *
+ * @author Cliff
+ */
+public class AnalyticsServiceImplTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Mock
+    private PostActivityAggregates postActivityAggregates;
+
+    private AnalyticsServiceImpl analyticsService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        analyticsService = new AnalyticsServiceImpl(postActivityAggregates);
+        given(postActivityAggregates.getRetentionDays()).willReturn(90);
+    }
+
+    @Test
+    public void should_readWholeDays_andSetCategoryUrls() {
+        PostActivityDTO activity = PostActivityDTO.builder().start(TODAY.atStartOfDay()).categoryId(3L).posts(2).build();
+        given(postActivityAggregates.getActivity(TODAY.minusDays(1).atStartOfDay(), TODAY.plusDays(1).atStartOfDay(),
+                true, null)).willReturn(new ArrayList<>(List.of(activity)));
+
+        PostActivityListDTO list = analyticsService.getPostActivity(TODAY.minusDays(1), TODAY,
+                AnalyticsService.GRANULARITY_DAY, -1L);
+
+        assertThat(list.getActivity().get(0).getCategoryUrl(), is("/api/v1/categories/3"));
+        assertThat(list.getFrom(), is(TODAY.minusDays(1)));
+        assertThat(list.getGranularity(), is(AnalyticsService.GRANULARITY_DAY));
+    }
+
+    @Test
+    public void should_readOneCategory_byHour() {
+        given(postActivityAggregates.getActivity(TODAY.atStartOfDay(), TODAY.plusDays(1).atStartOfDay(), false, 3L))
+                .willReturn(new ArrayList<>());
+
+        analyticsService.getPostActivity(TODAY, TODAY, AnalyticsService.GRANULARITY_HOUR, 3L);
+
+        then(postActivityAggregates).should().getActivity(TODAY.atStartOfDay(), TODAY.plusDays(1).atStartOfDay(),
+                false, 3L);
+    }
+
+    @Test
+    public void should_throwBadRequest_when_rangeCannotBeRead() {
+        assertThrows(BadRequestException.class,
+                () -> analyticsService.getPostActivity(TODAY, TODAY.minusDays(1), AnalyticsService.GRANULARITY_DAY, -1L));
+        assertThrows(BadRequestException.class,
+                () -> analyticsService.getPostActivity(TODAY.minusDays(90), TODAY, AnalyticsService.GRANULARITY_DAY, -1L));
+        assertThrows(BadRequestException.class,
+                () -> analyticsService.getPostActivity(TODAY.minusDays(31), TODAY, AnalyticsService.GRANULARITY_HOUR, -1L));
+        assertThrows(BadRequestException.class,
+                () -> analyticsService.getPostActivity(TODAY, TODAY, "week", -1L));
+
+        then(postActivityAggregates).should(never()).getActivity(any(), any(), anyBoolean(), any());
+    }
+}
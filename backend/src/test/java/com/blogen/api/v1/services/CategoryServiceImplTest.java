@@ -1,13 +1,21 @@
 package com.blogen.api.v1.services;
 
 import com.blogen.api.v1.controllers.CategoryController;
+import com.blogen.api.v1.controllers.PostController;
 import com.blogen.api.v1.mappers.CategoryMapper;
 import com.blogen.api.v1.model.CategoryDTO;
 import com.blogen.api.v1.model.CategoryListDTO;
 import com.blogen.domain.Category;
 import com.blogen.exceptions.BadRequestException;
 import com.blogen.repositories.CategoryRepository;
+import com.blogen.repositories.LatestThread;
+import com.blogen.repositories.PostRepository;
+import com.blogen.services.analytics.UniqueCounts;
+import com.blogen.services.utils.CategoryRegistry;
 import com.blogen.services.utils.PageRequestBuilder;
+import com.blogen.services.utils.PostCounts;
+import com.blogen.services.utils.PostJsonCache;
+import com.blogen.services.utils.ResourceVersion;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -20,6 +28,7 @@ import org.springframework.data.domain.Sort;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -45,6 +54,21 @@ public class CategoryServiceImplTest {
     @Mock
     private PageRequestBuilder pageRequestBuilder;
 
+    @Mock
+    private PostJsonCache postJsonCache;
+
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private PostCounts postCounts;
+
+    @Mock
+    private UniqueCounts uniqueCounts;
+
+    @Mock
+    private CategoryRegistry categoryRegistry;
+
     @Mock
     private CategoryMapper categoryMapper = CategoryMapper.INSTANCE;
 
@@ -58,7 +82,8 @@ public class CategoryServiceImplTest {
     @BeforeEach
     public void setUp() throws Exception {
         MockitoAnnotations.initMocks( this );
-        categoryService = new CategoryServiceImpl( categoryRepository, categoryMapper, pageRequestBuilder );
+        categoryService = new CategoryServiceImpl( categoryRepository, categoryMapper, pageRequestBuilder, postJsonCache,
+                postRepository, postCounts, uniqueCounts, categoryRegistry );
         businessCat = Category.builder().id(1L).name("Business").created(LocalDateTime.now()).build();
         healthCat = Category.builder().id(2L).name("Health & Wellness").created(LocalDateTime.now()).build();
         techCat = Category.builder().id(3L).name("Technology").created(LocalDateTime.now()).build();
@@ -69,42 +94,51 @@ public class CategoryServiceImplTest {
 
     @Test
     public void should_return_list_of_three_categories_when_getCategories_with_pageSize_of_3() {
-        List<Category> categories = Arrays.asList(businessCat,healthCat,techCat);
+        List<CategoryDTO> categories = Arrays.asList(businessCatDto,healthCatDto,techCatDto);
         PageRequest pageRequest = PageRequest.of(0,3,Sort.Direction.DESC, "id");
-        Page<Category> page = new PageImpl(categories);
+        Page<CategoryDTO> page = new PageImpl<>(categories);
 
         given( pageRequestBuilder.buildPageRequest(0, 3, Sort.Direction.DESC, "id")).willReturn(pageRequest);
-        given( categoryMapper.categoryToCategoryDto(businessCat)).willReturn(businessCatDto);
-        given( categoryMapper.categoryToCategoryDto(healthCat)).willReturn(healthCatDto);
-        given( categoryMapper.categoryToCategoryDto(techCat)).willReturn(techCatDto);
-        given( categoryRepository.findAllBy(pageRequest)).willReturn(page);
+        given( categoryRegistry.getCategoryDtos(pageRequest)).willReturn(page);
+        given( postCounts.getCategoryPostCounts(Arrays.asList(1L, 2L, 3L))).willReturn(Map.of(1L, 4L, 2L, 0L, 3L, 7L));
+        given( postCounts.getLatestThreads(Arrays.asList(1L, 2L, 3L)))
+                .willReturn(Map.of(3L, new LatestThread(12L, "Latest", LocalDateTime.now())));
 
         CategoryListDTO categoryListDTOs = categoryService.getCategories(0,3);
 
-        then( categoryRepository ).should().findAllBy(pageRequest);
-        then( categoryMapper ).should( times(3) ).categoryToCategoryDto( any(Category.class) );
+        then( categoryRegistry ).should().getCategoryDtos(pageRequest);
+        then( categoryRepository ).shouldHaveNoInteractions();
+        then( categoryMapper ).shouldHaveNoInteractions();
         then( pageRequestBuilder ).should().buildPageRequest(0,3, Sort.Direction.DESC, "id");
         assertThat( categoryListDTOs.getCategories(), hasSize(3) );
+        assertThat( categoryListDTOs.getCategories().get(2).getPostCount(), is(7L) );
+        assertThat( categoryListDTOs.getCategories().get(2).getLatestThread().getPostUrl(), is(PostController.BASE_URL + "/12") );
+        assertThat( categoryListDTOs.getCategories().get(1).getLatestThread(), is(nullValue()) );
     }
 
     @Test
     public void should_return_one_category_with_CategoryUrl_when_getCategory() {
 
-        given( categoryRepository.findById( anyLong() ) ).willReturn( Optional.of(businessCat) );
-        given( categoryMapper.categoryToCategoryDto(any(Category.class))).willReturn( businessCatDto );
+        businessCatDto.setCategoryUrl( CategoryController.BASE_URL + "/1" );
+        given( categoryRegistry.getCategoryDto( anyLong() ) ).willReturn( Optional.of(businessCatDto) );
+        given( postCounts.getCategoryPostCounts(List.of(1L))).willReturn( Map.of(1L, 4L) );
+        given( uniqueCounts.getWeeklyAuthorCounts(List.of(1L))).willReturn( Map.of(1L, 3L) );
 
         CategoryDTO dto = categoryService.getCategory( 1L );
 
-        then( categoryRepository ).should().findById(1L);
+        then( categoryRegistry ).should().getCategoryDto(1L);
+        then( categoryRepository ).shouldHaveNoInteractions();
         assertThat( dto, is( notNullValue() ));
         assertThat( dto.getCategoryUrl(), is( CategoryController.BASE_URL + "/1") );
+        assertThat( dto.getPostCount(), is( 4L ) );
+        assertThat( dto.getWeeklyAuthorCount(), is( 3L ) );
     }
 
     @Test
     public void should_throwBadRequestException_when_invalidID_getCategory() {
         //id does not exist
         Long catId = 9445L;
-        given( categoryRepository.findById(anyLong())).willReturn( Optional.empty() );
+        given( categoryRegistry.getCategoryDto(anyLong())).willReturn( Optional.empty() );
 
         assertThrows(BadRequestException.class, () -> categoryService.getCategory( catId ));
     }
@@ -112,7 +146,7 @@ public class CategoryServiceImplTest {
     @Test
     public void should_createNewCategory_when_given_newCategoryDTO() {
         Category newCat = Category.builder().id(5L).name("New Category").created(LocalDateTime.now()).build();
-        CategoryDTO newCatDTO = new CategoryDTO(5L,"New Category", CategoryController.BASE_URL + "/5" );
+        CategoryDTO newCatDTO = new CategoryDTO(5L,"New Category", CategoryController.BASE_URL + "/5", null, null, null);
 
         given( categoryRepository.save( any(Category.class))).willReturn(newCat);
         given( categoryMapper.categoryDtoToCategory( any(CategoryDTO.class) )).willReturn(newCat);
@@ -122,9 +156,69 @@ public class CategoryServiceImplTest {
         CategoryDTO dto = categoryService.createNewCategory( newCatDTO );
 
         then( categoryRepository ).should().save( newCat );
+        then( categoryRegistry ).should().put( newCat );
         assertThat( dto, is( notNullValue() ));
         assertThat( dto.getId(), is(5L) );
         assertThat( dto.getName(), is("New Category") );
         assertThat( dto.getCategoryUrl(), is( CategoryController.BASE_URL + "/" + newCat.getId() ));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void should_changeCategoryVersion_when_nameChanges() {
+        given( categoryRegistry.getCategoryDto(1L) )
+                .willReturn( Optional.of(CategoryDTO.builder().id(1L).name("Business").build()) )
+                .willReturn( Optional.of(CategoryDTO.builder().id(1L).name("Business").build()) )
+                .willReturn( Optional.of(CategoryDTO.builder().id(1L).name("Finance").build()) );
+        ResourceVersion version = categoryService.getCategoryVersion( 1L );
+        ResourceVersion sameVersion = categoryService.getCategoryVersion( 1L );
+
+        ResourceVersion renamedVersion = categoryService.getCategoryVersion( 1L );
+
+        assertThat( sameVersion, is(version) );
+        assertThat( renamedVersion.getTag(), is( not(version.getTag()) ) );
+        then( categoryMapper ).shouldHaveNoInteractions();
+    }
+
+    @Test
+    public void should_changeCategoryVersion_when_postCountChanges() {
+        given( categoryRegistry.getCategoryDto(1L) ).willReturn( Optional.of(businessCatDto) );
+        given( postCounts.getCategoryPostCounts(List.of(1L)) )
+                .willReturn( Map.of(1L, 4L) )
+                .willReturn( Map.of(1L, 5L) );
+
+        ResourceVersion version = categoryService.getCategoryVersion( 1L );
+        ResourceVersion postedVersion = categoryService.getCategoryVersion( 1L );
+
+        assertThat( postedVersion.getTag(), is( not(version.getTag()) ) );
+    }
+
+    @Test
+    public void should_changeCategoriesVersion_when_pageContentChanges() {
+        PageRequest pageRequest = PageRequest.of(0,3,Sort.Direction.DESC, "id");
+        given( pageRequestBuilder.buildPageRequest(0, 3, Sort.Direction.DESC, "id")).willReturn(pageRequest);
+        given( categoryRegistry.getCategoryDtos(pageRequest))
+                .willReturn( new PageImpl<>(Arrays.asList(businessCatDto, healthCatDto), pageRequest, 2) )
+                .willReturn( new PageImpl<>(Arrays.asList(businessCatDto, healthCatDto), pageRequest, 2) )
+                .willReturn( new PageImpl<>(Arrays.asList(businessCatDto, healthCatDto, techCatDto), pageRequest, 3) );
+
+        ResourceVersion first = categoryService.getCategoriesVersion(0, 3);
+        ResourceVersion unchanged = categoryService.getCategoriesVersion(0, 3);
+        ResourceVersion added = categoryService.getCategoriesVersion(0, 3);
+
+        assertThat( unchanged, is(first) );
+        assertThat( added.getTag(), is( not(first.getTag()) ) );
+    }
+
+    @Test
+    public void should_incrementVersionOfPostsInCategory_when_updateCategory() {
+        given( categoryRepository.findById(1L) ).willReturn( Optional.of(businessCat) );
+        given( categoryRepository.save(businessCat) ).willReturn( businessCat );
+
+        categoryService.updateCategory( 1L, CategoryDTO.builder().name("Finance").build() );
+
+        then( postRepository ).should().incrementVersionOfPostsInCategory(1L);
+        then( postRepository ).should().incrementVersionOfThreadsWithRepliesInCategory(1L);
+        then( postJsonCache ).should().invalidateAll();
+        then( categoryRegistry ).should().put( businessCat );
+    }
+}
@@ -0,0 +1,261 @@
+package com.blogen.api.v1.services;
+
+import com.blogen.api.v1.model.PostDTO;
+import com.blogen.api.v1.model.PostEventDTO;
+import com.blogen.api.v1.model.PostSliceDTO;
+import com.blogen.domain.Follow;
+import com.blogen.exceptions.BadRequestException;
+import com.blogen.exceptions.NotFoundException;
+import com.blogen.repositories.FollowRepository;
+import com.blogen.repositories.PostKey;
+import com.blogen.repositories.PostRepository;
+import com.blogen.repositories.UserRepository;
+import com.blogen.services.utils.KeysetCursor;
+import com.blogen.services.utils.TimelineStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+/**
+ * Unit Tests for the follows and home feeds of FeedServiceImpl
+ *
+ * @author Cliff
+ */
+public class FeedServiceImplTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2017, 1, 1, 12, 0);
+    private static final Long USER_ID = 1L;
+    private static final Long AUTHOR_ID = 2L;
+    private static final Long POPULAR_AUTHOR_ID = 3L;
+    private static final long MAX_FAN_OUT_FOLLOWERS = 2;
+
+    private FeedServiceImpl feedService;
+
+    private TimelineStore timelineStore;
+
+    @Mock
+    private FollowRepository followRepository;
+
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PostService postService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        timelineStore = new TimelineStore(500, 100);
+        feedService = new FeedServiceImpl(followRepository, postRepository, userRepository, postService,
+                timelineStore, MAX_FAN_OUT_FOLLOWERS);
+        given(userRepository.existsById(any())).willReturn(true);
+        given(postService.getPostSummaries(anyList())).willAnswer(invocation -> {
+            List<PostDTO> postDTOS = new ArrayList<>();
+            List<Long> ids = invocation.getArgument(0);
+            ids.forEach(id -> postDTOS.add(buildPostDTO(id)));
+            return postDTOS;
+        });
+        // the user follows an author, whose posts are fanned out, and a popular author, whose posts are merged on read
+        given(followRepository.findFollowedIds(USER_ID)).willReturn(Arrays.asList(AUTHOR_ID, POPULAR_AUTHOR_ID));
+        given(followRepository.findFollowedIdsWithMoreFollowersThan(USER_ID, MAX_FAN_OUT_FOLLOWERS))
+                .willReturn(Collections.singletonList(POPULAR_AUTHOR_ID));
+        given(postRepository.findTimelineKeys(Set.of(AUTHOR_ID), PageRequest.of(0, 500)))
+                .willReturn(Arrays.asList(postKey(30L), postKey(10L)));
+    }
+
+    @Test
+    public void should_mergePostsOfPopularAuthors_when_getFeed() {
+        given(postRepository.findTimelineKeys(Set.of(POPULAR_AUTHOR_ID), PageRequest.of(0, 2)))
+                .willReturn(Arrays.asList(postKey(20L), postKey(15L)));
+
+        PostSliceDTO feed = feedService.getFeed(USER_ID, null, 2);
+
+        assertThat(ids(feed.getPosts()), contains(30L, 20L));
+        assertThat(KeysetCursor.decode(feed.getNextCursor()), is(post(20L)));
+    }
+
+    @Test
+    public void should_readStoredTimeline_when_getFeedAgain() {
+        given(postRepository.findTimelineKeysBefore(Set.of(POPULAR_AUTHOR_ID), post(20L).getCreated(), 20L,
+                PageRequest.of(0, 2))).willReturn(Arrays.asList(postKey(15L)));
+
+        feedService.getFeed(USER_ID, null, 2);
+        PostSliceDTO feed = feedService.getFeed(USER_ID, post(20L).encode(), 2);
+
+        assertThat(ids(feed.getPosts()), contains(15L, 10L));
+        then(followRepository).should(times(1)).findFollowedIds(USER_ID);
+        then(postRepository).should(times(1)).findTimelineKeys(Set.of(AUTHOR_ID), PageRequest.of(0, 500));
+    }
+
+    @Test
+    public void should_addNewPostToFeed_when_postOfFollowedAuthorIsCreated() {
+        given(followRepository.findFollowerIds(AUTHOR_ID)).willReturn(Collections.singletonList(USER_ID));
+        feedService.getFeed(USER_ID, null, 5);
+
+        feedService.onPostEvent(buildEvent(PostEventDTO.POST_CREATED, 40L, AUTHOR_ID));
+
+        assertThat(ids(feedService.getFeed(USER_ID, null, 5).getPosts()), contains(40L, 30L, 10L));
+    }
+
+    @Test
+    public void should_notFanOutPost_when_authorHasTooManyFollowers() {
+        given(followRepository.findFollowerIds(POPULAR_AUTHOR_ID)).willReturn(Arrays.asList(USER_ID, 4L, 5L));
+        feedService.getFeed(USER_ID, null, 5);
+
+        feedService.onPostEvent(buildEvent(PostEventDTO.POST_CREATED, 40L, POPULAR_AUTHOR_ID));
+
+        assertThat(entryIds(timelineStore.get(USER_ID).getEntries()), contains(30L, 10L));
+    }
+
+    @Test
+    public void should_removePostFromFeed_when_postIsDeleted() {
+        given(followRepository.findFollowerIds(AUTHOR_ID)).willReturn(Collections.singletonList(USER_ID));
+        feedService.getFeed(USER_ID, null, 5);
+
+        feedService.onPostEvent(buildEvent(PostEventDTO.POST_DELETED, 30L, AUTHOR_ID));
+
+        assertThat(entryIds(timelineStore.get(USER_ID).getEntries()), contains(10L));
+    }
+
+    @Test
+    public void should_saveFollowAndRebuildFeed_when_follow() {
+        feedService.getFeed(USER_ID, null, 5);
+        given(followRepository.countByFollowedId(4L)).willReturn(1L);
+
+        feedService.follow(USER_ID, 4L);
+
+        then(followRepository).should().save(any(Follow.class));
+        assertThat(timelineStore.get(USER_ID), is(nullValue()));
+    }
+
+    @Test
+    public void should_rebuildEveryFeed_when_followedUserBecomesPopular() {
+        feedService.getFeed(USER_ID, null, 5);
+        given(followRepository.countByFollowedId(AUTHOR_ID))
+                .willReturn(MAX_FAN_OUT_FOLLOWERS).willReturn(MAX_FAN_OUT_FOLLOWERS + 1);
+
+        feedService.follow(5L, AUTHOR_ID);
+
+        assertThat(timelineStore.get(USER_ID), is(nullValue()));
+    }
+
+    @Test
+    public void should_rebuildEveryFeed_when_concurrentFollowsMakeFollowedUserPopular() {
+        feedService.getFeed(USER_ID, null, 5);
+        // another follow committed between the two counts, so the count skips the first count over the limit
+        given(followRepository.countByFollowedId(AUTHOR_ID))
+                .willReturn(MAX_FAN_OUT_FOLLOWERS).willReturn(MAX_FAN_OUT_FOLLOWERS + 2);
+
+        feedService.follow(5L, AUTHOR_ID);
+
+        assertThat(timelineStore.get(USER_ID), is(nullValue()));
+    }
+
+    @Test
+    public void should_notRebuildOtherFeeds_when_followedUserWasAlreadyPopular() {
+        feedService.getFeed(USER_ID, null, 5);
+        given(followRepository.countByFollowedId(AUTHOR_ID))
+                .willReturn(MAX_FAN_OUT_FOLLOWERS + 1).willReturn(MAX_FAN_OUT_FOLLOWERS + 2);
+
+        feedService.follow(5L, AUTHOR_ID);
+
+        assertThat(timelineStore.get(USER_ID), is(notNullValue()));
+    }
+
+    @Test
+    public void should_rebuildEveryFeed_when_unfollowedUserIsNoLongerPopular() {
+        feedService.getFeed(USER_ID, null, 5);
+        given(followRepository.deleteFollow(5L, AUTHOR_ID)).willReturn(1);
+        given(followRepository.countByFollowedId(AUTHOR_ID))
+                .willReturn(MAX_FAN_OUT_FOLLOWERS + 1).willReturn(MAX_FAN_OUT_FOLLOWERS - 1);
+
+        feedService.unfollow(5L, AUTHOR_ID);
+
+        assertThat(timelineStore.get(USER_ID), is(nullValue()));
+    }
+
+    @Test
+    public void should_doNothing_when_followUserAlreadyFollowed() {
+        given(followRepository.existsByFollowerIdAndFollowedId(USER_ID, AUTHOR_ID)).willReturn(true);
+
+        feedService.follow(USER_ID, AUTHOR_ID);
+
+        then(followRepository).should(never()).save(any(Follow.class));
+    }
+
+    @Test
+    public void should_throwBadRequestException_when_userFollowsThemselves() {
+        assertThrows(BadRequestException.class, () -> feedService.follow(USER_ID, USER_ID));
+    }
+
+    @Test
+    public void should_throwNotFoundException_when_getFeedOfUserThatDoesNotExist() {
+        given(userRepository.existsById(99L)).willReturn(false);
+
+        assertThrows(NotFoundException.class, () -> feedService.getFeed(99L, null, 5));
+    }
+
+    // posts are created a minute apart, in the order of their ids
+    private static KeysetCursor post(Long id) {
+        return new KeysetCursor(NOON.plusMinutes(id), id);
+    }
+
+    private static PostKey postKey(Long id) {
+        return new PostKey() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public LocalDateTime getCreated() {
+                return post(id).getCreated();
+            }
+        };
+    }
+
+    private static PostEventDTO buildEvent(String type, Long postId, Long userId) {
+        return PostEventDTO.builder().type(type).postId(postId).userId(userId).occurred(post(postId).getCreated())
+                .build();
+    }
+
+    private static PostDTO buildPostDTO(Long id) {
+        PostDTO postDTO = new PostDTO();
+        postDTO.setId(id);
+        return postDTO;
+    }
+
+    private static List<Long> entryIds(List<KeysetCursor> entries) {
+        List<Long> ids = new ArrayList<>();
+        entries.forEach(entry -> ids.add(entry.getId()));
+        return ids;
+    }
+
+    private static List<Long> ids(List<PostDTO> posts) {
+        List<Long> ids = new ArrayList<>();
+        posts.forEach(post -> ids.add(post.getId()));
+        return ids;
+    }
+}
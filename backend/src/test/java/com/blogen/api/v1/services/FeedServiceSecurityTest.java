@@ -0,0 +1,82 @@
+package com.blogen.api.v1.services;
+
+import com.blogen.repositories.FollowRepository;
+import com.blogen.repositories.PostRepository;
+import com.blogen.repositories.UserRepository;
+import com.blogen.services.utils.TimelineStore;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+
+/**
+ * Tests that only a user themselves, or an admin, can follow for a user and read their feed
+ *
+ * @author Cliff
+ */
+@SpringJUnitConfig(FeedServiceSecurityTest.Config.class)
+public class FeedServiceSecurityTest {
+
+    @Configuration
+    // class proxies, as Spring Boot makes them, FeedServiceImpl has an event listener that is not on its interface
+    @EnableGlobalMethodSecurity(prePostEnabled = true, proxyTargetClass = true)
+    static class Config {
+
+        @Bean
+        FollowRepository followRepository() {
+            return Mockito.mock(FollowRepository.class);
+        }
+
+        @Bean
+        UserRepository userRepository() {
+            UserRepository userRepository = Mockito.mock(UserRepository.class);
+            given(userRepository.existsById(Mockito.any())).willReturn(true);
+            return userRepository;
+        }
+
+        @Bean
+        FeedService feedService(FollowRepository followRepository, UserRepository userRepository) {
+            return new FeedServiceImpl(followRepository, Mockito.mock(PostRepository.class), userRepository,
+                    Mockito.mock(PostService.class), new TimelineStore(500, 100), 1000);
+        }
+    }
+
+    @Autowired
+    private FeedService feedService;
+
+    @Autowired
+    private FollowRepository followRepository;
+
+    @Test
+    @WithMockUser(username = "3", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_throw_accessDenied_when_user_acts_for_another_user() {
+        assertThrows(AccessDeniedException.class, () -> feedService.follow(1L, 2L));
+        assertThrows(AccessDeniedException.class, () -> feedService.unfollow(1L, 2L));
+        assertThrows(AccessDeniedException.class, () -> feedService.getFeed(1L, null, 20));
+    }
+
+    @Test
+    @WithMockUser(username = "1", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_USER"})
+    public void should_allow_user_to_follow_for_themselves() {
+        feedService.follow(1L, 2L);
+
+        then(followRepository).should().existsByFollowerIdAndFollowedId(1L, 2L);
+    }
+
+    @Test
+    @WithMockUser(username = "3", authorities = {"SCOPE_ROLE_API", "SCOPE_ROLE_ADMIN"})
+    public void should_allow_admins_to_unfollow_for_another_user() {
+        feedService.unfollow(1L, 2L);
+
+        then(followRepository).should().deleteFollow(1L, 2L);
+    }
+}
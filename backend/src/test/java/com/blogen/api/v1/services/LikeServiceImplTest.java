@@ -0,0 +1,132 @@
+package com.blogen.api.v1.services;
+
+import com.blogen.api.v1.model.PostLikesDTO;
+import com.blogen.domain.PostLike;
+import com.blogen.exceptions.NotFoundException;
+import com.blogen.repositories.PostLikeRepository;
+import com.blogen.repositories.PostRepository;
+import com.blogen.services.PrincipalService;
+import com.blogen.services.utils.PostLikeCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+/**
+ * Unit Tests for the likes of LikeServiceImpl
+ *
+ * @author Cliff
+ */
+public class LikeServiceImplTest {
+
+    private static final Long POST_ID = 1L;
+    private static final Long USER_ID = 5L;
+
+    private LikeService likeService;
+
+    @Mock
+    private PostLikeRepository postLikeRepository;
+
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private PrincipalService principalService;
+
+    @Mock
+    private PostLikeCounter postLikeCounter;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        likeService = new LikeServiceImpl(postLikeRepository, postRepository, principalService, postLikeCounter);
+        given(principalService.getPrincipalUserId()).willReturn(Optional.of(USER_ID));
+        given(postRepository.findLikeCountById(POST_ID)).willReturn(Optional.of(7L));
+    }
+
+    @Test
+    public void should_saveAndCountLike_when_likePost() {
+        given(postLikeCounter.pendingLikes(POST_ID)).willReturn(1L);
+
+        PostLikesDTO likes = likeService.likePost(POST_ID);
+
+        then(postLikeRepository).should().save(any(PostLike.class));
+        then(postLikeCounter).should().liked(POST_ID, USER_ID);
+        assertThat(likes.getLikeCount(), is(8L));
+        assertThat(likes.isLiked(), is(true));
+    }
+
+    @Test
+    public void should_notSaveLike_when_postIsAlreadyLiked() {
+        given(postLikeCounter.likes(POST_ID, USER_ID)).willReturn(true);
+
+        PostLikesDTO likes = likeService.likePost(POST_ID);
+
+        then(postLikeRepository).should(never()).save(any(PostLike.class));
+        assertThat(likes.isLiked(), is(true));
+    }
+
+    @Test
+    public void should_notCountLike_when_concurrentLikeWasSavedFirst() {
+        given(postLikeRepository.save(any(PostLike.class))).willThrow(new DataIntegrityViolationException("unique"));
+
+        PostLikesDTO likes = likeService.likePost(POST_ID);
+
+        then(postLikeCounter).should(never()).liked(anyLong(), anyLong());
+        assertThat(likes.isLiked(), is(true));
+    }
+
+    @Test
+    public void should_returnLikeCountReadAgain_when_concurrentLikeWasSavedFirst() {
+        // the concurrent like was flushed to the post between the two reads of the count
+        given(postRepository.findLikeCountById(POST_ID)).willReturn(Optional.of(7L)).willReturn(Optional.of(8L));
+        given(postLikeRepository.save(any(PostLike.class))).willThrow(new DataIntegrityViolationException("unique"));
+
+        PostLikesDTO likes = likeService.likePost(POST_ID);
+
+        then(postRepository).should(times(2)).findLikeCountById(POST_ID);
+        assertThat(likes.getLikeCount(), is(8L));
+        assertThat(likes.isLiked(), is(true));
+    }
+
+    @Test
+    public void should_throwNotFoundException_when_postWasDeletedWhileLiking() {
+        given(postRepository.findLikeCountById(POST_ID)).willReturn(Optional.of(7L)).willReturn(Optional.empty());
+        given(postLikeRepository.save(any(PostLike.class))).willThrow(new DataIntegrityViolationException("fk"));
+
+        assertThrows(NotFoundException.class, () -> likeService.likePost(POST_ID));
+        then(postLikeCounter).should(never()).liked(anyLong(), anyLong());
+    }
+
+    @Test
+    public void should_countUnlike_only_when_likeWasDeleted() {
+        given(postLikeRepository.deleteLike(POST_ID, USER_ID)).willReturn(1).willReturn(0);
+
+        likeService.unlikePost(POST_ID);
+        PostLikesDTO likes = likeService.unlikePost(POST_ID);
+
+        then(postLikeCounter).should().unliked(POST_ID, USER_ID);
+        assertThat(likes.isLiked(), is(false));
+    }
+
+    @Test
+    public void should_throwNotFoundException_when_likePostThatDoesNotExist() {
+        given(postRepository.findLikeCountById(99L)).willReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> likeService.likePost(99L));
+        then(postLikeRepository).should(never()).save(any(PostLike.class));
+    }
+}
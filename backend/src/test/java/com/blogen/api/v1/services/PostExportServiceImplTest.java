@@ -0,0 +1,104 @@
+package com.blogen.api.v1.services;
+
+import com.blogen.domain.Category;
+import com.blogen.domain.Post;
+import com.blogen.domain.User;
+import com.blogen.repositories.PostRepository;
+import com.blogen.utils.DomainBuilder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.times;
+
+/**
+ * Unit Tests for PostExportServiceImpl
+ *
+ * @author Cliff
+ */
+public class PostExportServiceImplTest {
+
+    private PostExportService postExportService;
+
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private Post thread1;
+    private Post child1;
+    private Post child2;
+    private Post thread2;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        postExportService = new PostExportServiceImpl(postRepository, entityManager, objectMapper);
+
+        Category cat = DomainBuilder.buildCategory(1L, "Business");
+        User user = DomainBuilder.buildUser(2L, "johndoe", "John", "Doe", "jd@gmail.com", null, null);
+        thread1 = DomainBuilder.buildPost(1L, "thread1 title", "thread1 text", null, cat, user, null);
+        child1 = DomainBuilder.buildPost(2L, "child1 title", "child1 text", null, cat, user, null);
+        child2 = DomainBuilder.buildPost(3L, "child2 title", "child2 text", null, cat, user, null);
+        thread1.addChild(child1);
+        thread1.addChild(child2);
+        thread2 = DomainBuilder.buildPost(4L, "thread2 title", "thread2 text", null, cat, user, null);
+    }
+
+    @Test
+    public void should_writeOneLinePerThread_when_exportThreads() throws Exception {
+        given(postRepository.streamAllByThread()).willReturn(Stream.of(thread1, child1, child2, thread2));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long threadCount = postExportService.exportThreads(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(threadCount, is(2L));
+        assertThat(lines.length, is(2));
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertThat(first.get("id").asLong(), is(1L));
+        assertThat(first.get("userName").asText(), is("johndoe"));
+        assertThat(first.get("categoryName").asText(), is("Business"));
+        assertThat(first.get("children").size(), is(2));
+        assertThat(first.get("children").get(1).get("title").asText(), is("child2 title"));
+        JsonNode second = objectMapper.readTree(lines[1]);
+        assertThat(second.get("id").asLong(), is(4L));
+        assertThat(second.get("children").size(), is(0));
+    }
+
+    @Test
+    public void should_detachEveryExportedPost_when_exportThreads() throws Exception {
+        given(postRepository.streamAllByThread()).willReturn(Stream.of(thread1, child1, child2, thread2));
+
+        postExportService.exportThreads(new ByteArrayOutputStream());
+
+        then(entityManager).should(times(4)).detach(any(Post.class));
+    }
+
+    @Test
+    public void should_writeNothing_when_thereAreNoPosts() throws Exception {
+        given(postRepository.streamAllByThread()).willReturn(Stream.empty());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long threadCount = postExportService.exportThreads(out);
+
+        assertThat(threadCount, is(0L));
+        assertThat(out.size(), is(0));
+    }
+}
@@ -8,26 +8,52 @@ import com.blogen.api.v1.mappers.PostRequestMapper;
 import com.blogen.api.v1.model.*;
 import com.blogen.domain.Category;
 import com.blogen.domain.Post;
+import com.blogen.domain.PostChange;
 import com.blogen.domain.User;
 import com.blogen.exceptions.BadRequestException;
 import com.blogen.exceptions.NotFoundException;
-import com.blogen.repositories.CategoryRepository;
+import com.blogen.repositories.PostChangeRepository;
 import com.blogen.repositories.PostRepository;
+import com.blogen.repositories.PostVersion;
 import com.blogen.services.AvatarService;
 import com.blogen.services.PrincipalService;
+import com.blogen.services.analytics.HeavyHitterTracker;
+import com.blogen.services.analytics.UniqueCounts;
+import com.blogen.services.utils.CategoryRegistry;
+import com.blogen.services.utils.ChangeToken;
+import com.blogen.services.utils.DuplicatePostIndex;
+import com.blogen.services.utils.RelatedThreadIndex;
+import com.blogen.services.utils.FieldSelection;
+import com.blogen.services.utils.KeysetCursor;
 import com.blogen.services.utils.PageRequestBuilder;
+import com.blogen.services.utils.PostCounts;
+import com.blogen.services.utils.PostJsonCache;
+import com.blogen.services.utils.PostLikeCounter;
+import com.blogen.services.utils.PostViewCounter;
+import com.blogen.services.utils.ResourceVersion;
+import com.blogen.services.utils.TrendingThreads;
 import com.blogen.utils.DomainBuilder;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 
+import javax.persistence.Tuple;
+import javax.persistence.TupleElement;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.UUID;
 
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -36,6 +62,9 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 
 /**
  * Unit Tests for PostServiceImpl
@@ -50,7 +79,7 @@ public class PostServiceImplTest {
     private PostRepository postRepository;
 
     @Mock
-    private CategoryRepository categoryRepository;
+    private CategoryRegistry categoryRegistry;
 
     @Mock
     private UserService userService;
@@ -70,6 +99,38 @@ public class PostServiceImplTest {
     @Mock
     private PostRequestMapper postRequestMapper;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PostChangeRepository postChangeRepository;
+
+    @Mock
+    private PostViewCounter postViewCounter;
+
+    @Mock
+    private PostLikeCounter postLikeCounter;
+
+    @Mock
+    private TrendingThreads trendingThreads;
+
+    @Mock
+    private DuplicatePostIndex duplicatePostIndex;
+
+    @Mock
+    private RelatedThreadIndex relatedThreadIndex;
+
+    @Mock
+    private PostCounts postCounts;
+
+    @Mock
+    private UniqueCounts uniqueCounts;
+
+    @Mock
+    private HeavyHitterTracker heavyHitterTracker;
+
+    private PostJsonCache postJsonCache;
+
     private static final Long CAT1_ID = 1L;
     private static final String CAT1_NAME = "Business";
     private static final String CAT1_URL = CategoryController.BASE_URL + "/" + CAT1_ID;
@@ -93,14 +154,20 @@ public class PostServiceImplTest {
     private static final String CHILD1_TEXT = "child1 text";
     private static final String POST1_IMAGE_URL = "http://image.to/111";
     private static final String POST1_URL = PostController.BASE_URL + "/" + POST1_ID;
+    private static final ResourceVersion POST1_VERSION =
+            ResourceVersion.weak("post-" + POST1_ID + "-v0-views0-likes0", null);
     private static final String CHILD1_POST_URL = PostController.BASE_URL + "/" + CHILD1_ID;
     private static final String CHILD1_PARENT_POST_URL = PostController.BASE_URL + "/" + POST1_ID;
 
     @BeforeEach
     public void setUp() throws Exception {
         MockitoAnnotations.initMocks(this);
-        postService = new PostServiceImpl(pageRequestBuilder, postRepository, categoryRepository,
-                userService, avatarService, postMapper, postRequestMapper, principalService);
+        postJsonCache = new PostJsonCache(1_000_000, 60);
+        postService = new PostServiceImpl(pageRequestBuilder, postRepository, categoryRegistry,
+                userService, avatarService, postMapper, postRequestMapper, principalService,
+                postJsonCache, Jackson2ObjectMapperBuilder.json().build(), eventPublisher,
+                postChangeRepository, postViewCounter, postLikeCounter, trendingThreads, duplicatePostIndex,
+                relatedThreadIndex, postCounts, uniqueCounts, heavyHitterTracker);
     }
 
     @Test
@@ -122,7 +189,7 @@ public class PostServiceImplTest {
 
         given(pageRequestBuilder.buildPageRequest(anyInt(), anyInt(), any(Sort.Direction.class), anyString())).willReturn(pageRequest);
         given(postRepository.findAllByParentNullOrderByCreatedDesc(pageRequest)).willReturn(page);
-        given(postMapper.postToPostDto(post1)).willReturn(post1DTO);
+        given(postMapper.postToPostSummaryDto(post1)).willReturn(post1DTO);
 
         PostListDTO postDTOS = postService.getPosts(-1L, pageNum, pageSize);
 
@@ -143,8 +210,8 @@ public class PostServiceImplTest {
         Page<Post> page = new PageImpl<Post>(posts);
 
         given(pageRequestBuilder.buildPageRequest(anyInt(), anyInt(), any(Sort.Direction.class), anyString())).willReturn(pageRequest);
-        given(postRepository.ByParentNullOrderByCreatedDesc(any(Pageable.class))).willReturn(page);
-        given(postMapper.postToPostDto(post1)).willReturn(postDTO1);
+        given(postRepository.findAllByParentNullOrderByCreatedDesc(any(Pageable.class))).willReturn(page);
+        given(postMapper.postToPostSummaryDto(post1)).willReturn(postDTO1);
 
         PostListDTO postDTOS = postService.getPosts(-1L, pageNum, pageSize);
 
@@ -169,6 +236,181 @@ public class PostServiceImplTest {
         assertThat(postDTO.getText(), is(POST1_TEXT));
     }
 
+    @Test
+    public void should_addPendingViewsAndLikesToCounts_when_getPost() {
+        Post post1 = buildPost1();
+        PostDTO post1DTO = buildPost1DTO();
+        post1DTO.setViewCount(40);
+        post1DTO.setLikeCount(5);
+
+        given(postRepository.findById(POST1_ID)).willReturn(Optional.of(post1));
+        given(postMapper.postToPostDto(post1)).willReturn(post1DTO);
+        given(postViewCounter.pendingViews(POST1_ID)).willReturn(2L);
+        given(postLikeCounter.pendingLikes(POST1_ID)).willReturn(-1L);
+        given(uniqueCounts.getViewerCounts(List.of(POST1_ID))).willReturn(Map.of(POST1_ID, 11L));
+
+        PostDTO postDTO = postService.getPost(POST1_ID);
+
+        assertThat(postDTO.getViewCount(), is(42L));
+        assertThat(postDTO.getLikeCount(), is(4L));
+        assertThat(postDTO.getViewerCount(), is(11L));
+    }
+
+    @Test
+    public void should_countViewAndViewer_when_recordView() {
+        given(principalService.getPrincipalUserId()).willReturn(Optional.of(USER_ID));
+
+        postService.recordView(POST1_ID);
+
+        then(postViewCounter).should().recordView(POST1_ID);
+        then(uniqueCounts).should().viewed(POST1_ID, USER_ID);
+    }
+
+    @Test
+    public void should_serializePostOnce_when_getPostJsonCalledTwice() throws Exception {
+        Post post1 = buildPost1();
+        given(postRepository.findById(POST1_ID)).willReturn(Optional.of(post1));
+        given(postMapper.postToPostDto(post1)).willReturn(buildPost1DTO());
+
+        byte[] json = postService.getPostJson(POST1_ID, POST1_VERSION);
+        byte[] cachedJson = postService.getPostJson(POST1_ID, POST1_VERSION);
+
+        then(postRepository).should(times(1)).findById(POST1_ID);
+        assertThat(cachedJson, is(json));
+        PostDTO postDTO = Jackson2ObjectMapperBuilder.json().build().readValue(json, PostDTO.class);
+        assertThat(postDTO.getText(), is(POST1_TEXT));
+        assertThat(postDTO.getPostUrl(), is(POST1_URL));
+    }
+
+    @Test
+    public void should_serializePostAgain_when_getPostJsonOfAnotherVersion() {
+        Post post1 = buildPost1();
+        given(postRepository.findById(POST1_ID)).willReturn(Optional.of(post1));
+        given(postMapper.postToPostDto(post1)).willReturn(buildPost1DTO());
+        postService.getPostJson(POST1_ID, POST1_VERSION);
+
+        // the version was bumped without invalidating the cache, e.g. on another node
+        postService.getPostJson(POST1_ID, ResourceVersion.weak("post-" + POST1_ID + "-v1-views0-likes0", null));
+
+        then(postRepository).should(times(2)).findById(POST1_ID);
+    }
+
+    @Test
+    public void should_serializePostAgain_when_getPostJsonAfterUpdate() {
+        Post post1 = buildPost1();
+        PostRequestDTO requestDTO = buildPostRequest1DTO();
+        given(postRepository.findById(POST1_ID)).willReturn(Optional.of(post1));
+        given(postRepository.save(post1)).willReturn(post1);
+        given(categoryRegistry.exists(requestDTO.getCategoryId())).willReturn(true);
+        given(postMapper.postToPostDto(post1)).willReturn(buildPost1DTO());
+        postService.getPostJson(POST1_ID, POST1_VERSION);
+
+        postService.saveUpdatePost(POST1_ID, requestDTO);
+        assertThat(postJsonCache.get(POST1_ID, POST1_VERSION.getTag()), is(nullValue()));
+        postService.getPostJson(POST1_ID, POST1_VERSION);
+
+        // once for each getPostJson, and once by saveUpdatePost
+        then(postRepository).should(times(3)).findById(POST1_ID);
+    }
+
+    @Test
+    public void should_invalidateParentJson_when_childPostCreated() {
+        Post parent = buildPost1();
+        Post child = buildChild1();
+        child.setParent(null);
+        PostRequestDTO requestDTO = buildPostRequest1DTO();
+        postJsonCache.put(POST1_ID, POST1_VERSION.getTag(), postJsonCache.generation(), Set.of(USER_ID), new byte[]{'{', '}'});
+
+        given(postRepository.findByIdForUpdate(POST1_ID)).willReturn(Optional.of(parent));
+        given(postRepository.saveAndFlush(parent)).willReturn(parent);
+        given(principalService.getPrincipalUserId()).willReturn(Optional.of(USER_ID));
+        given(postRequestMapper.postRequestDtoToPost(requestDTO)).willReturn(child);
+        given(categoryRegistry.getCategory(requestDTO.getCategoryId())).willReturn(Optional.of(parent.getCategory()));
+        given(userService.findById(USER_ID)).willReturn(Optional.of(parent.getUser()));
+        PostDTO parentDTO = buildPost1DTO();
+        parentDTO.getChildren().add(buildChild1DTO());
+        given(postMapper.postToPostDto(parent)).willReturn(parentDTO);
+
+        postService.createNewChildPost(POST1_ID, requestDTO);
+
+        assertThat(postJsonCache.get(POST1_ID, POST1_VERSION.getTag()), is(nullValue()));
+    }
+
+    @Test
+    public void should_throwNotFoundException_when_getPostJsonOfUnknownPost() {
+        given(postRepository.findById(anyLong())).willReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> postService.getPostJson(5583L, POST1_VERSION));
+    }
+
+    @Test
+    public void should_tagVersionAndCountsWeaklyAndUseLastActivity_when_readPostVersion() {
+        PostVersion postVersion = mock(PostVersion.class);
+        LocalDateTime created = LocalDateTime.of(2017, 1, 1, 10, 0);
+        given(postVersion.getId()).willReturn(POST1_ID);
+        given(postVersion.getParentId()).willReturn(null);
+        given(postVersion.getVersion()).willReturn(3L);
+        given(postVersion.getCreated()).willReturn(created);
+        given(postVersion.getLastActivity()).willReturn(created.plusHours(2));
+        given(postVersion.getViewCount()).willReturn(12L);
+        given(postVersion.getLikeCount()).willReturn(4L);
+        given(postRepository.findVersionById(POST1_ID)).willReturn(Optional.of(postVersion));
+
+        ResourceVersion version = postService.readPostVersion(POST1_ID);
+
+        assertThat(version.getTag(), is("post-" + POST1_ID + "-v3-views12-likes4"));
+        assertThat(version.isWeak(), is(true));
+        assertThat(version.getLastModified(), is(created.plusHours(2)));
+        then(postRepository).should(never()).findById(anyLong());
+        then(heavyHitterTracker).should().read(POST1_ID);
+    }
+
+    @Test
+    public void should_countReadOfThread_when_readPostVersionOfReply() {
+        PostVersion postVersion = mock(PostVersion.class);
+        given(postVersion.getId()).willReturn(CHILD1_ID);
+        given(postVersion.getParentId()).willReturn(POST1_ID);
+        UUID uuid = UUID.randomUUID();
+        given(postRepository.findVersionById(CHILD1_ID)).willReturn(Optional.of(postVersion));
+        given(postRepository.findVersionByUuid(uuid)).willReturn(Optional.of(postVersion));
+
+        postService.readPostVersion(CHILD1_ID);
+        postService.readPostVersion(uuid);
+
+        then(heavyHitterTracker).should(times(2)).read(POST1_ID);
+        then(heavyHitterTracker).should(never()).read(CHILD1_ID);
+    }
+
+    @Test
+    public void should_throwNotFoundException_when_readPostVersionOfUnknownPost() {
+        given(postRepository.findVersionById(anyLong())).willReturn(Optional.empty());
+        given(postRepository.findVersionByUuid(any(UUID.class))).willReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> postService.readPostVersion(5583L));
+        assertThrows(NotFoundException.class, () -> postService.readPostVersion(UUID.randomUUID()));
+    }
+
+    @Test
+    public void should_getOnePostByUuid_when_getPostByUuid() {
+        Post post1 = buildPost1();
+        PostDTO post1DTO = buildPost1DTO();
+
+        given(postRepository.findByUuid(post1.getUuid())).willReturn(Optional.of(post1));
+        given(postMapper.postToPostDto(post1)).willReturn(post1DTO);
+
+        PostDTO postDTO = postService.getPostByUuid(post1.getUuid());
+
+        then(postRepository).should().findByUuid(post1.getUuid());
+        assertThat(postDTO.getText(), is(POST1_TEXT));
+    }
+
+    @Test
+    public void should_throwNotFoundException_when_getPostByUuidWithUnknownUuid() {
+        given(postRepository.findByUuid(any(UUID.class))).willReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> postService.getPostByUuid(UUID.randomUUID()));
+    }
+
     @Test
     public void should_throwNotFoundExceptin_when_getPostWithNonExistantId() {
         Post post1 = buildPost1();
@@ -186,7 +428,7 @@ public class PostServiceImplTest {
         PostRequestDTO requestDTO = buildPostRequest1DTO();
         Long principalID = 1L;
 
-        given(categoryRepository.findById(requestDTO.getCategoryId())).willReturn(Optional.of(post1.getCategory()));
+        given(categoryRegistry.getCategory(requestDTO.getCategoryId())).willReturn(Optional.of(post1.getCategory()));
         given(userService.findById(principalID)).willReturn(Optional.of(post1.getUser()));
         given(postRepository.save(post1)).willReturn(post1);
         given(principalService.getPrincipalUserId()).willReturn(Optional.of(1L));
@@ -196,9 +438,15 @@ public class PostServiceImplTest {
 
         PostDTO postDTO = postService.createNewPost(requestDTO);
 
-        then(categoryRepository).should().findById(requestDTO.getCategoryId());
+        then(categoryRegistry).should().getCategory(requestDTO.getCategoryId());
         then(userService).should().findById(principalID);
         then(postRepository).should().save(post1);
+        ArgumentCaptor<PostEventDTO> event = ArgumentCaptor.forClass(PostEventDTO.class);
+        then(eventPublisher).should().publishEvent(event.capture());
+        assertThat(event.getValue().getType(), is(PostEventDTO.POST_CREATED));
+        then(postChangeRepository).should().save(argThat(change ->
+                change.getType() == PostChange.Type.CREATED && change.getPostId().equals(POST1_ID)));
+        assertThat(event.getValue().getPostUrl(), is(POST1_URL));
         assertThat(postDTO, is(notNullValue()));
         assertThat(postDTO.getText(), is(requestDTO.getText()));
         assertThat(postDTO.getTitle(), is(requestDTO.getTitle()));
@@ -206,6 +454,40 @@ public class PostServiceImplTest {
         assertThat(postDTO.getCategory().getId(), is(requestDTO.getCategoryId()));
     }
 
+    @Test
+    public void should_indexFingerprint_when_createNewPost() {
+        Post post1 = buildPost1();
+        PostRequestDTO requestDTO = buildPostRequest1DTO();
+
+        given(duplicatePostIndex.fingerprint(POST1_TITLE, POST1_TEXT)).willReturn(OptionalLong.of(42L));
+        given(categoryRegistry.getCategory(requestDTO.getCategoryId())).willReturn(Optional.of(post1.getCategory()));
+        given(userService.findById(USER_ID)).willReturn(Optional.of(post1.getUser()));
+        given(postRepository.save(post1)).willReturn(post1);
+        given(principalService.getPrincipalUserId()).willReturn(Optional.of(USER_ID));
+        given(postMapper.postToPostDto(post1)).willReturn(buildPost1DTO());
+        given(postRequestMapper.postRequestDtoToPost(requestDTO)).willReturn(post1);
+
+        postService.createNewPost(requestDTO);
+
+        then(duplicatePostIndex).should().findNearDuplicate(42L);
+        then(duplicatePostIndex).should().put(POST1_ID, 42L);
+        then(relatedThreadIndex).should().put(POST1_ID, POST1_TITLE, POST1_TEXT);
+        then(postCounts).should().postCreated(USER_ID, post1.getCategory().getId(), POST1_ID);
+    }
+
+    @Test
+    public void should_throwBadRequestException_when_createNewPostIsNearDuplicate() {
+        PostRequestDTO requestDTO = buildPostRequest1DTO();
+
+        given(duplicatePostIndex.fingerprint(POST1_TITLE, POST1_TEXT)).willReturn(OptionalLong.of(42L));
+        given(duplicatePostIndex.findNearDuplicate(42L)).willReturn(Optional.of(POST2_ID));
+
+        assertThrows(BadRequestException.class, () -> postService.createNewPost(requestDTO));
+
+        then(postRepository).should(never()).save(any(Post.class));
+        then(duplicatePostIndex).should(never()).put(anyLong(), anyLong());
+    }
+
     @Test
     public void should_throwBadRequestException_when_postRequestDtoContainsCategoryIdThatDoesNotExist() {
         PostRequestDTO requestDTO = buildPostRequest1DTO();
@@ -214,7 +496,7 @@ public class PostServiceImplTest {
         requestDTO.setCategoryId(999L);
         String principalName = USER_NAME;
 
-        given(categoryRepository.findById(requestDTO.getCategoryId())).willReturn(Optional.empty());
+        given(categoryRegistry.getCategory(requestDTO.getCategoryId())).willReturn(Optional.empty());
         given(userService.findByUserName(principalName)).willReturn(Optional.of(post1.getUser()));
         given(postRequestMapper.postRequestDtoToPost(requestDTO)).willReturn(post1);
 
@@ -227,7 +509,7 @@ public class PostServiceImplTest {
         Post post1 = buildPost1();
         String principalName = null;
 
-        given(categoryRepository.findById(anyLong())).willReturn(Optional.of(post1.getCategory()));
+        given(categoryRegistry.getCategory(anyLong())).willReturn(Optional.of(post1.getCategory()));
         given(userService.findByUserName(principalName)).willReturn(Optional.empty());
         given(postRequestMapper.postRequestDtoToPost(requestDTO)).willReturn(post1);
 
@@ -246,8 +528,8 @@ public class PostServiceImplTest {
         PostDTO savedPostDTO = buildPost1DTO();
         savedPostDTO.setChildren(Arrays.asList(childDTO));
 
-        given(postRepository.findById(POST1_ID)).willReturn(Optional.of(parentPost1));
-        given(categoryRepository.findById(requestDTO.getCategoryId())).willReturn(Optional.of(child1.getCategory()));
+        given(postRepository.findByIdForUpdate(POST1_ID)).willReturn(Optional.of(parentPost1));
+        given(categoryRegistry.getCategory(requestDTO.getCategoryId())).willReturn(Optional.of(child1.getCategory()));
         given(principalService.getPrincipalUserId()).willReturn(Optional.of(1L));
         given(userService.findById(1L)).willReturn(Optional.of(child1.getUser()));
         given(postRequestMapper.postRequestDtoToPost(requestDTO)).willReturn(child1);
@@ -258,10 +540,12 @@ public class PostServiceImplTest {
 
         PostDTO savedDTO = postService.createNewChildPost(POST1_ID, requestDTO);
 
-        then(postRepository).should().findById(POST1_ID);
-        then(categoryRepository).should().findById(requestDTO.getCategoryId());
+        then(postRepository).should().findByIdForUpdate(POST1_ID);
+        then(categoryRegistry).should().getCategory(requestDTO.getCategoryId());
         then(userService).should().findById(1L);
         then(postRepository).should().saveAndFlush(parentPost1);
+        assertThat(parentPost1.getReplyCount(), is(1));
+        assertThat(parentPost1.getLastReplier(), is(child1.getUser()));
         assertThat(savedDTO, is(notNullValue()));
         assertThat(savedDTO.getChildren().size(), is(1));
         assertThat(savedDTO.getPostUrl(), is(POST1_URL));
@@ -269,12 +553,40 @@ public class PostServiceImplTest {
         assertThat(savedDTO.getChildren().get(0).getParentPostUrl(), is(CHILD1_PARENT_POST_URL));
     }
 
+    @Test
+    public void should_publishReplyByReplier_when_createNewChildPostInThreadOfAnotherUser() {
+        PostRequestDTO requestDTO = buildPostRequest1DTO();
+        Post parentPost1 = buildPost1();
+        User replier = DomainBuilder.buildUser(USER2_ID, USER2_NAME, null, null, null, null, null);
+        Post child1 = DomainBuilder.buildPost(CHILD1_ID, CHILD1_TITLE, CHILD1_TEXT, null, parentPost1.getCategory(),
+                replier, null);
+
+        given(postRepository.findByIdForUpdate(POST1_ID)).willReturn(Optional.of(parentPost1));
+        given(categoryRegistry.getCategory(requestDTO.getCategoryId())).willReturn(Optional.of(parentPost1.getCategory()));
+        given(principalService.getPrincipalUserId()).willReturn(Optional.of(USER2_ID));
+        given(userService.findById(USER2_ID)).willReturn(Optional.of(replier));
+        given(postRequestMapper.postRequestDtoToPost(requestDTO)).willReturn(child1);
+        PostDTO savedPostDTO = buildPost1DTO();
+        savedPostDTO.setChildren(Arrays.asList(buildChild1DTO()));
+        given(postMapper.postToPostDto(parentPost1)).willReturn(savedPostDTO);
+        given(postRepository.saveAndFlush(parentPost1)).willReturn(parentPost1);
+
+        postService.createNewChildPost(POST1_ID, requestDTO);
+
+        ArgumentCaptor<PostEventDTO> event = ArgumentCaptor.forClass(PostEventDTO.class);
+        then(eventPublisher).should().publishEvent(event.capture());
+        assertThat(event.getValue().getType(), is(PostEventDTO.REPLY_CREATED));
+        assertThat(event.getValue().getPostId(), is(CHILD1_ID));
+        assertThat(event.getValue().getParentPostId(), is(POST1_ID));
+        assertThat(event.getValue().getUserId(), is(USER2_ID));
+    }
+
     @Test
     public void should_throwException_when_parentPostId_doesNotExist() {
         PostRequestDTO request1DTO = buildPostRequest1DTO();
         Long parentID = 45342L;
 
-        given(postRepository.findById(parentID)).willReturn(Optional.empty());
+        given(postRepository.findByIdForUpdate(parentID)).willReturn(Optional.empty());
 
         assertThrows(BadRequestException.class, () -> postService.createNewChildPost(parentID, request1DTO));
     }
@@ -291,7 +603,7 @@ public class PostServiceImplTest {
 
         given(postRepository.findById(post.getId())).willReturn(Optional.of(post));
         given(postRepository.save(post)).willReturn(savedPost);
-        given(categoryRepository.findById(requestDTO.getCategoryId())).willReturn(Optional.of(post.getCategory()));
+        given(categoryRegistry.exists(requestDTO.getCategoryId())).willReturn(true);
         given(postRequestMapper.postRequestDtoToPost(requestDTO)).willReturn(post);
         given(postMapper.postToPostDto(savedPost)).willReturn(savedPostDTO);
         given(principalService.getPrincipalUserId()).willReturn(Optional.of(1L));
@@ -300,7 +612,8 @@ public class PostServiceImplTest {
 
         then(postRepository).should().findById(post.getId());
         then(postRepository).should().save(post);
-        then(categoryRepository).should().findById(requestDTO.getCategoryId());
+        then(categoryRegistry).should().exists(requestDTO.getCategoryId());
+        then(postCounts).should().postEdited(post.getCategory().getId(), POST1_ID);
         assertThat(savedDTO.getTitle(), is(POST2_TITLE));
         assertThat(savedDTO.getPostUrl(), is(POST1_URL));
     }
@@ -324,6 +637,28 @@ public class PostServiceImplTest {
 //        assertThat( savedDTO.getPostUrl(), is( POST1_URL) );
 //    }
 
+    @Test
+    public void should_lockParentAndUpdateReplySummary_when_saveUpdateChildPost() {
+        Post child1 = buildChild1();
+        Post parent = child1.getParent();
+        child1.setCreated(LocalDateTime.now().minusDays(1));
+        parent.setLastReply(child1);
+        LocalDateTime lastReplyAt = parent.getLastReplyAt();
+        PostRequestDTO requestDTO = buildPostRequest1DTO();
+
+        given(postRepository.findById(CHILD1_ID)).willReturn(Optional.of(child1));
+        given(postRepository.findByIdForUpdate(POST1_ID)).willReturn(Optional.of(parent));
+        given(postRepository.save(child1)).willReturn(child1);
+        given(categoryRegistry.exists(requestDTO.getCategoryId())).willReturn(true);
+        given(postMapper.postToPostDto(child1)).willReturn(buildChild1DTO());
+
+        postService.saveUpdatePost(CHILD1_ID, requestDTO);
+
+        then(postRepository).should().findByIdForUpdate(POST1_ID);
+        assertThat(parent.getLastReplyAt(), is(child1.getCreated()));
+        assertThat(parent.getLastReplyAt().isAfter(lastReplyAt), is(true));
+    }
+
     @Test
     public void deletePost() {
         Post post1 = buildPost1();
@@ -333,8 +668,399 @@ public class PostServiceImplTest {
         postService.deletePost(POST1_ID);
 
         then(postRepository).should().delete(any(Post.class));
+        then(postCounts).should().postDeleted(USER_ID, post1.getCategory().getId(), POST1_ID);
+    }
+
+    @Test
+    public void should_lockParentAndUpdateReplySummary_when_deleteChildPost() {
+        Post child1 = buildChild1();
+        Post parent = child1.getParent();
+        Post child2 = DomainBuilder.buildPost(POST2_ID, POST2_TITLE, POST2_TEXT, null, parent.getCategory(),
+                parent.getUser(), null);
+        child2.setCreated(child1.getCreated().minusDays(1));
+        parent.addChild(child2);
+        assertThat(parent.getReplyCount(), is(2));
+        assertThat(parent.getLastReplyAt(), is(child1.getCreated()));
+
+        given(postRepository.findById(CHILD1_ID)).willReturn(Optional.of(child1));
+        given(postRepository.findByIdForUpdate(POST1_ID)).willReturn(Optional.of(parent));
+        given(postRepository.findNewestChildren(POST1_ID, CHILD1_ID, PageRequest.of(0, 1))).willReturn(List.of(child2));
+
+        postService.deletePost(CHILD1_ID);
+
+        then(postRepository).should().findByIdForUpdate(POST1_ID);
+        then(postRepository).should().findNewestChildren(POST1_ID, CHILD1_ID, PageRequest.of(0, 1));
+        then(postRepository).should().delete(child1);
+        then(postCounts).shouldHaveNoInteractions();
+        ArgumentCaptor<PostEventDTO> event = ArgumentCaptor.forClass(PostEventDTO.class);
+        then(eventPublisher).should().publishEvent(event.capture());
+        assertThat(event.getValue().getType(), is(PostEventDTO.POST_DELETED));
+        assertThat(event.getValue().getPostId(), is(CHILD1_ID));
+        assertThat(event.getValue().getParentPostId(), is(POST1_ID));
+        then(postChangeRepository).should().save(argThat(change ->
+                change.getType() == PostChange.Type.DELETED && change.getPostId().equals(CHILD1_ID)));
+        then(postChangeRepository).should().save(argThat(change ->
+                change.getType() == PostChange.Type.UPDATED && change.getPostId().equals(POST1_ID)));
+        assertThat(parent.getReplyCount(), is(1));
+        assertThat(parent.getLastReplyAt(), is(child2.getCreated()));
+    }
+
+    @Test
+    public void should_notReadRemainingReplies_when_deleteChildPostThatIsNotTheLastReply() {
+        Post child1 = buildChild1();
+        Post parent = child1.getParent();
+        Post child2 = DomainBuilder.buildPost(POST2_ID, POST2_TITLE, POST2_TEXT, null, parent.getCategory(),
+                parent.getUser(), null);
+        child2.setCreated(child1.getCreated().minusDays(1));
+        parent.addChild(child2);
+
+        given(postRepository.findById(POST2_ID)).willReturn(Optional.of(child2));
+        given(postRepository.findByIdForUpdate(POST1_ID)).willReturn(Optional.of(parent));
+
+        postService.deletePost(POST2_ID);
+
+        then(postRepository).should(never()).findNewestChildren(anyLong(), anyLong(), any(Pageable.class));
+        assertThat(parent.getReplyCount(), is(1));
+        assertThat(parent.getLastReplyAt(), is(child1.getCreated()));
+    }
+
+    @Test
+    public void should_getPostsOrderedByLastActivity_when_getPostsByActivity() {
+        Post post1 = buildPost1();
+        PostDTO post1DTO = buildPost1DTO();
+        PageRequest pageRequest = PageRequest.of(0, 5, Sort.Direction.DESC, "lastActivity");
+        Page<Post> page = new PageImpl<>(Arrays.asList(post1));
+
+        given(pageRequestBuilder.buildPageRequest(anyInt(), anyInt(), any(Sort.Direction.class), anyString())).willReturn(pageRequest);
+        given(postRepository.findAllByParentNullOrderByLastActivityDesc(pageRequest)).willReturn(page);
+        given(postMapper.postToPostSummaryDto(post1)).willReturn(post1DTO);
+
+        PostListDTO postDTOS = postService.getPostsByActivity(-1L, 0, 5);
+
+        then(pageRequestBuilder).should().buildPageRequest(0, 5, Sort.Direction.DESC, "lastActivity");
+        then(postRepository).should().findAllByParentNullOrderByLastActivityDesc(pageRequest);
+        assertThat(postDTOS.getPosts().size(), is(1));
+    }
+
+    @Test
+    public void should_getPageOfRankedPosts_when_getTrendingPosts() {
+        Post post1 = buildPost1();
+        Post post2 = DomainBuilder.buildPost(POST2_ID, POST2_TITLE, POST2_TEXT, null, post1.getCategory(),
+                post1.getUser(), null);
+        PostDTO post1DTO = buildPost1DTO();
+        PostDTO post2DTO = DomainBuilder.buildPostDTO(POST2_ID, post1DTO.getUser(), POST2_TITLE, POST2_TEXT, null,
+                post1DTO.getCategory(), LocalDateTime.now(), new ArrayList<>());
+
+        given(trendingThreads.getSize()).willReturn(100);
+        given(trendingThreads.getTrending(TrendingThreads.ALL_CATEGORIES)).willReturn(Arrays.asList(POST2_ID, POST1_ID, POST3_ID));
+        given(postRepository.findAllById(Arrays.asList(POST2_ID, POST1_ID))).willReturn(Arrays.asList(post1, post2));
+        given(postMapper.postToPostSummaryDto(post1)).willReturn(post1DTO);
+        given(postMapper.postToPostSummaryDto(post2)).willReturn(post2DTO);
+
+        PostListDTO postDTOS = postService.getTrendingPosts(-1L, 0, 2);
+
+        assertThat(postDTOS.getPosts().get(0).getId(), is(POST2_ID));
+        assertThat(postDTOS.getPosts().get(1).getId(), is(POST1_ID));
+        assertThat(postDTOS.getPageInfo().getTotalElements(), is(3L));
+        assertThat(postDTOS.getPageInfo().getTotalPages(), is(2));
+        then(postRepository).should(never()).findAll(any(Pageable.class));
+    }
+
+    @Test
+    public void should_getEmptyPage_when_getTrendingPostsPastTheRanking() {
+        given(categoryRegistry.exists(CAT1_ID)).willReturn(true);
+        given(trendingThreads.getSize()).willReturn(100);
+        given(trendingThreads.getTrending(CAT1_ID)).willReturn(Arrays.asList(POST1_ID));
+
+        PostListDTO postDTOS = postService.getTrendingPosts(CAT1_ID, 1, 5);
+
+        assertThat(postDTOS.getPosts().size(), is(0));
+        assertThat(postDTOS.getPageInfo().getTotalElements(), is(1L));
+    }
+
+    @Test
+    public void should_throwBadRequestException_when_getTrendingPostsWithInvalidPage() {
+        given(trendingThreads.getSize()).willReturn(100);
+
+        assertThrows(BadRequestException.class, () -> postService.getTrendingPosts(-1L, -1, 5));
+        assertThrows(BadRequestException.class, () -> postService.getTrendingPosts(-1L, 0, 0));
+        // a limit past the ranking would overflow the end of the page
+        assertThrows(BadRequestException.class, () -> postService.getTrendingPosts(-1L, 1, Integer.MAX_VALUE));
+        then(trendingThreads).should(never()).getTrending(anyLong());
+    }
+
+    @Test
+    public void should_getRelatedPostsInOrder_when_getRelatedPosts() {
+        Post post1 = buildPost1();
+        Post post2 = DomainBuilder.buildPost(POST2_ID, POST2_TITLE, POST2_TEXT, null, post1.getCategory(),
+                post1.getUser(), null);
+        PostDTO post1DTO = buildPost1DTO();
+        PostDTO post2DTO = DomainBuilder.buildPostDTO(POST2_ID, post1DTO.getUser(), POST2_TITLE, POST2_TEXT, null,
+                post1DTO.getCategory(), LocalDateTime.now(), new ArrayList<>());
+
+        given(postRepository.existsById(POST3_ID)).willReturn(true);
+        given(relatedThreadIndex.findRelated(POST3_ID, 5)).willReturn(Arrays.asList(POST2_ID, POST1_ID));
+        given(postRepository.findAllById(Arrays.asList(POST2_ID, POST1_ID))).willReturn(Arrays.asList(post1, post2));
+        given(postMapper.postToPostSummaryDto(post1)).willReturn(post1DTO);
+        given(postMapper.postToPostSummaryDto(post2)).willReturn(post2DTO);
+
+        PostListDTO postDTOS = postService.getRelatedPosts(POST3_ID, 5);
+
+        assertThat(postDTOS.getPosts().get(0).getId(), is(POST2_ID));
+        assertThat(postDTOS.getPosts().get(1).getId(), is(POST1_ID));
+        assertThat(postDTOS.getPageInfo().getTotalElements(), is(2L));
+    }
+
+    @Test
+    public void should_throwNotFoundException_when_getRelatedPostsOfUnknownPost() {
+        given(postRepository.existsById(POST1_ID)).willReturn(false);
+
+        assertThrows(NotFoundException.class, () -> postService.getRelatedPosts(POST1_ID, 5));
+        assertThrows(BadRequestException.class,
+                () -> postService.getRelatedPosts(POST1_ID, PostService.MAX_RELATED_LIMIT + 1));
+        then(relatedThreadIndex).should(never()).findRelated(anyLong(), anyInt());
+    }
+
+    @Test
+    public void should_embedOnlyFirstReplies_when_getPostWithReplyLimit() {
+        Post child1 = buildChild1();
+        Post post1 = child1.getParent();
+        PostDTO post1DTO = buildPost1DTO();
+        post1DTO.setChildren(null);
+        PostDTO child1DTO = buildChild1DTO();
+        child1DTO.setChildren(null);
+
+        given(postRepository.findById(POST1_ID)).willReturn(Optional.of(post1));
+        given(postRepository.findChildren(POST1_ID, PageRequest.of(0, 1)))
+                .willReturn(Arrays.asList(child1));
+        given(postMapper.postToPostDtoWithoutChildren(post1)).willReturn(post1DTO);
+        given(postMapper.postToPostDtoWithoutChildren(child1)).willReturn(child1DTO);
+
+        PostDTO postDTO = postService.getPost(POST1_ID, 1);
+
+        then(postMapper).should(never()).postToPostDto(any(Post.class));
+        assertThat(postDTO.getChildren().size(), is(1));
+        assertThat(postDTO.getChildren().get(0).getPostUrl(), is(CHILD1_POST_URL));
+        assertThat(postDTO.getChildren().get(0).getParentPostUrl(), is(CHILD1_PARENT_POST_URL));
+    }
+
+    @Test
+    public void should_throwBadRequestException_when_getPostWithTooManyReplies() {
+        assertThrows(BadRequestException.class, () -> postService.getPost(POST1_ID, PostService.MAX_REPLY_LIMIT + 1));
+    }
+
+    @Test
+    public void should_returnCursorOfLastChild_when_getChildPostsHasMoreChildren() {
+        Post child1 = buildChild1();
+        Post post1 = child1.getParent();
+        Post child2 = DomainBuilder.buildPost(POST2_ID, POST2_TITLE, POST2_TEXT, null, post1.getCategory(),
+                post1.getUser(), null);
+        post1.addChild(child2);
+
+        given(postRepository.existsById(POST1_ID)).willReturn(true);
+        given(postRepository.findChildren(POST1_ID, PageRequest.of(0, 2)))
+                .willReturn(Arrays.asList(child1, child2));
+        given(postMapper.postToPostDtoWithoutChildren(child1)).willReturn(buildChild1DTO());
+
+        PostSliceDTO slice = postService.getChildPosts(POST1_ID, null, 1);
+
+        assertThat(slice.getPosts().size(), is(1));
+        assertThat(slice.getPosts().get(0).getPostUrl(), is(CHILD1_POST_URL));
+        assertThat(KeysetCursor.decode(slice.getNextCursor()), is(new KeysetCursor(child1.getCreated(), CHILD1_ID)));
+    }
+
+    @Test
+    public void should_readAfterCursor_when_getChildPostsWithCursor() {
+        Post child1 = buildChild1();
+        LocalDateTime created = LocalDateTime.of(2017, 1, 1, 10, 15, 12);
+        String cursor = new KeysetCursor(created, 3L).encode();
+
+        given(postRepository.existsById(POST1_ID)).willReturn(true);
+        given(postRepository.findChildrenAfter(POST1_ID, created, 3L, PageRequest.of(0, 6)))
+                .willReturn(Arrays.asList(child1));
+        given(postMapper.postToPostDtoWithoutChildren(child1)).willReturn(buildChild1DTO());
+
+        PostSliceDTO slice = postService.getChildPosts(POST1_ID, cursor, 5);
+
+        then(postRepository).should().findChildrenAfter(POST1_ID, created, 3L, PageRequest.of(0, 6));
+        assertThat(slice.getPosts().size(), is(1));
+        assertThat(slice.getNextCursor(), is(nullValue()));
     }
 
+    @Test
+    public void should_throwNotFoundException_when_getChildPostsOfUnknownPost() {
+        given(postRepository.existsById(anyLong())).willReturn(false);
+
+        assertThrows(NotFoundException.class, () -> postService.getChildPosts(5583L, null, 5));
+    }
+
+    @Test
+    public void should_throwBadRequestException_when_getChildPostsWithInvalidCursor() {
+        given(postRepository.existsById(POST1_ID)).willReturn(true);
+
+        assertThrows(BadRequestException.class, () -> postService.getChildPosts(POST1_ID, "not a cursor", 5));
+    }
+
+    @Test
+    public void should_buildOnlySelectedFields_when_getPostsWithFields() {
+        FieldSelection fields = FieldSelection.parse("id,title,postUrl,user.userName,user.avatarUrl", PostDTO.class);
+        PageRequest pageRequest = PageRequest.of(0, 5, Sort.Direction.DESC, "created");
+        Map<String, Object> columns = new LinkedHashMap<>();
+        columns.put("id", POST1_ID);
+        columns.put("title", POST1_TITLE);
+        columns.put("user.id", USER_ID);
+        columns.put("user.userName", USER_NAME);
+        columns.put("user.userPrefs.avatar.fileName", "avatar1.png");
+        Page<Tuple> page = new PageImpl<>(Arrays.asList(buildTuple(columns)));
+
+        given(pageRequestBuilder.buildPageRequest(0, 5, Sort.Direction.DESC, "created")).willReturn(pageRequest);
+        given(postRepository.findParentPostColumns(anyCollection(), isNull(), isNull(), eq(pageRequest))).willReturn(page);
+        given(avatarService.buildAvatarUrl("avatar1.png")).willReturn("/avatars/avatar1.png");
+
+        PostListDTO postDTOS = postService.getPostsWithFields(null, -1L, "created", 0, 5, fields);
+
+        then(postRepository).should().findParentPostColumns(
+                eq(Set.of("id", "title", "user.id", "user.userName", "user.userPrefs.avatar.fileName")),
+                isNull(), isNull(), eq(pageRequest));
+        then(postRepository).should(never()).findAllByParentNullOrderByCreatedDesc(any(Pageable.class));
+        PostDTO postDTO = postDTOS.getPosts().get(0);
+        assertThat(postDTO.getTitle(), is(POST1_TITLE));
+        assertThat(postDTO.getPostUrl(), is(POST1_URL));
+        assertThat(postDTO.getUser().getUserName(), is(USER_NAME));
+        assertThat(postDTO.getUser().getAvatarUrl(), is("/avatars/avatar1.png"));
+        assertThat(postDTO.getUser().getUserUrl(), is(nullValue()));
+        assertThat(postDTO.getCategory(), is(nullValue()));
+        assertThat(postDTO.getText(), is(nullValue()));
+    }
+
+    @Test
+    public void should_readPostEntities_when_getPostsWithFieldsSelectingChildren() {
+        FieldSelection fields = FieldSelection.parse("id,children", PostDTO.class);
+        PageRequest pageRequest = PageRequest.of(0, 5, Sort.Direction.DESC, "created");
+        Post post1 = buildPost1();
+        given(pageRequestBuilder.buildPageRequest(anyInt(), anyInt(), any(Sort.Direction.class), anyString())).willReturn(pageRequest);
+        given(postRepository.findAllByParentNullOrderByCreatedDesc(pageRequest)).willReturn(new PageImpl<>(Arrays.asList(post1)));
+        given(postMapper.postToPostSummaryDto(post1)).willReturn(buildPost1DTO());
+
+        PostListDTO postDTOS = postService.getPostsWithFields(null, -1L, "created", 0, 5, fields);
+
+        assertThat(postDTOS.getPosts().size(), is(1));
+        then(postRepository).should(never()).findParentPostColumns(anyCollection(), any(), any(), any(Pageable.class));
+    }
+
+    @Test
+    public void should_throwNotFoundException_when_getPostsWithFieldsOfUnknownUser() {
+        FieldSelection fields = FieldSelection.parse("id,title", PostDTO.class);
+        given(userService.findById(anyLong())).willReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> postService.getPostsWithFields(USER2_ID, -1L, "created", 0, 5, fields));
+    }
+
+    private static Tuple buildTuple(Map<String, Object> columns) {
+        Tuple tuple = mock(Tuple.class);
+        List<TupleElement<?>> elements = new ArrayList<>();
+        columns.forEach((alias, value) -> {
+            @SuppressWarnings("unchecked")
+            TupleElement<Object> element = mock(TupleElement.class);
+            given(element.getAlias()).willReturn(alias);
+            given(tuple.get(element)).willReturn(value);
+            elements.add(element);
+        });
+        given(tuple.getElements()).willReturn(elements);
+        return tuple;
+    }
+
+
+    @Test
+    public void should_returnEachChangedPostOnce_when_getPostChanges() {
+        Post child1 = buildChild1();
+        Post parent = child1.getParent();
+        LocalDateTime now = LocalDateTime.now();
+        given(postChangeRepository.findChangesAfter(10L, PageRequest.of(0, 11))).willReturn(Arrays.asList(
+                buildChange(11L, PostChange.Type.CREATED, CHILD1_ID, now),
+                buildChange(12L, PostChange.Type.UPDATED, POST1_ID, now),
+                buildChange(13L, PostChange.Type.UPDATED, CHILD1_ID, now),
+                buildChange(14L, PostChange.Type.DELETED, POST2_ID, now)));
+        given(postRepository.findAllById(any())).willReturn(Arrays.asList(parent, child1));
+        PostDTO parentDTO = buildPost1DTO();
+        parentDTO.setChildren(null);
+        given(postMapper.postToPostDtoWithoutChildren(parent)).willReturn(parentDTO);
+        given(postMapper.postToPostDtoWithoutChildren(child1)).willReturn(buildChild1DTO());
+
+        PostChangesDTO changes = postService.getPostChanges(ChangeToken.encode(10L), 10);
+
+        assertThat(changes.getChanges().size(), is(3));
+        // ordered by the latest change of each post
+        assertThat(changes.getChanges().get(0).getPostId(), is(POST1_ID));
+        assertThat(changes.getChanges().get(0).getType(), is(PostChangeDTO.UPDATED));
+        assertThat(changes.getChanges().get(0).getPost().getPostUrl(), is(POST1_URL));
+        // created and then updated since the token
+        assertThat(changes.getChanges().get(1).getPostId(), is(CHILD1_ID));
+        assertThat(changes.getChanges().get(1).getType(), is(PostChangeDTO.CREATED));
+        assertThat(changes.getChanges().get(1).getPost().getParentPostUrl(), is(CHILD1_PARENT_POST_URL));
+        assertThat(changes.getChanges().get(2).getPostId(), is(POST2_ID));
+        assertThat(changes.getChanges().get(2).getType(), is(PostChangeDTO.DELETED));
+        assertThat(changes.getChanges().get(2).getPost(), is(nullValue()));
+        assertThat(ChangeToken.decode(changes.getToken()), is(14L));
+        assertThat(changes.isMore(), is(false));
+    }
+
+    @Test
+    public void should_stopInFrontOfRecentGap_when_getPostChanges() {
+        Post post1 = buildPost1();
+        LocalDateTime now = LocalDateTime.now();
+        given(postChangeRepository.findChangesAfter(10L, PageRequest.of(0, 3))).willReturn(Arrays.asList(
+                buildChange(11L, PostChange.Type.UPDATED, POST1_ID, now),
+                // change 12 may belong to a transaction that has not committed yet
+                buildChange(13L, PostChange.Type.UPDATED, CHILD1_ID, now),
+                buildChange(14L, PostChange.Type.UPDATED, POST2_ID, now)));
+        given(postRepository.findAllById(any())).willReturn(Arrays.asList(post1));
+        given(postMapper.postToPostDtoWithoutChildren(post1)).willReturn(buildPost1DTO());
+
+        PostChangesDTO changes = postService.getPostChanges(ChangeToken.encode(10L), 2);
+
+        assertThat(changes.getChanges().size(), is(1));
+        assertThat(ChangeToken.decode(changes.getToken()), is(11L));
+        assertThat(changes.isMore(), is(false));
+    }
+
+    @Test
+    public void should_readPastOldGap_when_getPostChanges() {
+        Post post1 = buildPost1();
+        LocalDateTime longAgo = LocalDateTime.now().minusSeconds(PostServiceImpl.CHANGE_SETTLE_SECONDS + 60);
+        given(postChangeRepository.findChangesAfter(10L, PageRequest.of(0, 2))).willReturn(Arrays.asList(
+                buildChange(13L, PostChange.Type.UPDATED, POST1_ID, longAgo),
+                buildChange(14L, PostChange.Type.UPDATED, POST1_ID, longAgo)));
+        given(postRepository.findAllById(any())).willReturn(Arrays.asList(post1));
+        given(postMapper.postToPostDtoWithoutChildren(post1)).willReturn(buildPost1DTO());
+
+        PostChangesDTO changes = postService.getPostChanges(ChangeToken.encode(10L), 1);
+
+        assertThat(changes.getChanges().size(), is(1));
+        assertThat(ChangeToken.decode(changes.getToken()), is(13L));
+        assertThat(changes.isMore(), is(true));
+    }
+
+    @Test
+    public void should_returnTokenOfLatestChange_when_getPostChangesWithoutToken() {
+        given(postChangeRepository.findLatestId()).willReturn(Optional.of(42L));
+
+        PostChangesDTO changes = postService.getPostChanges(null, 10);
+
+        assertThat(changes.getChanges().isEmpty(), is(true));
+        assertThat(ChangeToken.decode(changes.getToken()), is(42L));
+        then(postChangeRepository).should(never()).findChangesAfter(anyLong(), any());
+    }
+
+    @Test
+    public void should_throwBadRequestException_when_getPostChangesWithInvalidLimit() {
+        assertThrows(BadRequestException.class,
+                () -> postService.getPostChanges(null, PostService.MAX_CHANGE_LIMIT + 1));
+    }
+
+    private static PostChange buildChange(Long id, PostChange.Type type, Long postId, LocalDateTime changed) {
+        return PostChange.builder().id(id).type(type).postId(postId).changed(changed).build();
+    }
 
     private Post buildPost1() {
         Category cat1 = DomainBuilder.buildCategory(CAT1_ID, CAT1_NAME);
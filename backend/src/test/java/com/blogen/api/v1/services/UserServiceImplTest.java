@@ -6,10 +6,13 @@ import com.blogen.api.v1.model.UserDTO;
 import com.blogen.api.v1.model.UserListDTO;
 import com.blogen.domain.User;
 import com.blogen.exceptions.BadRequestException;
+import com.blogen.repositories.PostRepository;
 import com.blogen.repositories.UserRepository;
 import com.blogen.services.AvatarService;
 import com.blogen.services.RoleService;
 import com.blogen.services.security.PasswordEncryptionService;
+import com.blogen.services.utils.PostCounts;
+import com.blogen.services.utils.PostJsonCache;
 import com.blogen.utils.DomainBuilder;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,6 +22,7 @@ import org.springframework.security.oauth2.jwt.Jwt;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.hamcrest.CoreMatchers.is;
@@ -54,6 +58,15 @@ public class UserServiceImplTest {
     @Mock
     private Jwt jwt;
 
+    @Mock
+    private PostJsonCache postJsonCache;
+
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private PostCounts postCounts;
+
     private UserMapper userMapper = UserMapper.INSTANCE;
 
     User user1;
@@ -69,13 +82,14 @@ public class UserServiceImplTest {
     @BeforeEach
     public void setUp() throws Exception {
         MockitoAnnotations.initMocks(this);
-        userService = new UserServiceImpl(userRepository, avatarService, passwordEncryptionService, roleService, userMapper);
+        userService = new UserServiceImpl(userRepository, avatarService, passwordEncryptionService, roleService, userMapper,
+                postJsonCache, postRepository, postCounts);
         user1 = DomainBuilder.buildUser(1L, "johndoe", "John", "Doe", "jdoe@gmail.com", "", "123abc");
         updatedUser1 = DomainBuilder.buildUser(1L, "johndoe", "John", "Doe", "jdoe@gmail.com", "", "123abc");
         user1Url = UserController.BASE_URL + "/1";
         user2 = DomainBuilder.buildUser(2L, "mgill", "Maggy", "McGill", "mags@hotmail.com", "", "123abc");
         user2Url = UserController.BASE_URL + "/2";
-        newUserDTO = new UserDTO(3L, "new", "user", "newuser", "newby@zing.org", "password", "avatar1.jpg", roles, null);
+        newUserDTO = new UserDTO(3L, "new", "user", "newuser", "newby@zing.org", "password", "avatar1.jpg", roles, null, null, null);
         newUser = DomainBuilder.buildUser(3L, "newuser", "new", "user", "newby@zing.com", null, "123abc");
         newUserUrl = UserController.BASE_URL + "/3";
     }
@@ -85,6 +99,7 @@ public class UserServiceImplTest {
         List<User> userList = Arrays.asList(user1, user2);
 
         given(userRepository.findAll()).willReturn(userList);
+        given(postCounts.getUserPostCounts(Arrays.asList(1L, 2L))).willReturn(Map.of(1L, 3L, 2L, 0L));
 
         UserListDTO userListDTO = userService.getAllUsers();
 
@@ -92,17 +107,23 @@ public class UserServiceImplTest {
         assertThat(userListDTO, is(notNullValue()));
         assertThat(userListDTO.getUsers().size(), is(2));
         assertThat(userListDTO.getUsers().get(0).getUserUrl(), is(user1Url));
+        assertThat(userListDTO.getUsers().get(0).getPostCount(), is(3L));
+        assertThat(userListDTO.getUsers().get(1).getPostCount(), is(0L));
     }
 
     @Test
     public void should_getUser1_when_getUserWithValidId() {
         given(userRepository.findById(anyLong())).willReturn(Optional.of(user1));
+        given(postCounts.getUserPostCounts(List.of(1L))).willReturn(Map.of(1L, 3L));
+        given(postCounts.getCategoryPostCountsOfUser(1L)).willReturn(Map.of(2L, 1L, 4L, 2L));
 
         UserDTO userDTO = userService.getUser(1L);
 
         then(userRepository).should().findById(anyLong());
         assertThat(userDTO, is(notNullValue()));
         assertThat(userDTO.getUserUrl(), is(user1Url));
+        assertThat(userDTO.getPostCount(), is(3L));
+        assertThat(userDTO.getCategoryPostCounts(), is(Map.of(2L, 1L, 4L, 2L)));
     }
 
     @Test
@@ -153,7 +174,26 @@ public class UserServiceImplTest {
         UserDTO savedDTO = userService.updateUser(user1, newUserDTO);
 
         then(userRepository).should().save(any(User.class));
+        // posts do not show the first name of their authors
+        then(postJsonCache).shouldHaveNoInteractions();
+        then(postRepository).shouldHaveNoInteractions();
         assertThat(savedDTO.getFirstName(), is(newUserDTO.getFirstName()));
         assertThat(savedDTO.getLastName(), is(user1.getLastName()));
     }
+
+    @Test
+    public void should_bumpPostVersions_when_updateUserName() {
+        newUserDTO = new UserDTO();
+        newUserDTO.setRoles(roles);
+        newUserDTO.setUserName("johnnydoe");
+        updatedUser1.setUserName("johnnydoe");
+
+        given(userRepository.save(user1)).willReturn(updatedUser1);
+
+        userService.updateUser(user1, newUserDTO);
+
+        then(postJsonCache).should().invalidateUser(1L);
+        then(postRepository).should().incrementVersionOfPostsByUser(1L);
+        then(postRepository).should().incrementVersionOfThreadsRepliedToByUser(1L);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,163 @@
+package com.blogen.config;
+
+import com.blogen.api.v1.controllers.CategoryController;
+import com.blogen.api.v1.controllers.PostController;
+import com.blogen.api.v1.controllers.UserController;
+import com.blogen.api.v1.model.*;
+import com.blogen.services.utils.TimeOrderedUuid;
+import com.blogen.utils.DomainBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Compares JSON with the binary formats the API can produce, CBOR and Smile, on pages of DTOs shaped like the ones
+ * the API sends: a default page of five threads with their replies, a page of fifty threads, every user and every
+ * category.
+ * <p>
+ * Reports the payload size and the average encode and decode time of each page in each format. This is a
+ * benchmark, not a unit test, so it only runs when requested:
+ * <pre>
+ *     mvn test -Dtest=MessageFormatBenchmarkTest -Dblogen.benchmark=true
+ * </pre>
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "blogen.benchmark", matches = "true")
+public class MessageFormatBenchmarkTest {
+
+    private static final int WARMUP_ITERATIONS = 2_000;
+    private static final int ITERATIONS = 10_000;
+
+    private static final String TEXT = "Has anyone tried the new fitness tracker that came out last month? I am "
+            + "looking for something that can track my runs and my sleep, and that lasts more than a few days on a "
+            + "single charge. The reviews I have read so far are mixed, so I would like to hear from people who "
+            + "have used one for a while before I spend the money.";
+
+    @Test
+    public void benchmark_json_vs_cbor_vs_smile() throws IOException {
+        Map<String, ObjectMapper> mappers = new LinkedHashMap<>();
+        mappers.put("json", Jackson2ObjectMapperBuilder.json().build());
+        mappers.put("cbor", Jackson2ObjectMapperBuilder.cbor().build());
+        mappers.put("smile", Jackson2ObjectMapperBuilder.smile().build());
+
+        Map<String, Object> pages = new LinkedHashMap<>();
+        pages.put("5 threads with replies", buildPostPage(5, 8));
+        pages.put("50 threads", buildPostPage(50, 0));
+        pages.put("200 users", buildUserList(200));
+        pages.put("20 categories", buildCategoryList(20));
+
+        for (Map.Entry<String, Object> page : pages.entrySet()) {
+            for (Map.Entry<String, ObjectMapper> mapper : mappers.entrySet()) {
+                measure(page.getKey(), page.getValue(), mapper.getKey(), mapper.getValue());
+            }
+        }
+    }
+
+    private void measure(String pageName, Object page, String format, ObjectMapper mapper) throws IOException {
+        byte[] encoded = mapper.writeValueAsBytes(page);
+        assertThat(mapper.readValue(encoded, page.getClass()), is(page));
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            mapper.readValue(mapper.writeValueAsBytes(page), page.getClass());
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            mapper.writeValueAsBytes(page);
+        }
+        long encodeNanos = (System.nanoTime() - start) / ITERATIONS;
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            mapper.readValue(encoded, page.getClass());
+        }
+        long decodeNanos = (System.nanoTime() - start) / ITERATIONS;
+
+        log.info("{} as {}: {} bytes, encode {} us, decode {} us", pageName, format, encoded.length,
+                encodeNanos / 1_000.0, decodeNanos / 1_000.0);
+    }
+
+    private static PostListDTO buildPostPage(int threadCount, int replyCount) {
+        LocalDateTime created = LocalDateTime.of(2022, 3, 1, 9, 30);
+        List<PostDTO> threads = new ArrayList<>();
+        for (long i = 1; i <= threadCount; i++) {
+            PostDTO thread = buildPost(i * 100, "Thread title number " + i, postUser(i % 7), category(i % 4),
+                    created.plusMinutes(i), null);
+            for (long j = 1; j <= replyCount; j++) {
+                thread.getChildren().add(buildPost(i * 100 + j, "Re: thread title number " + i, postUser(j % 7),
+                        category(i % 4), created.plusMinutes(i + j), thread.getPostUrl()));
+            }
+            thread.setReplyCount(replyCount);
+            if (replyCount > 0) {
+                PostDTO lastReply = thread.getChildren().get(replyCount - 1);
+                thread.setLastReplyAt(lastReply.getCreated());
+                thread.setLastReplier(lastReply.getUser());
+            }
+            threads.add(thread);
+        }
+        PageInfoResponse pageInfo = PageInfoResponse.builder()
+                .totalElements(1_000L).totalPages(1_000 / threadCount).pageNumber(0).pageSize(threadCount).build();
+        return new PostListDTO(threads, pageInfo);
+    }
+
+    private static PostDTO buildPost(Long id, String title, PostUserDTO user, CategoryDTO category,
+                                     LocalDateTime created, String parentPostUrl) {
+        PostDTO postDTO = DomainBuilder.buildPostDTO(id, user, title, TEXT, "https://picsum.photos/id/" + id + "/400",
+                category, created, new ArrayList<>());
+        postDTO.setUuid(TimeOrderedUuid.next());
+        postDTO.setExcerpt(TEXT.substring(0, 140));
+        postDTO.setPostUrl(PostController.BASE_URL + "/" + id);
+        postDTO.setParentPostUrl(parentPostUrl);
+        return postDTO;
+    }
+
+    private static PostUserDTO postUser(long id) {
+        return PostUserDTO.builder()
+                .id(id)
+                .userName("user" + id)
+                .avatarUrl("/avatars/avatar" + id + ".jpg")
+                .userUrl(UserController.BASE_URL + "/" + id)
+                .build();
+    }
+
+    private static CategoryDTO category(long id) {
+        return CategoryDTO.builder().id(id).name("Category " + id).categoryUrl(CategoryController.BASE_URL + "/" + id).build();
+    }
+
+    private static UserListDTO buildUserList(int userCount) {
+        List<UserDTO> users = new ArrayList<>();
+        for (long i = 1; i <= userCount; i++) {
+            users.add(UserDTO.builder()
+                    .id(i)
+                    .firstName("First" + i)
+                    .lastName("Last" + i)
+                    .userName("user" + i)
+                    .email("user" + i + "@example.com")
+                    .avatarImage("avatar" + (i % 20) + ".jpg")
+                    .roles(List.of("ROLE_USER", "ROLE_API"))
+                    .userUrl(UserController.BASE_URL + "/" + i)
+                    .build());
+        }
+        return new UserListDTO(users);
+    }
+
+    private static CategoryListDTO buildCategoryList(int categoryCount) {
+        List<CategoryDTO> categories = new ArrayList<>();
+        for (long i = 1; i <= categoryCount; i++) {
+            categories.add(category(i));
+        }
+        PageInfoResponse pageInfo = PageInfoResponse.builder()
+                .totalElements((long) categoryCount).totalPages(1).pageNumber(0).pageSize(categoryCount).build();
+        return new CategoryListDTO(categories, pageInfo);
+    }
+}
@@ -0,0 +1,56 @@
+package com.blogen.repositories;
+
+import com.blogen.domain.Follow;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * These tests all use the H2 schema and data located in src/main/resources
+ */
+@DataJpaTest
+public class FollowRepositoryTest {
+
+    @Autowired
+    private FollowRepository followRepository;
+
+    @Test
+    public void should_findFollowersAndFollowed_when_usersFollowEachOther() {
+        followRepository.save(Follow.of(1L, 2L));
+        followRepository.save(Follow.of(3L, 2L));
+        followRepository.save(Follow.of(2L, 1L));
+
+        assertThat(followRepository.findFollowerIds(2L), containsInAnyOrder(1L, 3L));
+        assertThat(followRepository.findFollowedIds(2L), contains(1L));
+        assertThat(followRepository.countByFollowedId(2L), is(2L));
+        assertThat(followRepository.existsByFollowerIdAndFollowedId(1L, 2L), is(true));
+        assertThat(followRepository.existsByFollowerIdAndFollowedId(2L, 3L), is(false));
+    }
+
+    @Test
+    public void should_findOnlyFollowedUsersWithManyFollowers_when_findFollowedIdsWithMoreFollowersThan() {
+        followRepository.save(Follow.of(1L, 2L));
+        followRepository.save(Follow.of(3L, 2L));
+        followRepository.save(Follow.of(4L, 2L));
+        followRepository.save(Follow.of(1L, 5L));
+        followRepository.save(Follow.of(3L, 4L));
+        followRepository.save(Follow.of(5L, 4L));
+
+        assertThat(followRepository.findFollowedIdsWithMoreFollowersThan(1L, 2), contains(2L));
+        assertThat(followRepository.findFollowedIdsWithMoreFollowersThan(1L, 3), is(empty()));
+        assertThat(followRepository.findFollowedIdsWithMoreFollowersThan(3L, 1), containsInAnyOrder(2L, 4L));
+    }
+
+    @Test
+    public void should_deleteOnlyThatFollow_when_deleteFollow() {
+        followRepository.save(Follow.of(1L, 2L));
+        followRepository.save(Follow.of(1L, 3L));
+
+        assertThat(followRepository.deleteFollow(1L, 2L), is(1));
+        assertThat(followRepository.deleteFollow(1L, 2L), is(0));
+        assertThat(followRepository.findFollowedIds(1L), contains(3L));
+    }
+}
@@ -0,0 +1,47 @@
+package com.blogen.repositories;
+
+import com.blogen.domain.PostChange;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * These tests all use the H2 schema and data located in src/main/resources
+ */
+@DataJpaTest
+public class PostChangeRepositoryTest {
+
+    @Autowired
+    private PostChangeRepository postChangeRepository;
+
+    @Test
+    public void should_returnChangesInOrder_when_findChangesAfter() {
+        PostChange first = postChangeRepository.save(PostChange.of(PostChange.Type.CREATED, 1L));
+        PostChange second = postChangeRepository.save(PostChange.of(PostChange.Type.UPDATED, 2L));
+        PostChange third = postChangeRepository.save(PostChange.of(PostChange.Type.DELETED, 1L));
+
+        List<PostChange> changes = postChangeRepository.findChangesAfter(first.getId(), PageRequest.of(0, 10));
+
+        assertThat(changes.stream().map(PostChange::getId).collect(Collectors.toList()),
+                contains(second.getId(), third.getId()));
+        assertThat(changes.get(1).getType(), is(PostChange.Type.DELETED));
+        assertThat(postChangeRepository.findChangesAfter(first.getId(), PageRequest.of(0, 1)), hasSize(1));
+    }
+
+    @Test
+    public void should_returnIdOfLatestChange_when_findLatestId() {
+        assertThat(postChangeRepository.findLatestId().isPresent(), is(false));
+
+        postChangeRepository.save(PostChange.of(PostChange.Type.CREATED, 1L));
+        PostChange latest = postChangeRepository.save(PostChange.of(PostChange.Type.UPDATED, 1L));
+
+        assertThat(postChangeRepository.findLatestId().orElseThrow(), is(latest.getId()));
+    }
+}
@@ -0,0 +1,79 @@
+package com.blogen.repositories;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import com.blogen.domain.Post;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * These tests all use the H2 schema and data located in src/main/resources
+ */
+@DataJpaTest
+@Import(PostCountRepositoryImpl.class)
+public class PostCountRepositoryImplTest {
+
+    private static final PageRequest FIRST = PageRequest.of(0, 1);
+
+    private static final PageRequest NEWEST_TWO = PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "created", "id"));
+
+    @Autowired
+    private PostCountRepository postCountRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Test
+    public void should_countSeedParentPosts() {
+        Map<Long, Long> userCounts = postCountRepository.findUserPostCounts(List.of(2L, 5L));
+        Map<Long, Long> categoryCounts = postCountRepository.findCategoryPostCounts(List.of(1L, 2L));
+
+        assertThat(userCounts.get(5L), is(postRepository.findAllByUser_IdAndParentNull(5L, FIRST).getTotalElements()));
+        assertThat(categoryCounts.get(2L),
+                is(postRepository.findAllByCategory_IdAndParentNull(2L, FIRST).getTotalElements()));
+        assertThat(postCountRepository.findCategoryPostCountsOfUser(5L).get(2L),
+                is(postRepository.findAllByUser_IdAndCategory_IdAndParentNull(5L, 2L, FIRST).getTotalElements()));
+    }
+
+    @Test
+    public void should_insertThenUpdateCounts_when_addPosts() {
+        long categoryCount = postCountRepository.findCategoryPostCounts(List.of(2L)).getOrDefault(2L, 0L);
+        assertThat(postCountRepository.findUserPostCounts(List.of(1L)), is(anEmptyMap()));
+
+        postCountRepository.addPosts(1L, 2L, 1);
+        postCountRepository.addPosts(1L, 2L, 1);
+        postCountRepository.addPosts(1L, 2L, -1);
+
+        assertThat(postCountRepository.findUserPostCounts(List.of(1L)), is(Map.of(1L, 1L)));
+        assertThat(postCountRepository.findCategoryPostCountsOfUser(1L), is(Map.of(2L, 1L)));
+        assertThat(postCountRepository.findCategoryPostCounts(List.of(2L)), is(Map.of(2L, categoryCount + 1)));
+        assertThat(postCountRepository.findCategoryPostCounts(List.of()), is(anEmptyMap()));
+    }
+
+    @Test
+    public void should_keepNewestParentPost_when_setOrReplaceLatestThread() {
+        List<Post> newest = postRepository.findAllByCategory_IdAndParentNull(2L, NEWEST_TWO).getContent();
+        Post latest = newest.get(0);
+        Post previous = newest.get(1);
+        assertThat(postCountRepository.findLatestThreads(List.of(2L)).get(2L),
+                is(new LatestThread(latest.getId(), latest.getTitle(), latest.getCreated())));
+
+        postCountRepository.setLatestThread(2L, previous.getId());
+        assertThat(postCountRepository.findLatestThreads(List.of(2L)).get(2L).getId(), is(previous.getId()));
+
+        // only replaced when the deleted post is the latest thread
+        postCountRepository.replaceLatestThread(2L, latest.getId());
+        assertThat(postCountRepository.findLatestThreads(List.of(2L)).get(2L).getId(), is(previous.getId()));
+        postCountRepository.replaceLatestThread(2L, previous.getId());
+        assertThat(postCountRepository.findLatestThreads(List.of(2L)).get(2L).getId(), is(latest.getId()));
+        assertThat(postCountRepository.findLatestThreads(List.of()), is(anEmptyMap()));
+    }
+}
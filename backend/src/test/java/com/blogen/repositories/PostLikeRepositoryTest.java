@@ -0,0 +1,65 @@
+package com.blogen.repositories;
+
+import com.blogen.domain.Post;
+import com.blogen.domain.PostLike;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * These tests all use the H2 schema and data located in src/main/resources
+ */
+@DataJpaTest
+public class PostLikeRepositoryTest {
+
+    @Autowired
+    private PostLikeRepository postLikeRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    public void should_setLikeCountToNumberOfLikes_when_reconcileLikeCounts() {
+        Post post = postRepository.findAll().get(0);
+        postLikeRepository.save(PostLike.of(post.getId(), 3L));
+        postLikeRepository.save(PostLike.of(post.getId(), 1L));
+        postLikeRepository.flush();
+
+        assertThat(postLikeRepository.reconcileLikeCounts(List.of(post.getId(), -1L)), is(1));
+        entityManager.clear();
+
+        assertThat(postRepository.findLikeCountById(post.getId()).orElseThrow(), is(2L));
+        assertThat(postLikeRepository.findUserIds(post.getId()), contains(1L, 3L));
+    }
+
+    @Test
+    public void should_deleteOnlyThatLike_when_deleteLike() {
+        Post post = postRepository.findAll().get(0);
+        postLikeRepository.save(PostLike.of(post.getId(), 1L));
+        postLikeRepository.save(PostLike.of(post.getId(), 2L));
+
+        assertThat(postLikeRepository.deleteLike(post.getId(), 1L), is(1));
+        assertThat(postLikeRepository.deleteLike(post.getId(), 1L), is(0));
+        assertThat(postLikeRepository.findUserIds(post.getId()), contains(2L));
+    }
+
+    @Test
+    public void should_throwDataIntegrityViolationException_when_userLikesPostTwice() {
+        Post post = postRepository.findAll().get(0);
+        postLikeRepository.saveAndFlush(PostLike.of(post.getId(), 1L));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> postLikeRepository.saveAndFlush(PostLike.of(post.getId(), 1L)));
+    }
+}
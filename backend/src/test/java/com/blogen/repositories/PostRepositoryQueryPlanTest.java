@@ -0,0 +1,202 @@
+package com.blogen.repositories;
+
+import com.blogen.domain.Post;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManager;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Runs EXPLAIN on the SQL generated by every PostRepository query method and fails if the plan for any of them
+ * scans a whole table instead of using an index.
+ * <p>
+ * The SQL is captured from hibernate, so the plans checked are the plans of the statements the application
+ * really runs, including count queries for pages and any eager fetches. H2 bases its plans on table sizes, so a
+ * few thousand extra posts are inserted (and rolled back) before each test.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.blogen.repositories.PostRepositoryQueryPlanTest$CapturingStatementInspector")
+public class PostRepositoryQueryPlanTest {
+
+    private static final int EXTRA_POST_COUNT = 5_000;
+
+    private static final Pageable PAGE = PageRequest.of(0, 5, Sort.Direction.DESC, "created");
+
+    // for query methods that already order their results
+    private static final Pageable UNSORTED_PAGE = PageRequest.of(0, 5);
+
+    /**
+     * Each PostRepository query method, and how to call it
+     */
+    private static final Map<String, Consumer<PostRepository>> QUERIES = new LinkedHashMap<>();
+
+    /**
+     * Query methods that must read every post, and why
+     */
+    private static final Map<String, String> FULL_SCANS_ALLOWED = new HashMap<>();
+
+    static {
+        QUERIES.put("findAllByParentNull", repo -> repo.findAllByParentNull());
+        QUERIES.put("findByUuid", repo -> repo.findByUuid(UUID.fromString("01595982-f600-7099-b81a-eb871da2e7a6")));
+        QUERIES.put("findVersionById", repo -> repo.findVersionById(1L));
+        QUERIES.put("findLikeCountById", repo -> repo.findLikeCountById(1L));
+        QUERIES.put("findVersionByUuid",
+                repo -> repo.findVersionByUuid(UUID.fromString("01595982-f600-7099-b81a-eb871da2e7a6")));
+        QUERIES.put("incrementVersionOfPostsByUser", repo -> repo.incrementVersionOfPostsByUser(5L));
+        QUERIES.put("incrementVersionOfThreadsRepliedToByUser", repo -> repo.incrementVersionOfThreadsRepliedToByUser(5L));
+        QUERIES.put("incrementVersionOfPostsInCategory", repo -> repo.incrementVersionOfPostsInCategory(2L));
+        QUERIES.put("incrementVersionOfThreadsWithRepliesInCategory",
+                repo -> repo.incrementVersionOfThreadsWithRepliesInCategory(2L));
+        QUERIES.put("findAllByParentNullOrderByCreatedDesc", repo -> repo.findAllByParentNullOrderByCreatedDesc(UNSORTED_PAGE));
+        QUERIES.put("findAllByParentNullOrderByLastActivityDesc", repo -> repo.findAllByParentNullOrderByLastActivityDesc(UNSORTED_PAGE));
+        QUERIES.put("findAllById", repo -> repo.findAllById(List.of(1L, 2L, 3L)));
+        QUERIES.put("findByIdForUpdate", repo -> repo.findByIdForUpdate(1L));
+        QUERIES.put("findChildren",
+                repo -> repo.findChildren(1L, UNSORTED_PAGE));
+        QUERIES.put("findNewestChildren", repo -> repo.findNewestChildren(1L, 5L, UNSORTED_PAGE));
+        QUERIES.put("findChildrenAfter",
+                repo -> repo.findChildrenAfter(1L, LocalDateTime.of(2017, 1, 1, 10, 0), 2L, UNSORTED_PAGE));
+        QUERIES.put("findTimelineKeys", repo -> repo.findTimelineKeys(List.of(2L, 5L), UNSORTED_PAGE));
+        QUERIES.put("findTimelineKeysBefore",
+                repo -> repo.findTimelineKeysBefore(List.of(2L, 5L), LocalDateTime.of(2017, 1, 1, 10, 0), 2L, UNSORTED_PAGE));
+        QUERIES.put("findThreadKeys", repo -> repo.findThreadKeys(List.of(1L, 2L, 3L)));
+        QUERIES.put("findMaxId", PostRepository::findMaxId);
+        QUERIES.put("findParentTextsBetween", repo -> repo.findParentTextsBetween(0L, 100L, UNSORTED_PAGE));
+        QUERIES.put("findActivityKeysBetween",
+                repo -> repo.findActivityKeysBetween(0L, 100L, LocalDateTime.now().minusDays(90), UNSORTED_PAGE));
+        QUERIES.put("findAllByOrderByCreatedDesc", repo -> repo.findAllByOrderByCreatedDesc(UNSORTED_PAGE));
+        QUERIES.put("findAllByCategory_IdAndParentNull", repo -> repo.findAllByCategory_IdAndParentNull(1L, PAGE));
+        QUERIES.put("findAllByUser_IdAndParentNull", repo -> repo.findAllByUser_IdAndParentNull(5L, PAGE));
+        QUERIES.put("findAllByUser_IdAndCategory_IdAndParentNull",
+                repo -> repo.findAllByUser_IdAndCategory_IdAndParentNull(5L, 2L, PAGE));
+        QUERIES.put("findAllByUser_userNameOrderByCreatedDesc", repo -> repo.findAllByUser_userNameOrderByCreatedDesc("lizreed"));
+        QUERIES.put("findByTextOrTitleIgnoreCaseContaining", repo -> repo.findByTextOrTitleIgnoreCaseContaining("phone", PAGE));
+        QUERIES.put("findTop10ByOrderByCreatedDesc", repo -> repo.findTop10ByOrderByCreatedDesc());
+        QUERIES.put("findParentPostColumns",
+                repo -> repo.findParentPostColumns(List.of("id", "title", "created", "user.userName"), null, 2L, PAGE));
+        QUERIES.put("streamAllByThread", repo -> {
+            try (Stream<Post> posts = repo.streamAllByThread()) {
+                posts.findFirst();
+            }
+        });
+
+        FULL_SCANS_ALLOWED.put("findByTextOrTitleIgnoreCaseContaining", "a LIKE '%text%' search cannot use a b-tree index");
+        FULL_SCANS_ALLOWED.put("streamAllByThread", "exports every post");
+    }
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    public void setUp() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < EXTRA_POST_COUNT; i++) {
+            Long parentId = (i % 4 == 0) ? null : (long) (1 + i % 20);
+            rows.add(new Object[]{new Timestamp(1_500_000_000_000L + i * 60_000L), 1L + i % 4, parentId, 1L + i % 5});
+        }
+        jdbcTemplate.batchUpdate("insert into post (created, title, uuid, category_id, parent_id, user_id) "
+                + "values (?, 'title', random_uuid(), ?, ?, ?)", rows);
+        entityManager.clear();
+        CapturingStatementInspector.STATEMENTS.clear();
+    }
+
+    @Test
+    public void should_checkThePlanOfEveryQueryMethod() {
+        Set<String> queryMethods = Stream.of(PostRepository.class, PostColumnsRepository.class)
+                .flatMap(repository -> Arrays.stream(repository.getDeclaredMethods()))
+                .filter(method -> !method.isDefault() && !method.isSynthetic() && !Modifier.isStatic(method.getModifiers()))
+                .map(Method::getName)
+                .collect(Collectors.toSet());
+
+        assertThat("every PostRepository query method needs an entry in QUERIES", QUERIES.keySet(), is(queryMethods));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @ValueSource(strings = {"findAllByParentNullOrderByCreatedDesc", "findAllByParentNullOrderByLastActivityDesc",
+            "findAllByCategory_IdAndParentNull", "findAllByUser_IdAndParentNull",
+            "findAllByUser_IdAndCategory_IdAndParentNull", "findByTextOrTitleIgnoreCaseContaining", "findAllById"})
+    public void should_fetchLastReplierWithThePosts_when_listingThreads(String queryMethod) {
+        QUERIES.get(queryMethod).accept(postRepository);
+
+        // the summary of each thread shows its last replier, which would otherwise be loaded one thread at a time
+        assertThat(CapturingStatementInspector.STATEMENTS.get(0).toLowerCase(Locale.ROOT),
+                matchesPattern("(?s).* join user \\w+ on \\w+\\.last_replier_id=.*"));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("queryMethodNames")
+    public void should_useAnIndex_when_executingQuery(String queryMethod) {
+        QUERIES.get(queryMethod).accept(postRepository);
+
+        List<String> statements = new ArrayList<>(CapturingStatementInspector.STATEMENTS);
+        assertThat(statements, is(not(empty())));
+        for (String sql : statements) {
+            String plan = explain(sql);
+            if (!FULL_SCANS_ALLOWED.containsKey(queryMethod)) {
+                assertThat("full table scan in plan of " + queryMethod + ":\n" + plan, isFullScan(plan), is(false));
+            }
+        }
+    }
+
+    /**
+     * an un-filtered count(*) is planned as a table scan by H2 but is answered from the table's row count
+     * (a "direct lookup"), so it does not read any rows
+     */
+    private static boolean isFullScan(String plan) {
+        return plan.contains(".tableScan") && !plan.contains("/* direct lookup */");
+    }
+
+    static Stream<String> queryMethodNames() {
+        return QUERIES.keySet().stream();
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.query(con -> con.prepareStatement("EXPLAIN " + sql),
+                rs -> rs.next() ? rs.getString(1) : "");
+    }
+
+    /**
+     * Records every select and update statement hibernate prepares
+     */
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            String statement = sql.trim().toLowerCase(Locale.ROOT);
+            if (statement.startsWith("select") || statement.startsWith("update")) {
+                STATEMENTS.add(sql);
+            }
+            return sql;
+        }
+    }
+}
@@ -1,14 +1,23 @@
 package com.blogen.repositories;
 
 import com.blogen.domain.Post;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
+import javax.persistence.Tuple;
+import javax.persistence.TupleElement;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -36,6 +45,80 @@ public class PostRepositoryTest {
         assertThat(posts.get(0).getCreated().compareTo(posts.get(3).getCreated()), greaterThanOrEqualTo(0));
     }
 
+    @Test
+    public void should_haveReplySummary_when_parentPostHasReplies() {
+        // given post 1 has 4 replies, the latest one (post 5) made by user 4
+        Post post = postRepository.findById(1L).orElseThrow();
+
+        assertThat(post.getReplyCount(), is(4));
+        assertThat(post.getLastReplyAt(), is(LocalDateTime.of(2017, 1, 1, 10, 15, 12)));
+        assertThat(post.getLastReplier().getId(), is(4L));
+        assertThat(post.getLastActivity(), is(post.getLastReplyAt()));
+    }
+
+    @Test
+    public void should_returnThreadsByLastActivity_when_findAllByParentNullOrderByLastActivityDesc() {
+        Page<Post> page = postRepository.findAllByParentNullOrderByLastActivityDesc(PageRequest.of(0, 20));
+
+        List<Post> posts = page.getContent();
+        assertThat(posts.stream().allMatch(Post::isParentPost), is(true));
+        for (int i = 1; i < posts.size(); i++) {
+            assertThat(posts.get(i - 1).getLastActivity(), greaterThanOrEqualTo(posts.get(i).getLastActivity()));
+        }
+        // post 1 and post 17 were created at the same time, but post 1 has had replies since then
+        List<Long> ids = posts.stream().map(Post::getId).collect(Collectors.toList());
+        assertThat(ids.indexOf(1L), lessThan(ids.indexOf(17L)));
+    }
+
+    @Test
+    public void should_pageThroughReplies_when_findChildrenAfterLastReply() {
+        // given post 1 has 4 replies
+        List<Post> first = postRepository.findChildren(1L, PageRequest.of(0, 2));
+        Post last = first.get(1);
+        List<Post> rest = postRepository.findChildrenAfter(1L, last.getCreated(), last.getId(),
+                PageRequest.of(0, 10));
+
+        assertThat(first.size(), is(2));
+        assertThat(rest.size(), is(2));
+        assertThat(first.get(0).getCreated(), lessThanOrEqualTo(last.getCreated()));
+        assertThat(rest.get(0).getCreated(), greaterThanOrEqualTo(last.getCreated()));
+        assertThat(rest.stream().map(Post::getId).collect(Collectors.toList()),
+                not(hasItems(first.get(0).getId(), last.getId())));
+    }
+
+    @Test
+    public void should_findNewestOtherReply_when_findNewestChildren() {
+        // given post 1 has 4 replies, the newest is post 5
+        List<Post> newest = postRepository.findNewestChildren(1L, 5L, PageRequest.of(0, 1));
+
+        assertThat(newest.size(), is(1));
+        assertThat(newest.get(0).getId(), is(4L));
+    }
+
+    @Test
+    public void should_findPost_when_findByUuid() {
+        // given post 1 was seeded with this (time-ordered) uuid
+        UUID uuid = UUID.fromString("01595982-f600-7099-b81a-eb871da2e7a6");
+
+        Optional<Post> post = postRepository.findByUuid(uuid);
+
+        assertThat(post.isPresent(), is(true));
+        assertThat(post.get().getId(), is(1L));
+        assertThat(post.get().getUuid(), is(uuid));
+    }
+
+    @Test
+    public void should_storeTimeOrderedUuid_when_savingNewPost() {
+        Post post = new Post();
+        post.setTitle("new post");
+        post.setText("new text");
+
+        Post saved = postRepository.saveAndFlush(post);
+
+        assertThat(saved.getUuid().version(), is(7));
+        assertThat(postRepository.findByUuid(saved.getUuid()).map(Post::getId).orElse(null), is(saved.getId()));
+    }
+
     @Test
     public void should_return_4_business_parent_posts_when_findAllByCategory_IdAndParentNull() {
         // given there are 6 posts in the Business category, but only 4 are parent posts (aka thread starting posts)
@@ -95,4 +178,101 @@ public class PostRepositoryTest {
 
     }
 
+    @Test
+    public void should_incrementParentVersion_when_childAdded() {
+        Post parent = postRepository.findById(1L).orElseThrow();
+        long version = parent.getVersion();
+        Post child = new Post();
+        child.setTitle("reply");
+        child.setUser(parent.getUser());
+        child.setCategory(parent.getCategory());
+        parent.addChild(child);
+
+        postRepository.save(child);
+        Post savedParent = postRepository.saveAndFlush(parent);
+
+        assertThat(savedParent.getVersion(), is(version + 1));
+        assertThat(child.getVersion(), is(0L));
+    }
+
+    @Test
+    public void should_readVersionColumns_when_findVersionById() {
+        Post post = postRepository.findById(1L).orElseThrow();
+
+        PostVersion version = postRepository.findVersionById(1L).orElseThrow();
+
+        assertThat(version.getId(), is(1L));
+        assertThat(version.getParentId(), is(nullValue()));
+        assertThat(version.getVersion(), is(post.getVersion()));
+        assertThat(version.getCreated(), is(post.getCreated()));
+        assertThat(version.getLastActivity(), is(post.getLastActivity()));
+        assertThat(version.getViewCount(), is(post.getViewCount()));
+        assertThat(version.getLikeCount(), is(post.getLikeCount()));
+        assertThat(postRepository.findVersionByUuid(post.getUuid()).orElseThrow().getId(), is(1L));
+    }
+
+    @Test
+    public void should_readParentId_when_findVersionByIdOfReply() {
+        // given post 1 has replies
+        Post reply = postRepository.findById(1L).orElseThrow().getChildren().get(0);
+
+        PostVersion version = postRepository.findVersionById(reply.getId()).orElseThrow();
+
+        assertThat(version.getId(), is(reply.getId()));
+        assertThat(version.getParentId(), is(reply.getParent().getId()));
+        assertThat(postRepository.findVersionByUuid(reply.getUuid()).orElseThrow().getParentId(),
+                is(reply.getParent().getId()));
+    }
+
+    @Test
+    public void should_incrementVersionOfThread_when_userOfReplyChanges() {
+        // given post 1 has a reply by user 4
+        long version = postRepository.findVersionById(1L).orElseThrow().getVersion();
+
+        int updated = postRepository.incrementVersionOfThreadsRepliedToByUser(4L);
+
+        assertThat(updated, greaterThanOrEqualTo(1));
+        assertThat(postRepository.findVersionById(1L).orElseThrow().getVersion(), is(version + 1));
+    }
+
+    @Test
+    public void should_incrementVersionOfPosts_when_categoryChanges() {
+        Post post = postRepository.findById(1L).orElseThrow();
+        long version = post.getVersion();
+
+        postRepository.incrementVersionOfPostsInCategory(post.getCategory().getId());
+
+        assertThat(postRepository.findVersionById(1L).orElseThrow().getVersion(), is(version + 1));
+    }
+
+    @Test
+    public void findParentPostColumns() {
+        // given user ID 5 has created 3 parent posts belonging to category 2 (Health & Fitness)
+        Pageable pageable = PageRequest.of(0, 2, Sort.Direction.DESC, "created");
+
+        Page<Tuple> page = postRepository.findParentPostColumns(List.of("id", "title", "user.id", "category.name"),
+                5L, 2L, pageable);
+
+        assertThat(page.getTotalElements(), is(3L));
+        assertThat(page.getNumberOfElements(), is(2));
+        Tuple first = page.getContent().get(0);
+        assertThat(first.getElements().stream().map(TupleElement::getAlias).collect(Collectors.toList()),
+                contains("id", "title", "user.id", "category.name"));
+        assertThat(first.get("user.id"), is(5L));
+        assertThat(first.get("category.name"), is("Heath & Fitness"));
+        Post post = postRepository.findById((Long) first.get("id")).orElseThrow();
+        assertThat(post.isParentPost(), is(true));
+        assertThat(first.get("title"), is(post.getTitle()));
+    }
+
+    @Test
+    public void should_loadTextWithEachPost_when_streamAllByThread() {
+        try (Stream<Post> posts = postRepository.streamAllByThread()) {
+            List<Post> streamed = posts.collect(Collectors.toList());
+
+            assertThat(streamed, is(not(empty())));
+            // the text is read by the streaming query, not by one more select per post
+            streamed.forEach(post -> assertThat(Hibernate.isPropertyInitialized(post, "text"), is(true)));
+        }
+    }
 }
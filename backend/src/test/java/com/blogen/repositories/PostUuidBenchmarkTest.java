@@ -0,0 +1,123 @@
+package com.blogen.repositories;
+
+import com.blogen.services.utils.TimeOrderedUuid;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Compares the old post uuid scheme, a random uuid string in a varchar(255) column, with time-ordered uuids
+ * stored in a binary(16) column. Both tables have a unique index on the uuid, just like the post table.
+ * <p>
+ * Reports insert throughput and the on-disk size of each table (rows plus indexes) in a file based H2 database.
+ * This is a benchmark, not a unit test, so it only runs when requested:
+ * <pre>
+ *     mvn test -Dtest=PostUuidBenchmarkTest -Dblogen.benchmark=true
+ * </pre>
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "blogen.benchmark", matches = "true")
+public class PostUuidBenchmarkTest {
+
+    private static final int ROW_COUNT = 200_000;
+    private static final int BATCH_SIZE = 1_000;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void benchmark_randomVarcharUuids_vs_timeOrderedBinaryUuids() throws SQLException {
+        String url = "jdbc:h2:file:" + tempDir.resolve("uuid-bench").toAbsolutePath();
+        try (Connection conn = DriverManager.getConnection(url, "sa", "")) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("create table post_random (id bigint generated by default as identity, uuid varchar(255) not null, primary key (id))");
+                stmt.execute("alter table post_random add constraint UK_POST_RANDOM_UUID unique (uuid)");
+                stmt.execute("create table post_ordered (id bigint generated by default as identity, uuid binary(16) not null, primary key (id))");
+                stmt.execute("alter table post_ordered add constraint UK_POST_ORDERED_UUID unique (uuid)");
+            }
+
+            // warm up the JIT and H2 before timing anything
+            insert(conn, "post_random", ROW_COUNT / 10, false);
+            insert(conn, "post_ordered", ROW_COUNT / 10, true);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("truncate table post_random");
+                stmt.execute("truncate table post_ordered");
+            }
+
+            long randomNanos = insert(conn, "post_random", ROW_COUNT, false);
+            long orderedNanos = insert(conn, "post_ordered", ROW_COUNT, true);
+
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("checkpoint sync");
+            }
+            long randomBytes = diskSpaceUsed(conn, "POST_RANDOM");
+            long orderedBytes = diskSpaceUsed(conn, "POST_ORDERED");
+
+            log.info("random varchar(255) uuids: {} rows/s, {} KB", rowsPerSecond(randomNanos), randomBytes / 1024);
+            log.info("time-ordered binary(16) uuids: {} rows/s, {} KB", rowsPerSecond(orderedNanos), orderedBytes / 1024);
+
+            assertThat(count(conn, "post_random"), is((long) ROW_COUNT));
+            assertThat(count(conn, "post_ordered"), is((long) ROW_COUNT));
+        }
+    }
+
+    private long insert(Connection conn, String table, int rows, boolean timeOrdered) throws SQLException {
+        long start = System.nanoTime();
+        try (PreparedStatement ps = conn.prepareStatement("insert into " + table + " (uuid) values (?)")) {
+            for (int i = 1; i <= rows; i++) {
+                if (timeOrdered) {
+                    ps.setBytes(1, toBytes(TimeOrderedUuid.next()));
+                } else {
+                    ps.setString(1, UUID.randomUUID().toString());
+                }
+                ps.addBatch();
+                if (i % BATCH_SIZE == 0) {
+                    ps.executeBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    private static long rowsPerSecond(long nanos) {
+        return ROW_COUNT * 1_000_000_000L / nanos;
+    }
+
+    private static long diskSpaceUsed(Connection conn, String table) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("call disk_space_used('" + table + "')")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static long count(Connection conn, String table) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("select count(*) from " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
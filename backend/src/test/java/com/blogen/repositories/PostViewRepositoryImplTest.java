@@ -0,0 +1,45 @@
+package com.blogen.repositories;
+
+import com.blogen.domain.Post;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * These tests all use the H2 schema and data located in src/main/resources
+ */
+@DataJpaTest
+@Import(PostViewRepositoryImpl.class)
+public class PostViewRepositoryImplTest {
+
+    @Autowired
+    private PostViewRepository postViewRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    public void should_addViewsWithoutChangingVersion_when_addViews() {
+        Post post = postRepository.findAll().get(0);
+        Long version = post.getVersion();
+        long views = post.getViewCount();
+
+        postViewRepository.addViews(Map.of(post.getId(), 3L, -1L, 5L));
+        postViewRepository.addViews(Map.of(post.getId(), 2L));
+        entityManager.clear();
+
+        Post viewed = postRepository.findById(post.getId()).orElseThrow();
+        assertThat(viewed.getViewCount(), is(views + 5));
+        assertThat(viewed.getVersion(), is(version));
+    }
+}
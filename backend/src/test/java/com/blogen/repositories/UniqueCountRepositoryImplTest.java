@@ -0,0 +1,69 @@
+package com.blogen.repositories;
+
+import com.blogen.services.analytics.HyperLogLog;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * These tests all use the H2 schema and data located in src/main/resources
+ */
+@DataJpaTest
+@Import(UniqueCountRepositoryImpl.class)
+public class UniqueCountRepositoryImplTest {
+
+    private static final LocalDate WEEK = LocalDate.of(2024, 3, 4);
+
+    @Autowired
+    private UniqueCountRepository uniqueCountRepository;
+
+    @Test
+    public void should_insertThenMergeSketches_when_mergePostViewers() {
+        uniqueCountRepository.mergePostViewers(Map.of(1L, sketch(1, 100)));
+        uniqueCountRepository.mergePostViewers(Map.of(1L, sketch(51, 150), 2L, sketch(1, 10)));
+
+        Map<Long, byte[]> sketches = uniqueCountRepository.findPostViewers(List.of(1L, 2L, 3L));
+
+        assertThat(sketches.keySet(), containsInAnyOrder(1L, 2L));
+        // the merged sketch is the sketch of every viewer
+        assertThat(sketches.get(1L), is(sketch(1, 150)));
+        assertThat(sketches.get(2L), is(sketch(1, 10)));
+    }
+
+    @Test
+    public void should_ignorePostsThatDoNotExist_when_mergePostViewers() {
+        uniqueCountRepository.mergePostViewers(Map.of(999_999L, sketch(1, 10)));
+
+        assertThat(uniqueCountRepository.findPostViewers(List.of(999_999L)), is(anEmptyMap()));
+        assertThat(uniqueCountRepository.findPostViewers(List.of()), is(anEmptyMap()));
+    }
+
+    @Test
+    public void should_keepSketchesOfEachWeek_when_mergeCategoryAuthors() {
+        uniqueCountRepository.mergeCategoryAuthors(WEEK, Map.of(1L, sketch(1, 20)));
+        uniqueCountRepository.mergeCategoryAuthors(WEEK, Map.of(1L, sketch(11, 30)));
+        uniqueCountRepository.mergeCategoryAuthors(WEEK.plusWeeks(1), Map.of(1L, sketch(1, 5)));
+
+        Map<Long, byte[]> sketches = uniqueCountRepository.findCategoryAuthors(WEEK, List.of(1L, 2L));
+
+        assertThat(sketches.keySet(), contains(1L));
+        assertThat(sketches.get(1L), is(sketch(1, 30)));
+        assertThat(uniqueCountRepository.findCategoryAuthors(WEEK.plusWeeks(1), List.of(1L)).get(1L), is(sketch(1, 5)));
+    }
+
+    private static byte[] sketch(long fromUserId, long toUserId) {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long userId = fromUserId; userId <= toUserId; userId++) {
+            sketch.add(userId);
+        }
+        return sketch.toBytes();
+    }
+}
@@ -0,0 +1,53 @@
+package com.blogen.services.analytics;
+
+import com.blogen.api.v1.model.HeavyHitterDTO;
+import com.blogen.api.v1.model.HeavyHitterListDTO;
+import com.blogen.api.v1.model.PostEventDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Unit Tests for HeavyHittersEndpoint and HeavyHitterTracker
+ *
+ * @author Cliff
+ */
+public class HeavyHittersEndpointTest {
+
+    private HeavyHitterTracker tracker;
+
+    private HeavyHittersEndpoint endpoint;
+
+    @BeforeEach
+    public void setUp() {
+        tracker = new HeavyHitterTracker(3600, 300, 1024, 5);
+        endpoint = new HeavyHittersEndpoint(tracker);
+    }
+
+    @Test
+    public void should_showTopPostersAndThreads() {
+        tracker.onPostEvent(event(PostEventDTO.POST_CREATED, 100L, null, 5L));
+        tracker.onPostEvent(event(PostEventDTO.REPLY_CREATED, 101L, 100L, 5L));
+        // a reply counts for the user that replied, not for the author of the thread
+        tracker.onPostEvent(event(PostEventDTO.REPLY_CREATED, 102L, 100L, 6L));
+        tracker.onPostEvent(event(PostEventDTO.POST_DELETED, 102L, 100L, 6L));
+        tracker.read(100L);
+
+        assertThat(endpoint.heavyHitters().keySet(), contains(HeavyHittersEndpoint.POSTERS, HeavyHittersEndpoint.THREADS));
+        HeavyHitterListDTO posters = endpoint.heavyHitters(HeavyHittersEndpoint.POSTERS);
+        assertThat(posters.getHitters(), is(List.of(new HeavyHitterDTO(5L, 2), new HeavyHitterDTO(6L, 1))));
+        assertThat(posters.getWindowSeconds(), is(3600L));
+        assertThat(endpoint.heavyHitters(HeavyHittersEndpoint.THREADS).getHitters(),
+                contains(new HeavyHitterDTO(100L, 1)));
+        assertThat(endpoint.heavyHitters("likes"), is(nullValue()));
+    }
+
+    private static PostEventDTO event(String type, Long postId, Long parentPostId, Long userId) {
+        return PostEventDTO.builder().type(type).postId(postId).parentPostId(parentPostId).categoryId(1L)
+                .userId(userId).build();
+    }
+}
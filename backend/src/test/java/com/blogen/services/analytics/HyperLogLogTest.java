@@ -0,0 +1,73 @@
+package com.blogen.services.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit Tests for HyperLogLog
+ *
+ * @author Cliff
+ */
+public class HyperLogLogTest {
+
+    @Test
+    public void should_countSmallSetsNearlyExactly_andIgnoreRepeats() {
+        HyperLogLog sketch = new HyperLogLog();
+        assertThat(sketch.estimate(), is(0L));
+
+        for (int round = 0; round < 3; round++) {
+            for (long userId = 1; userId <= 50; userId++) {
+                sketch.add(userId);
+            }
+        }
+
+        assertThat(sketch.estimate(), is(both(greaterThanOrEqualTo(49L)).and(lessThanOrEqualTo(51L))));
+    }
+
+    @Test
+    public void should_estimateLargeSets_withinErrorBound() {
+        HyperLogLog sketch = new HyperLogLog();
+        long count = 200_000;
+        for (long userId = 1; userId <= count; userId++) {
+            sketch.add(userId);
+        }
+
+        // three standard errors
+        double error = Math.abs(sketch.estimate() - count) / (double) count;
+        assertThat(error, is(lessThan(3 * HyperLogLog.STANDARD_ERROR)));
+    }
+
+    @Test
+    public void should_estimateUnion_when_merged() {
+        HyperLogLog node1 = new HyperLogLog();
+        HyperLogLog node2 = new HyperLogLog();
+        for (long userId = 1; userId <= 3000; userId++) {
+            node1.add(userId);
+            node2.add(userId + 1000);
+        }
+
+        HyperLogLog merged = node1.copy().merge(node2);
+
+        double error = Math.abs(merged.estimate() - 4000) / 4000.0;
+        assertThat(error, is(lessThan(3 * HyperLogLog.STANDARD_ERROR)));
+        // merging is idempotent
+        assertThat(merged.copy().merge(node2).merge(node1).estimate(), is(merged.estimate()));
+    }
+
+    @Test
+    public void should_roundTripThroughBytes() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long userId = 1; userId <= 500; userId++) {
+            sketch.add(userId);
+        }
+
+        byte[] bytes = sketch.toBytes();
+
+        assertThat(bytes.length, is(HyperLogLog.BYTES));
+        assertThat(HyperLogLog.fromBytes(bytes).estimate(), is(sketch.estimate()));
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[16]));
+    }
+}
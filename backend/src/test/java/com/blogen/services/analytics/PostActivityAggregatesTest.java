@@ -0,0 +1,183 @@
+package com.blogen.services.analytics;
+
+import com.blogen.api.v1.model.PostActivityDTO;
+import com.blogen.api.v1.model.PostEventDTO;
+import com.blogen.repositories.PostActivityKey;
+import com.blogen.repositories.PostRepository;
+import com.blogen.services.utils.ParallelIdRangeScan;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+
+/**
+ * Unit Tests for PostActivityAggregates
+ *
+ * @author Cliff
+ */
+public class PostActivityAggregatesTest {
+
+    private static final LocalDateTime TODAY = LocalDate.now().atStartOfDay();
+
+    @Mock
+    private PostRepository postRepository;
+
+    private PostActivityAggregates aggregates;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (aggregates != null) {
+            aggregates.shutdown();
+        }
+    }
+
+    @Test
+    public void should_countPostsRepliesAndAuthors_byHourAndCategory() {
+        createAggregates();
+        aggregates.onPostEvent(event(PostEventDTO.POST_CREATED, 1L, 2L, 10L, TODAY.plusMinutes(5)));
+        aggregates.onPostEvent(event(PostEventDTO.REPLY_CREATED, 2L, 2L, 11L, TODAY.plusMinutes(50)));
+        aggregates.onPostEvent(event(PostEventDTO.REPLY_CREATED, 3L, 2L, 10L, TODAY.plusMinutes(55)));
+        aggregates.onPostEvent(event(PostEventDTO.POST_CREATED, 4L, 1L, 10L, TODAY.plusMinutes(90)));
+        aggregates.onPostEvent(event(PostEventDTO.POST_DELETED, 4L, 1L, 10L, TODAY.plusMinutes(95)));
+
+        List<PostActivityDTO> activity = aggregates.getActivity(TODAY, TODAY.plusDays(1), false, null);
+
+        assertThat(activity, hasSize(2));
+        assertActivity(activity.get(0), TODAY, 2L, 1, 2, 2);
+        assertActivity(activity.get(1), TODAY.plusHours(1), 1L, 1, 0, 1);
+        assertThat(aggregates.getActivity(TODAY, TODAY.plusHours(1), false, 1L), is(empty()));
+    }
+
+    @Test
+    public void should_rollHoursUpIntoDays() {
+        createAggregates();
+        aggregates.onPostEvent(event(PostEventDTO.POST_CREATED, 1L, 2L, 10L, TODAY.minusHours(1)));
+        aggregates.onPostEvent(event(PostEventDTO.POST_CREATED, 2L, 2L, 10L, TODAY.plusHours(1)));
+        aggregates.onPostEvent(event(PostEventDTO.REPLY_CREATED, 3L, 2L, 11L, TODAY.plusHours(5)));
+        aggregates.onPostEvent(event(PostEventDTO.POST_CREATED, 4L, 1L, 12L, TODAY.plusHours(6)));
+
+        List<PostActivityDTO> activity = aggregates.getActivity(TODAY.minusDays(1), TODAY.plusDays(1), true, 2L);
+
+        assertThat(activity, hasSize(2));
+        assertActivity(activity.get(0), TODAY.minusDays(1), 2L, 1, 0, 1);
+        // the author of both of today's posts is counted once
+        assertActivity(activity.get(1), TODAY, 2L, 1, 1, 2);
+    }
+
+    @Test
+    public void should_notCountActivity_olderThanRetention() {
+        createAggregates();
+        aggregates.onPostEvent(event(PostEventDTO.POST_CREATED, 1L, 2L, 10L, TODAY.minusDays(7)));
+        aggregates.onPostEvent(event(PostEventDTO.POST_CREATED, 2L, 2L, 10L, TODAY.minusDays(6)));
+
+        List<PostActivityDTO> activity = aggregates.getActivity(TODAY.minusDays(30), TODAY.plusDays(1), true, null);
+
+        assertThat(activity, hasSize(1));
+        assertThat(activity.get(0).getStart(), is(TODAY.minusDays(6)));
+    }
+
+    @Test
+    public void should_backfillEveryPostInRetention_when_loaded() {
+        // more posts than one page, spread over every range of the scan
+        List<PostActivityKey> posts = new ArrayList<>();
+        for (long id = 1; id <= ParallelIdRangeScan.PAGE_SIZE + 100; id++) {
+            posts.add(post(id, (id % 2 == 0) ? 1L : null, 3L, id % 5, TODAY.plusMinutes(id % 60)));
+        }
+        given(postRepository.findMaxId()).willReturn(Optional.of((long) posts.size()));
+        givenActivityKeys(posts);
+
+        createAggregates();
+
+        List<PostActivityDTO> activity = aggregates.getActivity(TODAY, TODAY.plusDays(1), true, 3L);
+        assertThat(activity, hasSize(1));
+        assertActivity(activity.get(0), TODAY, 3L, 300, 300, 5);
+    }
+
+    private void createAggregates() {
+        aggregates = new PostActivityAggregates(postRepository, 7, 2);
+        aggregates.loading.join();
+    }
+
+    private void givenActivityKeys(List<PostActivityKey> posts) {
+        given(postRepository.findActivityKeysBetween(anyLong(), anyLong(), any(LocalDateTime.class),
+                any(Pageable.class)))
+                .willAnswer(invocation -> {
+                    long after = invocation.getArgument(0);
+                    long before = invocation.getArgument(1);
+                    Pageable pageable = invocation.getArgument(3);
+                    return posts.stream()
+                            .filter(post -> post.getId() > after && post.getId() < before)
+                            .limit(pageable.getPageSize())
+                            .collect(Collectors.toList());
+                });
+    }
+
+    private static void assertActivity(PostActivityDTO activity, LocalDateTime start, Long categoryId, long posts,
+                                       long replies, long activeAuthors) {
+        assertThat(activity.getStart(), is(start));
+        assertThat(activity.getCategoryId(), is(categoryId));
+        assertThat(activity.getPosts(), is(posts));
+        assertThat(activity.getReplies(), is(replies));
+        assertThat(activity.getActiveAuthors(), is(activeAuthors));
+    }
+
+    private static PostEventDTO event(String type, Long postId, Long categoryId, Long userId, LocalDateTime occurred) {
+        return PostEventDTO.builder()
+                .type(type)
+                .postId(postId)
+                .parentPostId(PostEventDTO.REPLY_CREATED.equals(type) ? 1L : null)
+                .categoryId(categoryId)
+                .userId(userId)
+                .occurred(occurred)
+                .build();
+    }
+
+    private static PostActivityKey post(Long id, Long parentId, Long categoryId, Long userId, LocalDateTime created) {
+        return new PostActivityKey() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Long getParentId() {
+                return parentId;
+            }
+
+            @Override
+            public Long getCategoryId() {
+                return categoryId;
+            }
+
+            @Override
+            public Long getUserId() {
+                return userId;
+            }
+
+            @Override
+            public LocalDateTime getCreated() {
+                return created;
+            }
+        };
+    }
+}
@@ -0,0 +1,84 @@
+package com.blogen.services.analytics;
+
+import com.blogen.api.v1.model.HeavyHitterDTO;
+import com.blogen.api.v1.model.HeavyHitterListDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Unit Tests for SlidingHeavyHitters and CountMinSketch
+ *
+ * @author Cliff
+ */
+public class SlidingHeavyHittersTest {
+
+    // slices of one minute
+    private static final Duration WINDOW = Duration.ofMinutes(10);
+    private static final long MINUTE = 60_000;
+    private static final long START = 1_000 * MINUTE;
+
+    @Test
+    public void should_neverUnderestimate_andStayWithinErrorBound() {
+        CountMinSketch sketch = new CountMinSketch(4, 256);
+        for (long key = 0; key < 5000; key++) {
+            sketch.add(key, 1);
+        }
+        sketch.add(42L, 100);
+
+        long bound = (long) Math.ceil(sketch.relativeError() * 5100);
+        assertThat(sketch.estimate(42L), is(both(greaterThanOrEqualTo(101L)).and(lessThanOrEqualTo(101L + bound))));
+        assertThat(sketch.estimate(7L), is(both(greaterThanOrEqualTo(1L)).and(lessThanOrEqualTo(1L + bound))));
+    }
+
+    @Test
+    public void should_findTopKeys_amongManyRareOnes() {
+        SlidingHeavyHitters heavyHitters = new SlidingHeavyHitters(WINDOW, 10, 4, 1024, 3);
+        for (long key = 1000; key < 3000; key++) {
+            heavyHitters.add(key, START);
+        }
+        add(heavyHitters, 7L, 50, START);
+        add(heavyHitters, 8L, 40, START + MINUTE);
+        add(heavyHitters, 9L, 30, START + 2 * MINUTE);
+
+        HeavyHitterListDTO top = heavyHitters.top(START + 2 * MINUTE);
+
+        assertThat(top.getHitters().stream().map(HeavyHitterDTO::getId).toArray(), is(new Long[]{7L, 8L, 9L}));
+        assertThat(top.getTotalCount(), is(2120L));
+        assertThat(top.getHitters().get(0).getCount(),
+                is(both(greaterThanOrEqualTo(50L)).and(lessThanOrEqualTo(50L + top.getMaxOvercount()))));
+        assertThat(top.getWindowSeconds(), is(600L));
+    }
+
+    @Test
+    public void should_forgetCounts_thatSlideOutOfWindow() {
+        SlidingHeavyHitters heavyHitters = new SlidingHeavyHitters(WINDOW, 10, 4, 1024, 3);
+        add(heavyHitters, 7L, 50, START);
+        add(heavyHitters, 8L, 20, START + 5 * MINUTE);
+
+        HeavyHitterListDTO top = heavyHitters.top(START + 10 * MINUTE);
+
+        assertThat(top.getHitters(), contains(new HeavyHitterDTO(8L, 20)));
+        assertThat(top.getTotalCount(), is(20L));
+        assertThat(heavyHitters.top(START + 20 * MINUTE).getHitters(), is(empty()));
+    }
+
+    @Test
+    public void should_replaceLowestTopKey_when_otherKeyOvertakesIt() {
+        SlidingHeavyHitters heavyHitters = new SlidingHeavyHitters(WINDOW, 10, 4, 1024, 2);
+        add(heavyHitters, 1L, 10, START);
+        add(heavyHitters, 2L, 5, START);
+        add(heavyHitters, 3L, 6, START);
+
+        assertThat(heavyHitters.top(START).getHitters(), contains(new HeavyHitterDTO(1L, 10), new HeavyHitterDTO(3L, 6)));
+    }
+
+    private static void add(SlidingHeavyHitters heavyHitters, long key, int times, long nowMillis) {
+        for (int i = 0; i < times; i++) {
+            heavyHitters.add(key, nowMillis);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.blogen.services.analytics;
+
+import com.blogen.api.v1.model.PostEventDTO;
+import com.blogen.repositories.UniqueCountRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.times;
+
+/**
+ * Unit Tests for UniqueCounts
+ *
+ * @author Cliff
+ */
+public class UniqueCountsTest {
+
+    private static final long NEVER_MILLIS = 3_600_000;
+
+    private static final Long POST_ID = 7L;
+
+    @Mock
+    private UniqueCountRepository uniqueCountRepository;
+
+    private UniqueCounts uniqueCounts;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        uniqueCounts = new UniqueCounts(uniqueCountRepository, 100, 60, NEVER_MILLIS);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        uniqueCounts.shutdown();
+    }
+
+    @Test
+    public void should_mergeStoredAndPendingViewers() {
+        HyperLogLog stored = new HyperLogLog();
+        stored.add(1L);
+        stored.add(2L);
+        given(uniqueCountRepository.findPostViewers(List.of(POST_ID))).willReturn(Map.of(POST_ID, stored.toBytes()));
+
+        uniqueCounts.viewed(POST_ID, 2L);
+        uniqueCounts.viewed(POST_ID, 3L);
+        uniqueCounts.viewed(POST_ID, 3L);
+
+        assertThat(uniqueCounts.getViewerCounts(List.of(POST_ID)), is(Map.of(POST_ID, 3L)));
+        assertThat(uniqueCounts.getViewerCounts(List.of(8L)), is(Map.of(8L, 0L)));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void should_storePendingViewers_when_flush() {
+        uniqueCounts.viewed(POST_ID, 1L);
+        uniqueCounts.viewed(POST_ID, 2L);
+
+        uniqueCounts.flush();
+        uniqueCounts.flush();
+
+        ArgumentCaptor<Map<Long, byte[]>> sketches = ArgumentCaptor.forClass(Map.class);
+        then(uniqueCountRepository).should().mergePostViewers(sketches.capture());
+        assertThat(HyperLogLog.fromBytes(sketches.getValue().get(POST_ID)).estimate(), is(2L));
+    }
+
+    @Test
+    public void should_keepPendingViewers_when_storeFails() {
+        willThrow(new IllegalStateException("database down")).given(uniqueCountRepository).mergePostViewers(anyMap());
+        uniqueCounts.viewed(POST_ID, 1L);
+
+        uniqueCounts.flush();
+        uniqueCounts.flush();
+
+        then(uniqueCountRepository).should(times(2)).mergePostViewers(anyMap());
+        assertThat(uniqueCounts.getViewerCounts(List.of(POST_ID)), is(Map.of(POST_ID, 1L)));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void should_countAuthorsByCategoryAndWeek() {
+        LocalDateTime now = LocalDateTime.now();
+        uniqueCounts.onPostEvent(event(PostEventDTO.POST_CREATED, 2L, 10L, now));
+        uniqueCounts.onPostEvent(event(PostEventDTO.REPLY_CREATED, 2L, 11L, now));
+        uniqueCounts.onPostEvent(event(PostEventDTO.REPLY_CREATED, 2L, 10L, now));
+        uniqueCounts.onPostEvent(event(PostEventDTO.POST_CREATED, 2L, 12L, now.minusWeeks(1)));
+        uniqueCounts.onPostEvent(event(PostEventDTO.POST_DELETED, 2L, 13L, now));
+
+        assertThat(uniqueCounts.getWeeklyAuthorCounts(List.of(2L, 3L)), is(Map.of(2L, 2L, 3L, 0L)));
+
+        uniqueCounts.flush();
+
+        LocalDate week = UniqueCounts.weekStart(now.toLocalDate());
+        ArgumentCaptor<Map<Long, byte[]>> sketches = ArgumentCaptor.forClass(Map.class);
+        then(uniqueCountRepository).should().mergeCategoryAuthors(eq(week), sketches.capture());
+        assertThat(HyperLogLog.fromBytes(sketches.getValue().get(2L)).estimate(), is(2L));
+        then(uniqueCountRepository).should().mergeCategoryAuthors(eq(week.minusWeeks(1)), anyMap());
+    }
+
+    @Test
+    public void should_startWeeksOnMonday() {
+        assertThat(UniqueCounts.weekStart(LocalDate.of(2024, 3, 6)), is(LocalDate.of(2024, 3, 4)));
+        assertThat(UniqueCounts.weekStart(LocalDate.of(2024, 3, 4)), is(LocalDate.of(2024, 3, 4)));
+        assertThat(UniqueCounts.weekStart(LocalDate.of(2024, 3, 10)), is(LocalDate.of(2024, 3, 4)));
+    }
+
+    private static PostEventDTO event(String type, Long categoryId, Long userId, LocalDateTime occurred) {
+        return PostEventDTO.builder()
+                .type(type)
+                .postId(1L)
+                .categoryId(categoryId)
+                .userId(userId)
+                .occurred(occurred)
+                .build();
+    }
+}
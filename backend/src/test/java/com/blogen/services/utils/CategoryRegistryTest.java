@@ -0,0 +1,117 @@
+package com.blogen.services.utils;
+
+import com.blogen.api.v1.controllers.CategoryController;
+import com.blogen.api.v1.model.CategoryDTO;
+import com.blogen.domain.Category;
+import com.blogen.repositories.CategoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.times;
+
+/**
+ * Unit Tests for CategoryRegistry
+ *
+ * @author Cliff
+ */
+public class CategoryRegistryTest {
+
+    // the refresher never runs during a test
+    private static final long NEVER_SECONDS = 3600;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    private CategoryRegistry registry;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        given(categoryRepository.findAll()).willReturn(List.of(category(1L, "Business"), category(2L, "Health"),
+                category(3L, "Technology")));
+        registry = new CategoryRegistry(categoryRepository, NEVER_SECONDS);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        registry.shutdown();
+    }
+
+    @Test
+    public void should_pageCategoriesNewestFirstWithUrls_when_getCategoryDtos() {
+        Page<CategoryDTO> first = registry.getCategoryDtos(PageRequest.of(0, 2));
+        Page<CategoryDTO> last = registry.getCategoryDtos(PageRequest.of(1, 2));
+
+        assertThat(ids(first), contains(3L, 2L));
+        assertThat(first.getContent().get(0).getCategoryUrl(), is(CategoryController.BASE_URL + "/3"));
+        assertThat(first.getTotalElements(), is(3L));
+        assertThat(ids(last), contains(1L));
+        assertThat(registry.getCategoryDtos(PageRequest.of(2, 2)).getContent(), is(empty()));
+        then(categoryRepository).should(times(1)).findAll();
+    }
+
+    @Test
+    public void should_handOutCopies_when_getCategoryDto() {
+        registry.getCategoryDto(1L).get().setPostCount(4L);
+
+        assertThat(registry.getCategoryDto(1L).get().getPostCount(), is(nullValue()));
+        assertThat(registry.getCategory(1L).get(), is(not(sameInstance(registry.getCategory(1L).get()))));
+        assertThat(registry.getCategory(1L).get().getName(), is("Business"));
+    }
+
+    @Test
+    public void should_swapInCategory_when_put() {
+        registry.put(category(1L, "Finance"));
+        registry.put(category(4L, "Travel"));
+
+        assertThat(registry.getCategoryDto(1L).get().getName(), is("Finance"));
+        assertThat(ids(registry.getCategoryDtos(PageRequest.of(0, 10))), contains(4L, 3L, 2L, 1L));
+    }
+
+    @Test
+    public void should_lookUpUnknownIdOnce_when_createdElsewhere() {
+        given(categoryRepository.findById(5L)).willReturn(Optional.of(category(5L, "Travel")));
+        given(categoryRepository.findById(6L)).willReturn(Optional.empty());
+
+        assertThat(registry.exists(5L), is(true));
+        assertThat(registry.exists(5L), is(true));
+        assertThat(registry.exists(6L), is(false));
+        assertThat(registry.getCategory(6L), is(Optional.empty()));
+
+        then(categoryRepository).should(times(1)).findById(5L);
+        then(categoryRepository).should(times(2)).findById(6L);
+        assertThat(registry.getCategoryDto(5L).get().getName(), is("Travel"));
+    }
+
+    @Test
+    public void should_reloadEveryCategory_when_refresh() {
+        given(categoryRepository.findAll()).willReturn(List.of(category(1L, "Finance"), category(2L, "Health")));
+
+        registry.refresh();
+
+        assertThat(registry.getCategoryDto(1L).get().getName(), is("Finance"));
+        assertThat(ids(registry.getCategoryDtos(PageRequest.of(0, 10))), contains(2L, 1L));
+    }
+
+    private static Category category(Long id, String name) {
+        return Category.builder().id(id).name(name).created(LocalDateTime.now()).build();
+    }
+
+    private static List<Long> ids(Page<CategoryDTO> page) {
+        return page.getContent().stream().map(CategoryDTO::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,41 @@
+package com.blogen.services.utils;
+
+import com.blogen.exceptions.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit Tests for ChangeToken
+ *
+ * @author Cliff
+ */
+public class ChangeTokenTest {
+
+    @Test
+    public void should_decodeToSameChangeId_when_encoded() {
+        String encoded = ChangeToken.encode(1234567L);
+
+        assertThat(encoded, matchesPattern("[A-Za-z0-9_-]+"));
+        assertThat(ChangeToken.decode(encoded), is(1234567L));
+    }
+
+    @Test
+    public void should_throwBadRequestException_when_decodingInvalidBase64() {
+        assertThrows(BadRequestException.class, () -> ChangeToken.decode("not a token"));
+    }
+
+    @Test
+    public void should_throwBadRequestException_when_decodingInvalidChangeId() {
+        String encoded = Base64.getUrlEncoder().encodeToString("c-12".getBytes(StandardCharsets.UTF_8));
+        String notNumber = Base64.getUrlEncoder().encodeToString("cyesterday".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(BadRequestException.class, () -> ChangeToken.decode(encoded));
+        assertThrows(BadRequestException.class, () -> ChangeToken.decode(notNumber));
+    }
+}
@@ -0,0 +1,171 @@
+package com.blogen.services.utils;
+
+import com.blogen.api.v1.model.PostEventDTO;
+import com.blogen.repositories.PostRepository;
+import com.blogen.repositories.PostText;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+
+/**
+ * Unit Tests for DuplicatePostIndex and SimHash
+ *
+ * @author Cliff
+ */
+public class DuplicatePostIndexTest {
+
+    private static final String TITLE = "Cheap watches for sale";
+    private static final String TEXT = "We sell the best replica watches on the internet at the lowest prices you "
+            + "will ever find. Every watch ships the same day from our warehouse, and comes with a two year warranty "
+            + "and free returns. Visit our store today and get a second watch for half the price, this offer ends "
+            + "soon so do not wait too long to order yours.";
+    // the same text, as a spam bot would repost it
+    private static final String EDITED_TEXT = TEXT.replace("lowest prices", "lowest price")
+            .replace("today", "now");
+    private static final String OTHER_TEXT = "The team met on Tuesday to plan the release of the new search "
+            + "feature. Most of the work left is in the indexing code, which still rebuilds everything when a single "
+            + "post changes, and in the tests, which do not cover posts that are deleted while they are indexed.";
+
+    @Mock
+    private PostRepository postRepository;
+
+    private DuplicatePostIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        index = new DuplicatePostIndex(postRepository, 8, 2);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        index.shutdown();
+    }
+
+    @Test
+    public void should_giveCloseFingerprints_when_textsAreNearDuplicates() {
+        long fingerprint = fingerprint(TITLE, TEXT);
+
+        assertThat(SimHash.distance(fingerprint, fingerprint(TITLE.toUpperCase(), EDITED_TEXT)),
+                is(lessThanOrEqualTo(DuplicatePostIndex.MAX_DISTANCE)));
+        assertThat(SimHash.distance(fingerprint, fingerprint(TITLE, OTHER_TEXT)),
+                is(greaterThan(DuplicatePostIndex.MAX_DISTANCE)));
+    }
+
+    @Test
+    public void should_notFingerprint_when_tooFewWords() {
+        assertThat(index.fingerprint("Thanks", "Great post!").isPresent(), is(false));
+        assertThat(index.fingerprint(null, "one two three four five six seven eight").isPresent(), is(true));
+    }
+
+    @Test
+    public void should_findNearDuplicate_untilItIsRemoved() {
+        index.put(1L, fingerprint(TITLE, TEXT));
+        index.put(2L, fingerprint(TITLE, OTHER_TEXT));
+
+        assertThat(index.findNearDuplicate(fingerprint(TITLE, EDITED_TEXT)), is(Optional.of(1L)));
+
+        index.onPostEvent(PostEventDTO.builder().type(PostEventDTO.POST_DELETED).postId(1L).build());
+
+        assertThat(index.findNearDuplicate(fingerprint(TITLE, EDITED_TEXT)), is(Optional.empty()));
+        assertThat(index.findNearDuplicate(fingerprint(TITLE, OTHER_TEXT)), is(Optional.of(2L)));
+    }
+
+    @Test
+    public void should_replaceFingerprint_when_postIsUpdated() {
+        index.put(1L, fingerprint(TITLE, TEXT));
+        index.put(1L, fingerprint(TITLE, OTHER_TEXT));
+
+        assertThat(index.findNearDuplicate(fingerprint(TITLE, TEXT)), is(Optional.empty()));
+        assertThat(index.findNearDuplicate(fingerprint(TITLE, OTHER_TEXT)), is(Optional.of(1L)));
+    }
+
+    @Test
+    public void should_clusterChainsOfNearDuplicates() {
+        long a = 0x0123_4567_89ab_cdefL;
+        long b = 0x7edc_ba98_7654_3210L;
+        Map<Long, Long> fingerprints = Map.of(
+                1L, a,
+                2L, a ^ 0b111111,
+                // 12 bits from post 1, but 6 bits from post 2
+                3L, a ^ 0b111111 ^ (0b111111L << 40),
+                4L, b,
+                5L, b ^ (1L << 63),
+                6L, 0x5555_5555_5555_5555L);
+
+        List<List<Long>> clusters = DuplicatePostIndex.clusters(fingerprints);
+
+        assertThat(clusters, contains(List.of(1L, 2L, 3L), List.of(4L, 5L)));
+    }
+
+    @Test
+    public void should_fingerprintEveryParentPost_when_scanFingerprints() {
+        List<PostText> posts = List.of(post(1L, TEXT), post(2L, "too short"), post(7L, OTHER_TEXT),
+                post(30L, EDITED_TEXT));
+        given(postRepository.findMaxId()).willReturn(Optional.of(30L));
+        given(postRepository.findParentTextsBetween(anyLong(), anyLong(), any(Pageable.class)))
+                .willAnswer(invocation -> {
+                    long after = invocation.getArgument(0);
+                    long before = invocation.getArgument(1);
+                    return posts.stream()
+                            .filter(post -> post.getId() > after && post.getId() < before)
+                            .collect(Collectors.toList());
+                });
+
+        Map<Long, Long> fingerprints = index.scanFingerprints();
+
+        assertThat(fingerprints.keySet(), containsInAnyOrder(1L, 7L, 30L));
+        assertThat(fingerprints.get(7L), is(fingerprint(TITLE, OTHER_TEXT)));
+        assertThat(DuplicatePostIndex.clusters(fingerprints), contains(List.of(1L, 30L)));
+    }
+
+    @Test
+    public void should_keepNewerFingerprint_when_loadReadsOlderOne() {
+        given(postRepository.findMaxId()).willReturn(Optional.of(1L));
+        given(postRepository.findParentTextsBetween(anyLong(), anyLong(), any(Pageable.class)))
+                .willReturn(List.of(post(1L, TEXT)));
+        index.put(1L, fingerprint(TITLE, OTHER_TEXT));
+
+        index.load();
+
+        assertThat(index.findNearDuplicate(fingerprint(TITLE, TEXT)), is(Optional.empty()));
+        assertThat(index.findNearDuplicate(fingerprint(TITLE, OTHER_TEXT)), is(Optional.of(1L)));
+    }
+
+    private long fingerprint(String title, String text) {
+        return index.fingerprint(title, text).getAsLong();
+    }
+
+    private static PostText post(Long id, String text) {
+        return new PostText() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getTitle() {
+                return TITLE;
+            }
+
+            @Override
+            public String getText() {
+                return text;
+            }
+        };
+    }
+}
@@ -0,0 +1,60 @@
+package com.blogen.services.utils;
+
+import com.blogen.api.v1.model.PostDTO;
+import com.blogen.exceptions.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit Tests for FieldSelection
+ *
+ * @author Cliff
+ */
+public class FieldSelectionTest {
+
+    @Test
+    public void should_selectEverything_when_fieldsIsBlank() {
+        assertThat(FieldSelection.parse(null, PostDTO.class).isAll(), is(true));
+        assertThat(FieldSelection.parse(" , ", PostDTO.class).isAll(), is(true));
+        assertThat(FieldSelection.all().includes("children"), is(true));
+    }
+
+    @Test
+    public void should_includeSelectedPaths_when_parsed() {
+        FieldSelection selection = FieldSelection.parse("id, title,user.userName", PostDTO.class);
+
+        assertThat(selection.getPaths(), contains("id", "title", "user.userName"));
+        assertThat(selection.includes("title"), is(true));
+        assertThat(selection.includes("text"), is(false));
+        assertThat(selection.includes("children"), is(false));
+    }
+
+    @Test
+    public void should_includeNestedDtoAndItsSelectedProperty_when_nestedPropertySelected() {
+        FieldSelection selection = FieldSelection.parse("user.userName", PostDTO.class);
+
+        assertThat(selection.includes("user"), is(true));
+        assertThat(selection.includes("user.userName"), is(true));
+        assertThat(selection.includes("user.avatarUrl"), is(false));
+    }
+
+    @Test
+    public void should_includeEveryPropertyOfNestedDto_when_nestedDtoSelected() {
+        FieldSelection selection = FieldSelection.parse("category", PostDTO.class);
+
+        assertThat(selection.includes("category.name"), is(true));
+        assertThat(selection.includes("category.categoryUrl"), is(true));
+        assertThat(selection.includes("categoryUrl"), is(false));
+    }
+
+    @Test
+    public void should_throwBadRequestException_when_fieldIsUnknown() {
+        assertThrows(BadRequestException.class, () -> FieldSelection.parse("id,password", PostDTO.class));
+        assertThrows(BadRequestException.class, () -> FieldSelection.parse("user.password", PostDTO.class));
+        assertThrows(BadRequestException.class, () -> FieldSelection.parse("title.length", PostDTO.class));
+        assertThrows(BadRequestException.class, () -> FieldSelection.parse("user.", PostDTO.class));
+    }
+}
@@ -0,0 +1,42 @@
+package com.blogen.services.utils;
+
+import com.blogen.exceptions.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit Tests for KeysetCursor
+ *
+ * @author Cliff
+ */
+public class KeysetCursorTest {
+
+    @Test
+    public void should_decodeToSamePosition_when_encoded() {
+        KeysetCursor cursor = new KeysetCursor(LocalDateTime.of(2017, 1, 1, 10, 15, 12, 123_456_789), 42L);
+
+        String encoded = cursor.encode();
+
+        assertThat(encoded, matchesPattern("[A-Za-z0-9_-]+"));
+        assertThat(KeysetCursor.decode(encoded), is(cursor));
+    }
+
+    @Test
+    public void should_throwBadRequestException_when_decodingInvalidBase64() {
+        assertThrows(BadRequestException.class, () -> KeysetCursor.decode("not a cursor"));
+    }
+
+    @Test
+    public void should_throwBadRequestException_when_decodingInvalidPosition() {
+        String encoded = Base64.getUrlEncoder().encodeToString("yesterday_42".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(BadRequestException.class, () -> KeysetCursor.decode(encoded));
+    }
+}
@@ -0,0 +1,102 @@
+package com.blogen.services.utils;
+
+import com.blogen.repositories.LatestThread;
+import com.blogen.repositories.PostCountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.times;
+
+/**
+ * Unit Tests for PostCounts
+ *
+ * @author Cliff
+ */
+public class PostCountsTest {
+
+    @Mock
+    private PostCountRepository postCountRepository;
+
+    private PostCounts postCounts;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        postCounts = new PostCounts(postCountRepository, 100, 60);
+    }
+
+    @Test
+    public void should_readOnlyUncachedCounts_when_getUserPostCounts() {
+        given(postCountRepository.findUserPostCounts(List.of(1L, 2L))).willReturn(Map.of(1L, 3L));
+        given(postCountRepository.findUserPostCounts(List.of(4L))).willReturn(Map.of(4L, 7L));
+
+        assertThat(postCounts.getUserPostCounts(List.of(1L, 2L)), is(Map.of(1L, 3L, 2L, 0L)));
+        assertThat(postCounts.getUserPostCounts(List.of(2L, 4L, 1L)), is(Map.of(1L, 3L, 2L, 0L, 4L, 7L)));
+
+        then(postCountRepository).should(times(1)).findUserPostCounts(List.of(1L, 2L));
+        then(postCountRepository).should(times(1)).findUserPostCounts(List.of(4L));
+    }
+
+    @Test
+    public void should_addToRepositoryAndInvalidate_when_postCreatedOrDeleted() {
+        given(postCountRepository.findUserPostCounts(List.of(1L))).willReturn(Map.of(1L, 3L), Map.of(1L, 4L));
+        given(postCountRepository.findCategoryPostCounts(List.of(2L))).willReturn(Map.of(2L, 5L), Map.of(2L, 6L));
+        given(postCountRepository.findCategoryPostCountsOfUser(1L)).willReturn(Map.of(2L, 1L), Map.of(2L, 2L));
+        postCounts.getUserPostCounts(List.of(1L));
+        postCounts.getCategoryPostCounts(List.of(2L));
+        postCounts.getCategoryPostCountsOfUser(1L);
+
+        postCounts.postCreated(1L, 2L, 9L);
+
+        then(postCountRepository).should().addPosts(1L, 2L, 1);
+        then(postCountRepository).should().setLatestThread(2L, 9L);
+        assertThat(postCounts.getUserPostCounts(List.of(1L)), is(Map.of(1L, 4L)));
+        assertThat(postCounts.getCategoryPostCounts(List.of(2L)), is(Map.of(2L, 6L)));
+        assertThat(postCounts.getCategoryPostCountsOfUser(1L), is(Map.of(2L, 2L)));
+
+        postCounts.postDeleted(1L, 2L, 9L);
+
+        then(postCountRepository).should().addPosts(1L, 2L, -1);
+        then(postCountRepository).should().replaceLatestThread(2L, 9L);
+    }
+
+    @Test
+    public void should_cacheLatestThreadsUntilPostEdited_when_getLatestThreads() {
+        LatestThread thread = new LatestThread(9L, "title", LocalDateTime.now());
+        LatestThread edited = new LatestThread(4L, "edited", LocalDateTime.now());
+        given(postCountRepository.findLatestThreads(List.of(2L, 3L))).willReturn(Map.of(2L, thread));
+        given(postCountRepository.findLatestThreads(List.of(2L))).willReturn(Map.of(2L, edited));
+
+        assertThat(postCounts.getLatestThreads(List.of(2L, 3L)), is(Map.of(2L, thread)));
+        assertThat(postCounts.getLatestThreads(List.of(2L, 3L)), is(Map.of(2L, thread)));
+
+        postCounts.postEdited(2L, 4L);
+
+        then(postCountRepository).should().setLatestThread(2L, 4L);
+        assertThat(postCounts.getLatestThreads(List.of(2L, 3L)), is(Map.of(2L, edited)));
+        then(postCountRepository).should(times(1)).findLatestThreads(List.of(2L, 3L));
+        then(postCountRepository).should(times(1)).findLatestThreads(List.of(2L));
+    }
+
+    @Test
+    public void should_notCacheCount_when_invalidatedWhileRead() {
+        given(postCountRepository.findUserPostCounts(List.of(1L))).willAnswer(invocation -> {
+            // a post is created after the count was read, but before it is cached
+            postCounts.postCreated(1L, 2L, 9L);
+            return Map.of(1L, 3L);
+        }).willReturn(Map.of(1L, 4L));
+
+        assertThat(postCounts.getUserPostCounts(List.of(1L)), is(Map.of(1L, 3L)));
+        assertThat(postCounts.getUserPostCounts(List.of(1L)), is(Map.of(1L, 4L)));
+    }
+}
@@ -0,0 +1,90 @@
+package com.blogen.services.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Unit Tests for PostJsonCache
+ *
+ * @author Cliff
+ */
+public class PostJsonCacheTest {
+
+    private static final String V1 = "post-1-v1";
+    private static final String V2 = "post-1-v2";
+    private static final byte[] JSON_V1 = "{\"id\":1,\"title\":\"v1\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] JSON_V2 = "{\"id\":1,\"title\":\"v2\"}".getBytes(StandardCharsets.UTF_8);
+
+    private PostJsonCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        cache = new PostJsonCache(1_000_000, 60);
+    }
+
+    @Test
+    public void should_returnCachedJson_when_put() {
+        cache.put(1L, V1, cache.generation(), Set.of(5L), JSON_V1);
+
+        assertThat(cache.get(1L, V1), is(JSON_V1));
+        assertThat(cache.get(2L, V1), is(nullValue()));
+    }
+
+    @Test
+    public void should_removeJson_when_invalidated() {
+        cache.put(1L, V1, cache.generation(), Set.of(5L), JSON_V1);
+
+        cache.invalidate(1L, null);
+
+        assertThat(cache.get(1L, V1), is(nullValue()));
+    }
+
+    @Test
+    public void should_notCacheJson_when_invalidatedWhileItWasBuilt() {
+        long generation = cache.generation();
+        // the post is edited after the reader read it, but before the reader cached its JSON
+        cache.invalidate(1L);
+
+        cache.put(1L, V1, generation, Set.of(5L), JSON_V1);
+
+        assertThat(cache.get(1L, V1), is(nullValue()));
+    }
+
+    @Test
+    public void should_missJson_when_versionChangedWithoutInvalidation() {
+        cache.put(1L, V1, cache.generation(), Set.of(5L), JSON_V1);
+
+        // e.g. the post was edited on another node
+        assertThat(cache.get(1L, V2), is(nullValue()));
+        cache.put(1L, V2, cache.generation(), Set.of(5L), JSON_V2);
+        assertThat(cache.get(1L, V2), is(JSON_V2));
+        assertThat(cache.get(1L, V1), is(nullValue()));
+    }
+
+    @Test
+    public void should_removeOnlyPostsShowingUser_when_userInvalidated() {
+        cache.put(1L, V1, cache.generation(), Set.of(5L, 6L), JSON_V1);
+        cache.put(2L, V1, cache.generation(), Set.of(7L), JSON_V2);
+
+        cache.invalidateUser(6L);
+
+        assertThat(cache.get(1L, V1), is(nullValue()));
+        assertThat(cache.get(2L, V1), is(JSON_V2));
+    }
+
+    @Test
+    public void should_removeEverything_when_allInvalidated() {
+        cache.put(1L, V1, cache.generation(), Set.of(5L), JSON_V1);
+        cache.put(2L, V1, cache.generation(), Set.of(7L), JSON_V2);
+
+        cache.invalidateAll();
+
+        assertThat(cache.size(), is(0L));
+    }
+}
@@ -0,0 +1,200 @@
+package com.blogen.services.utils;
+
+import com.blogen.repositories.PostLikeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Measures thousands of users liking one post at the same time, from many threads, in a file based H2 database.
+ * Compares counting each like with an update of the post row, in the transaction that inserts the like, against
+ * only inserting the like and counting it with a {@link PostLikeCounter}, whose count is reconciled afterwards.
+ * <p>
+ * Reports likes per second and the slowest like of each. This is a benchmark, not a unit test, so it only runs when
+ * requested:
+ * <pre>
+ *     mvn test -Dtest=PostLikeBenchmarkTest -Dblogen.benchmark=true
+ * </pre>
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "blogen.benchmark", matches = "true")
+public class PostLikeBenchmarkTest {
+
+    private static final int LIKE_COUNT = 20_000;
+    private static final int THREADS = 64;
+    private static final long POST_ID = 1;
+
+    private static final String INSERT_LIKE = "insert into post_like (post_id, user_id) values (?, ?)";
+    private static final String INCREMENT_LIKE_COUNT = "update post set like_count = like_count + 1 where id = ?";
+    private static final String RECONCILE_LIKE_COUNT =
+            "update post set like_count = (select count(*) from post_like where post_like.post_id = post.id) where id = ?";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void benchmark_rowLockCounting_vs_shardedCounting() throws Exception {
+        String url = "jdbc:h2:file:" + tempDir.resolve("like-bench").toAbsolutePath() + ";LOCK_TIMEOUT=60000";
+        try (Connection conn = DriverManager.getConnection(url, "sa", "")) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("create table post (id bigint not null, like_count bigint default 0 not null, primary key (id))");
+                stmt.execute("create table post_like (id bigint generated by default as identity, post_id bigint not null, user_id bigint not null, primary key (id))");
+                stmt.execute("alter table post_like add constraint UK_POST_LIKE_POST_ID_USER_ID unique (post_id, user_id)");
+                stmt.execute("insert into post (id) values (" + POST_ID + ")");
+            }
+
+            // warm up the JIT and H2 before timing anything
+            likeWithRowLock(url, LIKE_COUNT / 10);
+            reset(conn);
+            likeWithCounter(url, LIKE_COUNT / 10, newCounter());
+            reset(conn);
+
+            Result rowLock = likeWithRowLock(url, LIKE_COUNT);
+            assertThat(likeCount(conn), is((long) LIKE_COUNT));
+            reset(conn);
+
+            PostLikeCounter counter = newCounter();
+            Result sharded = likeWithCounter(url, LIKE_COUNT, counter);
+            assertThat(counter.pendingLikes(POST_ID), is((long) LIKE_COUNT));
+            try (PreparedStatement ps = conn.prepareStatement(RECONCILE_LIKE_COUNT)) {
+                ps.setLong(1, POST_ID);
+                ps.executeUpdate();
+            }
+            assertThat(likeCount(conn), is((long) LIKE_COUNT));
+            counter.shutdown();
+
+            log.info("{} likes of one post from {} threads", LIKE_COUNT, THREADS);
+            log.info("insert and update post row: {} likes/s, slowest like {} ms", rowLock.likesPerSecond(),
+                    rowLock.slowestMillis());
+            log.info("insert and sharded counter: {} likes/s, slowest like {} ms", sharded.likesPerSecond(),
+                    sharded.slowestMillis());
+        }
+    }
+
+    private Result likeWithRowLock(String url, int likes) throws Exception {
+        return likeConcurrently(url, likes, (conn, userId) -> {
+            conn.setAutoCommit(false);
+            try (PreparedStatement insert = conn.prepareStatement(INSERT_LIKE);
+                 PreparedStatement increment = conn.prepareStatement(INCREMENT_LIKE_COUNT)) {
+                insert.setLong(1, POST_ID);
+                insert.setLong(2, userId);
+                insert.executeUpdate();
+                increment.setLong(1, POST_ID);
+                increment.executeUpdate();
+            }
+            conn.commit();
+        });
+    }
+
+    private Result likeWithCounter(String url, int likes, PostLikeCounter counter) throws Exception {
+        return likeConcurrently(url, likes, (conn, userId) -> {
+            conn.setAutoCommit(true);
+            try (PreparedStatement insert = conn.prepareStatement(INSERT_LIKE)) {
+                insert.setLong(1, POST_ID);
+                insert.setLong(2, userId);
+                insert.executeUpdate();
+            }
+            counter.liked(POST_ID, userId);
+        });
+    }
+
+    /**
+     * every thread likes the post as its share of the users, all threads start at once
+     */
+    private Result likeConcurrently(String url, int likes, Like like) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicLong slowestNanos = new AtomicLong();
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int first = thread;
+            Callable<Void> liker = () -> {
+                try (Connection conn = DriverManager.getConnection(url, "sa", "")) {
+                    start.await();
+                    for (long userId = first; userId < likes; userId += THREADS) {
+                        long likeStart = System.nanoTime();
+                        like.like(conn, userId);
+                        slowestNanos.accumulateAndGet(System.nanoTime() - likeStart, Math::max);
+                    }
+                }
+                return null;
+            };
+            futures.add(executor.submit(liker));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<Void> future : futures) {
+            future.get();
+        }
+        long nanos = System.nanoTime() - begin;
+        executor.shutdown();
+        return new Result(likes, nanos, slowestNanos.get());
+    }
+
+    private static PostLikeCounter newCounter() {
+        // the benchmark reconciles with SQL itself, the reconciler thread never runs
+        return new PostLikeCounter(Mockito.mock(PostLikeRepository.class), Mockito.mock(TrendingThreads.class),
+                Mockito.mock(PlatformTransactionManager.class), 1_000_000, 3_600_000);
+    }
+
+    private static void reset(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("truncate table post_like");
+            stmt.execute("update post set like_count = 0");
+        }
+    }
+
+    private static long likeCount(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("select like_count from post where id = " + POST_ID)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private interface Like {
+        void like(Connection conn, long userId) throws SQLException;
+    }
+
+    private static final class Result {
+        private final int likes;
+        private final long nanos;
+        private final long slowestNanos;
+
+        private Result(int likes, long nanos, long slowestNanos) {
+            this.likes = likes;
+            this.nanos = nanos;
+            this.slowestNanos = slowestNanos;
+        }
+
+        private long likesPerSecond() {
+            return likes * 1_000_000_000L / nanos;
+        }
+
+        private long slowestMillis() {
+            return slowestNanos / 1_000_000;
+        }
+    }
+}
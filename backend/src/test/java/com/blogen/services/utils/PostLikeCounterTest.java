@@ -0,0 +1,144 @@
+package com.blogen.services.utils;
+
+import com.blogen.repositories.PostLikeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+
+/**
+ * Unit Tests for PostLikeCounter and its LikeSets
+ *
+ * @author Cliff
+ */
+public class PostLikeCounterTest {
+
+    // long enough that the reconciler thread never runs during a test, the tests reconcile by hand
+    private static final long NEVER_MILLIS = 3_600_000;
+
+    @Mock
+    private PostLikeRepository postLikeRepository;
+
+    @Mock
+    private TrendingThreads trendingThreads;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PostLikeCounter counter;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        counter = new PostLikeCounter(postLikeRepository, trendingThreads, transactionManager, 1_000_000, NEVER_MILLIS);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        counter.shutdown();
+    }
+
+    @Test
+    public void should_readWhoLikesPostOnce_when_likesCalledAgain() {
+        given(postLikeRepository.findUserIds(1L)).willReturn(Arrays.asList(2L, 5L));
+
+        assertThat(counter.likes(1L, 5L), is(true));
+        assertThat(counter.likes(1L, 3L), is(false));
+
+        then(postLikeRepository).should(times(1)).findUserIds(1L);
+    }
+
+    @Test
+    public void should_updateLikeSetAndCount_when_likedAndUnliked() {
+        given(postLikeRepository.findUserIds(1L)).willReturn(Collections.singletonList(2L));
+        counter.likes(1L, 2L);
+
+        counter.liked(1L, 3L);
+        counter.unliked(1L, 2L);
+        counter.liked(1L, 4L);
+
+        assertThat(counter.likes(1L, 2L), is(false));
+        assertThat(counter.likes(1L, 3L), is(true));
+        assertThat(counter.pendingLikes(1L), is(1L));
+        assertThat(counter.pendingLikes(2L), is(0L));
+    }
+
+    @Test
+    public void should_recountChangedPosts_when_reconcile() {
+        counter.liked(1L, 3L);
+        counter.liked(2L, 3L);
+        counter.unliked(2L, 4L);
+        counter.liked(5L, 3L);
+
+        counter.reconcile();
+
+        then(postLikeRepository).should().reconcileLikeCounts(Arrays.asList(1L, 5L));
+        then(trendingThreads).should().addLikes(Map.of(1L, 1L, 5L, 1L));
+        assertThat(counter.pendingLikes(1L), is(0L));
+    }
+
+    @Test
+    public void should_keepPendingLikes_when_reconcileFails() {
+        willThrow(new QueryTimeoutException("timeout")).given(postLikeRepository).reconcileLikeCounts(anyCollection());
+        counter.liked(1L, 3L);
+
+        counter.reconcile();
+
+        assertThat(counter.pendingLikes(1L), is(1L));
+        reset(postLikeRepository);
+        counter.reconcile();
+        then(postLikeRepository).should().reconcileLikeCounts(Collections.singletonList(1L));
+    }
+
+    @Test
+    public void should_notReconcile_when_nothingChanged() {
+        counter.reconcile();
+
+        then(postLikeRepository).should(never()).reconcileLikeCounts(anyCollection());
+    }
+
+    @Test
+    public void should_containUsers_when_likeSetChangesPastMergeSize() {
+        List<Long> userIds = new ArrayList<>();
+        for (long userId = 0; userId < 1000; userId += 2) {
+            userIds.add(userId);
+        }
+        PostLikeCounter.LikeSet likeSet = PostLikeCounter.LikeSet.of(userIds);
+
+        // odd users like the post, and every fourth user stops liking it
+        for (long userId = 1; userId < 200; userId += 2) {
+            likeSet = likeSet.with(userId);
+        }
+        for (long userId = 0; userId < 200; userId += 4) {
+            likeSet = likeSet.without(userId);
+        }
+
+        for (long userId = 0; userId < 1000; userId++) {
+            boolean likes = (userId < 200) ? userId % 4 != 0 : userId % 2 == 0;
+            assertThat("user " + userId, likeSet.contains(userId), is(likes));
+        }
+        assertThat(likeSet.size(), is(500 + 100 - 50));
+        assertThat(likeSet.with(1L), is(sameInstance(likeSet)));
+        assertThat(likeSet.without(3L).without(3L).contains(3L), is(false));
+        assertThat(likeSet.without(4L).with(4L).contains(4L), is(true));
+    }
+}
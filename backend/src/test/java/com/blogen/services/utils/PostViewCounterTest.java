@@ -0,0 +1,132 @@
+package com.blogen.services.utils;
+
+import com.blogen.repositories.PostViewRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+
+/**
+ * Unit Tests for PostViewCounter and its PostViewJournal
+ *
+ * @author Cliff
+ */
+public class PostViewCounterTest {
+
+    // long enough that the flusher thread never runs during a test, the tests flush by hand
+    private static final long NEVER_MILLIS = 3_600_000;
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private PostViewRepository postViewRepository;
+
+    @Mock
+    private TrendingThreads trendingThreads;
+
+    private Path journalFile;
+
+    private PostViewCounter counter;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        journalFile = tempDir.resolve("views/post-views.journal");
+        counter = newCounter();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        counter.shutdown();
+    }
+
+    @Test
+    public void should_writeSummedViews_when_flush() {
+        counter.recordView(1L);
+        counter.recordView(1L);
+        counter.recordView(2L);
+
+        counter.flush();
+
+        then(postViewRepository).should().addViews(Map.of(1L, 2L, 2L, 1L));
+        then(trendingThreads).should().addViews(Map.of(1L, 2L, 2L, 1L));
+        assertThat(counter.pendingViews(1L), is(0L));
+    }
+
+    @Test
+    public void should_countPendingViews_untilTheyAreWritten() {
+        counter.recordView(1L);
+        assertThat(counter.pendingViews(1L), is(1L));
+
+        counter.journalViews();
+        counter.recordView(1L);
+
+        assertThat(counter.pendingViews(1L), is(2L));
+        assertThat(counter.pendingViews(2L), is(0L));
+    }
+
+    @Test
+    public void should_notWriteAnything_when_noPostWasViewed() {
+        counter.recordView(1L);
+        counter.flush();
+        reset(postViewRepository);
+
+        counter.flush();
+
+        then(postViewRepository).should(never()).addViews(anyMap());
+    }
+
+    @Test
+    public void should_keepViews_when_databaseWriteFails() {
+        willThrow(new QueryTimeoutException("timeout")).given(postViewRepository).addViews(anyMap());
+        counter.recordView(1L);
+        counter.flush();
+        assertThat(counter.pendingViews(1L), is(1L));
+
+        reset(postViewRepository);
+        counter.recordView(1L);
+        counter.flush();
+
+        then(postViewRepository).should().addViews(Map.of(1L, 2L));
+    }
+
+    @Test
+    public void should_writeJournaledViews_when_restartedAfterCrash() throws Exception {
+        counter.recordView(1L);
+        counter.recordView(3L);
+        counter.journalViews();
+        // a crash in the middle of the next append leaves part of a record
+        Files.write(journalFile, new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+
+        PostViewCounter restarted = newCounter();
+        try {
+            assertThat(restarted.pendingViews(1L), is(1L));
+            restarted.flush();
+            then(postViewRepository).should().addViews(Map.of(1L, 1L, 3L, 1L));
+            assertThat(Files.size(journalFile), is(0L));
+        } finally {
+            restarted.shutdown();
+        }
+    }
+
+    private PostViewCounter newCounter() {
+        return new PostViewCounter(postViewRepository, trendingThreads, journalFile.toString(), NEVER_MILLIS, NEVER_MILLIS);
+    }
+}
@@ -0,0 +1,160 @@
+package com.blogen.services.utils;
+
+import com.blogen.api.v1.model.PostEventDTO;
+import com.blogen.repositories.PostRepository;
+import com.blogen.repositories.PostText;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+
+/**
+ * Unit Tests for RelatedThreadIndex
+ *
+ * @author Cliff
+ */
+public class RelatedThreadIndexTest {
+
+    private static final String GARDEN_TITLE = "Growing tomatoes on a balcony";
+    private static final String GARDEN_TEXT = "My tomato plants grow tall in large pots, but the leaves turn yellow "
+            + "every summer. I water them each morning and feed them compost once a month.";
+    private static final String GARDEN_TEXT2 = "My tomato plants grow tall in large pots, but the fruit splits "
+            + "every summer. I water them each evening and feed them compost once a week.";
+    private static final String ENGINE_TITLE = "Rebuilding a motorcycle engine";
+    private static final String ENGINE_TEXT = "The carburetor leaks fuel after I replaced the gaskets, and the "
+            + "cylinder head bolts keep loosening whenever the bike idles for long.";
+
+    @Mock
+    private PostRepository postRepository;
+
+    private RelatedThreadIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        index = new RelatedThreadIndex(postRepository, 5, 2);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        index.shutdown();
+    }
+
+    @Test
+    public void should_estimateSimilarity_fromSignatures() {
+        int[] garden = index.signature(GARDEN_TITLE, GARDEN_TEXT);
+
+        assertThat(RelatedThreadIndex.similarity(garden, index.signature(GARDEN_TITLE.toUpperCase(), GARDEN_TEXT)),
+                is(1.0));
+        assertThat(RelatedThreadIndex.similarity(garden, index.signature(GARDEN_TITLE, GARDEN_TEXT2)),
+                is(greaterThan(0.4)));
+        assertThat(RelatedThreadIndex.similarity(garden, index.signature(ENGINE_TITLE, ENGINE_TEXT)),
+                is(lessThan(0.2)));
+    }
+
+    @Test
+    public void should_notSign_when_tooFewShingles() {
+        // common and short words are not shingles
+        assertThat(index.signature("Thanks", "this is what I would have said too"), is(nullValue()));
+        assertThat(index.signature(null, "apples pears plums cherries grapes"), is(notNullValue()));
+    }
+
+    @Test
+    public void should_findRelatedPosts_mostSimilarFirst() {
+        index.put(1L, GARDEN_TITLE, GARDEN_TEXT);
+        index.put(2L, ENGINE_TITLE, ENGINE_TEXT);
+        index.put(3L, GARDEN_TITLE, GARDEN_TEXT2);
+        index.put(4L, "Balcony tomatoes", GARDEN_TEXT2);
+
+        assertThat(index.findRelated(3L, 5), contains(4L, 1L));
+        assertThat(index.findRelated(3L, 1), contains(4L));
+        assertThat(index.findRelated(2L, 5), is(empty()));
+        assertThat(index.findRelated(9L, 5), is(empty()));
+    }
+
+    @Test
+    public void should_forgetPost_when_deletedOrUpdatedToTooFewShingles() {
+        index.put(1L, GARDEN_TITLE, GARDEN_TEXT);
+        index.put(2L, GARDEN_TITLE, GARDEN_TEXT2);
+        index.put(3L, GARDEN_TITLE, GARDEN_TEXT2);
+
+        index.onPostEvent(PostEventDTO.builder().type(PostEventDTO.POST_DELETED).postId(1L).build());
+        index.put(2L, "Never mind", "");
+
+        assertThat(index.findRelated(3L, 5), is(empty()));
+    }
+
+    @Test
+    public void should_indexEveryParentPost_when_load() {
+        // more posts than one signature task computes by itself, so the job is split
+        List<PostText> posts = new ArrayList<>();
+        for (long id = 1; id <= 80; id++) {
+            posts.add(post(id, GARDEN_TITLE, GARDEN_TEXT + " variety" + id));
+            posts.add(post(id + 100, ENGINE_TITLE, ENGINE_TEXT + " model" + id));
+        }
+        posts.add(post(500L, "Hello", "anyone here"));
+        givenParentTexts(posts);
+
+        index.load();
+
+        List<Long> related = index.findRelated(1L, 100);
+        assertThat(related, hasSize(79));
+        assertThat(related, everyItem(is(both(greaterThan(1L)).and(lessThanOrEqualTo(80L)))));
+        assertThat(index.findRelated(101L, 100), hasSize(79));
+        assertThat(index.findRelated(500L, 100), is(empty()));
+    }
+
+    @Test
+    public void should_keepNewerSignature_when_loadReadsOlderOne() {
+        givenParentTexts(List.of(post(1L, GARDEN_TITLE, GARDEN_TEXT), post(3L, ENGINE_TITLE, ENGINE_TEXT)));
+        index.put(1L, ENGINE_TITLE, ENGINE_TEXT);
+
+        index.load();
+
+        assertThat(index.findRelated(3L, 5), contains(1L));
+    }
+
+    private void givenParentTexts(List<PostText> posts) {
+        given(postRepository.findParentTextsBetween(anyLong(), anyLong(), any(Pageable.class)))
+                .willAnswer(invocation -> {
+                    long after = invocation.getArgument(0);
+                    long before = invocation.getArgument(1);
+                    Pageable pageable = invocation.getArgument(2);
+                    return posts.stream()
+                            .filter(post -> post.getId() > after && post.getId() < before)
+                            .limit(pageable.getPageSize())
+                            .collect(Collectors.toList());
+                });
+    }
+
+    private static PostText post(Long id, String title, String text) {
+        return new PostText() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getTitle() {
+                return title;
+            }
+
+            @Override
+            public String getText() {
+                return text;
+            }
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package com.blogen.services.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Unit Tests for TimeOrderedUuid
+ *
+ * @author Cliff
+ */
+public class TimeOrderedUuidTest {
+
+    @Test
+    public void should_setVersionAndVariant_when_next() {
+        UUID uuid = TimeOrderedUuid.next();
+
+        assertThat(uuid.version(), is(7));
+        assertThat(uuid.variant(), is(2));
+    }
+
+    @Test
+    public void should_encodeTimestamp_when_fromEpochMilli() {
+        long epochMilli = 1483265472000L;
+
+        UUID uuid = TimeOrderedUuid.fromEpochMilli(epochMilli);
+
+        assertThat(TimeOrderedUuid.epochMilli(uuid), is(epochMilli));
+        assertThat(uuid.toString(), startsWith("01595982-f600-7"));
+    }
+
+    @Test
+    public void should_sortByCreationTime_when_timestampsDiffer() {
+        List<UUID> uuids = new ArrayList<>();
+        for (long millis = 1_000L; millis < 100_000L; millis += 1_000L) {
+            uuids.add(TimeOrderedUuid.fromEpochMilli(millis));
+        }
+
+        List<UUID> sorted = new ArrayList<>(uuids);
+        sorted.sort(null);
+
+        assertThat(sorted, is(uuids));
+    }
+
+    @Test
+    public void should_generateDistinctUuids_when_timestampsAreEqual() {
+        UUID first = TimeOrderedUuid.fromEpochMilli(42L);
+        UUID second = TimeOrderedUuid.fromEpochMilli(42L);
+
+        assertThat(first, is(not(second)));
+    }
+}
@@ -0,0 +1,110 @@
+package com.blogen.services.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Unit Tests for TimelineStore
+ *
+ * @author Cliff
+ */
+public class TimelineStoreTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2017, 1, 1, 12, 0);
+    private static final Long USER_ID = 1L;
+    private static final Long AUTHOR_ID = 2L;
+
+    private TimelineStore store;
+
+    @BeforeEach
+    public void setUp() {
+        store = new TimelineStore(3, 100);
+    }
+
+    @Test
+    public void should_addPostInOrderAndDropOldest_when_timelineIsFull() {
+        store.put(USER_ID, Set.of(AUTHOR_ID), Set.of(), entries(30L, 20L, 10L), store.followGeneration(),
+                store.postSequence());
+
+        store.addPost(AUTHOR_ID, List.of(USER_ID), post(25L));
+
+        assertThat(ids(store.get(USER_ID).getEntries()), contains(30L, 25L, 20L));
+    }
+
+    @Test
+    public void should_returnPostsAfterCursor_when_page() {
+        store.put(USER_ID, Set.of(AUTHOR_ID), Set.of(), entries(30L, 20L, 10L), store.followGeneration(),
+                store.postSequence());
+        TimelineStore.Timeline timeline = store.get(USER_ID);
+
+        assertThat(ids(timeline.page(null, 2)), contains(30L, 20L));
+        assertThat(ids(timeline.page(post(30L), 2)), contains(20L, 10L));
+        // the cursor of a post that is no longer in the timeline
+        assertThat(ids(timeline.page(post(25L), 5)), contains(20L, 10L));
+    }
+
+    @Test
+    public void should_addPostsFannedOutWhileBuilding_when_put() {
+        long followGeneration = store.followGeneration();
+        long postSequence = store.postSequence();
+        // published after the posts were read from the database, but before the timeline was stored
+        store.addPost(AUTHOR_ID, List.of(USER_ID), post(40L));
+        store.addPost(3L, List.of(USER_ID), post(50L));
+
+        TimelineStore.Timeline timeline = store.put(USER_ID, Set.of(AUTHOR_ID), Set.of(3L), entries(30L),
+                followGeneration, postSequence);
+
+        // the other author is merged on read, so its posts are not added to the timeline
+        assertThat(ids(timeline.getEntries()), contains(40L, 30L));
+        assertThat(store.get(USER_ID), is(sameInstance(timeline)));
+    }
+
+    @Test
+    public void should_notStoreTimeline_when_followsInvalidatedWhileBuilding() {
+        long followGeneration = store.followGeneration();
+        store.invalidate(USER_ID);
+
+        TimelineStore.Timeline timeline = store.put(USER_ID, Set.of(AUTHOR_ID), Set.of(), entries(30L),
+                followGeneration, store.postSequence());
+
+        assertThat(ids(timeline.getEntries()), contains(30L));
+        assertThat(store.get(USER_ID), is(nullValue()));
+    }
+
+    @Test
+    public void should_removePost_when_removePost() {
+        store.put(USER_ID, Set.of(AUTHOR_ID), Set.of(), entries(30L, 20L), store.followGeneration(),
+                store.postSequence());
+
+        store.removePost(List.of(USER_ID), 30L);
+
+        assertThat(ids(store.get(USER_ID).getEntries()), contains(20L));
+    }
+
+    // posts are created a minute apart, in the order of their ids
+    private static KeysetCursor post(Long id) {
+        return new KeysetCursor(NOON.plusMinutes(id), id);
+    }
+
+    private static List<KeysetCursor> entries(Long... ids) {
+        List<KeysetCursor> entries = new ArrayList<>();
+        for (Long id : ids) {
+            entries.add(post(id));
+        }
+        return entries;
+    }
+
+    private static List<Long> ids(List<KeysetCursor> entries) {
+        List<Long> ids = new ArrayList<>();
+        entries.forEach(entry -> ids.add(entry.getId()));
+        return ids;
+    }
+}
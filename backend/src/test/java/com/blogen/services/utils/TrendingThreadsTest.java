@@ -0,0 +1,215 @@
+package com.blogen.services.utils;
+
+import com.blogen.api.v1.model.PostEventDTO;
+import com.blogen.repositories.PostRepository;
+import com.blogen.repositories.PostThreadKey;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+
+/**
+ * Unit Tests for TrendingThreads
+ *
+ * @author Cliff
+ */
+public class TrendingThreadsTest {
+
+    // long enough that the snapshotter thread never runs during a test, the tests snapshot by hand
+    private static final long NEVER_MILLIS = 3_600_000;
+
+    private static final long HALF_LIFE_MILLIS = 3_600_000;
+
+    private static final int SIZE = 2;
+
+    private static final Long CAT1_ID = 1L;
+    private static final Long CAT2_ID = 2L;
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private PostRepository postRepository;
+
+    private TrendingThreads trending;
+
+    private long now;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        trending = newTrending();
+        now = System.currentTimeMillis();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        trending.shutdown();
+    }
+
+    @Test
+    public void should_rankThreadsByDecayedActivity() {
+        add(1L, CAT1_ID, 10, now - HALF_LIFE_MILLIS);
+        add(2L, CAT1_ID, 10, now);
+        assertThat(trending.getTrending(CAT1_ID), contains(2L, 1L));
+
+        // 15 an hour ago decays to 7.5, 4 more now make 11.5, which beats 10
+        add(1L, CAT1_ID, 5, now - HALF_LIFE_MILLIS);
+        add(1L, CAT1_ID, 4, now);
+
+        assertThat(trending.getTrending(CAT1_ID), contains(1L, 2L));
+        assertThat(trending.getTrending(TrendingThreads.ALL_CATEGORIES), contains(1L, 2L));
+    }
+
+    @Test
+    public void should_keepHighestThreadsOfEachCategory_when_moreThreadsThanSize() {
+        add(1L, CAT1_ID, 3, now);
+        add(2L, CAT1_ID, 1, now);
+        add(3L, CAT1_ID, 2, now);
+        add(4L, CAT2_ID, 5, now);
+
+        assertThat(trending.getTrending(CAT1_ID), contains(1L, 3L));
+        assertThat(trending.getTrending(CAT2_ID), contains(4L));
+        assertThat(trending.getTrending(TrendingThreads.ALL_CATEGORIES), contains(4L, 1L));
+        assertThat(trending.getTrending(3L), is(empty()));
+    }
+
+    @Test
+    public void should_moveNextThreadUp_when_rankedThreadRemoved() {
+        add(1L, CAT1_ID, 3, now);
+        add(2L, CAT1_ID, 2, now);
+        add(3L, CAT1_ID, 1, now);
+
+        trending.remove(1L);
+
+        assertThat(trending.getTrending(CAT1_ID), contains(2L, 3L));
+    }
+
+    @Test
+    public void should_addRepliesAndForgetDeletedThreads_when_postEvents() {
+        LocalDateTime created = LocalDateTime.now();
+        trending.onPostEvent(event(PostEventDTO.POST_CREATED, 1L, null, created));
+        trending.onPostEvent(event(PostEventDTO.POST_CREATED, 2L, null, created));
+        trending.onPostEvent(event(PostEventDTO.REPLY_CREATED, 3L, 2L, created));
+        assertThat(trending.getTrending(CAT1_ID), contains(2L, 1L));
+
+        // a deleted reply leaves its thread ranked
+        trending.onPostEvent(event(PostEventDTO.POST_DELETED, 3L, 2L, created));
+        trending.onPostEvent(event(PostEventDTO.POST_DELETED, 1L, null, created));
+
+        assertThat(trending.getTrending(CAT1_ID), contains(2L));
+    }
+
+    @Test
+    public void should_countViewsOfRepliesForTheirThread_when_addViews() {
+        given(postRepository.findThreadKeys(anyCollection()))
+                .willReturn(Arrays.asList(threadKey(6L, 5L, CAT1_ID), threadKey(7L, null, CAT2_ID)));
+
+        trending.addViews(Map.of(6L, 3L, 7L, 2L, 8L, 1L));
+
+        assertThat(trending.getTrending(TrendingThreads.ALL_CATEGORIES), contains(5L, 7L));
+        assertThat(trending.getTrending(CAT1_ID), contains(5L));
+    }
+
+    @Test
+    public void should_notLookUpRankedThreads_when_addLikes() {
+        add(1L, CAT1_ID, 1, now);
+        add(2L, CAT1_ID, 10, now);
+
+        trending.addLikes(Map.of(1L, 2L));
+
+        then(postRepository).should(never()).findThreadKeys(anyCollection());
+        assertThat(trending.getTrending(CAT1_ID), contains(1L, 2L));
+    }
+
+    @Test
+    public void should_keepRankings_when_lookUpFails() {
+        add(1L, CAT1_ID, 1, now);
+        given(postRepository.findThreadKeys(anyCollection())).willThrow(new IllegalStateException("down"));
+
+        trending.addViews(Map.of(2L, 100L));
+
+        assertThat(trending.getTrending(CAT1_ID), contains(1L));
+    }
+
+    @Test
+    public void should_forgetThreads_when_scoreDecaysBelowMinimum() {
+        add(1L, CAT1_ID, 1, now);
+        add(2L, CAT1_ID, 1, now + 10 * HALF_LIFE_MILLIS);
+
+        // 1 / 2^2 is still above the minimum, 1 / 2^12 is not
+        trending.prune(now + 12 * HALF_LIFE_MILLIS);
+
+        assertThat(trending.getTrending(CAT1_ID), contains(2L));
+    }
+
+    @Test
+    public void should_restoreRankings_when_restartedFromSnapshot() throws Exception {
+        add(1L, CAT1_ID, 1, now);
+        add(2L, CAT1_ID, 2, now);
+        add(3L, CAT2_ID, 3, now);
+
+        trending.snapshot();
+        TrendingThreads restarted = newTrending();
+        try {
+            assertThat(restarted.getTrending(CAT1_ID), contains(2L, 1L));
+            assertThat(restarted.getTrending(TrendingThreads.ALL_CATEGORIES), contains(3L, 2L));
+
+            // new activity adds to the restored scores
+            restarted.add(Map.of(1L, new TrendingThreads.Activity(CAT1_ID, 1.5)), now);
+            assertThat(restarted.getTrending(CAT1_ID), contains(1L, 2L));
+        } finally {
+            restarted.shutdown();
+        }
+    }
+
+    private TrendingThreads newTrending() {
+        return new TrendingThreads(postRepository, SIZE, 1, tempDir.resolve("trending.snapshot").toString(),
+                NEVER_MILLIS);
+    }
+
+    private void add(Long threadId, Long categoryId, double weight, long epochMillis) {
+        trending.add(Collections.singletonMap(threadId, new TrendingThreads.Activity(categoryId, weight)),
+                epochMillis);
+    }
+
+    private static PostEventDTO event(String type, Long postId, Long parentPostId, LocalDateTime occurred) {
+        return PostEventDTO.builder().type(type).postId(postId).parentPostId(parentPostId).categoryId(CAT1_ID)
+                .userId(1L).occurred(occurred).build();
+    }
+
+    private static PostThreadKey threadKey(Long id, Long parentId, Long categoryId) {
+        return new PostThreadKey() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Long getParentId() {
+                return parentId;
+            }
+
+            @Override
+            public Long getCategoryId() {
+                return categoryId;
+            }
+        };
+    }
+}
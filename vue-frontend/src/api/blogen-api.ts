@@ -78,9 +78,44 @@ export async function getPostsByUserId(id: string, pageNum: number, pageLimit: n
     params: {
       page: pageNum,
       limit: pageLimit,
-      category: categoryId
+      category: categoryId,
+      normalized: true
     }
   })
+    .then(res => denormalizePostList(res))
+    .catch(error => {
+      console.error(error);
+      throw mapAxiosErrorToApiError(error);
+    });
+}
+
+/**
+ * call the REST API to fetch a single post by its primary id. Unlike the post lists, the returned post
+ * contains the full text of the post.
+ * @param id {string} - the primary id of the post
+ * @param replies {number} - optional, the maximum number of replies to include if the post is a parent post.
+ * All replies are included when this is not given
+ * @returns {Promise<AxiosResponse<any>>}
+ */
+export async function getPostById(id: string, replies?: number): Promise<any> {
+  return axios.get(`/api/v1/posts/${id}`, { params: { replies } })
+    .then(res => res)
+    .catch(error => {
+      console.error(error);
+      throw mapAxiosErrorToApiError(error);
+    });
+}
+
+/**
+ * call the REST API to fetch a slice of the replies to a parent post, oldest first
+ * @param id {string} - the primary id of the parent post
+ * @param after {string | null} - the nextCursor of the previous slice, or null for the first slice
+ * @param limit {number} - the maximum number of replies to fetch
+ * @returns {Promise<AxiosResponse<any>>} the response data contains the replies in 'posts' and the cursor of
+ * the next slice in 'nextCursor'
+ */
+export async function getPostChildren(id: string, after: string | null, limit: number): Promise<any> {
+  return axios.get(`/api/v1/posts/${id}/children`, { params: { after, limit } })
     .then(res => res)
     .catch(error => {
       console.error(error);
@@ -146,10 +181,11 @@ export async function getPostsByCategory(pageNum: number, pageLimit: number, cat
     params: {
       page: pageNum,
       limit: pageLimit,
-      category: categoryId
+      category: categoryId,
+      normalized: true
     }
   })
-    .then(res => res)
+    .then(res => denormalizePostList(res))
     .catch(error => {
       console.error(error);
       throw mapAxiosErrorToApiError(error);
@@ -212,6 +248,30 @@ export async function logout(): Promise<any> {
     });
 }
 
+/**
+ * post lists are fetched in their normalized form, where each post refers to its user and category by id and
+ * every user and category is sent once. This puts the user and category objects back into each post (and its
+ * children), so the rest of the app can use the posts as if they had been fetched in full
+ *
+ * @param res {AxiosResponse<any>} - a response containing a normalized post list
+ * @returns {AxiosResponse<any>} the same response, with a post list in its data
+ */
+function denormalizePostList(res: any): any {
+  const { posts, users, categories, pageInfo } = res.data;
+  const denormalize = (post: any): any => {
+    const { userId, categoryId, lastReplierId, children, ...rest } = post;
+    return {
+      ...rest,
+      user: users[userId],
+      category: categories[categoryId],
+      lastReplier: lastReplierId != null ? users[lastReplierId] : null,
+      children: (children || []).map(denormalize)
+    };
+  };
+  res.data = { posts: posts.map(denormalize), pageInfo };
+  return res;
+}
+
 /**
  * map a Blogen REST Api error JSON object to an ApiError object:
  *
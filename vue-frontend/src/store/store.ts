@@ -31,15 +31,25 @@ interface User {
   roles: string[];
 }
 
+interface LatestThread {
+  id: number;
+  title: string;
+  created: string;
+  postUrl: string;
+}
+
 interface Category {
   id: number;
   name: string;
   categoryUrl: string;
+  postCount?: number;
+  latestThread?: LatestThread | null;
 }
 
 interface Post {
   id: number;
-  text: string;
+  text: string | null;
+  excerpt: string;
   title: string;
   created: string;
   imageUrl: string;
@@ -48,6 +58,9 @@ interface Post {
   postUrl: string;
   parentPostUrl: string | null;
   children: Post[];
+  replyCount: number;
+  lastReplyAt: string | null;
+  lastReplier: object | null;
 }
 
 interface PageInfo {
@@ -170,7 +183,8 @@ const store: StoreOptions<State> = {
       state.categories.splice(index, 1, updatedCategory);
     },
     'SET_POSTS'(state, postsArr: Post[]) {
-      state.posts = postsArr;
+      // post lists carry the reply summary of each thread, not its replies
+      state.posts = postsArr.map(post => ({ ...post, children: post.children || [] }));
     },
     'PREPEND_POST'(state, post: Post) {
       state.posts.splice(0, 0, post);